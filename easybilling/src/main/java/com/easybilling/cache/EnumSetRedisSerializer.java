@@ -0,0 +1,56 @@
+package com.easybilling.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Writes a set of enum constants as their comma-separated names. Names rather than ordinals, so
+ * appending or reordering constants does not change what a cached value means; renaming or
+ * removing one needs a cache schema version bump.
+ */
+public class EnumSetRedisSerializer<E extends Enum<E>> implements RedisSerializer<Set<E>> {
+
+    private final Class<E> type;
+
+    public EnumSetRedisSerializer(Class<E> type) {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] serialize(Set<E> value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder names = new StringBuilder(value.size() * 16);
+        for (E constant : value) {
+            if (!names.isEmpty()) {
+                names.append(',');
+            }
+            names.append(constant.name());
+        }
+        return names.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public Set<E> deserialize(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        EnumSet<E> set = EnumSet.noneOf(type);
+        if (bytes.length == 0) {
+            return set;
+        }
+        for (String name : new String(bytes, StandardCharsets.US_ASCII).split(",")) {
+            try {
+                set.add(Enum.valueOf(type, name));
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Unknown " + type.getSimpleName() + " constant: " + name, e);
+            }
+        }
+        return set;
+    }
+}
@@ -0,0 +1,169 @@
+package com.easybilling.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.internal.SimpleCacheKeysFactory;
+import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Hibernate second-level cache kept in each node's heap (hibernate.cache.region.factory_class).
+ * Entity and collection regions hold entries for hibernate.cache.local.ttl_seconds, query results
+ * for hibernate.cache.local.query_ttl_seconds, each region up to
+ * hibernate.cache.local.max_entries.
+ * <p>
+ * Nodes stay coherent over the cache invalidation channel of {@link TwoLevelCacheManager}, once
+ * {@link #attach} has connected it. An entry evicted here (entity updated or deleted, region
+ * cleared) is evicted on the other nodes too. When a table that cached queries read from changes,
+ * the other nodes mark it changed, so their cached results for those queries are not used either.
+ */
+@Slf4j
+public class LocalRegionFactory extends RegionFactoryTemplate {
+
+    public static final String MAX_ENTRIES = "hibernate.cache.local.max_entries";
+    public static final String TTL_SECONDS = "hibernate.cache.local.ttl_seconds";
+    public static final String QUERY_TTL_SECONDS = "hibernate.cache.local.query_ttl_seconds";
+
+    private static final long serialVersionUID = 1L;
+    private static final String CHANNEL_PREFIX = "hibernate:";
+    private static final Set<LocalRegionFactory> ACTIVE = new CopyOnWriteArraySet<>();
+    private static volatile TwoLevelCacheManager broadcaster;
+
+    private final Map<String, LocalStorageAccess> regions = new ConcurrentHashMap<>();
+    private int maxEntries;
+    private long ttlMillis;
+    private long queryTtlMillis;
+
+    /**
+     * Connect every local region factory, current and future, to the invalidation channel.
+     */
+    public static void attach(TwoLevelCacheManager cacheManager) {
+        broadcaster = cacheManager;
+        cacheManager.addInvalidationListener((cacheName, key) -> {
+            if (cacheName.startsWith(CHANNEL_PREFIX)) {
+                String regionName = cacheName.substring(CHANNEL_PREFIX.length());
+                ACTIVE.forEach(factory -> factory.applyRemote(regionName, key));
+            }
+        });
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        maxEntries = ConfigurationHelper.getInt(MAX_ENTRIES, configValues, 10_000);
+        ttlMillis = ConfigurationHelper.getLong(TTL_SECONDS, configValues, 3600) * 1000;
+        queryTtlMillis = ConfigurationHelper.getLong(QUERY_TTL_SECONDS, configValues, 600) * 1000;
+        ACTIVE.add(this);
+        log.info("Local second-level cache started ({} entries per region, TTL {}s, query TTL {}s)",
+                maxEntries, ttlMillis / 1000, queryTtlMillis / 1000);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        ACTIVE.remove(this);
+        regions.values().forEach(StorageAccess::release);
+        regions.clear();
+    }
+
+    /**
+     * Entity and collection regions are per class or role, so the identifier alone is the key.
+     */
+    @Override
+    protected CacheKeysFactory getImplicitCacheKeysFactory() {
+        return SimpleCacheKeysFactory.INSTANCE;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(
+            DomainDataRegionConfig regionConfig, DomainDataRegionBuildingContext buildingContext) {
+        return register(new LocalStorageAccess(regionConfig.getRegionName(), maxEntries, ttlMillis,
+                broadcastFor(regionConfig.getRegionName())));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory) {
+        return register(new LocalStorageAccess(regionName, maxEntries, queryTtlMillis, broadcastFor(regionName)));
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(
+            String regionName, SessionFactoryImplementor sessionFactory) {
+        return register(new TimestampsStorageAccess(regionName, broadcastFor(regionName)));
+    }
+
+    private LocalStorageAccess register(LocalStorageAccess storage) {
+        regions.put(storage.getRegionName(), storage);
+        return storage;
+    }
+
+    private static Consumer<String> broadcastFor(String regionName) {
+        return key -> {
+            TwoLevelCacheManager manager = broadcaster;
+            if (manager != null) {
+                manager.publishInvalidation(CHANNEL_PREFIX + regionName, key);
+            }
+        };
+    }
+
+    private void applyRemote(String regionName, String key) {
+        LocalStorageAccess storage = regions.get(regionName);
+        if (storage instanceof TimestampsStorageAccess timestamps && key != null) {
+            timestamps.markChanged(key, nextTimestamp());
+        } else if (storage instanceof TimestampsStorageAccess) {
+            // Without change times every cached query result would look current
+            regions.values().stream()
+                    .filter(region -> !(region instanceof TimestampsStorageAccess))
+                    .forEach(region -> region.evictLocal(null));
+        } else if (storage != null) {
+            storage.evictLocal(key);
+        }
+    }
+
+    /**
+     * When each table was last changed, which decides whether a cached query result is current.
+     * Entries never expire; a change is broadcast only for tables some cached query on this node
+     * has read, so writes to tables no query cache depends on cost no Redis traffic.
+     */
+    private static final class TimestampsStorageAccess extends LocalStorageAccess {
+
+        private final Set<String> queriedSpaces = ConcurrentHashMap.newKeySet();
+        private final Consumer<String> broadcast;
+
+        TimestampsStorageAccess(String regionName, Consumer<String> broadcast) {
+            super(regionName, Integer.MAX_VALUE, 0, broadcast);
+            this.broadcast = broadcast;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            queriedSpaces.add(String.valueOf(key));
+            return super.getFromCache(key, session);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            super.putIntoCache(key, value, session);
+            String space = String.valueOf(key);
+            if (queriedSpaces.contains(space)) {
+                broadcast.accept(space);
+            }
+        }
+
+        void markChanged(String space, long timestamp) {
+            putLocal(space, timestamp);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.easybilling.cache;
+
+import com.easybilling.entity.TenantAware;
+import com.easybilling.filter.TenantFilterJpaDialect;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.LoadQueryInfluencers;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * One second-level cache region held in this node's heap. Reads take no lock; entries expire
+ * {@code ttlMillis} after they were put, and once the region is over {@code maxEntries} a put
+ * drops arbitrary entries to make room. Evictions made here are handed to {@code broadcast} (key
+ * as text, null for the whole region) so other nodes drop the same entries.
+ * <p>
+ * Entries are keyed by id alone, so a cached {@link TenantAware} entity is only returned while the
+ * session's tenant filter admits it (its tenant, or no tenant for shared rows); otherwise the read
+ * is a miss and the filtered load from the database decides.
+ */
+class LocalStorageAccess implements DomainDataStorageAccess {
+
+    private final String regionName;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Consumer<String> broadcast;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Per entity name: position of tenantId in the cached state, -1 when not tenant-aware
+    private final Map<String, Integer> tenantPositions = new ConcurrentHashMap<>();
+
+    LocalStorageAccess(String regionName, int maxEntries, long ttlMillis, Consumer<String> broadcast) {
+        this.regionName = regionName;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.broadcast = broadcast;
+    }
+
+    String getRegionName() {
+        return regionName;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        String k = String.valueOf(key);
+        Entry entry = entries.get(k);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(k, entry);
+            return null;
+        }
+        if (entry.value() instanceof CacheEntry cached && !visibleToTenant(cached, session)) {
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        putLocal(String.valueOf(key), value);
+    }
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+        evictData(key);
+    }
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+        evictData();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return entries.containsKey(String.valueOf(key));
+    }
+
+    @Override
+    public void evictData() {
+        entries.clear();
+        broadcast.accept(null);
+    }
+
+    @Override
+    public void evictData(Object key) {
+        String k = String.valueOf(key);
+        entries.remove(k);
+        broadcast.accept(k);
+    }
+
+    @Override
+    public void release() {
+        entries.clear();
+    }
+
+    /**
+     * Apply an eviction made on another node, without broadcasting it again.
+     */
+    void evictLocal(String key) {
+        if (key == null) {
+            entries.clear();
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    void putLocal(String key, Object value) {
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        entries.put(key, new Entry(value, expiresAt));
+        if (entries.size() > maxEntries) {
+            Iterator<String> keys = entries.keySet().iterator();
+            for (int excess = entries.size() - maxEntries; excess > 0 && keys.hasNext(); excess--) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    private boolean visibleToTenant(CacheEntry cached, SharedSessionContractImplementor session) {
+        LoadQueryInfluencers influencers = session != null ? session.getLoadQueryInfluencers() : null;
+        if (influencers == null || influencers.getEnabledFilter(TenantFilterJpaDialect.FILTER_NAME) == null) {
+            return true;
+        }
+        int position = tenantPositions.computeIfAbsent(cached.getSubclass(), entityName -> {
+            EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(entityName);
+            AttributeMapping tenant = TenantAware.class.isAssignableFrom(persister.getMappedClass())
+                    ? persister.findAttributeMapping("tenantId") : null;
+            return tenant != null ? tenant.getStateArrayPosition() : -1;
+        });
+        if (position < 0) {
+            return true;
+        }
+        Object tenantId = cached.getDisassembledState()[position];
+        return tenantId == null || tenantId.equals(influencers.getFilterParameterValue(
+                TenantFilterJpaDialect.FILTER_NAME + "." + TenantFilterJpaDialect.TENANT_PARAMETER));
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.easybilling.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a cache's payload sizes and codec times, and refuses values over the cache's size limit
+ * (the put fails and is logged by the cache error handler, so the value is simply not cached).
+ */
+public class MeteredRedisSerializer<T> implements RedisSerializer<T> {
+
+    private final String cacheName;
+    private final RedisSerializer<T> delegate;
+    private final int maxBytes;
+    private final DistributionSummary payloadBytes;
+    private final Timer serializeTime;
+    private final Timer deserializeTime;
+
+    public MeteredRedisSerializer(String cacheName, RedisSerializer<T> delegate, int maxBytes,
+                                  MeterRegistry meterRegistry) {
+        this.cacheName = cacheName;
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+        this.payloadBytes = DistributionSummary.builder("cache.payload.bytes")
+                .tag("cache", cacheName)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.serializeTime = meterRegistry.timer("cache.codec.time", "cache", cacheName, "op", "serialize");
+        this.deserializeTime = meterRegistry.timer("cache.codec.time", "cache", cacheName, "op", "deserialize");
+    }
+
+    @Override
+    public byte[] serialize(T value) {
+        long start = System.nanoTime();
+        byte[] bytes = delegate.serialize(value);
+        serializeTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (bytes != null) {
+            payloadBytes.record(bytes.length);
+            if (bytes.length > maxBytes) {
+                throw new SerializationException("Value for cache " + cacheName + " is " + bytes.length
+                        + " bytes, over the " + maxBytes + " byte limit");
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) {
+        long start = System.nanoTime();
+        T value = delegate.deserialize(bytes);
+        deserializeTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+}
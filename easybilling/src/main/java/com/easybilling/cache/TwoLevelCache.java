@@ -0,0 +1,178 @@
+package com.easybilling.cache;
+
+import com.easybilling.util.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A cache read through a bounded local L1 in front of a shared L2 (Redis). L1 entries live for a
+ * short TTL; evictions clear both tiers and are broadcast so other nodes drop their L1 copy. When
+ * L2 fails or its circuit is open, reads fall back to L1, expired entries included, and writes go
+ * to L1 only. Keys are compared by their string form, which is what invalidations carry.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    // Marks an L2 read that could not be made, as opposed to a miss
+    private static final ValueWrapper UNAVAILABLE = new SimpleValueWrapper(null);
+
+    private final String name;
+    private final Cache l2;
+    private final ExpiringLruCache<String, ValueWrapper> l1;
+    private final TwoLevelCacheManager manager;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter staleHits;
+
+    TwoLevelCache(String name, Cache l2, int maxEntries, long ttlMillis, TwoLevelCacheManager manager,
+                  MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l2 = l2;
+        this.l1 = new ExpiringLruCache<>(maxEntries, ttlMillis);
+        this.manager = manager;
+        this.l1Hits = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "hit");
+        this.l1Misses = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "miss");
+        this.l2Hits = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l2", "result", "hit");
+        this.l2Misses = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l2", "result", "miss");
+        this.staleHits = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "stale");
+        meterRegistry.gauge("cache.l1.size", Tags.of("cache", name), l1, ExpiringLruCache::size);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = key.toString();
+        ValueWrapper local = l1.getFresh(localKey, System.currentTimeMillis());
+        if (local != null) {
+            l1Hits.increment();
+            return local;
+        }
+        l1Misses.increment();
+
+        ValueWrapper remote = l2Get(key);
+        if (remote == UNAVAILABLE) {
+            ValueWrapper stale = l1.getStale(localKey);
+            if (stale != null) {
+                staleHits.increment();
+            }
+            return stale;
+        }
+        if (remote == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        ValueWrapper wrapper = new SimpleValueWrapper(remote.get());
+        l1.put(localKey, wrapper, System.currentTimeMillis());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (manager.admitL2()) {
+            try {
+                l2.put(key, value);
+                manager.l2Succeeded();
+            } catch (RuntimeException e) {
+                manager.l2Failed(name, e);
+            }
+        }
+        l1.put(key.toString(), new SimpleValueWrapper(value), System.currentTimeMillis());
+    }
+
+    @Override
+    public void evict(Object key) {
+        l1.remove(key.toString());
+        if (manager.admitL2()) {
+            try {
+                l2.evict(key);
+                manager.l2Succeeded();
+            } catch (RuntimeException e) {
+                manager.l2Failed(name, e);
+            }
+        }
+        manager.publishInvalidation(name, key.toString());
+    }
+
+    @Override
+    public void clear() {
+        l1.clear();
+        if (manager.admitL2()) {
+            try {
+                l2.clear();
+                manager.l2Succeeded();
+            } catch (RuntimeException e) {
+                manager.l2Failed(name, e);
+            }
+        }
+        manager.publishInvalidation(name, null);
+    }
+
+    void evictLocal(String key) {
+        l1.remove(key);
+    }
+
+    void clearLocal() {
+        l1.clear();
+    }
+
+    private ValueWrapper l2Get(Object key) {
+        if (!manager.admitL2()) {
+            return UNAVAILABLE;
+        }
+        try {
+            ValueWrapper value = l2.get(key);
+            manager.l2Succeeded();
+            return value;
+        } catch (RuntimeException e) {
+            manager.l2Failed(name, e);
+            return UNAVAILABLE;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.easybilling.cache;
+
+import com.easybilling.util.CircuitBreaker;
+import com.easybilling.util.NodeIdentity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache manager that puts a {@link TwoLevelCache} in front of the named caches of an L2 manager
+ * and passes every other cache straight through. Evictions are broadcast on a Redis pub/sub
+ * channel as "node, cache, key" (an empty key clears the cache); each node drops the entry from
+ * its L1 when it hears another node's message. All L2 and pub/sub traffic shares one circuit
+ * breaker, so an unreachable Redis costs one timeout per cool-down rather than one per read.
+ * Puts and evictions made inside a transaction are applied after it commits, so no node can
+ * reload a value the transaction is about to change.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final String SEPARATOR = "\n";
+
+    private final CacheManager l2Manager;
+    private final Set<String> twoLevelNames;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker breaker;
+    private final Counter l2Errors;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Cache> decorated = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public TwoLevelCacheManager(CacheManager l2Manager, Collection<String> twoLevelNames, int maxEntries,
+                                Duration ttl, StringRedisTemplate redisTemplate, String channel,
+                                CircuitBreaker breaker, MeterRegistry meterRegistry) {
+        this.l2Manager = l2Manager;
+        this.twoLevelNames = Set.copyOf(twoLevelNames);
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.meterRegistry = meterRegistry;
+        this.breaker = breaker;
+        this.l2Errors = meterRegistry.counter("cache.l2.errors");
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache l2 = l2Manager.getCache(name);
+        if (l2 == null || !twoLevelNames.contains(name)) {
+            return l2;
+        }
+        return decorated.computeIfAbsent(name, n -> new TransactionAwareCacheDecorator(
+                caches.computeIfAbsent(n, c -> new TwoLevelCache(c, l2, maxEntries, ttlMillis, this, meterRegistry))));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(l2Manager.getCacheNames());
+        names.addAll(caches.keySet());
+        return names;
+    }
+
+    /**
+     * Register a callback for evictions made on other nodes, given the cache name and the key
+     * (null when the whole cache was cleared). Lets state derived from a cache follow it.
+     */
+    public void addInvalidationListener(BiConsumer<String, String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Drop another node's evicted entry from this node's L1.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length < 3 || NodeIdentity.NODE_ID.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        String key = parts[2].isEmpty() ? null : parts[2];
+        if (cache != null && key == null) {
+            cache.clearLocal();
+        } else if (cache != null) {
+            cache.evictLocal(key);
+        }
+        for (BiConsumer<String, String> listener : invalidationListeners) {
+            try {
+                listener.accept(parts[1], key);
+            } catch (RuntimeException e) {
+                log.warn("Invalidation listener failed for {} entry {}", parts[1], key, e);
+            }
+        }
+    }
+
+    /**
+     * Tell other nodes that {@code key} of {@code cacheName} (null for all of it) was evicted.
+     */
+    void publishInvalidation(String cacheName, String key) {
+        if (!admitL2()) {
+            log.warn("Redis unavailable; other nodes keep {} entry {} until their L1 expires", cacheName, key);
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel,
+                    NodeIdentity.NODE_ID + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : ""));
+            l2Succeeded();
+        } catch (RuntimeException e) {
+            l2Failed(cacheName, e);
+        }
+    }
+
+    boolean admitL2() {
+        return breaker.tryAcquire(System.currentTimeMillis());
+    }
+
+    void l2Succeeded() {
+        breaker.onSuccess();
+    }
+
+    void l2Failed(String cacheName, RuntimeException e) {
+        l2Errors.increment();
+        breaker.onFailure(System.currentTimeMillis());
+        log.warn("Redis cache call for {} failed, serving from L1: {}", cacheName, e.getMessage());
+    }
+}
@@ -0,0 +1,146 @@
+package com.easybilling.config;
+
+import com.easybilling.cache.EnumSetRedisSerializer;
+import com.easybilling.cache.LocalRegionFactory;
+import com.easybilling.cache.MeteredRedisSerializer;
+import com.easybilling.cache.TwoLevelCacheManager;
+import com.easybilling.dto.CustomThemeDTO;
+import com.easybilling.dto.SecurityGroupResponse;
+import com.easybilling.enums.Permission;
+import com.easybilling.service.TenantDirectory;
+import com.easybilling.util.CircuitBreaker;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache setup: Redis holds every cache, and the configured caches also get a per-node L1 in front
+ * of it (see {@link TwoLevelCacheManager}), kept coherent over a Redis pub/sub channel.
+ * Each known cache has its own TTL (app.cache.ttl) and a codec for its value type: plain UTF-8 for
+ * config strings, constant names for permission sets, and typed JSON without class metadata for
+ * DTOs. Keys carry app.cache.schema-version, so a deploy that changes a cached type bumps it and
+ * never reads the old encoding. Caches not listed here keep the JDK codec and the global TTL.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig implements CachingConfigurer {
+
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory, CacheProperties cacheProperties,
+            StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, ObjectMapper objectMapper,
+            Environment environment,
+            @Value("${app.cache.schema-version:1}") int schemaVersion,
+            @Value("${app.cache.max-value-bytes:262144}") int maxValueBytes,
+            @Value("${app.cache.two-level.caches:config,systemConfig,tenantDirectory}") List<String> twoLevelCaches,
+            @Value("${app.cache.two-level.l1-max-entries:10000}") int l1MaxEntries,
+            @Value("${app.cache.two-level.l1-ttl-seconds:30}") long l1TtlSeconds,
+            @Value("${app.cache.two-level.channel:cache-invalidation}") String channel,
+            @Value("${app.cache.two-level.breaker.failure-threshold:3}") int failureThreshold,
+            @Value("${app.cache.two-level.breaker.open-seconds:5}") long openSeconds,
+            @Value("${app.cache.two-level.breaker.max-open-seconds:60}") long maxOpenSeconds) {
+        RedisCacheConfiguration defaults = redisCacheConfiguration(cacheProperties.getRedis(), schemaVersion);
+        Map<String, Duration> ttls = Binder.get(environment)
+                .bind("app.cache.ttl", Bindable.mapOf(String.class, Duration.class))
+                .orElse(Map.of());
+
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        codecs(objectMapper).forEach((name, codec) -> {
+            RedisCacheConfiguration config = defaults.serializeValuesWith(SerializationPair.fromSerializer(
+                    new MeteredRedisSerializer<>(name, codec, maxValueBytes, meterRegistry)));
+            Duration ttl = ttls.get(name);
+            perCache.put(name, ttl != null ? config.entryTtl(ttl) : config);
+        });
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(perCache)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        CircuitBreaker breaker = new CircuitBreaker(failureThreshold, openSeconds * 1000, maxOpenSeconds * 1000);
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, twoLevelCaches,
+                l1MaxEntries, Duration.ofSeconds(l1TtlSeconds), redisTemplate, channel, breaker, meterRegistry);
+        // Hibernate's second-level cache shares the invalidation channel
+        LocalRegionFactory.attach(cacheManager);
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(
+            RedisConnectionFactory connectionFactory, TwoLevelCacheManager cacheManager,
+            @Value("${app.cache.two-level.channel:cache-invalidation}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(channel));
+        return container;
+    }
+
+    /**
+     * A failed cache read or write (Redis down, oversized value) is logged and the call proceeds
+     * uncached, instead of failing the request.
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler(false);
+    }
+
+    private Map<String, RedisSerializer<?>> codecs(ObjectMapper objectMapper) {
+        ObjectMapper mapper = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        JavaType securityGroups = mapper.getTypeFactory()
+                .constructCollectionType(List.class, SecurityGroupResponse.class);
+        return Map.of(
+                "config", RedisSerializer.string(),
+                "systemConfig", RedisSerializer.string(),
+                "userPermissions", new EnumSetRedisSerializer<>(Permission.class),
+                "securityGroups", new Jackson2JsonRedisSerializer<>(mapper, securityGroups),
+                "theme", new Jackson2JsonRedisSerializer<>(mapper, CustomThemeDTO.class),
+                TenantDirectory.CACHE, new Jackson2JsonRedisSerializer<>(mapper, TenantDirectory.TenantRef.class));
+    }
+
+    private RedisCacheConfiguration redisCacheConfiguration(CacheProperties.Redis redis, int schemaVersion) {
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader());
+        if (redis.getTimeToLive() != null) {
+            config = config.entryTtl(redis.getTimeToLive());
+        }
+        String prefix = (redis.getKeyPrefix() != null ? redis.getKeyPrefix() : "") + "v" + schemaVersion + ":";
+        config = config.computePrefixWith(cacheName -> prefix + cacheName + "::");
+        if (!redis.isCacheNullValues()) {
+            config = config.disableCachingNullValues();
+        }
+        if (!redis.isUseKeyPrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        return config;
+    }
+}
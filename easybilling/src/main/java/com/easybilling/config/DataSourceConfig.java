@@ -0,0 +1,102 @@
+package com.easybilling.config;
+
+import com.easybilling.datasource.ReadWriteRoutingDataSource;
+import com.easybilling.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Connection pools: the primary from spring.datasource, and, when app.datasource.replica.url is
+ * set, a replica pool that serves @Transactional(readOnly = true) work (see
+ * {@link ReadWriteRoutingDataSource}). Both are Hikari beans, so each reports its own pool
+ * metrics under its pool name.
+ * <p>
+ * With a replica, Hibernate hands its connection back at the end of each transaction rather than
+ * holding it for the life of the EntityManager. Open-in-view keeps one EntityManager for the whole
+ * request, so otherwise a read-write transaction after a read-only one in the same request would
+ * run on the replica connection the first one was routed to.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String REPLICA_CONFIGURED = "'${app.datasource.replica.url:}' != ''";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:}") String username,
+            @Value("${app.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setJdbcUrl(url);
+        if (StringUtils.hasText(username)) {
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+        }
+        dataSource.setPoolName(ReadWriteRoutingDataSource.REPLICA);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * What JPA and everything else injects when there is a replica; without one, the primary pool
+     * is the only DataSource.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica.read-your-writes-seconds:10}") long stickySeconds,
+            @Value("${app.datasource.replica.max-tracked-users:10000}") int maxTrackedUsers) {
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(
+                primary, replica, maxTrackedUsers, stickySeconds * 1000, meterRegistry);
+        router.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(router);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public HibernatePropertiesCustomizer replicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replica, @Qualifier("dataSource") DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica.max-lag-seconds:5}") long maxLagSeconds) throws SQLException {
+        return new ReplicaLagMonitor(replica, dataSource.unwrap(ReadWriteRoutingDataSource.class),
+                maxLagSeconds, meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.easybilling.config;
+
+import com.easybilling.context.ContextSnapshot;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Request and task execution. The application task executor (async MVC, @Async) runs each task
+ * in the tenant and user context of the thread that submitted it. With
+ * spring.threads.virtual.enabled on a Java 21 runtime, Tomcat requests and that executor run on
+ * virtual threads; context still crosses threads only through {@link ContextSnapshot}.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return task -> ContextSnapshot.capture().wrap(task);
+    }
+}
@@ -1,7 +1,9 @@
 package com.easybilling.config;
 
+import com.easybilling.interceptor.BulkheadInterceptor;
 import com.easybilling.interceptor.TenantInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -14,10 +16,23 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class MultiTenancyConfiguration implements WebMvcConfigurer {
     
     private final TenantInterceptor tenantInterceptor;
+    private final BulkheadInterceptor bulkheadInterceptor;
     
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Ahead of open-in-view, so the request's EntityManager is created with the tenant filter on
         registry.addInterceptor(tenantInterceptor)
+                .order(Ordered.HIGHEST_PRECEDENCE)
+                .addPathPatterns("/**")
+                .excludePathPatterns(
+                        "/actuator/**",
+                        "/swagger-ui/**",
+                        "/v3/api-docs/**",
+                        "/error"
+                );
+        // Needs the tenant resolved, and must admit the request before it touches the pool
+        registry.addInterceptor(bulkheadInterceptor)
+                .order(Ordered.HIGHEST_PRECEDENCE + 1)
                 .addPathPatterns("/**")
                 .excludePathPatterns(
                         "/actuator/**",
@@ -1,6 +1,7 @@
 package com.easybilling.config;
 
 import com.easybilling.config.JwtAuthenticationFilter;
+import com.easybilling.ratelimit.RateLimitFilter;
 import com.easybilling.security.CustomPermissionEvaluator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +31,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final CustomPermissionEvaluator customPermissionEvaluator;
     
     @Bean
@@ -45,6 +47,8 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 // Add JWT filter before Spring Security's authentication filter
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Throttle once the caller is known
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         // Public endpoints - Tenant onboarding and authentication
                         .requestMatchers("/api/v1/auth/login").permitAll()
@@ -0,0 +1,73 @@
+package com.easybilling.context;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The tenant and user bound to a thread, captured so that work handed to another thread runs as
+ * them. New threads never inherit context; it crosses threads only through a snapshot, so pooled
+ * and virtual threads carry nothing from whichever request happened to create them.
+ */
+public record ContextSnapshot(Integer tenantId, String userId) {
+
+    /**
+     * The context of the current thread.
+     */
+    public static ContextSnapshot capture() {
+        return new ContextSnapshot(TenantContext.getTenantId(), UserContext.getUserId());
+    }
+
+    /**
+     * A context for system work on behalf of a tenant, with no user.
+     */
+    public static ContextSnapshot ofTenant(Integer tenantId) {
+        return new ContextSnapshot(tenantId, null);
+    }
+
+    /**
+     * Bind this context to the current thread until the scope is closed, which restores what was
+     * bound before. Safe when a task runs on the submitting thread (caller-runs rejection).
+     */
+    public Scope open() {
+        ContextSnapshot previous = capture();
+        bind(this);
+        return () -> bind(previous);
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = open()) {
+                task.run();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            try (Scope ignored = open()) {
+                return task.call();
+            }
+        };
+    }
+
+    private static void bind(ContextSnapshot context) {
+        if (context.tenantId() != null) {
+            TenantContext.setTenantId(context.tenantId());
+        } else {
+            TenantContext.clear();
+        }
+        if (context.userId() != null) {
+            UserContext.setUserId(context.userId());
+        } else {
+            UserContext.clear();
+        }
+    }
+
+    /**
+     * A bound context; closing it restores the previous one.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -5,11 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Thread-local storage for tenant context.
  * This allows tenant information to be propagated through the request lifecycle.
+ * Not inherited by new threads; hand work to another thread through a {@link ContextSnapshot}.
  */
 @Slf4j
 public final class TenantContext {
     
-    private static final ThreadLocal<Integer> CURRENT_TENANT = new InheritableThreadLocal<>();
+    private static final ThreadLocal<Integer> CURRENT_TENANT = new ThreadLocal<>();
     
     private TenantContext() {
         throw new UnsupportedOperationException("Utility class");
@@ -5,11 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Thread-local storage for user context.
  * This allows user information to be propagated through the request lifecycle.
+ * Not inherited by new threads; hand work to another thread through a {@link ContextSnapshot}.
  */
 @Slf4j
 public final class UserContext {
     
-    private static final ThreadLocal<String> CURRENT_USER = new InheritableThreadLocal<>();
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
     
     private UserContext() {
         throw new UnsupportedOperationException("Utility class");
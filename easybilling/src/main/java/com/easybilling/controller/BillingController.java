@@ -5,8 +5,10 @@ import com.easybilling.dto.InvoiceRequest;
 import com.easybilling.dto.InvoiceResponse;
 import com.easybilling.dto.PaymentRequest;
 import com.easybilling.service.BillingService;
+import com.easybilling.service.InvoiceIngestionService;
 import com.easybilling.dto.ApiResponse;
 import com.easybilling.dto.PageResponse;
+import com.easybilling.interceptor.CheckoutLane;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -25,8 +27,10 @@ import java.util.List;
 public class BillingController extends BaseController {
 
     private final BillingService billingService;
+    private final InvoiceIngestionService invoiceIngestionService;
 
     @PostMapping
+    @CheckoutLane
     @Operation(summary = "Create new invoice")
     public ApiResponse<InvoiceResponse> createInvoice(@Valid @RequestBody InvoiceRequest request) {
         Integer tenantId = getCurrentTenantId();
@@ -34,6 +38,14 @@ public class BillingController extends BaseController {
         return ApiResponse.success("Invoice created", billingService.createInvoice(tenantId, userId, request));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Ingest invoices billed offline at a counter; replayed idempotency keys are no-ops")
+    public ApiResponse<InvoiceBatchResponse> ingestBatch(@Valid @RequestBody InvoiceBatchRequest request) {
+        Integer tenantId = getCurrentTenantId();
+        String userId = getCurrentUserId();
+        return ApiResponse.success("Batch ingested", invoiceIngestionService.ingest(tenantId, userId, request));
+    }
+
     @GetMapping
     @Operation(summary = "List all invoices")
     public ApiResponse<PageResponse<InvoiceResponse>> listInvoices(
@@ -58,6 +70,7 @@ public class BillingController extends BaseController {
     }
 
     @PostMapping("/{id}/complete")
+    @CheckoutLane
     @Operation(summary = "Complete invoice with payments")
     public ApiResponse<InvoiceResponse> completeInvoice(
             @PathVariable String id,
@@ -67,6 +80,16 @@ public class BillingController extends BaseController {
         return ApiResponse.success("Invoice completed", billingService.completeInvoice(tenantId, id, userId, payments));
     }
 
+    @PostMapping("/{id}/payments")
+    @Operation(summary = "Record payment against outstanding invoice balance")
+    public ApiResponse<InvoiceResponse> recordPayment(
+            @PathVariable String id,
+            @Valid @RequestBody PaymentRequest payment) {
+        Integer tenantId = getCurrentTenantId();
+        String userId = getCurrentUserId();
+        return ApiResponse.success("Payment recorded", billingService.recordPayment(tenantId, id, userId, payment));
+    }
+
     @PostMapping("/hold")
     @Operation(summary = "Hold invoice for later")
     public ApiResponse<String> holdInvoice(@Valid @RequestBody InvoiceRequest request) {
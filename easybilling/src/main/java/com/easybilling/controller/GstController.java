@@ -2,9 +2,11 @@ package com.easybilling.controller;
 
 import com.easybilling.dto.ApiResponse;
 import com.easybilling.dto.GstCalculation;
+import com.easybilling.dto.Gstr3bResponse;
 import com.easybilling.entity.GstRate;
 import com.easybilling.repository.GstRateRepository;
 import com.easybilling.service.GstCalculationService;
+import com.easybilling.service.GstReturnService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,9 +17,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.YearMonth;
 import java.util.List;
 
 /**
@@ -28,10 +37,11 @@ import java.util.List;
 @RequiredArgsConstructor
 @Tag(name = "GST Management", description = "APIs for GST calculation and validation (India)")
 @SecurityRequirement(name = "bearer-jwt")
-public class GstController {
+public class GstController extends BaseController {
     
     private final GstCalculationService gstCalculationService;
     private final GstRateRepository gstRateRepository;
+    private final GstReturnService gstReturnService;
     
     @PostMapping("/calculate")
     @Operation(summary = "Calculate GST", description = "Calculate GST for given amount and HSN/SAC code")
@@ -84,6 +94,28 @@ public class GstController {
         return ApiResponse.success(stateCode);
     }
     
+    @GetMapping("/returns/gstr1")
+    @Operation(summary = "Download GSTR-1", description = "Stream GSTR-1 JSON (GST portal format) for a month (yyyy-MM)")
+    public ResponseEntity<StreamingResponseBody> downloadGstr1(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        Integer tenantId = getCurrentTenantId();
+        StreamingResponseBody body = out -> gstReturnService.writeGstr1(tenantId, month, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("GSTR1_" + month + ".json")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+    
+    @GetMapping("/returns/gstr3b")
+    @Operation(summary = "Get GSTR-3B summary", description = "Get GSTR-3B outward supply summary for a month (yyyy-MM)")
+    public ApiResponse<Gstr3bResponse> getGstr3b(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return ApiResponse.success(gstReturnService.buildGstr3b(getCurrentTenantId(), month));
+    }
+    
     /**
      * Request DTO for GST calculation.
      */
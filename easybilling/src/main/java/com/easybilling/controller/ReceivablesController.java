@@ -0,0 +1,80 @@
+package com.easybilling.controller;
+
+import com.easybilling.dto.AgingSummaryResponse;
+import com.easybilling.dto.ApiResponse;
+import com.easybilling.dto.CustomerStatementResponse;
+import com.easybilling.dto.DunningRunResponse;
+import com.easybilling.dto.PageResponse;
+import com.easybilling.service.AccountsReceivableService;
+import com.easybilling.service.DunningService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * REST controller for accounts receivable aging, customer statements and dunning runs.
+ */
+@RestController
+@RequestMapping("/api/v1/receivables")
+@RequiredArgsConstructor
+@Tag(name = "Receivables", description = "Accounts receivable aging and customer statements")
+@SecurityRequirement(name = "bearer-jwt")
+public class ReceivablesController extends BaseController {
+
+    private final AccountsReceivableService accountsReceivableService;
+    private final DunningService dunningService;
+
+    @GetMapping("/aging")
+    @Operation(summary = "Tenant-wide receivables aging totals")
+    public ApiResponse<AgingSummaryResponse> getAgingSummary() {
+        return ApiResponse.success(accountsReceivableService.getAgingSummary(getCurrentTenantId()));
+    }
+
+    @GetMapping("/aging/customers")
+    @Operation(summary = "Receivables aging per customer, largest balances first")
+    public ApiResponse<PageResponse<AgingSummaryResponse>> getCustomerAging(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<AgingSummaryResponse> result = accountsReceivableService.getCustomerAging(
+                getCurrentTenantId(), PageRequest.of(page, size));
+        return ApiResponse.success(PageResponse.of(
+            result.getContent(),
+            result.getNumber(),
+            result.getSize(),
+            result.getTotalElements()
+        ));
+    }
+
+    @GetMapping("/customers/{customerId}/statement")
+    @Operation(summary = "Customer statement with running balance")
+    public ApiResponse<CustomerStatementResponse> getStatement(
+            @PathVariable String customerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        return ApiResponse.success(accountsReceivableService.getStatement(getCurrentTenantId(), customerId, from, to));
+    }
+
+    @GetMapping("/dunning-runs")
+    @Operation(summary = "Daily dunning run summaries, newest first")
+    public ApiResponse<PageResponse<DunningRunResponse>> getDunningRuns(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<DunningRunResponse> result = dunningService.getRuns(getCurrentTenantId(), PageRequest.of(page, size));
+        return ApiResponse.success(PageResponse.of(
+            result.getContent(),
+            result.getNumber(),
+            result.getSize(),
+            result.getTotalElements()
+        ));
+    }
+}
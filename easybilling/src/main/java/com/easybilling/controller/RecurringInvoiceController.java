@@ -40,7 +40,7 @@ public class RecurringInvoiceController extends BaseController {
     @Operation(summary = "Update existing recurring invoice")
     @PreAuthorize("hasAnyAuthority('UPDATE_RECURRING_INVOICE', 'ADMIN')")
     public ApiResponse<RecurringInvoiceResponse> updateRecurringInvoice(
-            @PathVariable Long id,
+            @PathVariable String id,
             @Valid @RequestBody RecurringInvoiceRequest request) {
         Integer tenantId = getCurrentTenantId();
         String userId = getCurrentUserId();
@@ -51,7 +51,7 @@ public class RecurringInvoiceController extends BaseController {
     @GetMapping("/{id}")
     @Operation(summary = "Get recurring invoice by ID")
     @PreAuthorize("hasAnyAuthority('VIEW_RECURRING_INVOICE', 'ADMIN')")
-    public ApiResponse<RecurringInvoiceResponse> getRecurringInvoice(@PathVariable Long id) {
+    public ApiResponse<RecurringInvoiceResponse> getRecurringInvoice(@PathVariable String id) {
         Integer tenantId = getCurrentTenantId();
         RecurringInvoiceResponse response = recurringInvoiceService.getRecurringInvoiceById(id, tenantId);
         return ApiResponse.success(response);
@@ -86,7 +86,7 @@ public class RecurringInvoiceController extends BaseController {
     @GetMapping("/customer/{customerId}")
     @Operation(summary = "Get recurring invoices by customer")
     @PreAuthorize("hasAnyAuthority('VIEW_RECURRING_INVOICE', 'ADMIN')")
-    public ApiResponse<List<RecurringInvoiceResponse>> getRecurringInvoicesByCustomer(@PathVariable Long customerId) {
+    public ApiResponse<List<RecurringInvoiceResponse>> getRecurringInvoicesByCustomer(@PathVariable String customerId) {
         Integer tenantId = getCurrentTenantId();
         List<RecurringInvoiceResponse> response = recurringInvoiceService.getRecurringInvoicesByCustomer(tenantId, customerId);
         return ApiResponse.success(response);
@@ -95,7 +95,7 @@ public class RecurringInvoiceController extends BaseController {
     @PatchMapping("/{id}/activate")
     @Operation(summary = "Activate recurring invoice")
     @PreAuthorize("hasAnyAuthority('UPDATE_RECURRING_INVOICE', 'ADMIN')")
-    public ApiResponse<RecurringInvoiceResponse> activateRecurringInvoice(@PathVariable Long id) {
+    public ApiResponse<RecurringInvoiceResponse> activateRecurringInvoice(@PathVariable String id) {
         Integer tenantId = getCurrentTenantId();
         String userId = getCurrentUserId();
         RecurringInvoiceResponse response = recurringInvoiceService.toggleActive(id, tenantId, userId, true);
@@ -105,7 +105,7 @@ public class RecurringInvoiceController extends BaseController {
     @PatchMapping("/{id}/deactivate")
     @Operation(summary = "Deactivate recurring invoice")
     @PreAuthorize("hasAnyAuthority('UPDATE_RECURRING_INVOICE', 'ADMIN')")
-    public ApiResponse<RecurringInvoiceResponse> deactivateRecurringInvoice(@PathVariable Long id) {
+    public ApiResponse<RecurringInvoiceResponse> deactivateRecurringInvoice(@PathVariable String id) {
         Integer tenantId = getCurrentTenantId();
         String userId = getCurrentUserId();
         RecurringInvoiceResponse response = recurringInvoiceService.toggleActive(id, tenantId, userId, false);
@@ -115,44 +115,9 @@ public class RecurringInvoiceController extends BaseController {
     @PostMapping("/{id}/generate")
     @Operation(summary = "Manually generate invoice from recurring schedule")
     @PreAuthorize("hasAnyAuthority('CREATE_INVOICE', 'ADMIN')")
-    public ApiResponse<InvoiceResponse> generateInvoice(@PathVariable Long id) {
+    public ApiResponse<InvoiceResponse> generateInvoice(@PathVariable String id) {
         Integer tenantId = getCurrentTenantId();
-        RecurringInvoiceResponse recurring = recurringInvoiceService.getRecurringInvoiceById(id, tenantId);
-        
-        // Convert response back to entity for generation (simplified)
-        // In real implementation, we'd fetch the entity directly
-        InvoiceResponse invoice = recurringInvoiceService.generateInvoiceFromRecurring(
-                convertToEntity(recurring));
-        
+        InvoiceResponse invoice = recurringInvoiceService.generateNextInvoice(id, tenantId);
         return ApiResponse.success("Invoice generated successfully from recurring schedule", invoice);
     }
-
-    /**
-     * Helper method to convert response to entity (simplified)
-     */
-    private com.easybilling.entity.RecurringInvoice convertToEntity(RecurringInvoiceResponse response) {
-        com.easybilling.entity.RecurringInvoice entity = new com.easybilling.entity.RecurringInvoice();
-        entity.setId(response.getId());
-        entity.setTenantId(response.getTenantId());
-        entity.setCustomerId(response.getCustomerId());
-        entity.setCustomerName(response.getCustomerName());
-        entity.setFrequency(response.getFrequency());
-        entity.setStartDate(response.getStartDate());
-        entity.setEndDate(response.getEndDate());
-        entity.setNextInvoiceDate(response.getNextInvoiceDate());
-        entity.setLastInvoiceDate(response.getLastInvoiceDate());
-        entity.setAmount(response.getAmount());
-        entity.setDescription(response.getDescription());
-        entity.setPaymentTerms(response.getPaymentTerms());
-        entity.setLateFeePercentage(response.getLateFeePercentage());
-        entity.setLateFeeAmount(response.getLateFeeAmount());
-        entity.setGracePeriodDays(response.getGracePeriodDays());
-        entity.setMaxInvoices(response.getMaxInvoices());
-        entity.setInvoicesGenerated(response.getInvoicesGenerated());
-        entity.setAutoEmail(response.getAutoEmail());
-        entity.setActive(response.getActive());
-        entity.setCreatedBy(response.getCreatedBy());
-        entity.setCreatedAt(response.getCreatedAt());
-        return entity;
-    }
 }
@@ -1,6 +1,7 @@
 package com.easybilling.controller;
 
 import com.easybilling.dto.ReportRequest;
+import com.easybilling.service.PerformanceMetricsService;
 import com.easybilling.service.ReportsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import java.util.Map;
 public class ReportsController extends BaseController {
     
     private final ReportsService reportsService;
+    private final PerformanceMetricsService performanceMetricsService;
     
     @PostMapping("/generate")
     public ResponseEntity<Map<String, Object>> generateReport(@Valid @RequestBody ReportRequest request) {
@@ -37,6 +39,18 @@ public class ReportsController extends BaseController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/performance/live")
+    public ResponseEntity<Map<String, Object>> getLivePerformance(@RequestParam(defaultValue = "60") int minutes) {
+        Integer tenantId = getCurrentTenantId();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", performanceMetricsService.getLiveMetrics(tenantId, minutes));
+        response.put("timestamp", System.currentTimeMillis());
+        
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/types")
     public ResponseEntity<Map<String, Object>> getReportTypes() {
         Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,76 @@
+package com.easybilling.datasource;
+
+import com.easybilling.context.UserContext;
+import com.easybilling.util.AfterCommit;
+import com.easybilling.util.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary. A user
+ * whose read-write transaction touched the primary reads from the primary for the sticky window
+ * afterwards, so they see their own writes despite replica lag; and while the replica is marked
+ * unusable (see {@link ReplicaLagMonitor}) all reads go to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the pool is chosen
+ * when the transaction first needs a connection, by which time its read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ExpiringLruCache<String, Boolean> recentWriters;
+    private final Counter toPrimary;
+    private final Counter toReplica;
+    private final Counter stickyToPrimary;
+    private final Counter fallbackToPrimary;
+    private volatile boolean replicaUsable = true;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, int maxTrackedUsers,
+                                      long stickyMillis, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        this.recentWriters = new ExpiringLruCache<>(maxTrackedUsers, stickyMillis);
+        this.toPrimary = meterRegistry.counter("datasource.routed", "pool", PRIMARY, "reason", "read-write");
+        this.toReplica = meterRegistry.counter("datasource.routed", "pool", REPLICA, "reason", "read-only");
+        this.stickyToPrimary = meterRegistry.counter("datasource.routed", "pool", PRIMARY, "reason", "read-your-writes");
+        this.fallbackToPrimary = meterRegistry.counter("datasource.routed", "pool", PRIMARY, "reason", "replica-lagging");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userId = UserContext.getUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            toPrimary.increment();
+            if (userId != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                // Again on commit, so the window covers the whole of a long transaction
+                recentWriters.put(userId, Boolean.TRUE, System.currentTimeMillis());
+                AfterCommit.run(() -> recentWriters.put(userId, Boolean.TRUE, System.currentTimeMillis()));
+            }
+            return PRIMARY;
+        }
+        if (userId != null && recentWriters.getFresh(userId, System.currentTimeMillis()) != null) {
+            stickyToPrimary.increment();
+            return PRIMARY;
+        }
+        if (!replicaUsable) {
+            fallbackToPrimary.increment();
+            return PRIMARY;
+        }
+        toReplica.increment();
+        return REPLICA;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public void setReplicaUsable(boolean replicaUsable) {
+        this.replicaUsable = replicaUsable;
+    }
+}
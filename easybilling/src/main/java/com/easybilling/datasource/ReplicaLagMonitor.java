@@ -0,0 +1,65 @@
+package com.easybilling.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the replica's replication delay and takes it out of rotation while the delay exceeds the
+ * allowed lag, replication is stopped, or the replica cannot be reached. A replica that reports
+ * no replication status (not configured as a replica) is treated as current.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String LAG_QUERY = "SHOW REPLICA STATUS";
+    private static final String LAG_COLUMN = "Seconds_Behind_Source";
+
+    private final DataSource replica;
+    private final ReadWriteRoutingDataSource router;
+    private final long maxLagSeconds;
+    // -1 while unknown or unreachable
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public ReplicaLagMonitor(DataSource replica, ReadWriteRoutingDataSource router, long maxLagSeconds,
+                             MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.router = router;
+        this.maxLagSeconds = maxLagSeconds;
+        meterRegistry.gauge("datasource.replica.lag.seconds", lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void check() {
+        long lag = measureLag();
+        lagSeconds.set(lag);
+        boolean usable = lag >= 0 && lag <= maxLagSeconds;
+        if (usable != router.isReplicaUsable()) {
+            log.warn("Replica {} (lag {}s, allowed {}s)", usable ? "back in rotation" : "out of rotation",
+                    lag, maxLagSeconds);
+        }
+        router.setReplicaUsable(usable);
+    }
+
+    private long measureLag() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            if (!rs.next()) {
+                return 0;
+            }
+            long lag = rs.getLong(LAG_COLUMN);
+            return rs.wasNull() ? -1 : lag;
+        } catch (SQLException e) {
+            log.debug("Replica lag check failed: {}", e.getMessage());
+            return -1;
+        }
+    }
+}
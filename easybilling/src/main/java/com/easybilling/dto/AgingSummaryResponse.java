@@ -0,0 +1,32 @@
+package com.easybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Open receivables bucketed by days past due, for a tenant or a single customer.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgingSummaryResponse {
+    private LocalDate asOfDate;
+    private String customerId;       // Null for tenant-wide totals
+    private String customerName;
+    private BigDecimal bucket0To30;
+    private BigDecimal bucket31To60;
+    private BigDecimal bucket61To90;
+    private BigDecimal bucketOver90;
+    private BigDecimal totalOutstanding;
+    private Long customerCount;      // Tenant-wide totals only
+    private Long openInvoices;
+    private LocalDate oldestDueDate;
+    private BigDecimal sharePercent; // Customer's share of the tenant total
+    private Long outstandingRank;
+}
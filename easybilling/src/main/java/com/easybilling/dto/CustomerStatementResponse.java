@@ -0,0 +1,43 @@
+package com.easybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Customer account statement with running balances.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStatementResponse {
+    private String customerId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private List<StatementLine> lines;
+    private AgingSummaryResponse aging;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatementLine {
+        private LocalDateTime entryDate;
+        private String entryType;
+        private String referenceNumber;
+        private String invoiceId;
+        private LocalDate dueDate;
+        private BigDecimal debit;
+        private BigDecimal credit;
+        private BigDecimal balance;
+    }
+}
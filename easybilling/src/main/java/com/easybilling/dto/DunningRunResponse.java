@@ -0,0 +1,28 @@
+package com.easybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-tenant summary of one day's dunning run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DunningRunResponse {
+    private LocalDate runDate;
+    private Integer overdueInvoices;
+    private BigDecimal overdueAmount;      // Including late fees charged by this run
+    private Integer lateFeesApplied;
+    private BigDecimal lateFeeAmount;
+    private Integer remindersScheduled;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;     // Null while the run is in progress or was interrupted
+}
@@ -0,0 +1,95 @@
+package com.easybilling.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projections for the SQL-side grouped rows that feed GSTR-1 / GSTR-3B generation.
+ * Each section query returns one row per (document, rate) or (summary key, rate),
+ * so the return builders never load invoice entities.
+ */
+public final class GstReturnRows {
+
+    private GstReturnRows() {
+        throw new UnsupportedOperationException("Projection holder");
+    }
+
+    /**
+     * Tax amounts shared by every section row.
+     */
+    public interface TaxAmounts {
+        BigDecimal getRate();
+        BigDecimal getTaxableValue();
+        BigDecimal getIgst();
+        BigDecimal getCgst();
+        BigDecimal getSgst();
+        BigDecimal getCess();
+    }
+
+    /**
+     * B2B / B2CL invoice rows, one per (invoice, rate).
+     */
+    public interface InvoiceRateRow extends TaxAmounts {
+        String getCtin();
+        String getInvoiceId();
+        String getInvoiceNumber();
+        LocalDateTime getInvoiceDate();
+        BigDecimal getInvoiceValue();
+        String getPlaceOfSupply();
+        Boolean getReverseCharge();
+    }
+
+    /**
+     * B2CS summary rows, one per (supply type, place of supply, rate).
+     */
+    public interface B2csRow extends TaxAmounts {
+        Boolean getInterstate();
+        String getPlaceOfSupply();
+    }
+
+    /**
+     * HSN summary rows, one per (HSN/SAC, rate).
+     */
+    public interface HsnRow extends TaxAmounts {
+        String getHsnCode();
+        String getDescription();
+        Long getQuantity();
+        BigDecimal getTotalValue();
+    }
+
+    /**
+     * Credit note rows, one per (credit note, rate). Tax split follows the original invoice.
+     */
+    public interface CreditNoteRateRow {
+        String getCtin();
+        String getNoteId();
+        String getNoteNumber();
+        LocalDateTime getNoteDate();
+        BigDecimal getNoteValue();
+        String getPlaceOfSupply();
+        Boolean getInterstate();
+        BigDecimal getRate();
+        BigDecimal getTaxableValue();
+    }
+
+    /**
+     * GSTR-3B credit note totals, one per (supply class, rate).
+     */
+    public interface CreditSummaryRow {
+        Boolean getInterstate();
+        Boolean getRegistered();
+        Boolean getLarge();
+        String getPlaceOfSupply();
+        BigDecimal getRate();
+        BigDecimal getTaxableValue();
+    }
+
+    /**
+     * GSTR-3B outward supply totals, one per (supply class).
+     */
+    public interface SupplySummaryRow extends TaxAmounts {
+        Boolean getInterstate();
+        Boolean getRegistered();
+        String getPlaceOfSupply();
+    }
+}
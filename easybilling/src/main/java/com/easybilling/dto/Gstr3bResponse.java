@@ -0,0 +1,127 @@
+package com.easybilling.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GSTR-3B summary in the GST portal offline JSON layout.
+ * Only outward supplies are derived from billing data; ITC and inward
+ * reverse-charge tables are emitted as zero since purchases are not tracked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Gstr3bResponse {
+
+    private String gstin;
+
+    @JsonProperty("ret_period")
+    private String returnPeriod;
+
+    @JsonProperty("sup_details")
+    private SupplyDetails supplyDetails;
+
+    @JsonProperty("inter_sup")
+    private InterStateSupplies interStateSupplies;
+
+    @JsonProperty("itc_elg")
+    private ItcEligible itcEligible;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SupplyDetails {
+        @JsonProperty("osup_det")
+        private TaxTotals outwardTaxable;
+
+        @JsonProperty("osup_zero")
+        private TaxTotals outwardZeroRated;
+
+        @JsonProperty("osup_nil_exmp")
+        private TaxTotals outwardNilExempt;
+
+        @JsonProperty("isup_rev")
+        private TaxTotals inwardReverseCharge;
+
+        @JsonProperty("osup_nongst")
+        private TaxTotals outwardNonGst;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TaxTotals {
+        @Builder.Default
+        private BigDecimal txval = BigDecimal.ZERO;
+        @Builder.Default
+        private BigDecimal iamt = BigDecimal.ZERO;
+        @Builder.Default
+        private BigDecimal camt = BigDecimal.ZERO;
+        @Builder.Default
+        private BigDecimal samt = BigDecimal.ZERO;
+        @Builder.Default
+        private BigDecimal csamt = BigDecimal.ZERO;
+
+        public static TaxTotals zero() {
+            return TaxTotals.builder().build();
+        }
+
+        public void add(BigDecimal taxable, BigDecimal igst, BigDecimal cgst, BigDecimal sgst, BigDecimal cess) {
+            txval = txval.add(taxable);
+            iamt = iamt.add(igst);
+            camt = camt.add(cgst);
+            samt = samt.add(sgst);
+            csamt = csamt.add(cess);
+        }
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InterStateSupplies {
+        @JsonProperty("unreg_details")
+        @Builder.Default
+        private List<PlaceOfSupplyTotal> unregisteredDetails = new ArrayList<>();
+
+        @JsonProperty("comp_details")
+        @Builder.Default
+        private List<PlaceOfSupplyTotal> compositionDetails = new ArrayList<>();
+
+        @JsonProperty("uin_details")
+        @Builder.Default
+        private List<PlaceOfSupplyTotal> uinDetails = new ArrayList<>();
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PlaceOfSupplyTotal {
+        private String pos;
+        @Builder.Default
+        private BigDecimal txval = BigDecimal.ZERO;
+        @Builder.Default
+        private BigDecimal iamt = BigDecimal.ZERO;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItcEligible {
+        @JsonProperty("itc_net")
+        @Builder.Default
+        private TaxTotals netItc = TaxTotals.zero();
+    }
+}
@@ -0,0 +1,14 @@
+package com.easybilling.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class InvoiceBatchRequest {
+    @Valid
+    @NotEmpty
+    private List<OfflineInvoiceRequest> invoices;
+}
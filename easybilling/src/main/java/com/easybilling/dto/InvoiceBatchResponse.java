@@ -0,0 +1,35 @@
+package com.easybilling.dto;
+
+import com.easybilling.enums.IngestStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of an offline invoice batch, with one result per submitted invoice in request order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceBatchResponse {
+    private int created;
+    private int replayed;
+    private int rejected;
+    private List<Result> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private String idempotencyKey;
+        private IngestStatus status;
+        private String invoiceId;      // Null when rejected
+        private String invoiceNumber;
+        private String error;          // Set when rejected
+    }
+}
@@ -4,6 +4,7 @@ import com.easybilling.enums.InvoiceStatus;
 import lombok.Data;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,8 @@ public class InvoiceResponse {
     private BigDecimal totalAmount;
     private BigDecimal paidAmount;
     private BigDecimal balanceAmount;
+    private BigDecimal creditedAmount;
+    private LocalDate dueDate;
     private List<InvoiceItemResponse> items;
     private List<PaymentResponse> payments;
     private LocalDateTime createdAt;
@@ -0,0 +1,25 @@
+package com.easybilling.dto;
+
+import com.easybilling.entity.JobRun;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A scheduled job as seen from one node, with its most recent runs across the cluster.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatusResponse {
+    private String name;
+    private String schedule;
+    private Instant nextTick;        // Null when scheduling is disabled on this node
+    private boolean runningHere;
+    private List<JobRun> recentRuns; // Newest first
+}
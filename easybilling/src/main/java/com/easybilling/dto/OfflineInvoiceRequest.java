@@ -0,0 +1,35 @@
+package com.easybilling.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A bill made at a counter while offline, replayed with the key and number the counter gave it.
+ */
+@Data
+public class OfflineInvoiceRequest {
+    @NotBlank
+    @Size(max = 100)
+    private String idempotencyKey;
+
+    // Counter-local number, used as the invoice number; counters prefix it with their own code
+    @NotBlank
+    @Size(max = 100)
+    private String invoiceNumber;
+
+    @NotNull
+    private LocalDateTime issuedAt;
+
+    @Valid
+    @NotNull
+    private InvoiceRequest invoice;
+
+    @Valid
+    private List<PaymentRequest> payments;
+}
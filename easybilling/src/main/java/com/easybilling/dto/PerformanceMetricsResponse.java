@@ -0,0 +1,47 @@
+package com.easybilling.dto;
+
+import com.easybilling.enums.PerformanceDimension;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cashier, store and counter performance over a time window.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerformanceMetricsResponse {
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private String source; // LIVE (in-memory window) or SNAPSHOT (hourly history)
+    private List<DimensionMetrics> users;
+    private List<DimensionMetrics> stores;
+    private List<DimensionMetrics> counters;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DimensionMetrics {
+        private PerformanceDimension dimension;
+        private String dimensionId;
+        private Long bills;
+        private Long items;
+        private BigDecimal salesAmount;
+        private Long voids;
+        private Long returns;
+        private Long activeMinutes;
+        private BigDecimal billsPerHour;    // Over the whole window
+        private BigDecimal averageBasket;
+        private BigDecimal itemsPerMinute;  // Over minutes with activity
+        private BigDecimal voidRate;        // Percentage of bills
+        private BigDecimal returnRate;      // Percentage of bills
+    }
+}
@@ -0,0 +1,44 @@
+package com.easybilling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Profit and loss statement built from revenue and cost of goods captured at sale time.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfitLossResponse {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String granularity; // DAY or MONTH
+    private PeriodSummary totals;
+    private List<PeriodSummary> periods;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PeriodSummary {
+        private LocalDate periodStart;
+        private LocalDate periodEnd;
+        private Long invoiceCount;
+        private BigDecimal grossSales;     // Before discounts and tax
+        private BigDecimal discounts;
+        private BigDecimal netSales;       // Gross sales less discounts
+        private BigDecimal salesReturns;   // Credit notes issued, excluding tax
+        private BigDecimal netRevenue;     // Net sales less returns
+        private BigDecimal taxCollected;   // Output tax less tax reversed by credit notes
+        private BigDecimal costOfGoodsSold;
+        private BigDecimal grossProfit;
+        private BigDecimal grossMarginPercent;
+    }
+}
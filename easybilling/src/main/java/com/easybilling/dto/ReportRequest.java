@@ -25,4 +25,6 @@ public class ReportRequest {
     private String categoryId;
     
     private String format; // PDF, EXCEL, CSV
+    
+    private Boolean exact; // Exact counts instead of sketch estimates (audits)
 }
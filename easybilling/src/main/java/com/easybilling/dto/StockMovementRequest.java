@@ -4,6 +4,7 @@ import com.easybilling.enums.MovementType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -23,6 +24,9 @@ public class StockMovementRequest {
     @Positive(message = "Quantity must be positive")
     private BigDecimal quantity;
 
+    @PositiveOrZero(message = "Unit cost cannot be negative")
+    private BigDecimal unitCost; // Purchase cost for IN movements; defaults to current average cost
+
     private String referenceType;
     private String referenceId;
     private String notes;
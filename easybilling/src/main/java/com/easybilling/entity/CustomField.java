@@ -2,6 +2,8 @@ package com.easybilling.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,6 +18,8 @@ import java.time.Instant;
         @Index(name = "idx_custom_field_entity", columnList = "tenant_id, entity_type"),
         @Index(name = "idx_custom_field_active", columnList = "is_active")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,69 @@
+package com.easybilling.entity;
+
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Open receivables per customer, bucketed by days past due. Maintained on every
+ * receivable event for the affected customer and re-bucketed for all customers daily.
+ */
+@Entity
+@Table(name = "customer_aging", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_customer_aging", columnNames = {"tenant_id", "customer_id"})
+}, indexes = {
+    @Index(name = "idx_customer_aging_refresh", columnList = "refreshed_at")
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(TenantEntityListener.class)
+public class CustomerAging implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    @Column(name = "bucket_0_30", nullable = false, precision = 14, scale = 2)
+    private BigDecimal bucket0To30;
+
+    @Column(name = "bucket_31_60", nullable = false, precision = 14, scale = 2)
+    private BigDecimal bucket31To60;
+
+    @Column(name = "bucket_61_90", nullable = false, precision = 14, scale = 2)
+    private BigDecimal bucket61To90;
+
+    @Column(name = "bucket_over_90", nullable = false, precision = 14, scale = 2)
+    private BigDecimal bucketOver90;
+
+    @Column(name = "total_outstanding", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalOutstanding;
+
+    @Column(name = "open_invoices", nullable = false)
+    private Integer openInvoices;
+
+    @Column(name = "oldest_due_date")
+    private LocalDate oldestDueDate;
+
+    @Column(name = "as_of_date", nullable = false)
+    private LocalDate asOfDate;
+
+    @Column(name = "refreshed_at", nullable = false, columnDefinition = "DATETIME(6)")
+    private LocalDateTime refreshedAt;
+}
@@ -0,0 +1,52 @@
+package com.easybilling.entity;
+
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-tenant, per-day mergeable sales sketches: a HyperLogLog of customer ids and a
+ * Space-Saving summary of products by quantity sold. Dashboards merge these rows
+ * instead of scanning invoices.
+ */
+@Entity
+@Table(name = "daily_sales_sketches", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sales_sketch_day", columnNames = {"tenant_id", "sketch_date"})
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(TenantEntityListener.class)
+public class DailySalesSketch implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "sketch_date", nullable = false)
+    private LocalDate sketchDate;
+
+    @Column(name = "invoice_count", nullable = false)
+    private Long invoiceCount;
+
+    @Column(name = "customer_sketch", columnDefinition = "BLOB")
+    private byte[] customerSketch;
+
+    @Column(name = "product_sketch", columnDefinition = "BLOB")
+    private byte[] productSketch;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
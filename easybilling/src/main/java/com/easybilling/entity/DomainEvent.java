@@ -0,0 +1,58 @@
+package com.easybilling.entity;
+
+import com.easybilling.enums.DomainEventType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Outbox entry for a domain event. Written in the transaction that caused it; after commit the
+ * dispatcher assigns a gap-free per-partition sequence number ({@code seq}) that consumers use as
+ * their offset. All events of one aggregate land in the same partition, so they stay in order.
+ */
+@Entity
+@Table(name = "domain_events", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_domain_event_seq", columnNames = {"partition_no", "seq"})
+}, indexes = {
+        @Index(name = "idx_domain_event_created", columnList = "partition_no, created_at"),
+        @Index(name = "idx_domain_event_unsequenced", columnList = "seq, partition_no")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class DomainEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false, length = 100)
+    private String aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private DomainEventType eventType;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(name = "seq")
+    private Long seq; // Null until sequenced by the dispatcher
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,23 @@
+package com.easybilling.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Sequence high-water mark of one outbox partition. Its row lock serialises sequencing across nodes.
+ */
+@Entity
+@Table(name = "domain_event_partitions")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DomainEventPartition {
+
+    @Id
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
@@ -0,0 +1,75 @@
+package com.easybilling.entity;
+
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A tenant's dunning run for one day: totals so far and the keyset cursor of the last processed
+ * invoice. Both are committed with each chunk, so an interrupted run resumes where it stopped
+ * without double-counting.
+ */
+@Entity
+@Table(name = "dunning_runs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_dunning_run_day", columnNames = {"tenant_id", "run_date"})
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@EntityListeners(TenantEntityListener.class)
+public class DunningRun implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "overdue_invoices", nullable = false)
+    private Integer overdueInvoices;
+
+    @Column(name = "overdue_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal overdueAmount;
+
+    @Column(name = "late_fees_applied", nullable = false)
+    private Integer lateFeesApplied;
+
+    @Column(name = "late_fee_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal lateFeeAmount;
+
+    @Column(name = "reminders_scheduled", nullable = false)
+    private Integer remindersScheduled;
+
+    @Column(name = "cursor_status", length = 30)
+    private String cursorStatus;
+
+    @Column(name = "cursor_due_date")
+    private LocalDate cursorDueDate;
+
+    @Column(name = "cursor_invoice_id", length = 36)
+    private String cursorInvoiceId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
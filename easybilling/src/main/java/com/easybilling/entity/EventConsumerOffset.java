@@ -0,0 +1,47 @@
+package com.easybilling.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Position of one consumer in one outbox partition. Advanced in the same transaction as the
+ * consumer's own writes; rewinding it replays events. Its row lock gives one node the lane.
+ */
+@Entity
+@Table(name = "event_consumer_offsets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_event_consumer_partition", columnNames = {"consumer_name", "partition_no"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class EventConsumerOffset {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "consumer_name", nullable = false, length = 100)
+    private String consumerName;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+
+    @Column(name = "failed_attempts", nullable = false)
+    private Integer failedAttempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "retry_at")
+    private Instant retryAt; // Lane paused until then after a failed event
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
@@ -3,6 +3,8 @@ package com.easybilling.entity;
 import com.easybilling.listener.TenantEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.Filter;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -23,6 +25,8 @@ import java.time.LocalDate;
         @Index(name = "idx_gst_rate_tenant", columnList = "tenant_id")
 })
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId OR tenant_id IS NULL")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,12 +13,16 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices", indexes = {
+        @Index(name = "idx_invoice_ar_customer", columnList = "tenant_id, customer_id"),
+        @Index(name = "idx_invoice_dunning", columnList = "tenant_id, status, due_date")
+})
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
 @Data
 @NoArgsConstructor
@@ -66,6 +70,10 @@ public class Invoice implements TenantAware {
 
     private LocalDateTime completedAt;
 
+    // Payment due date for credit sales (completion date plus tenant payment terms)
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default
     private List<InvoiceItem> items = new ArrayList<>();
@@ -92,6 +100,27 @@ public class Invoice implements TenantAware {
     @Column(precision = 10, scale = 2)
     private BigDecimal balanceAmount;
 
+    // Credit notes applied against this invoice's outstanding balance
+    @Column(name = "credited_amount", precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal creditedAmount = BigDecimal.ZERO;
+
+    // Late fee charged once by the dunning run when the invoice is overdue past its grace period
+    @Column(name = "late_fee_amount", precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal lateFeeAmount = BigDecimal.ZERO;
+
+    @Column(name = "late_fee_applied_at")
+    private LocalDateTime lateFeeAppliedAt;
+
+    // Number of dunning reminders sent so far
+    @Column(name = "dunning_stage")
+    @Builder.Default
+    private Integer dunningStage = 0;
+
+    @Column(name = "last_reminder_at")
+    private LocalDateTime lastReminderAt;
+
     // GST fields for India
     @Column(name = "total_cgst", precision = 10, scale = 2)
     @Builder.Default
@@ -180,6 +209,8 @@ public class Invoice implements TenantAware {
                 .map(Payment::getAmount)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        this.balanceAmount = totalAmount.subtract(paidAmount);
+        this.balanceAmount = totalAmount.subtract(paidAmount)
+                .add(lateFeeAmount != null ? lateFeeAmount : BigDecimal.ZERO)
+                .subtract(creditedAmount != null ? creditedAmount : BigDecimal.ZERO);
     }
 }
@@ -0,0 +1,45 @@
+package com.easybilling.entity;
+
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Filter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency record of an invoice ingested from an offline counter. Written with the invoice,
+ * so a replayed key is answered from here without touching the invoice again.
+ */
+@Entity
+@Table(name = "invoice_ingest_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_invoice_ingest_key", columnNames = {"tenant_id", "idempotency_key"})
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@EntityListeners(TenantEntityListener.class)
+public class InvoiceIngestKey implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    @Column(name = "invoice_id", nullable = false, length = 36)
+    private String invoiceId;
+
+    @Column(name = "invoice_number", nullable = false)
+    private String invoiceNumber;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
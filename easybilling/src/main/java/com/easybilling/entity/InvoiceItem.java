@@ -65,6 +65,15 @@ public class InvoiceItem implements TenantAware {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal lineTotal;
     
+    // Cost of goods captured from the stock ledger when the invoice is created
+    @Column(name = "unit_cost", precision = 12, scale = 4)
+    @Builder.Default
+    private BigDecimal unitCost = BigDecimal.ZERO;
+    
+    @Column(name = "cost_amount", precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal costAmount = BigDecimal.ZERO;
+    
     @Column(nullable = false, name = "tenant_id")
     private Integer tenantId;
     
@@ -109,6 +118,15 @@ public class InvoiceItem implements TenantAware {
 
     private String notes;
 
+    /**
+     * Capture the cost basis in effect at the time of sale.
+     */
+    public void applyUnitCost(BigDecimal cost) {
+        this.unitCost = cost != null ? cost : BigDecimal.ZERO;
+        this.costAmount = this.unitCost.multiply(BigDecimal.valueOf(quantity))
+                .setScale(2, java.math.RoundingMode.HALF_UP);
+    }
+
     public void calculateLineTotal() {
         BigDecimal gross = unitPrice.multiply(BigDecimal.valueOf(quantity));
         BigDecimal netAmount = gross.subtract(discountAmount != null ? discountAmount : BigDecimal.ZERO);
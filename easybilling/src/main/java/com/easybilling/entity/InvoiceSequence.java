@@ -0,0 +1,38 @@
+package com.easybilling.entity;
+
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Filter;
+
+/**
+ * The last invoice number issued for a tenant in one financial year. Numbers are taken under this
+ * row's lock in the issuing transaction, so they are unique across nodes and a rolled-back invoice
+ * gives its number back.
+ */
+@Entity
+@Table(name = "invoice_sequences", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_invoice_sequence_year", columnNames = {"tenant_id", "financial_year"})
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@EntityListeners(TenantEntityListener.class)
+public class InvoiceSequence implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "financial_year", nullable = false, length = 7)
+    private String financialYear;
+
+    @Column(name = "last_number", nullable = false)
+    private Long lastNumber;
+}
@@ -0,0 +1,32 @@
+package com.easybilling.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster lease for a scheduled job. A node runs a tick only if it moves last_tick forward while
+ * no other lease is live, so each tick runs on exactly one node.
+ */
+@Entity
+@Table(name = "job_locks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLock {
+
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_tick")
+    private LocalDateTime lastTick;
+}
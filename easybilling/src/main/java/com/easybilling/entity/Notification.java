@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 @Table(name = "notifications", indexes = {
     @Index(name = "idx_notification_tenant", columnList = "tenant_id"),
     @Index(name = "idx_notification_status", columnList = "status"),
-    @Index(name = "idx_notification_type", columnList = "type")
+    @Index(name = "idx_notification_type", columnList = "type"),
+    @Index(name = "idx_notification_dispatch", columnList = "type, status, next_attempt_at")
 })
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
 @Data
@@ -58,6 +59,14 @@ public class Notification implements TenantAware {
     
     private String errorMessage;
     
+    // Outbox dispatch: earliest time of the next attempt (backoff), or the claim expiry while SENDING
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    private LocalDateTime lastAttemptAt;
+    
+    private String provider;
+    
     private LocalDateTime sentAt;
     
     @CreatedDate
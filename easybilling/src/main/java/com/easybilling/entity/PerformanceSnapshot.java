@@ -0,0 +1,73 @@
+package com.easybilling.entity;
+
+import com.easybilling.enums.PerformanceDimension;
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Hourly performance counters flushed from the in-memory sliding windows.
+ * Each application node writes its own row, so historical reads sum across nodes.
+ */
+@Entity
+@Table(name = "performance_snapshots", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_perf_snapshot", columnNames = {"tenant_id", "dimension", "dimension_id", "bucket_start", "node_id"})
+}, indexes = {
+    @Index(name = "idx_perf_snapshot_range", columnList = "tenant_id, dimension, bucket_start")
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(TenantEntityListener.class)
+public class PerformanceSnapshot implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PerformanceDimension dimension;
+
+    @Column(name = "dimension_id", nullable = false, length = 100)
+    private String dimensionId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart; // Start of the hour
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    @Column(name = "sales_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal salesAmount;
+
+    @Column(name = "void_count", nullable = false)
+    private Long voidCount;
+
+    @Column(name = "return_count", nullable = false)
+    private Long returnCount;
+
+    @Column(name = "active_minutes", nullable = false)
+    private Integer activeMinutes;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
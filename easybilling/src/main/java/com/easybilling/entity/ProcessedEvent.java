@@ -0,0 +1,35 @@
+package com.easybilling.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Marks a domain event as applied by one consumer. Written in the transaction that applies the
+ * event, so after a replay rewinds the consumer's offset the event is recognised and skipped.
+ */
+@Entity
+@Table(name = "processed_events", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_processed_event_consumer", columnNames = {"consumer_name", "event_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ProcessedEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "consumer_name", nullable = false, length = 100)
+    private String consumerName;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+}
@@ -27,7 +27,8 @@ import java.util.List;
         @Index(name = "idx_quote_tenant", columnList = "tenant_id"),
         @Index(name = "idx_quote_customer", columnList = "customer_id"),
         @Index(name = "idx_quote_number", columnList = "quote_number"),
-        @Index(name = "idx_quote_status", columnList = "status")
+        @Index(name = "idx_quote_status", columnList = "status"),
+        @Index(name = "idx_quote_status_valid_until", columnList = "status, valid_until, tenant_id")
 })
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
 @Data
@@ -0,0 +1,65 @@
+package com.easybilling.entity;
+
+import com.easybilling.enums.ReceivableEntryType;
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Accounts receivable ledger line. Amounts are signed: debits (invoices) positive,
+ * credits (payments, credit notes, cancellations) negative, so a customer's balance
+ * is the running sum of their entries.
+ */
+@Entity
+@Table(name = "ar_ledger", indexes = {
+    @Index(name = "idx_ar_ledger_customer", columnList = "tenant_id, customer_id, entry_date"),
+    @Index(name = "idx_ar_ledger_invoice", columnList = "invoice_id")
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(TenantEntityListener.class)
+public class ReceivableEntry implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    @Column(name = "invoice_id", nullable = false)
+    private String invoiceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private ReceivableEntryType entryType;
+
+    @Column(name = "reference_number", length = 100)
+    private String referenceNumber; // Invoice, payment or credit note number
+
+    @Column(name = "entry_date", nullable = false)
+    private LocalDateTime entryDate;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_by")
+    private String createdBy;
+}
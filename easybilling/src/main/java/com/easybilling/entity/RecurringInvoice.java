@@ -25,7 +25,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_recurring_tenant", columnList = "tenant_id"),
         @Index(name = "idx_recurring_customer", columnList = "customer_id"),
         @Index(name = "idx_recurring_next_date", columnList = "next_invoice_date"),
-        @Index(name = "idx_recurring_active", columnList = "is_active")
+        @Index(name = "idx_recurring_active", columnList = "is_active"),
+        @Index(name = "idx_recurring_due", columnList = "is_active, next_invoice_date, tenant_id")
 })
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
 @Data
@@ -129,6 +130,12 @@ public class RecurringInvoice implements TenantAware {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    // Billing run lease: the node currently generating this schedule's invoices
+    @Column(length = 100)
+    private String leaseOwner;
+
+    private LocalDateTime leaseExpiresAt;
+
     private LocalDateTime pausedAt;
     private String pausedBy;
     private String pauseReason;
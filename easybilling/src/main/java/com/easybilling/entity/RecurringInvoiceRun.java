@@ -0,0 +1,55 @@
+package com.easybilling.entity;
+
+import com.easybilling.listener.TenantEntityListener;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Filter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One generated billing period of a recurring invoice schedule. The unique
+ * (recurring_invoice_id, period_date) key makes generation idempotent across
+ * retries, restarts and concurrent billing-run nodes.
+ */
+@Entity
+@Table(name = "recurring_invoice_runs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recurring_run_period", columnNames = {"recurring_invoice_id", "period_date"})
+}, indexes = {
+        @Index(name = "idx_recurring_run_tenant", columnList = "tenant_id, generated_at"),
+        @Index(name = "idx_recurring_run_invoice", columnList = "invoice_id")
+})
+@Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(TenantEntityListener.class)
+public class RecurringInvoiceRun implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "recurring_invoice_id", nullable = false)
+    private String recurringInvoiceId;
+
+    @Column(name = "period_date", nullable = false)
+    private LocalDate periodDate;
+
+    @Column(name = "invoice_id")
+    private String invoiceId;
+
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "generated_at", nullable = false)
+    private LocalDateTime generatedAt;
+}
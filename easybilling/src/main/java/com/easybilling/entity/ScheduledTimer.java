@@ -0,0 +1,63 @@
+package com.easybilling.entity;
+
+import com.easybilling.enums.TimerType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A persisted one-shot timer. There is at most one per (type, target); scheduling again moves it.
+ * A node claims timers coming due within its horizon, holds them in memory until they fire and
+ * deletes them in the transaction that handles them. A failed timer is pushed back and retried.
+ */
+@Entity
+@Table(name = "scheduled_timers", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_scheduled_timer_target", columnNames = {"timer_type", "target_id"})
+}, indexes = {
+        @Index(name = "idx_scheduled_timer_fire_at", columnList = "fire_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ScheduledTimer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "timer_type", nullable = false, length = 50)
+    private TimerType timerType;
+
+    @Column(name = "target_id", nullable = false, length = 100)
+    private String targetId;
+
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+
+    @Column(name = "payload", length = 1000)
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
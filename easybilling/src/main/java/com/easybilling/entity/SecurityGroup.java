@@ -4,6 +4,8 @@ import com.easybilling.enums.Permission;
 import com.easybilling.listener.TenantEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.Filter;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -23,6 +25,8 @@ import java.util.Set;
         @Index(name = "idx_security_group_status", columnList = "is_active")
 })
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Data
 @Builder
 @NoArgsConstructor
@@ -45,6 +49,7 @@ public class SecurityGroup implements TenantAware {
     private Integer tenantId;
     
     @ElementCollection(fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     @CollectionTable(name = "security_group_permissions", 
                      joinColumns = @JoinColumn(name = "security_group_id"))
     @Column(name = "permission")
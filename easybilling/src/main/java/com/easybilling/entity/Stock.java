@@ -43,6 +43,10 @@ public class Stock implements TenantAware {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal availableQuantity = BigDecimal.ZERO;
 
+    // Weighted-average unit cost, maintained incrementally on every IN movement
+    @Column(nullable = false, precision = 12, scale = 4)
+    private BigDecimal averageCost = BigDecimal.ZERO;
+
     @Column(nullable = false)
     private Integer tenantId;
 
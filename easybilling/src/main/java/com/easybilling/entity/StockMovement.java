@@ -45,6 +45,15 @@ public class StockMovement implements TenantAware {
     @Column(precision = 10, scale = 2)
     private BigDecimal newQuantity;
 
+    @Column(precision = 12, scale = 4)
+    private BigDecimal unitCost;
+
+    @Column(precision = 12, scale = 2)
+    private BigDecimal totalCost;
+
+    @Column(precision = 12, scale = 4)
+    private BigDecimal averageCostAfter; // Stock average cost after this movement
+
     private String referenceType; // SALE, PURCHASE, ADJUSTMENT, RETURN
     private String referenceId; // Invoice ID, PO ID, etc.
 
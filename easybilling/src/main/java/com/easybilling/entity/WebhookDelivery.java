@@ -0,0 +1,74 @@
+package com.easybilling.entity;
+
+import com.easybilling.enums.WebhookDeliveryStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Persistent webhook delivery queue entry: one event for one webhook, retried until delivered
+ * or the webhook's retry budget is exhausted.
+ */
+@Entity
+@Table(name = "webhook_deliveries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_webhook_delivery_event", columnNames = {"webhook_id", "event_id"})
+}, indexes = {
+        @Index(name = "idx_webhook_delivery_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_delivery_tenant", columnList = "tenant_id, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class WebhookDelivery implements TenantAware {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    @Column(name = "webhook_id", nullable = false)
+    private Long webhookId;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "event_id", nullable = false, length = 100)
+    private String eventId; // Business key of the event, e.g. the invoice id
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private WebhookDeliveryStatus status = WebhookDeliveryStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_attempt_at")
+    private Instant lastAttemptAt;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "delivered_at")
+    private Instant deliveredAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
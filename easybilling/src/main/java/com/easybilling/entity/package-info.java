@@ -1,4 +1,6 @@
-@FilterDef(name = "tenantFilter", parameters = @ParamDef(name = "tenantId", type = Integer.class))
+// applyToLoadByKey: loading by id (find, findById) is filtered too, not only queries
+@FilterDef(name = "tenantFilter", parameters = @ParamDef(name = "tenantId", type = Integer.class),
+        applyToLoadByKey = true)
 package com.easybilling.entity;
 
 import org.hibernate.annotations.FilterDef;
@@ -0,0 +1,10 @@
+package com.easybilling.enums;
+
+public enum DomainEventType {
+    INVOICE_CREATED,    // Draft saved
+    INVOICE_COMPLETED,  // Checkout finished
+    INVOICE_CANCELLED,
+    STOCK_CHANGED,
+    CUSTOMER_CREATED,
+    QUOTES_EXPIRED      // A batch of one tenant's quotes, expired by the nightly sweep
+}
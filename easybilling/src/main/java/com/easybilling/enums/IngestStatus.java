@@ -0,0 +1,7 @@
+package com.easybilling.enums;
+
+public enum IngestStatus {
+    CREATED,
+    REPLAYED,   // Idempotency key seen before; the original invoice is returned
+    REJECTED    // Failed validation; nothing stored, the key may be retried
+}
@@ -0,0 +1,8 @@
+package com.easybilling.enums;
+
+public enum JobRunStatus {
+    RUNNING,
+    SUCCEEDED,
+    PARTIAL,    // Finished, but some tenants failed
+    FAILED      // Aborted before every tenant was visited
+}
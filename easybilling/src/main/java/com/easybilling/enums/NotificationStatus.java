@@ -2,7 +2,9 @@ package com.easybilling.enums;
 
 public enum NotificationStatus {
     PENDING,
+    SENDING,      // Claimed by a dispatcher; returns to the queue if the claim expires
     SENT,
     FAILED,
-    DELIVERED
+    DELIVERED,
+    DEAD_LETTER   // Retries exhausted or permanently rejected by the provider
 }
@@ -0,0 +1,7 @@
+package com.easybilling.enums;
+
+public enum PerformanceDimension {
+    USER,       // Cashier who completed/voided the bill
+    STORE,
+    COUNTER     // Keyed as storeId:counterId
+}
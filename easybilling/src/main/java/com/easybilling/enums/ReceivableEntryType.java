@@ -0,0 +1,9 @@
+package com.easybilling.enums;
+
+public enum ReceivableEntryType {
+    INVOICE,        // Debit: invoice completed
+    PAYMENT,        // Credit: payment received
+    CREDIT_NOTE,    // Credit: credit note applied to the invoice
+    CANCELLATION,   // Credit: outstanding balance written back on cancellation
+    LATE_FEE        // Debit: late fee charged by the dunning run
+}
@@ -0,0 +1,7 @@
+package com.easybilling.enums;
+
+public enum TimerType {
+    PAYMENT_REMINDER,   // Target: invoice id; payload: "expectedStage:stage"
+    QUOTE_EXPIRY,       // Target: quote id
+    OFFER_EXPIRY        // Target: offer id
+}
@@ -0,0 +1,8 @@
+package com.easybilling.enums;
+
+public enum WebhookDeliveryStatus {
+    PENDING,    // Waiting for its first attempt or the next retry
+    IN_FLIGHT,  // Request sent; returns to PENDING if the claim expires without an outcome
+    DELIVERED,
+    FAILED      // Retries exhausted or webhook no longer active
+}
@@ -0,0 +1,45 @@
+package com.easybilling.event;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.repository.CustomerRepository;
+import com.easybilling.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Credits completed purchases to the customer: total spent, visits, loyalty points and segment.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerEventConsumer implements DomainEventConsumer {
+
+    private final CustomerService customerService;
+    private final CustomerRepository customerRepository;
+
+    @Override
+    public String getName() {
+        return "customer-loyalty";
+    }
+
+    @Override
+    public boolean supports(DomainEventType type) {
+        return type == DomainEventType.INVOICE_COMPLETED;
+    }
+
+    @Override
+    public void handle(DomainEvent event, JsonNode payload) {
+        String customerId = payload.path("customerId").asText(null);
+        if (customerId == null || payload.path("totalAmount").isMissingNode()) {
+            return;
+        }
+        if (customerRepository.findByIdAndTenantId(customerId, event.getTenantId()).isEmpty()) {
+            log.debug("Invoice {} references unknown customer {}", event.getAggregateId(), customerId);
+            return;
+        }
+        customerService.recordPurchase(customerId, event.getTenantId(), payload.get("totalAmount").decimalValue());
+    }
+}
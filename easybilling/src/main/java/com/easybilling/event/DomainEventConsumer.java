@@ -0,0 +1,26 @@
+package com.easybilling.event;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.enums.DomainEventType;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A subscriber to the domain-event outbox. Each consumer keeps its own offset per partition and
+ * sees the events of a partition (and so of any one aggregate) strictly in order. {@link #handle}
+ * runs in the transaction that advances the offset, with the event's tenant set in TenantContext,
+ * so database work done here is applied exactly once; other side effects should use AfterCommit.
+ * Throwing rolls the batch back and the event is retried with backoff. The dispatcher records each
+ * event a consumer applied, so rewinding a consumer never applies an event to it twice and
+ * handlers need not be idempotent.
+ */
+public interface DomainEventConsumer {
+
+    /**
+     * Stable name; it keys the stored offsets, so renaming a consumer starts it afresh.
+     */
+    String getName();
+
+    boolean supports(DomainEventType type);
+
+    void handle(DomainEvent event, JsonNode payload);
+}
@@ -0,0 +1,108 @@
+package com.easybilling.event;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.entity.Invoice;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.service.WebhookService;
+import com.easybilling.service.WorkflowEngine;
+import com.easybilling.workflow.WorkflowEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Turns domain events into tenant integrations: webhook deliveries and custom workflows.
+ * Invoice completion is published to integrations as INVOICE_CREATED, and each quote in a
+ * QUOTES_EXPIRED batch as its own QUOTE_EXPIRED.
+ */
+@Component
+@RequiredArgsConstructor
+public class IntegrationEventConsumer implements DomainEventConsumer {
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private final InvoiceRepository invoiceRepository;
+    private final WebhookService webhookService;
+    private final WorkflowEngine workflowEngine;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String getName() {
+        return "integrations";
+    }
+
+    @Override
+    public boolean supports(DomainEventType type) {
+        return type != DomainEventType.INVOICE_CREATED;
+    }
+
+    @Override
+    public void handle(DomainEvent event, JsonNode payload) {
+        Integer tenantId = event.getTenantId();
+        switch (event.getEventType()) {
+            case INVOICE_COMPLETED -> invoiceEvent(event, payload, "INVOICE_CREATED");
+            case INVOICE_CANCELLED -> invoiceEvent(event, payload, "INVOICE_CANCELLED");
+            case CUSTOMER_CREATED -> {
+                Map<String, Object> data = objectMapper.convertValue(payload, MAP);
+                webhookService.publish(tenantId, "CUSTOMER_CREATED", event.getAggregateId(), data);
+                workflowEngine.fire(WorkflowEvent.builder()
+                        .tenantId(tenantId)
+                        .triggerEvent("CUSTOMER_CREATED")
+                        .entityId(event.getAggregateId())
+                        .customerId(event.getAggregateId())
+                        .attributes(data)
+                        .build());
+            }
+            case STOCK_CHANGED -> {
+                Map<String, Object> data = objectMapper.convertValue(payload, MAP);
+                String eventId = event.getAggregateId() + ":" + event.getId();
+                WorkflowEvent.WorkflowEventBuilder workflowEvent = WorkflowEvent.builder()
+                        .tenantId(tenantId)
+                        .entityId(payload.path("productId").asText())
+                        .storeId(payload.path("locationId").asText(null))
+                        .quantity(payload.path("newQuantity").decimalValue().longValue())
+                        .attributes(data);
+                webhookService.publish(tenantId, "STOCK_CHANGED", eventId, data);
+                workflowEngine.fire(workflowEvent.triggerEvent("STOCK_CHANGED").build());
+                if (payload.path("lowStockReached").asBoolean()) {
+                    webhookService.publish(tenantId, "LOW_STOCK", eventId, data);
+                    workflowEngine.fire(workflowEvent.triggerEvent("LOW_STOCK").build());
+                }
+            }
+            case QUOTES_EXPIRED -> {
+                for (JsonNode quote : payload.path("quotes")) {
+                    Map<String, Object> data = objectMapper.convertValue(quote, MAP);
+                    String quoteId = quote.path("quoteId").asText();
+                    webhookService.publish(tenantId, "QUOTE_EXPIRED", quoteId, data);
+                    workflowEngine.fire(WorkflowEvent.builder()
+                            .tenantId(tenantId)
+                            .triggerEvent("QUOTE_EXPIRED")
+                            .entityId(quoteId)
+                            .customerId(quote.path("customerId").asText(null))
+                            .status("EXPIRED")
+                            .amount(quote.path("total").decimalValue())
+                            .attributes(data)
+                            .build());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void invoiceEvent(DomainEvent event, JsonNode payload, String trigger) {
+        Invoice invoice = invoiceRepository.findById(event.getAggregateId()).orElse(null);
+        if (invoice == null) {
+            return;
+        }
+        Map<String, Object> data = WebhookService.invoiceData(invoice);
+        webhookService.publish(event.getTenantId(), trigger, invoice.getId(), data);
+        workflowEngine.fire(WorkflowEvent.forInvoice(invoice, trigger, payload.path("userId").asText(null), data));
+    }
+}
@@ -0,0 +1,51 @@
+package com.easybilling.event;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.service.InventoryService;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Deducts stock for completed invoices and puts it back for cancelled ones.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryEventConsumer implements DomainEventConsumer {
+
+    private final InventoryService inventoryService;
+
+    @Override
+    public String getName() {
+        return "inventory";
+    }
+
+    @Override
+    public boolean supports(DomainEventType type) {
+        return type == DomainEventType.INVOICE_COMPLETED || type == DomainEventType.INVOICE_CANCELLED;
+    }
+
+    @Override
+    public void handle(DomainEvent event, JsonNode payload) {
+        if (payload.path("stockPosted").asBoolean(false)) {
+            return; // Deducted when the invoice was ingested, together with its batch
+        }
+        String locationId = payload.path("storeId").asText(null);
+        String invoiceNumber = payload.path("invoiceNumber").asText();
+        String userId = payload.path("userId").asText(null);
+        for (JsonNode item : payload.path("items")) {
+            String productId = item.path("productId").asText(null);
+            BigDecimal quantity = BigDecimal.valueOf(item.path("quantity").asLong());
+            if (event.getEventType() == DomainEventType.INVOICE_COMPLETED) {
+                inventoryService.deductStock(productId, locationId, quantity, invoiceNumber, userId, event.getTenantId());
+            } else {
+                BigDecimal unitCost = item.hasNonNull("unitCost") ? item.get("unitCost").decimalValue() : null;
+                inventoryService.reverseStockDeduction(productId, locationId, quantity, unitCost, invoiceNumber,
+                        userId, event.getTenantId());
+            }
+        }
+    }
+}
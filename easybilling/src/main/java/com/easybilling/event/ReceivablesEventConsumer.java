@@ -0,0 +1,55 @@
+package com.easybilling.event;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.Payment;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.service.AccountsReceivableService;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Posts completed invoices to the receivables ledger and writes off cancelled ones.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReceivablesEventConsumer implements DomainEventConsumer {
+
+    private final InvoiceRepository invoiceRepository;
+    private final AccountsReceivableService accountsReceivableService;
+
+    @Override
+    public String getName() {
+        return "receivables";
+    }
+
+    @Override
+    public boolean supports(DomainEventType type) {
+        return type == DomainEventType.INVOICE_COMPLETED || type == DomainEventType.INVOICE_CANCELLED;
+    }
+
+    @Override
+    public void handle(DomainEvent event, JsonNode payload) {
+        Invoice invoice = invoiceRepository.findById(event.getAggregateId()).orElse(null);
+        if (invoice == null || invoice.getCustomerId() == null) {
+            return;
+        }
+        if (event.getEventType() == DomainEventType.INVOICE_CANCELLED) {
+            accountsReceivableService.recordCancellation(invoice, payload.path("userId").asText(null));
+            return;
+        }
+        // Only the checkout payments: later ones were posted to the ledger when they were taken
+        Set<String> paymentIds = new HashSet<>();
+        payload.path("paymentIds").forEach(id -> paymentIds.add(id.asText()));
+        List<Payment> checkoutPayments = invoice.getPayments().stream()
+                .filter(payment -> paymentIds.contains(payment.getId()))
+                .toList();
+        accountsReceivableService.recordInvoice(invoice, checkoutPayments);
+    }
+}
@@ -0,0 +1,47 @@
+package com.easybilling.event;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.entity.Invoice;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.service.PerformanceMetricsService;
+import com.easybilling.service.SalesSketchService;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds cashier/store performance windows and the dashboard sales sketches.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesAnalyticsEventConsumer implements DomainEventConsumer {
+
+    private final InvoiceRepository invoiceRepository;
+    private final PerformanceMetricsService performanceMetricsService;
+    private final SalesSketchService salesSketchService;
+
+    @Override
+    public String getName() {
+        return "sales-analytics";
+    }
+
+    @Override
+    public boolean supports(DomainEventType type) {
+        return type == DomainEventType.INVOICE_COMPLETED || type == DomainEventType.INVOICE_CANCELLED;
+    }
+
+    @Override
+    public void handle(DomainEvent event, JsonNode payload) {
+        Invoice invoice = invoiceRepository.findById(event.getAggregateId()).orElse(null);
+        if (invoice == null) {
+            return;
+        }
+        if (event.getEventType() == DomainEventType.INVOICE_COMPLETED) {
+            performanceMetricsService.recordCompleted(invoice);
+            salesSketchService.recordCompleted(invoice);
+        } else {
+            performanceMetricsService.recordCancelled(invoice, payload.path("userId").asText(null));
+        }
+    }
+}
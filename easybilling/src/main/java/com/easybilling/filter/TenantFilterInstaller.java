@@ -0,0 +1,24 @@
+package com.easybilling.filter;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Installs {@link TenantFilterJpaDialect} on the auto-configured entity manager factory, so the
+ * transaction manager applies the tenant filter when each transaction begins, and applies it to
+ * every EntityManager the factory creates.
+ */
+@Component
+public class TenantFilterInstaller implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof LocalContainerEntityManagerFactoryBean factoryBean) {
+            factoryBean.setJpaDialect(new TenantFilterJpaDialect());
+            factoryBean.setEntityManagerInitializer(TenantFilterJpaDialect::applyTenantFilter);
+        }
+        return bean;
+    }
+}
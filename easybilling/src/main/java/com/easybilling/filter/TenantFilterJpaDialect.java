@@ -0,0 +1,54 @@
+package com.easybilling.filter;
+
+import com.easybilling.context.TenantContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Applies the Hibernate tenant filter once per transaction rather than once per repository call.
+ * The filter follows the tenant in {@link TenantContext} when the transaction begins, and is
+ * switched off when there is none (system work that names tenants explicitly).
+ * {@link #applyTenantFilter} also runs when an EntityManager is created, which covers repository
+ * calls made outside a transaction.
+ */
+@Slf4j
+public class TenantFilterJpaDialect extends HibernateJpaDialect {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String FILTER_NAME = "tenantFilter";
+    public static final String TENANT_PARAMETER = "tenantId";
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        applyTenantFilter(entityManager);
+        return transactionData;
+    }
+
+    /**
+     * Enable the filter for the current tenant, or disable it when no tenant is set.
+     */
+    public static void applyTenantFilter(EntityManager entityManager) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            if (session.getEnabledFilter(FILTER_NAME) != null) {
+                session.disableFilter(FILTER_NAME);
+            }
+            return;
+        }
+        Filter filter = session.enableFilter(FILTER_NAME);
+        filter.setParameter(TENANT_PARAMETER, tenantId);
+        filter.validate();
+        log.trace("Enabled tenant filter for tenantId: {}", tenantId);
+    }
+}
@@ -0,0 +1,229 @@
+package com.easybilling.interceptor;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.entity.Tenant.SubscriptionPlan;
+import com.easybilling.service.TenantDirectory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkheads in front of the shared connection pool. A request first takes a permit from its
+ * tenant, sized by the tenant's plan, so one tenant's dashboards and bulk jobs cannot occupy the
+ * node; then a permit from its lane. Checkout handlers ({@link CheckoutLane}) skip the tenant
+ * limit and may use capacity the general lane can never take, so checkout keeps flowing when
+ * everything else is saturated. A request that cannot get a permit within its plan's queue
+ * timeout is refused with 429.
+ * <p>
+ * An async handler (a {@code StreamingResponseBody}, {@code DeferredResult} and so on) keeps its
+ * permits until the response is complete: the async dispatch that finishes it passes through
+ * without taking more and releases them in its {@code afterCompletion}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMITS_ATTRIBUTE = BulkheadInterceptor.class.getName() + ".permits";
+
+    private final TenantDirectory tenantDirectory;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+
+    @Value("${app.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bulkhead.max-concurrent:32}")
+    private int maxConcurrent;
+
+    @Value("${app.bulkhead.checkout-reserved:8}")
+    private int checkoutReserved;
+
+    @Value("${app.bulkhead.tenant-max-concurrent:6}")
+    private int defaultTenantMaxConcurrent;
+
+    @Value("${app.bulkhead.queue-timeout-ms:1000}")
+    private long defaultQueueTimeoutMs;
+
+    private Map<SubscriptionPlan, PlanLimits> planLimits;
+    private Lane generalLane;
+    private Lane checkoutLane;
+    private Lane tenantLane;
+    private final Map<Integer, TenantPermits> tenantPermits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        planLimits = Binder.get(environment)
+                .bind("app.bulkhead.plans", Bindable.mapOf(SubscriptionPlan.class, PlanLimits.class))
+                .orElse(Map.of());
+        int reserved = Math.min(checkoutReserved, maxConcurrent);
+        generalLane = new Lane("general", new Semaphore(maxConcurrent - reserved, true));
+        checkoutLane = new Lane("checkout", new Semaphore(reserved, true));
+        tenantLane = new Lane("tenant", null);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // The initial dispatch took the permits and left them on the request
+            return true;
+        }
+        if (!enabled || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        boolean checkout = method.hasMethodAnnotation(CheckoutLane.class);
+        Integer tenantId = TenantContext.getTenantId();
+        PlanLimits limits = limitsFor(tenantId);
+        List<Semaphore> held = new ArrayList<>(2);
+
+        try {
+            if (!checkout && tenantId != null) {
+                Semaphore tenant = tenantPermits(tenantId, limits).semaphore();
+                if (!tenantLane.acquire(tenant, limits.queueTimeoutMs())) {
+                    return reject(response, tenantLane, tenantId);
+                }
+                held.add(tenant);
+            }
+            if (checkout && generalLane.semaphore().tryAcquire()) {
+                held.add(generalLane.semaphore());
+            } else {
+                Lane lane = checkout ? checkoutLane : generalLane;
+                if (!lane.acquire(lane.semaphore(), limits.queueTimeoutMs())) {
+                    release(held);
+                    return reject(response, lane, tenantId);
+                }
+                held.add(lane.semaphore());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(held);
+            return reject(response, checkout ? checkoutLane : generalLane, tenantId);
+        }
+        request.setAttribute(PERMITS_ATTRIBUTE, held);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object held = request.getAttribute(PERMITS_ATTRIBUTE);
+        if (held != null) {
+            request.removeAttribute(PERMITS_ATTRIBUTE);
+            release((List<Semaphore>) held);
+        }
+    }
+
+    private PlanLimits limitsFor(Integer tenantId) {
+        SubscriptionPlan plan = tenantId != null ? tenantDirectory.planOf(tenantId) : null;
+        PlanLimits limits = plan != null ? planLimits.get(plan) : null;
+        return limits != null ? limits : new PlanLimits(defaultTenantMaxConcurrent, defaultQueueTimeoutMs);
+    }
+
+    /**
+     * The tenant's semaphore, replaced when its plan's limit changes. Requests holding a permit
+     * of the old one release it there.
+     */
+    private TenantPermits tenantPermits(Integer tenantId, PlanLimits limits) {
+        return tenantPermits.compute(tenantId, (id, current) ->
+                current != null && current.maxConcurrent() == limits.maxConcurrent()
+                        ? current
+                        : new TenantPermits(limits.maxConcurrent(), new Semaphore(limits.maxConcurrent(), true)));
+    }
+
+    private boolean reject(HttpServletResponse response, Lane lane, Integer tenantId) throws IOException {
+        lane.rejected().increment();
+        log.debug("Bulkhead {} full, refusing request for tenant {}", lane.name(), tenantId);
+        response.setHeader("Retry-After", "1");
+        response.sendError(429, "Too many concurrent requests");
+        return false;
+    }
+
+    private static void release(List<Semaphore> held) {
+        for (Semaphore semaphore : held) {
+            semaphore.release();
+        }
+        held.clear();
+    }
+
+    /**
+     * Per-plan limits: concurrent non-checkout requests per tenant, and how long a request may
+     * queue for any permit.
+     */
+    public record PlanLimits(int maxConcurrent, long queueTimeoutMs) {
+    }
+
+    private record TenantPermits(int maxConcurrent, Semaphore semaphore) {
+    }
+
+    private final class Lane {
+
+        private final String name;
+        private final Semaphore semaphore;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Timer waitTimer;
+        private final Counter rejected;
+
+        Lane(String name, Semaphore semaphore) {
+            this.name = name;
+            this.semaphore = semaphore;
+            this.waitTimer = meterRegistry.timer("bulkhead.wait", "lane", name);
+            this.rejected = meterRegistry.counter("bulkhead.rejected", "lane", name);
+            meterRegistry.gauge("bulkhead.queue.depth", Tags.of("lane", name), waiting);
+        }
+
+        /**
+         * Take a permit from {@code permits}, queueing up to {@code timeoutMs}, and record the wait.
+         */
+        boolean acquire(Semaphore permits, long timeoutMs) throws InterruptedException {
+            if (permits.tryAcquire()) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            long start = System.nanoTime();
+            waiting.incrementAndGet();
+            try {
+                return permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        String name() {
+            return name;
+        }
+
+        Semaphore semaphore() {
+            return semaphore;
+        }
+
+        Counter rejected() {
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.easybilling.interceptor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a checkout handler. {@link BulkheadInterceptor} admits its requests through capacity
+ * reserved for checkout and does not count them against the tenant's concurrency limit.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CheckoutLane {
+}
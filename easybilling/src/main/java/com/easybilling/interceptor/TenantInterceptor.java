@@ -1,55 +1,89 @@
 package com.easybilling.interceptor;
 
 import com.easybilling.context.TenantContext;
+import com.easybilling.entity.Tenant.TenantStatus;
 import com.easybilling.resolver.TenantResolver;
+import com.easybilling.service.TenantDirectory;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
 
 /**
  * Interceptor to resolve and set tenant context for each request.
+ * Requests for a suspended or cancelled tenant are refused here, before any handler runs.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class TenantInterceptor implements HandlerInterceptor {
     
     private final List<TenantResolver> tenantResolvers;
-    
-    @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        // Sort resolvers by priority
-        List<TenantResolver> sortedResolvers = tenantResolvers.stream()
+    private final TenantDirectory tenantDirectory;
+
+    public TenantInterceptor(List<TenantResolver> tenantResolvers, TenantDirectory tenantDirectory) {
+        // Sort resolvers by priority once
+        this.tenantResolvers = tenantResolvers.stream()
                 .sorted(Comparator.comparingInt(TenantResolver::getPriority))
                 .toList();
-        
-        // Try each resolver until one returns a tenant ID
-        for (TenantResolver resolver : sortedResolvers) {
-            String tenantIdStr = resolver.resolveTenantId(request);
-            if (tenantIdStr != null && !tenantIdStr.isBlank()) {
-                try {
-                    Integer tenantId = Integer.parseInt(tenantIdStr);
-                    TenantContext.setTenantId(tenantId);
-                    log.debug("Tenant resolved: {} by {}", tenantId, resolver.getClass().getSimpleName());
-                    return true;
-                } catch (NumberFormatException e) {
-                    log.warn("Invalid tenant ID format: {}", tenantIdStr);
-                }
+        this.tenantDirectory = tenantDirectory;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // The JWT filter has already set the token's tenant; a header or subdomain can only agree with it
+        Integer tokenTenantId = TenantContext.getTenantId();
+        Integer resolvedTenantId = resolve(request);
+        if (tokenTenantId == null) {
+            // Unauthenticated endpoints (login, onboarding) name their tenant this way
+            if (resolvedTenantId != null) {
+                TenantContext.setTenantId(resolvedTenantId);
             }
+        } else if (resolvedTenantId != null && !resolvedTenantId.equals(tokenTenantId)) {
+            log.warn("Refused {} {}: request names tenant {} but token is for tenant {}",
+                    request.getMethod(), request.getRequestURI(), resolvedTenantId, tokenTenantId);
+            TenantContext.clear(); // afterCompletion is not called for a refused request
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Tenant does not match token");
+            return false;
+        }
+
+        Integer tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            log.warn("No tenant ID found in request: {} {}", request.getMethod(), request.getRequestURI());
+            // For public endpoints, allow request without tenant
+            // For protected endpoints, this should be handled by security layer
+            return true;
+        }
+
+        TenantStatus status = tenantDirectory.statusOf(tenantId);
+        if (TenantDirectory.isBlocked(status)) {
+            log.info("Refused {} {} for {} tenant {}", request.getMethod(), request.getRequestURI(), status, tenantId);
+            TenantContext.clear(); // afterCompletion is not called for a refused request
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Tenant is " + status.name().toLowerCase());
+            return false;
         }
-        
-        log.warn("No tenant ID found in request: {} {}", request.getMethod(), request.getRequestURI());
-        // For public endpoints, allow request without tenant
-        // For protected endpoints, this should be handled by security layer
         return true;
     }
     
+    /**
+     * Tenant named by the request itself, from the first resolver that finds one.
+     */
+    private Integer resolve(HttpServletRequest request) {
+        for (TenantResolver resolver : tenantResolvers) {
+            Integer tenantId = resolver.resolveTenantId(request);
+            if (tenantId != null) {
+                log.debug("Tenant resolved: {} by {}", tenantId, resolver.getClass().getSimpleName());
+                return tenantId;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, 
                                 Object handler, Exception ex) {
@@ -0,0 +1,36 @@
+package com.easybilling.job;
+
+import com.easybilling.service.DunningService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Daily dunning run per tenant: late fees on overdue invoices and scheduling of their reminders.
+ */
+@Component
+@RequiredArgsConstructor
+public class DunningJob implements ScheduledJob {
+
+    private final DunningService dunningService;
+
+    @Value("${app.jobs.dunning.cron:0 0 6 * * *}")
+    private String cron;
+
+    @Override
+    public String getName() {
+        return "dunning";
+    }
+
+    @Override
+    public JobSchedule getSchedule() {
+        return JobSchedule.cron(cron);
+    }
+
+    @Override
+    public void runForTenant(Integer tenantId) {
+        dunningService.run(tenantId, LocalDate.now());
+    }
+}
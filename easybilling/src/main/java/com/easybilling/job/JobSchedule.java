@@ -0,0 +1,42 @@
+package com.easybilling.job;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * When a {@link ScheduledJob} fires: a cron expression, or a fixed rate aligned to the epoch.
+ * Ticks depend only on the clock, never on when a node started, so every node computes the
+ * same tick and the job lease can tell a tick that already ran from a new one.
+ */
+public record JobSchedule(CronExpression cron, Duration fixedRate) {
+
+    public static JobSchedule cron(String expression) {
+        return new JobSchedule(CronExpression.parse(expression), null);
+    }
+
+    public static JobSchedule fixedRate(Duration rate) {
+        if (rate.isZero() || rate.isNegative()) {
+            throw new IllegalArgumentException("Fixed rate must be positive: " + rate);
+        }
+        return new JobSchedule(null, rate);
+    }
+
+    /**
+     * First tick strictly after {@code after}.
+     */
+    public Instant next(Instant after) {
+        if (cron != null) {
+            return cron.next(after.atZone(ZoneId.systemDefault())).toInstant();
+        }
+        long rate = fixedRate.toMillis();
+        return Instant.ofEpochMilli(Math.floorDiv(after.toEpochMilli(), rate) * rate + rate);
+    }
+
+    @Override
+    public String toString() {
+        return cron != null ? "cron " + cron : "every " + fixedRate;
+    }
+}
@@ -0,0 +1,54 @@
+package com.easybilling.job;
+
+import com.easybilling.dto.JobStatusResponse;
+import com.easybilling.repository.JobRunRepository;
+import com.easybilling.service.JobScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/jobs: schedules, next ticks and run history (durations, failed tenants, errors).
+ */
+@Component
+@Endpoint(id = "jobs")
+@RequiredArgsConstructor
+public class JobsEndpoint {
+
+    private static final int SUMMARY_RUNS = 5;
+    private static final int DETAIL_RUNS = 50;
+
+    private final JobScheduler jobScheduler;
+    private final JobRunRepository jobRunRepository;
+
+    @ReadOperation
+    public List<JobStatusResponse> jobs() {
+        return jobScheduler.getJobs().stream()
+                .map(job -> status(job, SUMMARY_RUNS))
+                .toList();
+    }
+
+    @ReadOperation
+    public JobStatusResponse job(@Selector String name) {
+        return jobScheduler.getJobs().stream()
+                .filter(job -> job.getName().equals(name))
+                .findFirst()
+                .map(job -> status(job, DETAIL_RUNS))
+                .orElse(null);
+    }
+
+    private JobStatusResponse status(ScheduledJob job, int runs) {
+        return JobStatusResponse.builder()
+                .name(job.getName())
+                .schedule(job.getSchedule().toString())
+                .nextTick(jobScheduler.getNextTick(job.getName()))
+                .runningHere(jobScheduler.isRunningHere(job.getName()))
+                .recentRuns(jobRunRepository.findByJobNameOrderByStartedAtDesc(job.getName(), PageRequest.of(0, runs)))
+                .build();
+    }
+}
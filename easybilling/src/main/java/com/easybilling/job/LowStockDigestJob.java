@@ -0,0 +1,47 @@
+package com.easybilling.job;
+
+import com.easybilling.dto.StockResponse;
+import com.easybilling.repository.TenantRepository;
+import com.easybilling.service.InventoryService;
+import com.easybilling.service.NotificationTriggerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Emails each tenant's contact a digest of tracked stock below its low-stock threshold.
+ * Complements the LOW_STOCK webhook/workflow trigger, which fires only when stock crosses the line.
+ */
+@Component
+@RequiredArgsConstructor
+public class LowStockDigestJob implements ScheduledJob {
+
+    private final InventoryService inventoryService;
+    private final NotificationTriggerService notificationTriggerService;
+    private final TenantRepository tenantRepository;
+
+    @Value("${app.jobs.low-stock-digest.cron:0 0 8 * * *}")
+    private String cron;
+
+    @Override
+    public String getName() {
+        return "low-stock-digest";
+    }
+
+    @Override
+    public JobSchedule getSchedule() {
+        return JobSchedule.cron(cron);
+    }
+
+    @Override
+    public void runForTenant(Integer tenantId) {
+        List<StockResponse> lowStock = inventoryService.getLowStockAlerts(tenantId, null);
+        if (lowStock.isEmpty()) {
+            return;
+        }
+        tenantRepository.findContactEmailById(tenantId).ifPresent(email ->
+                notificationTriggerService.sendLowStockDigest(tenantId, email, lowStock));
+    }
+}
@@ -0,0 +1,41 @@
+package com.easybilling.job;
+
+import com.easybilling.service.QuoteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Marks sent quotes past their validity date as expired, in one set-based sweep over all tenants.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuoteExpiryJob implements ScheduledJob {
+
+    private final QuoteService quoteService;
+
+    @Value("${app.jobs.quote-expiry.cron:0 5 0 * * *}")
+    private String cron;
+
+    @Override
+    public String getName() {
+        return "quote-expiry";
+    }
+
+    @Override
+    public JobSchedule getSchedule() {
+        return JobSchedule.cron(cron);
+    }
+
+    @Override
+    public boolean isPerTenant() {
+        return false;
+    }
+
+    @Override
+    public int runAcrossTenants() {
+        return quoteService.expireQuotes(LocalDate.now()).size();
+    }
+}
@@ -0,0 +1,40 @@
+package com.easybilling.job;
+
+import com.easybilling.service.AccountsReceivableService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Daily re-bucketing of receivables aging, one set-based upsert over all tenants. Run on one node
+ * per tick, since concurrent full-table passes would only contend for the same rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReceivablesAgingJob implements ScheduledJob {
+
+    private final AccountsReceivableService accountsReceivableService;
+
+    @Value("${app.jobs.receivables-aging.cron:0 15 0 * * *}")
+    private String cron;
+
+    @Override
+    public String getName() {
+        return "receivables-aging";
+    }
+
+    @Override
+    public JobSchedule getSchedule() {
+        return JobSchedule.cron(cron);
+    }
+
+    @Override
+    public boolean isPerTenant() {
+        return false;
+    }
+
+    @Override
+    public int runAcrossTenants() {
+        return accountsReceivableService.rebucketAll();
+    }
+}
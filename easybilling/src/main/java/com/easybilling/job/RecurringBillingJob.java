@@ -0,0 +1,43 @@
+package com.easybilling.job;
+
+import com.easybilling.service.RecurringBillingRunService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Recurring billing run over all tenants, every 15 minutes by default. A run can last minutes, so
+ * it is started on the job scheduler's own threads rather than the shared @Scheduled thread; the
+ * run spreads its chunks over app.recurring.workers threads.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecurringBillingJob implements ScheduledJob {
+
+    private final RecurringBillingRunService runService;
+
+    @Value("${app.jobs.recurring-billing.cron:0 */15 * * * *}")
+    private String cron;
+
+    @Override
+    public String getName() {
+        return "recurring-billing";
+    }
+
+    @Override
+    public JobSchedule getSchedule() {
+        return JobSchedule.cron(cron);
+    }
+
+    @Override
+    public boolean isPerTenant() {
+        return false;
+    }
+
+    @Override
+    public int runAcrossTenants() {
+        return (int) Math.max(0, runService.run(LocalDate.now()));
+    }
+}
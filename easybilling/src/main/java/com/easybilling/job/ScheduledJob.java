@@ -0,0 +1,32 @@
+package com.easybilling.job;
+
+/**
+ * A periodic job run by {@link com.easybilling.service.JobScheduler}. Each tick runs on one node
+ * only. Per-tenant jobs get {@link #runForTenant} for every active or trial tenant in parallel,
+ * with the tenant context set; a tenant that throws is recorded and does not stop the others.
+ * Set-based jobs that sweep all tenants in one pass implement {@link #runAcrossTenants} instead.
+ */
+public interface ScheduledJob {
+
+    /**
+     * Unique, stable name; keys the job's lease and run history.
+     */
+    String getName();
+
+    JobSchedule getSchedule();
+
+    default boolean isPerTenant() {
+        return true;
+    }
+
+    default void runForTenant(Integer tenantId) {
+        throw new UnsupportedOperationException(getName() + " does not run per tenant");
+    }
+
+    /**
+     * One pass over all tenants; returns the number of tenants it touched.
+     */
+    default int runAcrossTenants() {
+        throw new UnsupportedOperationException(getName() + " runs per tenant");
+    }
+}
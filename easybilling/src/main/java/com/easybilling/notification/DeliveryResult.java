@@ -0,0 +1,20 @@
+package com.easybilling.notification;
+
+/**
+ * Outcome of delivering one notification. Permanent failures (e.g. an invalid recipient)
+ * are dead-lettered immediately instead of being retried.
+ */
+public record DeliveryResult(boolean delivered, boolean permanent, String error) {
+
+    public static DeliveryResult ok() {
+        return new DeliveryResult(true, false, null);
+    }
+
+    public static DeliveryResult retry(String error) {
+        return new DeliveryResult(false, false, error);
+    }
+
+    public static DeliveryResult reject(String error) {
+        return new DeliveryResult(false, true, error);
+    }
+}
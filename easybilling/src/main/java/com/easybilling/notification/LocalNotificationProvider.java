@@ -0,0 +1,50 @@
+package com.easybilling.notification;
+
+import com.easybilling.entity.Notification;
+import com.easybilling.enums.NotificationType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fallback provider for every channel that only logs the message. Real gateways take precedence
+ * by declaring a higher priority.
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LocalNotificationProvider implements NotificationProvider {
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean supports(NotificationType type) {
+        return true;
+    }
+
+    @Override
+    public double permitsPerSecond() {
+        return 100;
+    }
+
+    @Override
+    public List<DeliveryResult> send(List<Notification> batch) {
+        List<DeliveryResult> results = new ArrayList<>(batch.size());
+        for (Notification notification : batch) {
+            if (notification.getRecipient() == null || notification.getRecipient().isBlank()) {
+                results.add(DeliveryResult.reject("Missing recipient"));
+                continue;
+            }
+            log.info("[{}] to {}: {}", notification.getType(), notification.getRecipient(), notification.getSubject());
+            results.add(DeliveryResult.ok());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,39 @@
+package com.easybilling.notification;
+
+import com.easybilling.entity.Notification;
+import com.easybilling.enums.NotificationType;
+
+import java.util.List;
+
+/**
+ * Delivery provider for one or more notification channels (SMS gateway, email relay, WhatsApp API).
+ * Providers are Spring beans; for each channel the dispatcher uses the highest-priority
+ * ({@link org.springframework.core.annotation.Order}) provider that supports it.
+ * Implementations are called off the request path, with batches no larger than {@link #maxBatchSize()}.
+ */
+public interface NotificationProvider {
+
+    String getName();
+
+    boolean supports(NotificationType type);
+
+    /**
+     * Largest batch the provider accepts in one call.
+     */
+    default int maxBatchSize() {
+        return 50;
+    }
+
+    /**
+     * Default sustained send rate, overridable per provider with app.notifications.rate-limits.&lt;name&gt;.
+     */
+    default double permitsPerSecond() {
+        return 10;
+    }
+
+    /**
+     * Send a batch; returns one result per notification, in the same order.
+     * Throwing marks the whole batch as a retryable failure.
+     */
+    List<DeliveryResult> send(List<Notification> batch);
+}
@@ -0,0 +1,113 @@
+package com.easybilling.ratelimit;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.context.UserContext;
+import com.easybilling.ratelimit.RateLimitKey.RouteClass;
+import com.easybilling.service.ConfigurationService;
+import com.easybilling.service.TenantSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Throttles authenticated API requests per tenant, user and route class (reads, writes, searches),
+ * at the per-minute limits in the tenant's configuration; a limit of 0 means unlimited. Runs after
+ * {@link com.easybilling.config.JwtAuthenticationFilter}, which establishes who is calling.
+ * Responses carry RateLimit-Limit, RateLimit-Remaining, RateLimit-Reset and RateLimit-Policy;
+ * refused requests get 429 with Retry-After.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ConfigurationService configurationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    private final Map<RouteClass, Counter> rejected = new EnumMap<>(RouteClass.class);
+
+    @PostConstruct
+    void init() {
+        for (RouteClass route : RouteClass.values()) {
+            rejected.put(route, meterRegistry.counter("ratelimit.rejected", "route", route.name()));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Integer tenantId = TenantContext.getTenantId();
+        if (!enabled || tenantId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RouteClass route = classify(request);
+        int limit = limitFor(configurationService.getSettings(tenantId), route);
+        if (limit <= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String userId = UserContext.getUserId();
+        TokenBucketStore.Decision decision = rateLimiter.tryAcquire(new RateLimitKey(tenantId, userId, route), limit);
+        response.setHeader("RateLimit-Limit", Integer.toString(limit));
+        response.setHeader("RateLimit-Remaining", Integer.toString(decision.remaining()));
+        response.setHeader("RateLimit-Reset", Long.toString(seconds(decision.resetNanos())));
+        response.setHeader("RateLimit-Policy", limit + ";w=60");
+        if (!decision.allowed()) {
+            rejected.get(route).increment();
+            log.debug("Rate limit {} {}/min exceeded for tenant {} user {}", route, limit, tenantId, userId);
+            response.setHeader("Retry-After", Long.toString(Math.max(1, seconds(decision.retryAfterNanos()))));
+            response.sendError(429, "Rate limit exceeded");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod()) || !request.getRequestURI().startsWith("/api/");
+    }
+
+    private static RouteClass classify(HttpServletRequest request) {
+        if (request.getRequestURI().endsWith("/search")) {
+            return RouteClass.SEARCH;
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD" -> RouteClass.READ;
+            default -> RouteClass.WRITE;
+        };
+    }
+
+    private static int limitFor(TenantSettings settings, RouteClass route) {
+        return switch (route) {
+            case READ -> settings.apiReadsPerMinute();
+            case WRITE -> settings.apiWritesPerMinute();
+            case SEARCH -> settings.apiSearchesPerMinute();
+        };
+    }
+
+    private static long seconds(long nanos) {
+        return (Math.max(0, nanos) + 999_999_999L) / 1_000_000_000L;
+    }
+}
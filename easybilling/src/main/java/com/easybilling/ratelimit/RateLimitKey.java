@@ -0,0 +1,17 @@
+package com.easybilling.ratelimit;
+
+/**
+ * What a rate limit is counted against: one user of one tenant, per class of route.
+ */
+public record RateLimitKey(Integer tenantId, String userId, RouteClass route) {
+
+    public enum RouteClass {
+        READ,
+        WRITE,
+        SEARCH
+    }
+
+    String redisKey(long window) {
+        return "ratelimit:" + window + ":" + tenantId + ":" + userId + ":" + route;
+    }
+}
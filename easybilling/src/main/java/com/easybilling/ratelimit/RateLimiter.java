@@ -0,0 +1,113 @@
+package com.easybilling.ratelimit;
+
+import com.easybilling.util.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-node token buckets for API requests. With app.rate-limit.redis-sync.enabled, each node
+ * periodically adds the requests it admitted to a per-minute counter in Redis and charges its own
+ * buckets with what the other nodes admitted since the last pass, so a client spread over nodes
+ * gets roughly one limit rather than one per node. Between passes each node decides alone, and
+ * while Redis is unreachable the limits are per node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimiter {
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.rate-limit.stripes:64}")
+    private int stripes;
+
+    @Value("${app.rate-limit.redis-sync.enabled:false}")
+    private boolean redisSync;
+
+    private TokenBucketStore<RateLimitKey> store;
+    // Sync pass only: per key, the minute window and the Redis total seen at the last pass
+    private final Map<RateLimitKey, long[]> lastSeen = new HashMap<>();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 5_000, 60_000);
+
+    @PostConstruct
+    void init() {
+        store = new TokenBucketStore<>(stripes);
+        meterRegistry.gauge("ratelimit.buckets", store, TokenBucketStore::size);
+    }
+
+    public TokenBucketStore.Decision tryAcquire(RateLimitKey key, int limitPerMinute) {
+        return store.tryConsume(key, limitPerMinute, System.nanoTime());
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        store.sweep(System.nanoTime());
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.redis-sync.interval-ms:1000}")
+    public synchronized void sync() {
+        if (!redisSync || !breaker.tryAcquire(System.currentTimeMillis())) {
+            return;
+        }
+        long window = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+        // Totals from earlier windows no longer apply; this window's are kept for keys that are
+        // idle this pass, so their next delta is measured from what was already charged
+        lastSeen.values().removeIf(seen -> seen[0] != window);
+        List<RateLimitKey> keys = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        store.drainUnsynced((key, delta) -> {
+            keys.add(key);
+            deltas.add(delta);
+        });
+        if (keys.isEmpty()) {
+            breaker.onSuccess();
+            return;
+        }
+
+        List<Object> replies;
+        try {
+            replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (int i = 0; i < keys.size(); i++) {
+                    String redisKey = keys.get(i).redisKey(window);
+                    redis.incrBy(redisKey, deltas.get(i));
+                    redis.expire(redisKey, 120);
+                }
+                return null;
+            });
+            breaker.onSuccess();
+        } catch (RuntimeException e) {
+            breaker.onFailure(System.currentTimeMillis());
+            for (int i = 0; i < keys.size(); i++) {
+                store.unreport(keys.get(i), deltas.get(i));
+            }
+            log.warn("Rate limit sync with Redis failed, limiting per node: {}", e.getMessage());
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < keys.size(); i++) {
+            RateLimitKey key = keys.get(i);
+            long total = ((Number) replies.get(i * 2)).longValue();
+            long[] previous = lastSeen.get(key);
+            long before = previous != null ? previous[1] : 0;
+            store.charge(key, total - before - deltas.get(i), now);
+            lastSeen.put(key, new long[] {window, total});
+        }
+    }
+}
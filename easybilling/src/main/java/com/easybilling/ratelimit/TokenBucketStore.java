@@ -0,0 +1,133 @@
+package com.easybilling.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Token buckets of "n requests per minute, bursting up to n", kept as a single timestamp each
+ * (the time the bucket will next be full) and updated with one compare-and-set, so checking a
+ * request takes no lock. A bucket that has refilled is the same as no bucket, which lets
+ * {@link #sweep} drop idle ones without losing state. Buckets are spread over stripes so a sweep
+ * or a sync pass can work through them a stripe at a time.
+ */
+public class TokenBucketStore<K> {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentHashMap<K, Bucket>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TokenBucketStore(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new ConcurrentHashMap[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Take one token from the bucket for {@code key}.
+     */
+    public Decision tryConsume(K key, int limitPerMinute, long nowNanos) {
+        Bucket bucket = stripe(key).computeIfAbsent(key, k -> new Bucket(nowNanos));
+        if (bucket.limit != limitPerMinute) {
+            bucket.limit = limitPerMinute;
+        }
+        long interval = MINUTE_NANOS / limitPerMinute;
+        long capacity = interval * limitPerMinute;
+        while (true) {
+            long fullAt = bucket.fullAt.get();
+            long next = Math.max(fullAt, nowNanos) + interval;
+            long debt = next - nowNanos;
+            if (debt > capacity) {
+                return new Decision(false, limitPerMinute, 0, fullAt - nowNanos, debt - capacity);
+            }
+            if (bucket.fullAt.compareAndSet(fullAt, next)) {
+                bucket.unsynced.incrementAndGet();
+                return new Decision(true, limitPerMinute, (int) ((capacity - debt) / interval), debt, 0);
+            }
+        }
+    }
+
+    /**
+     * Charge {@code requests} made elsewhere (other nodes) to the bucket for {@code key}, at most
+     * emptying it.
+     */
+    public void charge(K key, long requests, long nowNanos) {
+        Bucket bucket = stripe(key).get(key);
+        if (bucket == null || requests <= 0 || bucket.limit <= 0) {
+            return;
+        }
+        long interval = MINUTE_NANOS / bucket.limit;
+        long cost = interval * Math.min(requests, bucket.limit);
+        long capacity = interval * bucket.limit;
+        bucket.fullAt.accumulateAndGet(nowNanos,
+                (fullAt, now) -> Math.min(Math.max(fullAt, now) + cost, now + capacity));
+    }
+
+    /**
+     * Hand each bucket's requests not yet reported to {@code sink}, skipping buckets with none, and reset them. A sink that
+     * fails should {@link #unreport} what it was given.
+     */
+    public void drainUnsynced(BiConsumer<K, Long> sink) {
+        for (Map<K, Bucket> stripe : stripes) {
+            stripe.forEach((key, bucket) -> {
+                // Most buckets are idle between passes; only those with new requests are reported
+                if (bucket.unsynced.get() != 0) {
+                    sink.accept(key, bucket.unsynced.getAndSet(0));
+                }
+            });
+        }
+    }
+
+    public void unreport(K key, long requests) {
+        Bucket bucket = stripe(key).get(key);
+        if (bucket != null) {
+            bucket.unsynced.addAndGet(requests);
+        }
+    }
+
+    /**
+     * Drop buckets that are full again and have nothing left to report.
+     */
+    public void sweep(long nowNanos) {
+        for (Map<K, Bucket> stripe : stripes) {
+            stripe.values().removeIf(bucket -> bucket.fullAt.get() <= nowNanos && bucket.unsynced.get() == 0);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<K, Bucket> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<K, Bucket> stripe(K key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Outcome of a request: whether it may proceed, the tokens left, the time until the bucket is
+     * full again, and for a refused request the time until a token is available.
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long resetNanos, long retryAfterNanos) {
+    }
+
+    private static final class Bucket {
+        final AtomicLong fullAt;
+        final AtomicLong unsynced = new AtomicLong();
+        volatile int limit;
+
+        Bucket(long nowNanos) {
+            fullAt = new AtomicLong(nowNanos);
+        }
+    }
+}
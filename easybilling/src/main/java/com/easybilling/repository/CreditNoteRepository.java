@@ -1,18 +1,27 @@
 package com.easybilling.repository;
 
+import com.easybilling.dto.GstReturnRows;
 import com.easybilling.entity.CreditNote;
 import com.easybilling.enums.CreditNoteStatus;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface CreditNoteRepository extends JpaRepository<CreditNote, String> {
@@ -44,4 +53,84 @@ public interface CreditNoteRepository extends JpaRepository<CreditNote, String>
     List<CreditNote> findByDateRange(@Param("tenantId") Integer tenantId,
                                        @Param("startDate") LocalDateTime startDate,
                                        @Param("endDate") LocalDateTime endDate);
+
+    // GST return sections: credit notes inherit place of supply, registration and
+    // inter-state treatment from the invoice they were raised against.
+
+    String GST_NOTE_PERIOD = "c.tenantId = :tenantId AND c.status IN :statuses "
+            + "AND COALESCE(c.issuedAt, c.createdAt) >= :from AND COALESCE(c.issuedAt, c.createdAt) < :to";
+
+    String GST_NOTE_REGISTERED = "(i.customerGstin IS NOT NULL AND i.customerGstin <> '')";
+
+    String GST_NOTE_TAXABLE = "SUM(ci.quantity * ci.unitPrice)";
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT i.customerGstin AS ctin, c.id AS noteId, c.creditNoteNumber AS noteNumber, "
+            + "COALESCE(c.issuedAt, c.createdAt) AS noteDate, c.totalAmount AS noteValue, "
+            + "i.placeOfSupply AS placeOfSupply, i.isInterstate AS interstate, "
+            + "COALESCE(ci.taxRate, 0) AS rate, " + GST_NOTE_TAXABLE + " AS taxableValue "
+            + "FROM CreditNoteItem ci JOIN ci.creditNote c JOIN Invoice i ON i.id = c.invoiceId "
+            + "WHERE " + GST_NOTE_PERIOD + " AND " + GST_NOTE_REGISTERED + " "
+            + "GROUP BY i.customerGstin, c.id, c.creditNoteNumber, COALESCE(c.issuedAt, c.createdAt), "
+            + "c.totalAmount, i.placeOfSupply, i.isInterstate, COALESCE(ci.taxRate, 0) "
+            + "ORDER BY i.customerGstin, c.id")
+    Stream<GstReturnRows.CreditNoteRateRow> streamGstRegisteredNoteRows(@Param("tenantId") Integer tenantId,
+                                                                       @Param("statuses") Collection<CreditNoteStatus> statuses,
+                                                                       @Param("from") LocalDateTime from,
+                                                                       @Param("to") LocalDateTime to);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT c.id AS noteId, c.creditNoteNumber AS noteNumber, "
+            + "COALESCE(c.issuedAt, c.createdAt) AS noteDate, c.totalAmount AS noteValue, "
+            + "i.placeOfSupply AS placeOfSupply, i.isInterstate AS interstate, "
+            + "COALESCE(ci.taxRate, 0) AS rate, " + GST_NOTE_TAXABLE + " AS taxableValue "
+            + "FROM CreditNoteItem ci JOIN ci.creditNote c JOIN Invoice i ON i.id = c.invoiceId "
+            + "WHERE " + GST_NOTE_PERIOD + " AND NOT " + GST_NOTE_REGISTERED + " "
+            + "AND i.isInterstate = true AND i.totalAmount > :b2clLimit "
+            + "GROUP BY c.id, c.creditNoteNumber, COALESCE(c.issuedAt, c.createdAt), "
+            + "c.totalAmount, i.placeOfSupply, i.isInterstate, COALESCE(ci.taxRate, 0) "
+            + "ORDER BY c.id")
+    Stream<GstReturnRows.CreditNoteRateRow> streamGstUnregisteredLargeNoteRows(@Param("tenantId") Integer tenantId,
+                                                                              @Param("statuses") Collection<CreditNoteStatus> statuses,
+                                                                              @Param("from") LocalDateTime from,
+                                                                              @Param("to") LocalDateTime to,
+                                                                              @Param("b2clLimit") BigDecimal b2clLimit);
+
+    @Query("SELECT i.isInterstate AS interstate, "
+            + "(CASE WHEN " + GST_NOTE_REGISTERED + " THEN true ELSE false END) AS registered, "
+            + "(CASE WHEN i.isInterstate = true AND i.totalAmount > :b2clLimit THEN true ELSE false END) AS large, "
+            + "i.placeOfSupply AS placeOfSupply, COALESCE(ci.taxRate, 0) AS rate, "
+            + GST_NOTE_TAXABLE + " AS taxableValue "
+            + "FROM CreditNoteItem ci JOIN ci.creditNote c JOIN Invoice i ON i.id = c.invoiceId "
+            + "WHERE " + GST_NOTE_PERIOD + " "
+            + "GROUP BY i.isInterstate, (CASE WHEN " + GST_NOTE_REGISTERED + " THEN true ELSE false END), "
+            + "(CASE WHEN i.isInterstate = true AND i.totalAmount > :b2clLimit THEN true ELSE false END), "
+            + "i.placeOfSupply, COALESCE(ci.taxRate, 0)")
+    List<GstReturnRows.CreditSummaryRow> summariseGstCreditNotes(@Param("tenantId") Integer tenantId,
+                                                                @Param("statuses") Collection<CreditNoteStatus> statuses,
+                                                                @Param("from") LocalDateTime from,
+                                                                @Param("to") LocalDateTime to,
+                                                                @Param("b2clLimit") BigDecimal b2clLimit);
+
+    // Profit and loss: credit notes reverse revenue and tax; restocked items also reverse
+    // the cost of goods captured on the original invoice line.
+
+    @Query("SELECT CAST(COALESCE(c.issuedAt, c.createdAt) AS LocalDate) AS day, "
+            + GST_NOTE_TAXABLE + " AS returns, "
+            + "SUM(ci.quantity * ci.unitPrice * COALESCE(ci.taxRate, 0) / 100) AS returnTax, "
+            + "SUM(CASE WHEN ci.restockItem = true THEN ci.quantity * COALESCE(ii.unitCost, 0) ELSE 0 END) AS returnedCogs "
+            + "FROM CreditNoteItem ci JOIN ci.creditNote c LEFT JOIN InvoiceItem ii ON ii.id = ci.invoiceItemId "
+            + "WHERE " + GST_NOTE_PERIOD + " "
+            + "GROUP BY CAST(COALESCE(c.issuedAt, c.createdAt) AS LocalDate)")
+    List<DailyReturnsView> summariseDailyReturns(@Param("tenantId") Integer tenantId,
+                                                 @Param("statuses") Collection<CreditNoteStatus> statuses,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to);
+
+    interface DailyReturnsView {
+        LocalDate getDay();
+        BigDecimal getReturns();
+        BigDecimal getReturnTax();
+        BigDecimal getReturnedCogs();
+    }
 }
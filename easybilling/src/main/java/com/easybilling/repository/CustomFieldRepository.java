@@ -1,7 +1,10 @@
 package com.easybilling.repository;
 
 import com.easybilling.entity.CustomField;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,8 +12,10 @@ import java.util.List;
 @Repository
 public interface CustomFieldRepository extends JpaRepository<CustomField, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<CustomField> findByTenantIdAndEntityType(Integer tenantId, String entityType);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<CustomField> findByTenantIdAndEntityTypeAndIsActiveTrue(Integer tenantId, String entityType);
     
     List<CustomField> findByTenantId(Integer tenantId);
@@ -2,16 +2,46 @@ package com.easybilling.repository;
 
 import com.easybilling.entity.CustomWorkflow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
 public interface CustomWorkflowRepository extends JpaRepository<CustomWorkflow, Long> {
     
     List<CustomWorkflow> findByTenantIdAndTriggerEventAndIsActiveTrue(Integer tenantId, String triggerEvent);
+
+    List<CustomWorkflow> findByTenantIdAndTriggerEventAndIsActiveTrueOrderByExecutionOrderAscIdAsc(Integer tenantId, String triggerEvent);
     
     List<CustomWorkflow> findByTenantIdAndIsActiveTrue(Integer tenantId);
     
     List<CustomWorkflow> findByTenantId(Integer tenantId);
+
+    /**
+     * Cheap change check for a compiled (tenant, trigger) set: any insert, delete or edit moves it.
+     */
+    @Query("SELECT COUNT(w) AS workflows, MAX(w.updatedAt) AS lastUpdated FROM CustomWorkflow w "
+            + "WHERE w.tenantId = :tenantId AND w.triggerEvent = :triggerEvent")
+    VersionView findVersion(@Param("tenantId") Integer tenantId, @Param("triggerEvent") String triggerEvent);
+
+    /**
+     * Bump run statistics without touching updated_at, so compiled caches stay valid.
+     */
+    @Modifying
+    @Query("UPDATE CustomWorkflow w SET w.executionCount = COALESCE(w.executionCount, 0) + :executed, "
+            + "w.failureCount = COALESCE(w.failureCount, 0) + :failed, w.lastExecutedAt = :executedAt "
+            + "WHERE w.id = :id")
+    int recordExecution(@Param("id") Long id,
+                        @Param("executed") long executed,
+                        @Param("failed") long failed,
+                        @Param("executedAt") Instant executedAt);
+
+    interface VersionView {
+        Long getWorkflows();
+        Instant getLastUpdated();
+    }
 }
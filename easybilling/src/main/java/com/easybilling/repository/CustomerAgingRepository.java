@@ -0,0 +1,134 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.CustomerAging;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CustomerAgingRepository extends JpaRepository<CustomerAging, Long> {
+
+    /**
+     * Buckets open invoice balances by days past due (invoices without a due date age from
+     * their completion date). Filters are appended by each statement below.
+     */
+    String AGING_SELECT = "SELECT i.tenant_id, i.customer_id, "
+            + "SUM(CASE WHEN DATEDIFF(:asOf, COALESCE(i.due_date, DATE(i.completed_at))) <= 30 THEN i.balance_amount ELSE 0 END), "
+            + "SUM(CASE WHEN DATEDIFF(:asOf, COALESCE(i.due_date, DATE(i.completed_at))) BETWEEN 31 AND 60 THEN i.balance_amount ELSE 0 END), "
+            + "SUM(CASE WHEN DATEDIFF(:asOf, COALESCE(i.due_date, DATE(i.completed_at))) BETWEEN 61 AND 90 THEN i.balance_amount ELSE 0 END), "
+            + "SUM(CASE WHEN DATEDIFF(:asOf, COALESCE(i.due_date, DATE(i.completed_at))) > 90 THEN i.balance_amount ELSE 0 END), "
+            + "SUM(i.balance_amount), COUNT(*), MIN(COALESCE(i.due_date, DATE(i.completed_at))), :asOf, :refreshedAt "
+            + "FROM invoices i "
+            + "WHERE i.status IN ('COMPLETED', 'PARTIALLY_RETURNED', 'RETURNED') "
+            + "AND i.balance_amount > 0 AND i.customer_id IS NOT NULL ";
+
+    String AGING_INSERT = "INSERT INTO customer_aging (tenant_id, customer_id, bucket_0_30, bucket_31_60, "
+            + "bucket_61_90, bucket_over_90, total_outstanding, open_invoices, oldest_due_date, as_of_date, refreshed_at) ";
+
+    String AGING_UPSERT = "ON DUPLICATE KEY UPDATE "
+            + "bucket_0_30 = VALUES(bucket_0_30), "
+            + "bucket_31_60 = VALUES(bucket_31_60), "
+            + "bucket_61_90 = VALUES(bucket_61_90), "
+            + "bucket_over_90 = VALUES(bucket_over_90), "
+            + "total_outstanding = VALUES(total_outstanding), "
+            + "open_invoices = VALUES(open_invoices), "
+            + "oldest_due_date = VALUES(oldest_due_date), "
+            + "as_of_date = VALUES(as_of_date), "
+            + "refreshed_at = VALUES(refreshed_at)";
+
+    /**
+     * Re-bucket every customer of every tenant in one statement.
+     */
+    @Modifying
+    @Query(value = AGING_INSERT + AGING_SELECT + "GROUP BY i.tenant_id, i.customer_id " + AGING_UPSERT,
+            nativeQuery = true)
+    int refreshAll(@Param("asOf") LocalDate asOf, @Param("refreshedAt") LocalDateTime refreshedAt);
+
+    /**
+     * Re-bucket a single customer after a receivable event.
+     */
+    @Modifying
+    @Query(value = AGING_INSERT + AGING_SELECT
+            + "AND i.tenant_id = :tenantId AND i.customer_id = :customerId "
+            + "GROUP BY i.tenant_id, i.customer_id " + AGING_UPSERT,
+            nativeQuery = true)
+    int refreshCustomer(@Param("tenantId") Integer tenantId,
+                        @Param("customerId") String customerId,
+                        @Param("asOf") LocalDate asOf,
+                        @Param("refreshedAt") LocalDateTime refreshedAt);
+
+    /**
+     * Drop rows not touched by a refresh started at {@code refreshedAt}, i.e. customers with nothing outstanding.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM customer_aging WHERE refreshed_at < :refreshedAt", nativeQuery = true)
+    int deleteNotRefreshedSince(@Param("refreshedAt") LocalDateTime refreshedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM customer_aging WHERE tenant_id = :tenantId AND customer_id = :customerId "
+            + "AND refreshed_at < :refreshedAt", nativeQuery = true)
+    int deleteCustomerNotRefreshedSince(@Param("tenantId") Integer tenantId,
+                                        @Param("customerId") String customerId,
+                                        @Param("refreshedAt") LocalDateTime refreshedAt);
+
+    Optional<CustomerAging> findByTenantIdAndCustomerId(Integer tenantId, String customerId);
+
+    @Query("SELECT SUM(a.bucket0To30) AS bucket0To30, SUM(a.bucket31To60) AS bucket31To60, "
+            + "SUM(a.bucket61To90) AS bucket61To90, SUM(a.bucketOver90) AS bucketOver90, "
+            + "SUM(a.totalOutstanding) AS totalOutstanding, COUNT(a) AS customers, "
+            + "SUM(a.openInvoices) AS openInvoices, MIN(a.asOfDate) AS asOfDate "
+            + "FROM CustomerAging a WHERE a.tenantId = :tenantId")
+    AgingTotalsView summarise(@Param("tenantId") Integer tenantId);
+
+    /**
+     * Customers ranked by outstanding balance, with each customer's share of the tenant
+     * total computed over the whole result before paging.
+     */
+    @Query(value = "SELECT a.customer_id AS customerId, c.name AS customerName, "
+            + "a.bucket_0_30 AS bucket0To30, a.bucket_31_60 AS bucket31To60, "
+            + "a.bucket_61_90 AS bucket61To90, a.bucket_over_90 AS bucketOver90, "
+            + "a.total_outstanding AS totalOutstanding, a.open_invoices AS openInvoices, "
+            + "a.oldest_due_date AS oldestDueDate, "
+            + "ROUND(100 * a.total_outstanding / SUM(a.total_outstanding) OVER (), 2) AS sharePercent, "
+            + "RANK() OVER (ORDER BY a.total_outstanding DESC) AS outstandingRank "
+            + "FROM customer_aging a LEFT JOIN customers c ON c.id = a.customer_id AND c.tenant_id = a.tenant_id "
+            + "WHERE a.tenant_id = :tenantId "
+            + "ORDER BY a.total_outstanding DESC, a.customer_id",
+            countQuery = "SELECT COUNT(*) FROM customer_aging WHERE tenant_id = :tenantId",
+            nativeQuery = true)
+    Page<CustomerAgingView> findRanked(@Param("tenantId") Integer tenantId, Pageable pageable);
+
+    interface AgingTotalsView {
+        BigDecimal getBucket0To30();
+        BigDecimal getBucket31To60();
+        BigDecimal getBucket61To90();
+        BigDecimal getBucketOver90();
+        BigDecimal getTotalOutstanding();
+        Long getCustomers();
+        Long getOpenInvoices();
+        LocalDate getAsOfDate();
+    }
+
+    interface CustomerAgingView {
+        String getCustomerId();
+        String getCustomerName();
+        BigDecimal getBucket0To30();
+        BigDecimal getBucket31To60();
+        BigDecimal getBucket61To90();
+        BigDecimal getBucketOver90();
+        BigDecimal getTotalOutstanding();
+        Integer getOpenInvoices();
+        LocalDate getOldestDueDate();
+        BigDecimal getSharePercent();
+        Long getOutstandingRank();
+    }
+}
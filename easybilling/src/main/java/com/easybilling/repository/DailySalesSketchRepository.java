@@ -0,0 +1,32 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.DailySalesSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailySalesSketchRepository extends JpaRepository<DailySalesSketch, Long> {
+
+    /**
+     * Make sure the day row exists so concurrent flushers can lock it instead of racing on insert.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO daily_sales_sketches (tenant_id, sketch_date, invoice_count) "
+            + "VALUES (:tenantId, :sketchDate, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("tenantId") Integer tenantId, @Param("sketchDate") LocalDate sketchDate);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailySalesSketch s WHERE s.tenantId = :tenantId AND s.sketchDate = :sketchDate")
+    Optional<DailySalesSketch> findForUpdate(@Param("tenantId") Integer tenantId, @Param("sketchDate") LocalDate sketchDate);
+
+    List<DailySalesSketch> findByTenantIdAndSketchDateBetween(Integer tenantId, LocalDate startDate, LocalDate endDate);
+}
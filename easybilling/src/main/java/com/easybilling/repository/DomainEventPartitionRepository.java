@@ -0,0 +1,31 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.DomainEventPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DomainEventPartitionRepository extends JpaRepository<DomainEventPartition, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO domain_event_partitions (partition_no, last_seq) VALUES (:partitionNo, 0)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("partitionNo") int partitionNo);
+
+    /**
+     * Lock the partition for sequencing; empty when another node holds it.
+     */
+    @Query(value = "SELECT last_seq FROM domain_event_partitions WHERE partition_no = :partitionNo "
+            + "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockLastSeq(@Param("partitionNo") int partitionNo);
+
+    @Modifying
+    @Query("UPDATE DomainEventPartition p SET p.lastSeq = :lastSeq WHERE p.partitionNo = :partitionNo")
+    int advance(@Param("partitionNo") int partitionNo, @Param("lastSeq") long lastSeq);
+}
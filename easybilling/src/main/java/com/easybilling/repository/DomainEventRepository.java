@@ -0,0 +1,53 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.DomainEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface DomainEventRepository extends JpaRepository<DomainEvent, Long> {
+
+    List<DomainEvent> findByPartitionNoAndSeqGreaterThanOrderBySeqAsc(Integer partitionNo, Long seq, Pageable pageable);
+
+    /**
+     * Number the committed, not yet sequenced events of a partition in id order, continuing from
+     * {@code lastSeq}. Must run while holding the partition row lock.
+     */
+    @Modifying
+    @Query(value = "UPDATE domain_events e JOIN ("
+            + "SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS rn FROM domain_events "
+            + "WHERE partition_no = :partitionNo AND seq IS NULL ORDER BY id LIMIT :limit) n ON e.id = n.id "
+            + "SET e.seq = :lastSeq + n.rn",
+            nativeQuery = true)
+    int assignSequence(@Param("partitionNo") int partitionNo,
+                       @Param("lastSeq") long lastSeq,
+                       @Param("limit") int limit);
+
+    /**
+     * Partitions with events still to be sequenced. Reads only the seq IS NULL range of
+     * idx_domain_event_unsequenced, so the cost follows the backlog rather than the table size.
+     */
+    @Query(value = "SELECT partition_no FROM domain_events WHERE seq IS NULL GROUP BY partition_no",
+            nativeQuery = true)
+    List<Integer> findPartitionsWithUnsequenced();
+
+    /**
+     * Delete events every consumer of the partition has passed and that are older than {@code before}.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM domain_events WHERE partition_no = :partitionNo AND seq IS NOT NULL "
+            + "AND seq <= (SELECT COALESCE(MIN(o.last_seq), 0) FROM event_consumer_offsets o "
+            + "WHERE o.partition_no = :partitionNo) "
+            + "AND created_at < :before LIMIT :limit",
+            nativeQuery = true)
+    int purgeConsumed(@Param("partitionNo") int partitionNo,
+                      @Param("before") Instant before,
+                      @Param("limit") int limit);
+}
@@ -0,0 +1,38 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.DunningRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface DunningRunRepository extends JpaRepository<DunningRun, Long> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO dunning_runs (tenant_id, run_date, node_id, overdue_invoices, overdue_amount, "
+            + "late_fees_applied, late_fee_amount, reminders_scheduled, started_at, updated_at) "
+            + "VALUES (:tenantId, :runDate, :nodeId, 0, 0, 0, 0, 0, :now, :now)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("tenantId") Integer tenantId,
+                       @Param("runDate") LocalDate runDate,
+                       @Param("nodeId") String nodeId,
+                       @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM DunningRun r WHERE r.tenantId = :tenantId AND r.runDate = :runDate")
+    Optional<DunningRun> findForUpdate(@Param("tenantId") Integer tenantId, @Param("runDate") LocalDate runDate);
+
+    Optional<DunningRun> findByTenantIdAndRunDate(Integer tenantId, LocalDate runDate);
+
+    Page<DunningRun> findByTenantIdOrderByRunDateDesc(Integer tenantId, Pageable pageable);
+}
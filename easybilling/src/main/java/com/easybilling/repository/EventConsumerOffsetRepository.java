@@ -0,0 +1,55 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.EventConsumerOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EventConsumerOffsetRepository extends JpaRepository<EventConsumerOffset, Long> {
+
+    List<EventConsumerOffset> findByConsumerName(String consumerName);
+
+    /**
+     * New consumers start at the partition's current end, i.e. they only see new events.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO event_consumer_offsets (consumer_name, partition_no, last_seq, "
+            + "failed_attempts, updated_at) "
+            + "SELECT :consumerName, :partitionNo, COALESCE(MAX(p.last_seq), 0), 0, :now "
+            + "FROM domain_event_partitions p WHERE p.partition_no = :partitionNo",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("consumerName") String consumerName,
+                       @Param("partitionNo") int partitionNo,
+                       @Param("now") Instant now);
+
+    /**
+     * Lock the consumer's lane for a partition; empty when another node is processing it.
+     */
+    @Query(value = "SELECT * FROM event_consumer_offsets WHERE consumer_name = :consumerName "
+            + "AND partition_no = :partitionNo FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<EventConsumerOffset> lock(@Param("consumerName") String consumerName,
+                                       @Param("partitionNo") int partitionNo);
+
+    /**
+     * Rewind a consumer in every partition to just before the first event created at or after
+     * {@code since}. Offsets are never moved forward.
+     */
+    @Modifying
+    @Query(value = "UPDATE event_consumer_offsets o SET o.last_seq = LEAST(o.last_seq, COALESCE(("
+            + "SELECT MIN(e.seq) - 1 FROM domain_events e WHERE e.partition_no = o.partition_no "
+            + "AND e.seq IS NOT NULL AND e.created_at >= :since), o.last_seq)), "
+            + "o.failed_attempts = 0, o.retry_at = NULL, o.last_error = NULL, o.updated_at = :now "
+            + "WHERE o.consumer_name = :consumerName",
+            nativeQuery = true)
+    int rewind(@Param("consumerName") String consumerName,
+               @Param("since") Instant since,
+               @Param("now") Instant now);
+}
@@ -0,0 +1,14 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.InvoiceIngestKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InvoiceIngestKeyRepository extends JpaRepository<InvoiceIngestKey, Long> {
+
+    List<InvoiceIngestKey> findByTenantIdAndIdempotencyKeyIn(Integer tenantId, Collection<String> idempotencyKeys);
+}
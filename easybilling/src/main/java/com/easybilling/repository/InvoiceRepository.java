@@ -1,16 +1,30 @@
 package com.easybilling.repository;
 
+import com.easybilling.dto.GstReturnRows;
 import com.easybilling.entity.Invoice;
 import com.easybilling.enums.InvoiceStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, String> {
@@ -21,8 +35,238 @@ public interface InvoiceRepository extends JpaRepository<Invoice, String> {
     
     Optional<Invoice> findByTenantIdAndInvoiceNumber(Integer tenantId, String invoiceNumber);
     
+    /**
+     * A tenant's invoice, locked for update, so that balance changes against it apply one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Invoice i WHERE i.id = :id AND i.tenantId = :tenantId")
+    Optional<Invoice> findForUpdate(@Param("id") String id, @Param("tenantId") Integer tenantId);
+    
+    // Native so the tenant filter does not hide other tenants' numbers: invoice numbers are globally unique
+    @Query(value = "SELECT invoice_number FROM invoices WHERE invoice_number IN (:numbers)", nativeQuery = true)
+    List<String> findExistingInvoiceNumbers(@Param("numbers") Collection<String> numbers);
+    
     List<Invoice> findByTenantIdAndStoreIdAndCreatedAtBetween(Integer tenantId, String storeId, LocalDateTime start, LocalDateTime end);
     
     @Query("SELECT COUNT(i) FROM Invoice i WHERE i.tenantId = :tenantId AND i.createdAt >= :startDate")
     Long countInvoicesSince(Integer tenantId, LocalDateTime startDate);
+    
+    // GST return sections. Grouping happens in SQL; rows are streamed with a cursor fetch size
+    // so a month with millions of invoices never materialises in the persistence context.
+    
+    String GST_RATE = "(CASE WHEN i.isInterstate = true THEN COALESCE(it.igstRate, 0) "
+            + "ELSE COALESCE(it.cgstRate, 0) + COALESCE(it.sgstRate, 0) END)";
+    
+    String GST_TAXABLE = "(it.unitPrice * it.quantity - COALESCE(it.discountAmount, 0))";
+    
+    String GST_AMOUNTS = "SUM(" + GST_TAXABLE + ") AS taxableValue, SUM(it.igstAmount) AS igst, "
+            + "SUM(it.cgstAmount) AS cgst, SUM(it.sgstAmount) AS sgst, SUM(it.cessAmount) AS cess";
+    
+    String GST_PERIOD = "i.tenantId = :tenantId AND i.status IN :statuses "
+            + "AND i.completedAt >= :from AND i.completedAt < :to";
+    
+    String GST_REGISTERED = "(i.customerGstin IS NOT NULL AND i.customerGstin <> '')";
+    
+    String GST_LARGE_INTERSTATE = "(i.isInterstate = true AND i.totalAmount > :b2clLimit)";
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT i.customerGstin AS ctin, i.id AS invoiceId, i.invoiceNumber AS invoiceNumber, "
+            + "i.completedAt AS invoiceDate, i.totalAmount AS invoiceValue, i.placeOfSupply AS placeOfSupply, "
+            + "i.reverseCharge AS reverseCharge, " + GST_RATE + " AS rate, " + GST_AMOUNTS + " "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " AND " + GST_REGISTERED + " "
+            + "GROUP BY i.customerGstin, i.id, i.invoiceNumber, i.completedAt, i.totalAmount, i.placeOfSupply, "
+            + "i.reverseCharge, " + GST_RATE + " "
+            + "ORDER BY i.customerGstin, i.id")
+    Stream<GstReturnRows.InvoiceRateRow> streamGstB2bRows(@Param("tenantId") Integer tenantId,
+                                                          @Param("statuses") Collection<InvoiceStatus> statuses,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+    
+    // Place of supply is free text (state name or code), so B2CL is streamed once per state with
+    // every spelling of that state: ordering by the raw text would split a state into several groups
+    @Query("SELECT DISTINCT COALESCE(i.placeOfSupply, '') FROM Invoice i WHERE " + GST_PERIOD + " "
+            + "AND NOT " + GST_REGISTERED + " AND " + GST_LARGE_INTERSTATE)
+    List<String> findGstB2clPlacesOfSupply(@Param("tenantId") Integer tenantId,
+                                           @Param("statuses") Collection<InvoiceStatus> statuses,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("b2clLimit") BigDecimal b2clLimit);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT i.id AS invoiceId, i.invoiceNumber AS invoiceNumber, "
+            + "i.completedAt AS invoiceDate, i.totalAmount AS invoiceValue, i.placeOfSupply AS placeOfSupply, "
+            + "i.reverseCharge AS reverseCharge, " + GST_RATE + " AS rate, " + GST_AMOUNTS + " "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " AND NOT " + GST_REGISTERED + " "
+            + "AND " + GST_LARGE_INTERSTATE + " AND COALESCE(i.placeOfSupply, '') IN :places "
+            + "GROUP BY i.id, i.invoiceNumber, i.completedAt, i.totalAmount, i.placeOfSupply, "
+            + "i.reverseCharge, " + GST_RATE + " "
+            + "ORDER BY i.id")
+    Stream<GstReturnRows.InvoiceRateRow> streamGstB2clRows(@Param("tenantId") Integer tenantId,
+                                                           @Param("statuses") Collection<InvoiceStatus> statuses,
+                                                           @Param("from") LocalDateTime from,
+                                                           @Param("to") LocalDateTime to,
+                                                           @Param("b2clLimit") BigDecimal b2clLimit,
+                                                           @Param("places") Collection<String> places);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT i.isInterstate AS interstate, i.placeOfSupply AS placeOfSupply, "
+            + GST_RATE + " AS rate, " + GST_AMOUNTS + " "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " AND NOT " + GST_REGISTERED + " "
+            + "AND NOT " + GST_LARGE_INTERSTATE + " "
+            + "GROUP BY i.isInterstate, i.placeOfSupply, " + GST_RATE + " "
+            + "ORDER BY i.placeOfSupply")
+    Stream<GstReturnRows.B2csRow> streamGstB2csRows(@Param("tenantId") Integer tenantId,
+                                                    @Param("statuses") Collection<InvoiceStatus> statuses,
+                                                    @Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("b2clLimit") BigDecimal b2clLimit);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT COALESCE(it.hsnCode, it.sacCode) AS hsnCode, MIN(it.productName) AS description, "
+            + "SUM(it.quantity) AS quantity, SUM(it.lineTotal) AS totalValue, "
+            + GST_RATE + " AS rate, " + GST_AMOUNTS + " "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " "
+            + "GROUP BY COALESCE(it.hsnCode, it.sacCode), " + GST_RATE + " "
+            + "ORDER BY COALESCE(it.hsnCode, it.sacCode)")
+    Stream<GstReturnRows.HsnRow> streamGstHsnRows(@Param("tenantId") Integer tenantId,
+                                                  @Param("statuses") Collection<InvoiceStatus> statuses,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+    
+    @Query("SELECT i.isInterstate AS interstate, "
+            + "(CASE WHEN " + GST_REGISTERED + " THEN true ELSE false END) AS registered, "
+            + "i.placeOfSupply AS placeOfSupply, " + GST_RATE + " AS rate, " + GST_AMOUNTS + " "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " "
+            + "GROUP BY i.isInterstate, (CASE WHEN " + GST_REGISTERED + " THEN true ELSE false END), "
+            + "i.placeOfSupply, " + GST_RATE)
+    List<GstReturnRows.SupplySummaryRow> summariseGstSupplies(@Param("tenantId") Integer tenantId,
+                                                              @Param("statuses") Collection<InvoiceStatus> statuses,
+                                                              @Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to);
+    
+    // Profit and loss: revenue, discounts, tax and cost of goods per day in a single grouped pass
+    
+    @Query("SELECT CAST(i.completedAt AS LocalDate) AS day, COUNT(DISTINCT i.id) AS invoices, "
+            + "SUM(it.unitPrice * it.quantity) AS grossSales, SUM(COALESCE(it.discountAmount, 0)) AS discounts, "
+            + "SUM(it.taxAmount) AS tax, SUM(COALESCE(it.costAmount, 0)) AS cogs "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " "
+            + "GROUP BY CAST(i.completedAt AS LocalDate) "
+            + "ORDER BY CAST(i.completedAt AS LocalDate)")
+    List<DailySalesView> summariseDailySales(@Param("tenantId") Integer tenantId,
+                                             @Param("statuses") Collection<InvoiceStatus> statuses,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to);
+    
+    interface DailySalesView {
+        LocalDate getDay();
+        Long getInvoices();
+        BigDecimal getGrossSales();
+        BigDecimal getDiscounts();
+        BigDecimal getTax();
+        BigDecimal getCogs();
+    }
+    
+    // Exact dashboard figures, used for audits; dashboards normally read the daily sketches
+    
+    @Query("SELECT COUNT(DISTINCT i.customerId) FROM Invoice i WHERE " + GST_PERIOD)
+    long countDistinctCustomers(@Param("tenantId") Integer tenantId,
+                                @Param("statuses") Collection<InvoiceStatus> statuses,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to);
+    
+    @Query("SELECT it.productId AS productId, MIN(it.productName) AS productName, "
+            + "SUM(it.quantity) AS quantity, SUM(it.lineTotal) AS revenue "
+            + "FROM InvoiceItem it JOIN it.invoice i WHERE " + GST_PERIOD + " "
+            + "GROUP BY it.productId ORDER BY SUM(it.quantity) DESC")
+    List<ProductSalesView> findTopProducts(@Param("tenantId") Integer tenantId,
+                                           @Param("statuses") Collection<InvoiceStatus> statuses,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           Pageable pageable);
+    
+    interface ProductSalesView {
+        String getProductId();
+        String getProductName();
+        Long getQuantity();
+        BigDecimal getRevenue();
+    }
+    
+    // Dunning: overdue scans use idx_invoice_dunning; fee terms come from the recurring schedule
+    // that issued the invoice, falling back to the tenant's terms passed in as parameters
+    
+    String DUNNING_TERMS_JOIN = "LEFT JOIN recurring_invoice_runs r ON r.invoice_id = i.id "
+            + "LEFT JOIN recurring_invoices ri ON ri.id = r.recurring_invoice_id ";
+    
+    // Charged on the outstanding amount before fees; reads no column the fee UPDATE writes
+    String LATE_FEE = "ROUND(COALESCE(ri.late_fee_fixed_amount, :fixedAmount) + "
+            + "(i.total_amount - COALESCE(i.paid_amount, 0) - COALESCE(i.credited_amount, 0)) "
+            + "* COALESCE(ri.late_fee_percentage, :percentage) / 100, 2)";
+    
+    String OVERDUE_SELECT = "SELECT i.id AS id, i.customer_email AS customerEmail, i.customer_phone AS customerPhone, "
+            + "i.due_date AS dueDate, i.balance_amount AS balanceAmount, COALESCE(i.dunning_stage, 0) AS dunningStage "
+            + "FROM invoices i ";
+    
+    /**
+     * Next keyset page of overdue open invoices with the given status, in (due_date, id) order.
+     */
+    @Query(value = OVERDUE_SELECT + "WHERE i.tenant_id = :tenantId AND i.status = :status AND i.due_date < :today "
+            + "AND (i.due_date > :afterDueDate OR (i.due_date = :afterDueDate AND i.id > :afterId)) "
+            + "AND i.balance_amount > 0 "
+            + "ORDER BY i.due_date, i.id LIMIT :limit",
+            nativeQuery = true)
+    List<OverdueInvoiceView> findOverdueAfter(@Param("tenantId") Integer tenantId,
+                                              @Param("status") String status,
+                                              @Param("today") LocalDate today,
+                                              @Param("afterDueDate") LocalDate afterDueDate,
+                                              @Param("afterId") String afterId,
+                                              @Param("limit") int limit);
+    
+    /**
+     * Charge the late fee on those of {@code ids} past their grace period that have not been charged yet.
+     */
+    @Modifying
+    @Query(value = "UPDATE invoices i " + DUNNING_TERMS_JOIN
+            + "SET i.late_fee_amount = " + LATE_FEE + ", "
+            + "i.balance_amount = i.total_amount - COALESCE(i.paid_amount, 0) - COALESCE(i.credited_amount, 0) + " + LATE_FEE + ", "
+            + "i.late_fee_applied_at = :appliedAt "
+            + "WHERE i.id IN (:ids) AND i.late_fee_applied_at IS NULL AND i.balance_amount > 0 "
+            + "AND DATE_ADD(i.due_date, INTERVAL COALESCE(ri.late_grace_period_days, :graceDays) DAY) < :today "
+            + "AND " + LATE_FEE + " > 0",
+            nativeQuery = true)
+    int applyLateFees(@Param("ids") Collection<String> ids,
+                      @Param("fixedAmount") BigDecimal fixedAmount,
+                      @Param("percentage") BigDecimal percentage,
+                      @Param("graceDays") int graceDays,
+                      @Param("today") LocalDate today,
+                      @Param("appliedAt") LocalDateTime appliedAt);
+    
+    @Query(value = "SELECT COALESCE(SUM(late_fee_amount), 0) FROM invoices WHERE id IN (:ids) AND late_fee_applied_at = :appliedAt",
+            nativeQuery = true)
+    BigDecimal sumLateFees(@Param("ids") Collection<String> ids, @Param("appliedAt") LocalDateTime appliedAt);
+    
+    /**
+     * Record that reminder {@code stage} went out; 0 when the invoice was settled, cancelled or
+     * already moved past {@code expectedStage}, so each reminder is sent at most once.
+     */
+    @Modifying
+    @Query(value = "UPDATE invoices SET dunning_stage = :stage, last_reminder_at = :now "
+            + "WHERE id = :id AND COALESCE(dunning_stage, 0) = :expectedStage AND balance_amount > 0 "
+            + "AND status IN ('COMPLETED', 'PARTIALLY_RETURNED')",
+            nativeQuery = true)
+    int advanceDunningStage(@Param("id") String id,
+                            @Param("expectedStage") int expectedStage,
+                            @Param("stage") int stage,
+                            @Param("now") LocalDateTime now);
+    
+    @Query(value = OVERDUE_SELECT + "WHERE i.id = :id", nativeQuery = true)
+    Optional<OverdueInvoiceView> findOverdueById(@Param("id") String id);
+    
+    interface OverdueInvoiceView {
+        String getId();
+        String getCustomerEmail();
+        String getCustomerPhone();
+        LocalDate getDueDate();
+        BigDecimal getBalanceAmount();
+        Integer getDunningStage();
+    }
 }
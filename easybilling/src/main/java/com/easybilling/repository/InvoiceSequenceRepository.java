@@ -0,0 +1,28 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.InvoiceSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface InvoiceSequenceRepository extends JpaRepository<InvoiceSequence, Long> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO invoice_sequences (tenant_id, financial_year, last_number) "
+            + "VALUES (:tenantId, :financialYear, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("tenantId") Integer tenantId, @Param("financialYear") String financialYear);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InvoiceSequence s WHERE s.tenantId = :tenantId AND s.financialYear = :financialYear")
+    Optional<InvoiceSequence> findForUpdate(@Param("tenantId") Integer tenantId,
+                                            @Param("financialYear") String financialYear);
+
+    Optional<InvoiceSequence> findByTenantIdAndFinancialYear(Integer tenantId, String financialYear);
+}
@@ -0,0 +1,36 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_locks (job_name, locked_until) VALUES (:jobName, '1970-01-01 00:00:00')",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("jobName") String jobName);
+
+    /**
+     * Take the lease for {@code tick}; 0 when another node already ran that tick or still holds the lease.
+     */
+    @Modifying
+    @Query(value = "UPDATE job_locks SET locked_by = :nodeId, locked_until = :until, last_tick = :tick "
+            + "WHERE job_name = :jobName AND locked_until <= :now AND (last_tick IS NULL OR last_tick < :tick)",
+            nativeQuery = true)
+    int acquire(@Param("jobName") String jobName,
+                @Param("nodeId") String nodeId,
+                @Param("tick") LocalDateTime tick,
+                @Param("now") LocalDateTime now,
+                @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :until WHERE l.jobName = :jobName AND l.lockedBy = :nodeId")
+    int extend(@Param("jobName") String jobName, @Param("nodeId") String nodeId, @Param("until") LocalDateTime until);
+}
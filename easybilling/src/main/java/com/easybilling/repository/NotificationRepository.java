@@ -5,8 +5,13 @@ import com.easybilling.enums.NotificationStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +24,30 @@ public interface NotificationRepository extends JpaRepository<Notification, Stri
     List<Notification> findByStatusAndRetryCountLessThan(NotificationStatus status, Integer maxRetries);
     
     long countByTenantIdAndStatus(Integer tenantId, NotificationStatus status);
+
+    /**
+     * Lock the oldest notifications of a channel that are ready to send, including expired
+     * SENDING claims of a dispatcher that died mid-batch. Rows locked by other nodes are skipped.
+     */
+    @Query(value = "SELECT id FROM notifications WHERE type = :type AND status IN ('PENDING', 'SENDING') "
+            + "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) "
+            + "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockDispatchable(@Param("type") String type,
+                                  @Param("now") LocalDateTime now,
+                                  @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = com.easybilling.enums.NotificationStatus.SENDING, "
+            + "n.nextAttemptAt = :claimExpiresAt, n.lastAttemptAt = :now WHERE n.id IN :ids")
+    int markSending(@Param("ids") Collection<String> ids,
+                    @Param("claimExpiresAt") LocalDateTime claimExpiresAt,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = com.easybilling.enums.NotificationStatus.SENT, "
+            + "n.provider = :provider, n.sentAt = :sentAt, n.nextAttemptAt = null, n.errorMessage = null "
+            + "WHERE n.id IN :ids")
+    int markSent(@Param("ids") Collection<String> ids,
+                 @Param("provider") String provider,
+                 @Param("sentAt") LocalDateTime sentAt);
 }
@@ -5,11 +5,13 @@ import com.easybilling.enums.OfferStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,4 +32,12 @@ public interface OfferRepository extends JpaRepository<Offer, String> {
                                   @Param("now") LocalDateTime now);
     
     long countByTenantIdAndStatus(Integer tenantId, OfferStatus status);
+    
+    @Modifying
+    @Query("UPDATE Offer o SET o.status = com.easybilling.enums.OfferStatus.EXPIRED, o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.tenantId = :tenantId AND o.status IN :statuses AND o.validTo <= :now")
+    int expire(@Param("id") String id,
+               @Param("tenantId") Integer tenantId,
+               @Param("statuses") Collection<OfferStatus> statuses,
+               @Param("now") LocalDateTime now);
 }
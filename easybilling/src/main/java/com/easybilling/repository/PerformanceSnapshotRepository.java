@@ -0,0 +1,68 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.PerformanceSnapshot;
+import com.easybilling.enums.PerformanceDimension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PerformanceSnapshotRepository extends JpaRepository<PerformanceSnapshot, Long> {
+
+    /**
+     * Insert or refresh one hourly snapshot row for this node.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO performance_snapshots (tenant_id, dimension, dimension_id, bucket_start, node_id, "
+            + "bill_count, item_count, sales_amount, void_count, return_count, active_minutes, updated_at) "
+            + "VALUES (:tenantId, :dimension, :dimensionId, :bucketStart, :nodeId, "
+            + ":bills, :items, :sales, :voids, :returns, :activeMinutes, :now) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "bill_count = VALUES(bill_count), "
+            + "item_count = VALUES(item_count), "
+            + "sales_amount = VALUES(sales_amount), "
+            + "void_count = VALUES(void_count), "
+            + "return_count = VALUES(return_count), "
+            + "active_minutes = VALUES(active_minutes), "
+            + "updated_at = VALUES(updated_at)",
+            nativeQuery = true)
+    int upsert(@Param("tenantId") Integer tenantId,
+               @Param("dimension") String dimension,
+               @Param("dimensionId") String dimensionId,
+               @Param("bucketStart") LocalDateTime bucketStart,
+               @Param("nodeId") String nodeId,
+               @Param("bills") long bills,
+               @Param("items") long items,
+               @Param("sales") BigDecimal sales,
+               @Param("voids") long voids,
+               @Param("returns") long returns,
+               @Param("activeMinutes") int activeMinutes,
+               @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.dimensionId AS dimensionId, SUM(s.billCount) AS bills, SUM(s.itemCount) AS items, "
+            + "SUM(s.salesAmount) AS sales, SUM(s.voidCount) AS voids, SUM(s.returnCount) AS returns, "
+            + "SUM(s.activeMinutes) AS activeMinutes "
+            + "FROM PerformanceSnapshot s WHERE s.tenantId = :tenantId AND s.dimension = :dimension "
+            + "AND s.bucketStart >= :from AND s.bucketStart < :to "
+            + "GROUP BY s.dimensionId ORDER BY SUM(s.salesAmount) DESC")
+    List<DimensionTotalsView> summarise(@Param("tenantId") Integer tenantId,
+                                        @Param("dimension") PerformanceDimension dimension,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    interface DimensionTotalsView {
+        String getDimensionId();
+        Long getBills();
+        Long getItems();
+        BigDecimal getSales();
+        Long getVoids();
+        Long getReturns();
+        Long getActiveMinutes();
+    }
+}
@@ -0,0 +1,34 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, Long> {
+
+    /**
+     * Record that the consumer applied the event; returns 0 when it already had.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO processed_events (consumer_name, event_id, processed_at) "
+            + "VALUES (:consumerName, :eventId, :now)",
+            nativeQuery = true)
+    int markProcessed(@Param("consumerName") String consumerName,
+                      @Param("eventId") long eventId,
+                      @Param("now") Instant now);
+
+    /**
+     * Delete markers of events that have been purged, which can no longer be replayed.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM processed_events WHERE processed_at < :before AND NOT EXISTS ("
+            + "SELECT 1 FROM domain_events e WHERE e.id = processed_events.event_id) LIMIT :limit",
+            nativeQuery = true)
+    int purgeOrphaned(@Param("before") Instant before, @Param("limit") int limit);
+}
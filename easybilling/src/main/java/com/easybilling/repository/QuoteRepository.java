@@ -5,17 +5,25 @@ import com.easybilling.enums.QuoteStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QuoteRepository extends JpaRepository<Quote, String> {
 
+    String EXPIRING_SELECT = "SELECT id AS id, tenant_id AS tenantId, quote_number AS quoteNumber, "
+            + "customer_id AS customerId, customer_name AS customerName, customer_email AS customerEmail, "
+            + "total AS total, valid_until AS validUntil FROM quotes ";
+
     Page<Quote> findByTenantIdAndStatus(Integer tenantId, QuoteStatus status, Pageable pageable);
 
     Page<Quote> findByTenantIdAndCustomerId(Integer tenantId, String customerId, Pageable pageable);
@@ -24,11 +32,32 @@ public interface QuoteRepository extends JpaRepository<Quote, String> {
 
     Optional<Quote> findByIdAndTenantId(String id, Integer tenantId);
 
-    @Query("SELECT q FROM Quote q WHERE q.tenantId = :tenantId AND q.status = :status " +
-           "AND q.validUntil < :date")
-    List<Quote> findExpiredQuotes(@Param("tenantId") Integer tenantId,
-                                    @Param("status") QuoteStatus status,
-                                    @Param("date") LocalDate date);
+    /**
+     * Lock the next chunk of SENT quotes past their validity date, across all tenants.
+     */
+    @Query(value = EXPIRING_SELECT + "WHERE status = 'SENT' AND valid_until < :today "
+            + "ORDER BY valid_until, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<ExpiringQuoteView> lockExpiring(@Param("today") LocalDate today, @Param("limit") int limit);
+
+    @Query(value = EXPIRING_SELECT + "WHERE status = 'SENT' AND valid_until < :today AND tenant_id = :tenantId "
+            + "ORDER BY valid_until, id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<ExpiringQuoteView> lockExpiringForTenant(@Param("tenantId") Integer tenantId,
+                                                  @Param("today") LocalDate today,
+                                                  @Param("limit") int limit);
+
+    @Query(value = EXPIRING_SELECT + "WHERE id = :id AND tenant_id = :tenantId AND status = 'SENT' "
+            + "AND valid_until < :today FOR UPDATE",
+            nativeQuery = true)
+    List<ExpiringQuoteView> lockExpiringById(@Param("tenantId") Integer tenantId,
+                                             @Param("id") String id,
+                                             @Param("today") LocalDate today);
+
+    @Modifying
+    @Query(value = "UPDATE quotes SET status = 'EXPIRED', updated_at = :now WHERE id IN (:ids) AND status = 'SENT'",
+            nativeQuery = true)
+    int markExpired(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
 
     @Query("SELECT COUNT(q) FROM Quote q WHERE q.tenantId = :tenantId AND q.status = :status")
     Long countByTenantIdAndStatus(@Param("tenantId") Integer tenantId,
@@ -39,4 +68,15 @@ public interface QuoteRepository extends JpaRepository<Quote, String> {
     List<Quote> findByDateRange(@Param("tenantId") Integer tenantId,
                                  @Param("startDate") LocalDate startDate,
                                  @Param("endDate") LocalDate endDate);
+
+    interface ExpiringQuoteView {
+        String getId();
+        Integer getTenantId();
+        String getQuoteNumber();
+        String getCustomerId();
+        String getCustomerName();
+        String getCustomerEmail();
+        BigDecimal getTotal();
+        LocalDate getValidUntil();
+    }
 }
@@ -0,0 +1,70 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.ReceivableEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReceivableEntryRepository extends JpaRepository<ReceivableEntry, Long> {
+
+    /**
+     * Ledger lines in {@code [from, to)} with the running balance carried from the first entry.
+     * The window runs over everything before {@code to} so the balance includes earlier history.
+     */
+    @Query(value = "SELECT s.* FROM ("
+            + "SELECT e.id AS id, e.entry_date AS entryDate, e.entry_type AS entryType, "
+            + "e.reference_number AS referenceNumber, e.invoice_id AS invoiceId, e.due_date AS dueDate, "
+            + "e.amount AS amount, "
+            + "SUM(e.amount) OVER (ORDER BY e.entry_date, e.id ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS runningBalance "
+            + "FROM ar_ledger e WHERE e.tenant_id = :tenantId AND e.customer_id = :customerId AND e.entry_date < :to"
+            + ") s WHERE s.entryDate >= :from ORDER BY s.entryDate, s.id",
+            nativeQuery = true)
+    List<StatementLineView> findStatement(@Param("tenantId") Integer tenantId,
+                                          @Param("customerId") String customerId,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM ReceivableEntry e "
+            + "WHERE e.tenantId = :tenantId AND e.customerId = :customerId AND e.entryDate < :before")
+    BigDecimal sumBefore(@Param("tenantId") Integer tenantId,
+                         @Param("customerId") String customerId,
+                         @Param("before") LocalDateTime before);
+
+    /**
+     * Post the late fees charged at {@code appliedAt} on {@code invoiceIds} to their customers' ledgers.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ar_ledger (tenant_id, customer_id, invoice_id, entry_type, reference_number, "
+            + "entry_date, due_date, amount, created_by) "
+            + "SELECT i.tenant_id, i.customer_id, i.id, 'LATE_FEE', CONCAT(i.invoice_number, '-LATE-FEE'), "
+            + "i.late_fee_applied_at, i.due_date, i.late_fee_amount, 'DUNNING' "
+            + "FROM invoices i WHERE i.id IN (:invoiceIds) AND i.late_fee_applied_at = :appliedAt "
+            + "AND i.customer_id IS NOT NULL",
+            nativeQuery = true)
+    int insertLateFees(@Param("invoiceIds") Collection<String> invoiceIds, @Param("appliedAt") LocalDateTime appliedAt);
+
+    @Query("SELECT DISTINCT e.customerId FROM ReceivableEntry e WHERE e.invoiceId IN :invoiceIds "
+            + "AND e.entryType = com.easybilling.enums.ReceivableEntryType.LATE_FEE AND e.entryDate = :appliedAt")
+    List<String> findLateFeeCustomers(@Param("invoiceIds") Collection<String> invoiceIds,
+                                      @Param("appliedAt") LocalDateTime appliedAt);
+
+    interface StatementLineView {
+        Long getId();
+        LocalDateTime getEntryDate();
+        String getEntryType();
+        String getReferenceNumber();
+        String getInvoiceId();
+        LocalDate getDueDate();
+        BigDecimal getAmount();
+        BigDecimal getRunningBalance();
+    }
+}
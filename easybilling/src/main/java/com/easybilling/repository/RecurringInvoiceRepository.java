@@ -1,24 +1,41 @@
 package com.easybilling.repository;
 
 import com.easybilling.entity.RecurringInvoice;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RecurringInvoiceRepository extends JpaRepository<RecurringInvoice, String> {
 
+    /**
+     * Schedules that are due and not leased by a live billing-run node.
+     */
+    String DUE_UNLEASED = "is_active = TRUE AND next_invoice_date <= :today "
+            + "AND (lease_expires_at IS NULL OR lease_expires_at < :now)";
+
+    Page<RecurringInvoice> findByTenantId(Integer tenantId, Pageable pageable);
+
     Page<RecurringInvoice> findByTenantIdAndIsActive(Integer tenantId, Boolean isActive, Pageable pageable);
 
+    List<RecurringInvoice> findByTenantIdAndIsActive(Integer tenantId, Boolean isActive);
+
     Page<RecurringInvoice> findByTenantIdAndCustomerId(Integer tenantId, String customerId, Pageable pageable);
 
+    List<RecurringInvoice> findByTenantIdAndCustomerId(Integer tenantId, String customerId);
+
     @Query("SELECT r FROM RecurringInvoice r WHERE r.tenantId = :tenantId AND r.isActive = true " +
            "AND r.nextInvoiceDate <= :date ORDER BY r.nextInvoiceDate ASC")
     List<RecurringInvoice> findDueRecurringInvoices(@Param("tenantId") Integer tenantId,
@@ -32,4 +49,39 @@ public interface RecurringInvoiceRepository extends JpaRepository<RecurringInvoi
     Long countActiveByTenantId(@Param("tenantId") Integer tenantId);
 
     Optional<RecurringInvoice> findByIdAndTenantId(String id, Integer tenantId);
+
+    @Query(value = "SELECT DISTINCT tenant_id FROM recurring_invoices WHERE " + DUE_UNLEASED, nativeQuery = true)
+    List<Integer> findTenantsWithDueSchedules(@Param("today") LocalDate today, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT COUNT(*) FROM recurring_invoices WHERE " + DUE_UNLEASED, nativeQuery = true)
+    long countDueSchedules(@Param("today") LocalDate today, @Param("now") LocalDateTime now);
+
+    /**
+     * Lock up to {@code limit} due schedules of a tenant, skipping rows other nodes are claiming.
+     * Must be followed by {@link #acquireLease} in the same transaction.
+     */
+    @Query(value = "SELECT id FROM recurring_invoices WHERE tenant_id = :tenantId AND " + DUE_UNLEASED
+            + " ORDER BY next_invoice_date, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockDueIds(@Param("tenantId") Integer tenantId,
+                            @Param("today") LocalDate today,
+                            @Param("now") LocalDateTime now,
+                            @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE RecurringInvoice r SET r.leaseOwner = :owner, r.leaseExpiresAt = :expiresAt WHERE r.id IN :ids")
+    int acquireLease(@Param("ids") Collection<String> ids,
+                     @Param("owner") String owner,
+                     @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Re-read leased schedules under a row lock; rows whose lease was taken over are not returned.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RecurringInvoice r WHERE r.id IN :ids AND r.leaseOwner = :owner ORDER BY r.id")
+    List<RecurringInvoice> findLeasedForUpdate(@Param("ids") Collection<String> ids, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE RecurringInvoice r SET r.leaseOwner = null, r.leaseExpiresAt = null "
+            + "WHERE r.id IN :ids AND r.leaseOwner = :owner")
+    int releaseLease(@Param("ids") Collection<String> ids, @Param("owner") String owner);
 }
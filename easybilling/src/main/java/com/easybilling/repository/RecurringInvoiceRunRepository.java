@@ -0,0 +1,35 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.RecurringInvoiceRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface RecurringInvoiceRunRepository extends JpaRepository<RecurringInvoiceRun, Long> {
+
+    /**
+     * Claim a billing period. Returns 0 when the period was already generated; a concurrent
+     * claimer blocks on the unique key until the first transaction commits or rolls back.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO recurring_invoice_runs (tenant_id, recurring_invoice_id, period_date, node_id, generated_at) "
+            + "VALUES (:tenantId, :recurringInvoiceId, :periodDate, :nodeId, :generatedAt)", nativeQuery = true)
+    int claimPeriod(@Param("tenantId") Integer tenantId,
+                    @Param("recurringInvoiceId") String recurringInvoiceId,
+                    @Param("periodDate") LocalDate periodDate,
+                    @Param("nodeId") String nodeId,
+                    @Param("generatedAt") LocalDateTime generatedAt);
+
+    @Modifying
+    @Query("UPDATE RecurringInvoiceRun r SET r.invoiceId = :invoiceId "
+            + "WHERE r.recurringInvoiceId = :recurringInvoiceId AND r.periodDate = :periodDate")
+    int attachInvoice(@Param("recurringInvoiceId") String recurringInvoiceId,
+                      @Param("periodDate") LocalDate periodDate,
+                      @Param("invoiceId") String invoiceId);
+}
@@ -0,0 +1,85 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ScheduledTimerRepository extends JpaRepository<ScheduledTimer, Long> {
+
+    /**
+     * Create the target's timer or move it to {@code fireAt}. Moving it drops any claim and retry
+     * count; the claim columns are assigned first because they compare against the old fire_at.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduled_timers (tenant_id, timer_type, target_id, fire_at, payload, attempts, created_at) "
+            + "VALUES (:tenantId, :timerType, :targetId, :fireAt, :payload, 0, :now) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "claimed_by = IF(fire_at = VALUES(fire_at), claimed_by, NULL), "
+            + "claimed_until = IF(fire_at = VALUES(fire_at), claimed_until, NULL), "
+            + "attempts = IF(fire_at = VALUES(fire_at), attempts, 0), "
+            + "tenant_id = VALUES(tenant_id), "
+            + "payload = VALUES(payload), "
+            + "fire_at = VALUES(fire_at)",
+            nativeQuery = true)
+    int upsert(@Param("tenantId") Integer tenantId,
+               @Param("timerType") String timerType,
+               @Param("targetId") String targetId,
+               @Param("fireAt") LocalDateTime fireAt,
+               @Param("payload") String payload,
+               @Param("now") LocalDateTime now);
+
+    /**
+     * Lock unclaimed (or lapsed) timers due before {@code horizon}, earliest first, skipping those another node is claiming.
+     */
+    @Query(value = "SELECT id FROM scheduled_timers WHERE fire_at < :horizon AND attempts < :maxAttempts "
+            + "AND (claimed_until IS NULL OR claimed_until < :now) "
+            + "ORDER BY fire_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDue(@Param("horizon") LocalDateTime horizon,
+                       @Param("now") LocalDateTime now,
+                       @Param("maxAttempts") int maxAttempts,
+                       @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE ScheduledTimer t SET t.claimedBy = :nodeId, t.claimedUntil = :until WHERE t.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("nodeId") String nodeId, @Param("until") LocalDateTime until);
+
+    /**
+     * The timer as it was claimed, locked for firing; empty once it was moved, cancelled or taken over.
+     */
+    @Query(value = "SELECT * FROM scheduled_timers WHERE id = :id AND claimed_by = :nodeId AND fire_at = :fireAt FOR UPDATE",
+            nativeQuery = true)
+    Optional<ScheduledTimer> findClaimedForUpdate(@Param("id") Long id,
+                                                  @Param("nodeId") String nodeId,
+                                                  @Param("fireAt") LocalDateTime fireAt);
+
+    @Modifying
+    @Query("UPDATE ScheduledTimer t SET t.fireAt = :retryAt, t.attempts = t.attempts + 1, t.lastError = :error, "
+            + "t.claimedBy = NULL, t.claimedUntil = NULL WHERE t.id = :id AND t.claimedBy = :nodeId AND t.fireAt = :fireAt")
+    int retry(@Param("id") Long id,
+              @Param("nodeId") String nodeId,
+              @Param("fireAt") LocalDateTime fireAt,
+              @Param("retryAt") LocalDateTime retryAt,
+              @Param("error") String error);
+
+    /**
+     * Hand this node's unfired timers back, e.g. on shutdown.
+     */
+    @Modifying
+    @Query("UPDATE ScheduledTimer t SET t.claimedBy = NULL, t.claimedUntil = NULL WHERE t.claimedBy = :nodeId")
+    int releaseClaims(@Param("nodeId") String nodeId);
+
+    @Modifying
+    @Query("DELETE FROM ScheduledTimer t WHERE t.timerType = :timerType AND t.targetId = :targetId")
+    int deleteByTarget(@Param("timerType") TimerType timerType, @Param("targetId") String targetId);
+}
@@ -1,8 +1,11 @@
 package com.easybilling.repository;
 
 import com.easybilling.entity.SecurityGroup;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -23,6 +26,7 @@ public interface SecurityGroupRepository extends JpaRepository<SecurityGroup, St
     /**
      * Find active security groups by tenant ID.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<SecurityGroup> findByTenantIdAndIsActiveTrue(Integer tenantId);
     
     /**
@@ -1,9 +1,15 @@
 package com.easybilling.repository;
 
 import com.easybilling.entity.Stock;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +19,39 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
     List<Stock> findByProductIdAndTenantId(Long productId, Integer tenantId);
     List<Stock> findByTenantId(Integer tenantId);
     List<Stock> findByLocationIdAndTenantId(String locationId, Integer tenantId);
+
+    /**
+     * Current unit cost per product at a location: the ledger's weighted-average cost,
+     * falling back to the product's cost price when no stock has been received yet.
+     */
+    @Query("SELECT p.id AS productId, COALESCE(NULLIF(s.averageCost, 0), p.costPrice, 0) AS unitCost "
+            + "FROM Product p LEFT JOIN Stock s ON s.product = p AND s.locationId = :locationId AND s.tenantId = :tenantId "
+            + "WHERE p.tenantId = :tenantId AND p.id IN :productIds")
+    List<UnitCostView> findUnitCosts(@Param("productIds") Collection<Long> productIds,
+                                     @Param("locationId") String locationId,
+                                     @Param("tenantId") Integer tenantId);
+
+    /**
+     * A location's stock rows for the given products, with their products, locked for update.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p "
+            + "WHERE s.tenantId = :tenantId AND s.locationId = :locationId AND p.id IN :productIds ORDER BY p.id")
+    List<Stock> findForUpdate(@Param("productIds") Collection<Long> productIds,
+                              @Param("locationId") String locationId,
+                              @Param("tenantId") Integer tenantId);
+
+    /**
+     * Tracked stock below its product's low-stock threshold, optionally for one location.
+     */
+    @Query("SELECT s FROM Stock s JOIN FETCH s.product p "
+            + "WHERE s.tenantId = :tenantId AND (:locationId IS NULL OR s.locationId = :locationId) "
+            + "AND p.trackStock = true AND s.availableQuantity < p.lowStockThreshold "
+            + "ORDER BY p.name, s.locationId")
+    List<Stock> findLowStock(@Param("tenantId") Integer tenantId, @Param("locationId") String locationId);
+
+    interface UnitCostView {
+        Long getProductId();
+        BigDecimal getUnitCost();
+    }
 }
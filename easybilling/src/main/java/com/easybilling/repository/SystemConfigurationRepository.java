@@ -1,15 +1,20 @@
 package com.easybilling.repository;
 
 import com.easybilling.entity.SystemConfiguration;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SystemConfigurationRepository extends JpaRepository<SystemConfiguration, Long> {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<SystemConfiguration> findByConfigKey(String configKey);
     
     List<SystemConfiguration> findByCategory(String category);
@@ -17,4 +22,7 @@ public interface SystemConfigurationRepository extends JpaRepository<SystemConfi
     List<SystemConfiguration> findByIsEditableTrue();
     
     boolean existsByConfigKey(String configKey);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<SystemConfiguration> findByConfigKeyIn(Collection<String> configKeys);
 }
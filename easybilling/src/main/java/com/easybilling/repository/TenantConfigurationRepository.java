@@ -4,6 +4,7 @@ import com.easybilling.entity.TenantConfiguration;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +19,7 @@ public interface TenantConfigurationRepository extends JpaRepository<TenantConfi
     
     boolean existsByTenantIdAndConfigKey(Integer tenantId, String configKey);
     
+    List<TenantConfiguration> findByTenantIdAndConfigKeyIn(Integer tenantId, Collection<String> configKeys);
+    
     void deleteByTenantIdAndConfigKey(Integer tenantId, String configKey);
 }
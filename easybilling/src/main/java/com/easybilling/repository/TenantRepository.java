@@ -1,12 +1,17 @@
 package com.easybilling.repository;
 
 import com.easybilling.entity.Tenant;
+import com.easybilling.entity.Tenant.SubscriptionPlan;
 import com.easybilling.entity.Tenant.TenantStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,4 +27,30 @@ public interface TenantRepository extends JpaRepository<Tenant, String> {
     Page<Tenant> findByStatus(TenantStatus status, Pageable pageable);
     
     Page<Tenant> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    
+    @Query("SELECT t.id AS id, t.status AS status, t.plan AS plan FROM Tenant t WHERE t.slug = :slug")
+    Optional<TenantRefView> findRefBySlug(@Param("slug") String slug);
+
+    @Query("SELECT t.id AS id, t.status AS status, t.plan AS plan FROM Tenant t WHERE t.id = :id")
+    Optional<TenantRefView> findRefById(@Param("id") Integer id);
+
+    @Query("SELECT t.taxNumber FROM Tenant t WHERE t.id = :id")
+    Optional<String> findTaxNumberById(@Param("id") Integer id);
+
+    @Query("SELECT t.contactEmail FROM Tenant t WHERE t.id = :id")
+    Optional<String> findContactEmailById(@Param("id") Integer id);
+
+    /**
+     * Keyset page of tenant ids after {@code afterId}, in id order.
+     */
+    @Query("SELECT t.id FROM Tenant t WHERE t.status IN :statuses AND t.id > :afterId ORDER BY t.id")
+    List<Integer> findIdsByStatusAfter(@Param("statuses") Collection<TenantStatus> statuses,
+                                       @Param("afterId") Integer afterId,
+                                       Pageable pageable);
+
+    interface TenantRefView {
+        Integer getId();
+        TenantStatus getStatus();
+        SubscriptionPlan getPlan();
+    }
 }
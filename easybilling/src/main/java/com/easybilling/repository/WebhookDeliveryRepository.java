@@ -0,0 +1,54 @@
+package com.easybilling.repository;
+
+import com.easybilling.entity.WebhookDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+
+    /**
+     * Queue a delivery unless this event was already queued for the webhook.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO webhook_deliveries (tenant_id, webhook_id, event_type, event_id, payload, "
+            + "status, attempts, next_attempt_at, created_at) "
+            + "VALUES (:tenantId, :webhookId, :eventType, :eventId, :payload, 'PENDING', 0, :now, :now)",
+            nativeQuery = true)
+    int enqueue(@Param("tenantId") Integer tenantId,
+                @Param("webhookId") Long webhookId,
+                @Param("eventType") String eventType,
+                @Param("eventId") String eventId,
+                @Param("payload") String payload,
+                @Param("now") Instant now);
+
+    /**
+     * Lock due deliveries, including IN_FLIGHT claims whose node never reported back.
+     */
+    @Query(value = "SELECT id FROM webhook_deliveries WHERE status IN ('PENDING', 'IN_FLIGHT') "
+            + "AND next_attempt_at <= :now ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = com.easybilling.enums.WebhookDeliveryStatus.IN_FLIGHT, "
+            + "d.nextAttemptAt = :claimExpiresAt, d.lastAttemptAt = :now WHERE d.id IN :ids")
+    int markInFlight(@Param("ids") Collection<Long> ids,
+                     @Param("claimExpiresAt") Instant claimExpiresAt,
+                     @Param("now") Instant now);
+
+    /**
+     * Put claimed deliveries back without counting an attempt (circuit open or target saturated).
+     */
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = com.easybilling.enums.WebhookDeliveryStatus.PENDING, "
+            + "d.nextAttemptAt = :nextAttemptAt WHERE d.id IN :ids")
+    int defer(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") Instant nextAttemptAt);
+}
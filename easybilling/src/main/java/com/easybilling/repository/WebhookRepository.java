@@ -2,8 +2,12 @@ package com.easybilling.repository;
 
 import com.easybilling.entity.Webhook;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -14,4 +18,18 @@ public interface WebhookRepository extends JpaRepository<Webhook, Long> {
     List<Webhook> findByTenantIdAndIsActiveTrue(Integer tenantId);
     
     List<Webhook> findByTenantId(Integer tenantId);
+
+    /**
+     * Apply accumulated delivery counters in one statement per webhook.
+     */
+    @Modifying
+    @Query("UPDATE Webhook w SET w.successCount = COALESCE(w.successCount, 0) + :successes, "
+            + "w.failureCount = COALESCE(w.failureCount, 0) + :failures, "
+            + "w.lastTriggeredAt = CASE WHEN w.lastTriggeredAt IS NULL OR w.lastTriggeredAt < :lastTriggeredAt "
+            + "THEN :lastTriggeredAt ELSE w.lastTriggeredAt END "
+            + "WHERE w.id = :id")
+    int addCounts(@Param("id") Long id,
+                  @Param("successes") long successes,
+                  @Param("failures") long failures,
+                  @Param("lastTriggeredAt") Instant lastTriggeredAt);
 }
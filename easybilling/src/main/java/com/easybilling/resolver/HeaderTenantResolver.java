@@ -14,11 +14,16 @@ public class HeaderTenantResolver implements TenantResolver {
     private static final String TENANT_HEADER = "X-Tenant-Id";
     
     @Override
-    public String resolveTenantId(HttpServletRequest request) {
+    public Integer resolveTenantId(HttpServletRequest request) {
         String tenantId = request.getHeader(TENANT_HEADER);
         if (tenantId != null && !tenantId.isBlank()) {
-            log.debug("Resolved tenant from header: {}", tenantId);
-            return tenantId;
+            try {
+                Integer resolved = Integer.valueOf(tenantId.trim());
+                log.debug("Resolved tenant from header: {}", resolved);
+                return resolved;
+            } catch (NumberFormatException e) {
+                log.warn("Invalid tenant ID format: {}", tenantId);
+            }
         }
         return null;
     }
@@ -1,36 +1,50 @@
 package com.easybilling.resolver;
 
+import com.easybilling.service.TenantDirectory;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 /**
  * Resolves tenant ID from subdomain (e.g., tenant1.easybilling.com).
+ * The subdomain is the tenant's slug, looked up through the cached {@link TenantDirectory}.
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class SubdomainTenantResolver implements TenantResolver {
-    
+
+    // Slugs are at most 50 characters; anything else cannot name a tenant and is not looked up
+    private static final Pattern SLUG = Pattern.compile("[a-z0-9][a-z0-9-]{0,49}");
+
+    private final TenantDirectory tenantDirectory;
+
     @Value("${app.multi-tenancy.domain:easybilling.com}")
     private String baseDomain;
     
     @Override
-    public String resolveTenantId(HttpServletRequest request) {
-        String serverName = request.getServerName();
-        
-        if (serverName.contains(baseDomain)) {
-            // Extract subdomain
-            String subdomain = serverName.replace("." + baseDomain, "");
-            
-            // Ignore 'www' subdomain
-            if (!subdomain.equals("www") && !subdomain.equals(baseDomain)) {
-                log.debug("Resolved tenant from subdomain: {}", subdomain);
-                return subdomain;
-            }
+    public Integer resolveTenantId(HttpServletRequest request) {
+        String serverName = request.getServerName().toLowerCase(Locale.ROOT);
+        String suffix = "." + baseDomain;
+        if (!serverName.endsWith(suffix)) {
+            return null;
+        }
+        String subdomain = serverName.substring(0, serverName.length() - suffix.length());
+        if (subdomain.equals("www") || !SLUG.matcher(subdomain).matches()) {
+            return null;
+        }
+        Integer tenantId = tenantDirectory.findIdBySlug(subdomain);
+        if (tenantId == null) {
+            log.debug("No tenant for subdomain: {}", subdomain);
+            return null;
         }
-        
-        return null;
+        log.debug("Resolved tenant {} from subdomain: {}", tenantId, subdomain);
+        return tenantId;
     }
     
     @Override
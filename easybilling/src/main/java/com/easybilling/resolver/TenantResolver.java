@@ -14,7 +14,7 @@ public interface TenantResolver {
      * @param request HTTP request
      * @return tenant ID or null if not found
      */
-    String resolveTenantId(HttpServletRequest request);
+    Integer resolveTenantId(HttpServletRequest request);
     
     /**
      * Priority of this resolver. Lower values have higher priority.
@@ -0,0 +1,266 @@
+package com.easybilling.service;
+
+import com.easybilling.dto.AgingSummaryResponse;
+import com.easybilling.dto.CustomerStatementResponse;
+import com.easybilling.entity.CreditNote;
+import com.easybilling.entity.CustomerAging;
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.Payment;
+import com.easybilling.entity.ReceivableEntry;
+import com.easybilling.enums.ReceivableEntryType;
+import com.easybilling.repository.CustomerAgingRepository;
+import com.easybilling.repository.ReceivableEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Accounts receivable: a signed per-customer ledger plus a customer_aging table of open
+ * balances bucketed by days past due. Each receivable event re-buckets just the affected
+ * customer; a daily job re-buckets everyone in one set-based statement as invoices age.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class AccountsReceivableService {
+
+    private final ReceivableEntryRepository ledgerRepository;
+    private final CustomerAgingRepository agingRepository;
+    private final ConfigurationService configurationService;
+
+    /**
+     * Due date for an invoice completed at {@code completedAt}, from the tenant's payment terms.
+     */
+    @Transactional(readOnly = true)
+    public LocalDate dueDateFor(Integer tenantId, LocalDateTime completedAt) {
+        return completedAt.toLocalDate().plusDays(configurationService.getSettings(tenantId).paymentTermsDays());
+    }
+
+    /**
+     * Post a completed invoice and the payments taken at checkout.
+     */
+    public void recordInvoice(Invoice invoice) {
+        recordInvoice(invoice, invoice.getPayments());
+    }
+
+    /**
+     * Post a completed invoice with the given checkout payments; used when the invoice is posted
+     * after the fact and may already carry later payments, which are posted separately.
+     */
+    public void recordInvoice(Invoice invoice, Collection<Payment> checkoutPayments) {
+        if (invoice.getCustomerId() == null) {
+            return; // Walk-in sales cannot carry a receivable
+        }
+        List<ReceivableEntry> entries = new ArrayList<>();
+        entries.add(entry(invoice, ReceivableEntryType.INVOICE, invoice.getInvoiceNumber(),
+                invoice.getCompletedAt(), invoice.getTotalAmount(), invoice.getCompletedBy()));
+        for (Payment payment : checkoutPayments) {
+            entries.add(entry(invoice, ReceivableEntryType.PAYMENT, paymentReference(invoice, payment),
+                    invoice.getCompletedAt(), payment.getAmount().negate(), invoice.getCompletedBy()));
+        }
+        ledgerRepository.saveAll(entries);
+        refreshCustomer(invoice.getTenantId(), invoice.getCustomerId());
+    }
+
+    /**
+     * Post a payment received against an already completed invoice.
+     */
+    public void recordPayment(Invoice invoice, Payment payment, String userId) {
+        if (invoice.getCustomerId() == null) {
+            return;
+        }
+        ledgerRepository.save(entry(invoice, ReceivableEntryType.PAYMENT, paymentReference(invoice, payment),
+                payment.getPaidAt() != null ? payment.getPaidAt() : LocalDateTime.now(),
+                payment.getAmount().negate(), userId));
+        refreshCustomer(invoice.getTenantId(), invoice.getCustomerId());
+    }
+
+    /**
+     * Apply a credit note to its invoice's outstanding balance. Any amount above the
+     * balance is not applied and is returned to the caller as unapplied.
+     */
+    public BigDecimal applyCreditNote(Invoice invoice, CreditNote creditNote, String userId) {
+        BigDecimal balance = invoice.getBalanceAmount() != null ? invoice.getBalanceAmount() : BigDecimal.ZERO;
+        BigDecimal applied = creditNote.getTotalAmount().min(balance.max(BigDecimal.ZERO));
+        if (applied.signum() > 0) {
+            BigDecimal credited = invoice.getCreditedAmount() != null ? invoice.getCreditedAmount() : BigDecimal.ZERO;
+            invoice.setCreditedAmount(credited.add(applied));
+            invoice.setBalanceAmount(balance.subtract(applied));
+            if (invoice.getCustomerId() != null) {
+                ledgerRepository.save(entry(invoice, ReceivableEntryType.CREDIT_NOTE, creditNote.getCreditNoteNumber(),
+                        LocalDateTime.now(), applied.negate(), userId));
+                refreshCustomer(invoice.getTenantId(), invoice.getCustomerId());
+            }
+        }
+        return creditNote.getTotalAmount().subtract(applied);
+    }
+
+    /**
+     * Write off the outstanding balance of a cancelled invoice.
+     */
+    public void recordCancellation(Invoice invoice, String userId) {
+        if (invoice.getCustomerId() == null) {
+            return;
+        }
+        BigDecimal balance = invoice.getBalanceAmount();
+        if (balance != null && balance.signum() > 0) {
+            ledgerRepository.save(entry(invoice, ReceivableEntryType.CANCELLATION, invoice.getInvoiceNumber(),
+                    LocalDateTime.now(), balance.negate(), userId));
+        }
+        refreshCustomer(invoice.getTenantId(), invoice.getCustomerId());
+    }
+
+    /**
+     * Post the late fees the dunning run charged at {@code appliedAt} and re-bucket the customers affected.
+     */
+    public int recordLateFees(Integer tenantId, Collection<String> invoiceIds, LocalDateTime appliedAt) {
+        int posted = ledgerRepository.insertLateFees(invoiceIds, appliedAt);
+        if (posted > 0) {
+            for (String customerId : ledgerRepository.findLateFeeCustomers(invoiceIds, appliedAt)) {
+                refreshCustomer(tenantId, customerId);
+            }
+        }
+        return posted;
+    }
+
+    /**
+     * Re-bucket every customer as of today; customers with nothing outstanding are removed.
+     * Run once per tick across the cluster by {@link com.easybilling.job.ReceivablesAgingJob}.
+     * Returns the number of customer rows refreshed.
+     */
+    public int rebucketAll() {
+        LocalDateTime runAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int refreshed = agingRepository.refreshAll(runAt.toLocalDate(), runAt);
+        int removed = agingRepository.deleteNotRefreshedSince(runAt);
+        log.info("AR aging re-bucketed: {} rows upserted, {} settled customers removed", refreshed, removed);
+        return refreshed;
+    }
+
+    @Transactional(readOnly = true)
+    public AgingSummaryResponse getAgingSummary(Integer tenantId) {
+        CustomerAgingRepository.AgingTotalsView totals = agingRepository.summarise(tenantId);
+        return AgingSummaryResponse.builder()
+                .asOfDate(totals.getAsOfDate() != null ? totals.getAsOfDate() : LocalDate.now())
+                .bucket0To30(nz(totals.getBucket0To30()))
+                .bucket31To60(nz(totals.getBucket31To60()))
+                .bucket61To90(nz(totals.getBucket61To90()))
+                .bucketOver90(nz(totals.getBucketOver90()))
+                .totalOutstanding(nz(totals.getTotalOutstanding()))
+                .customerCount(totals.getCustomers() != null ? totals.getCustomers() : 0L)
+                .openInvoices(totals.getOpenInvoices() != null ? totals.getOpenInvoices() : 0L)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<AgingSummaryResponse> getCustomerAging(Integer tenantId, Pageable pageable) {
+        return agingRepository.findRanked(tenantId, pageable).map(row -> AgingSummaryResponse.builder()
+                .customerId(row.getCustomerId())
+                .customerName(row.getCustomerName())
+                .bucket0To30(row.getBucket0To30())
+                .bucket31To60(row.getBucket31To60())
+                .bucket61To90(row.getBucket61To90())
+                .bucketOver90(row.getBucketOver90())
+                .totalOutstanding(row.getTotalOutstanding())
+                .openInvoices(row.getOpenInvoices() != null ? row.getOpenInvoices().longValue() : 0L)
+                .oldestDueDate(row.getOldestDueDate())
+                .sharePercent(row.getSharePercent())
+                .outstandingRank(row.getOutstandingRank())
+                .build());
+    }
+
+    /**
+     * Statement for a customer between two dates (both inclusive).
+     */
+    @Transactional(readOnly = true)
+    public CustomerStatementResponse getStatement(Integer tenantId, String customerId, LocalDate startDate, LocalDate endDate) {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+
+        BigDecimal opening = nz(ledgerRepository.sumBefore(tenantId, customerId, from));
+        BigDecimal closing = opening;
+        List<CustomerStatementResponse.StatementLine> lines = new ArrayList<>();
+        for (ReceivableEntryRepository.StatementLineView row : ledgerRepository.findStatement(tenantId, customerId, from, to)) {
+            BigDecimal amount = row.getAmount();
+            lines.add(CustomerStatementResponse.StatementLine.builder()
+                    .entryDate(row.getEntryDate())
+                    .entryType(row.getEntryType())
+                    .referenceNumber(row.getReferenceNumber())
+                    .invoiceId(row.getInvoiceId())
+                    .dueDate(row.getDueDate())
+                    .debit(amount.signum() > 0 ? amount : BigDecimal.ZERO)
+                    .credit(amount.signum() < 0 ? amount.negate() : BigDecimal.ZERO)
+                    .balance(row.getRunningBalance())
+                    .build());
+            closing = row.getRunningBalance();
+        }
+
+        return CustomerStatementResponse.builder()
+                .customerId(customerId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .openingBalance(opening)
+                .closingBalance(closing)
+                .lines(lines)
+                .aging(agingRepository.findByTenantIdAndCustomerId(tenantId, customerId)
+                        .map(this::toResponse)
+                        .orElse(null))
+                .build();
+    }
+
+    private void refreshCustomer(Integer tenantId, String customerId) {
+        ledgerRepository.flush(); // Push pending invoice changes before the native re-bucket reads them
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        agingRepository.refreshCustomer(tenantId, customerId, now.toLocalDate(), now);
+        agingRepository.deleteCustomerNotRefreshedSince(tenantId, customerId, now);
+    }
+
+    private ReceivableEntry entry(Invoice invoice, ReceivableEntryType type, String reference,
+                                  LocalDateTime entryDate, BigDecimal amount, String userId) {
+        return ReceivableEntry.builder()
+                .tenantId(invoice.getTenantId())
+                .customerId(invoice.getCustomerId())
+                .invoiceId(invoice.getId())
+                .entryType(type)
+                .referenceNumber(reference)
+                .entryDate(entryDate != null ? entryDate : LocalDateTime.now())
+                .dueDate(invoice.getDueDate())
+                .amount(amount)
+                .createdBy(userId)
+                .build();
+    }
+
+    private AgingSummaryResponse toResponse(CustomerAging aging) {
+        return AgingSummaryResponse.builder()
+                .asOfDate(aging.getAsOfDate())
+                .customerId(aging.getCustomerId())
+                .bucket0To30(aging.getBucket0To30())
+                .bucket31To60(aging.getBucket31To60())
+                .bucket61To90(aging.getBucket61To90())
+                .bucketOver90(aging.getBucketOver90())
+                .totalOutstanding(aging.getTotalOutstanding())
+                .openInvoices(aging.getOpenInvoices().longValue())
+                .oldestDueDate(aging.getOldestDueDate())
+                .build();
+    }
+
+    private static String paymentReference(Invoice invoice, Payment payment) {
+        return payment.getReferenceNumber() != null ? payment.getReferenceNumber()
+                : invoice.getInvoiceNumber() + "-" + payment.getMode();
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
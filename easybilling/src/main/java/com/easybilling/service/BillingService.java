@@ -6,12 +6,14 @@ import com.easybilling.entity.HeldInvoice;
 import com.easybilling.entity.Invoice;
 import com.easybilling.entity.InvoiceItem;
 import com.easybilling.entity.Payment;
+import com.easybilling.enums.DomainEventType;
 import com.easybilling.enums.InvoiceStatus;
 import com.easybilling.enums.DiscountType;
 import com.easybilling.repository.*;
 import com.easybilling.exception.ResourceNotFoundException;
 import com.easybilling.repository.HeldInvoiceRepository;
 import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.workflow.WorkflowEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,9 +25,12 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -41,12 +46,22 @@ public class BillingService {
     private final HeldInvoiceRepository heldInvoiceRepository;
     private final ObjectMapper objectMapper;
     private final InventoryService inventoryService;
+    private final PerformanceMetricsService performanceMetricsService;
+    private final AccountsReceivableService accountsReceivableService;
+    private final WebhookService webhookService;
+    private final WorkflowEngine workflowEngine;
+    private final DomainEventPublisher domainEventPublisher;
     private final InvoiceNumberService invoiceNumberService;
     private final CustomFieldService customFieldService;
     
     @PersistenceContext
     private EntityManager entityManager;
 
+    // Store and counter recorded on invoices issued by recurring schedules rather than at a POS counter
+    private static final String RECURRING_CHANNEL = "RECURRING";
+
+    private static final String INVOICE_AGGREGATE = "INVOICE";
+
     public InvoiceResponse createInvoice(Integer tenantId, String userId, InvoiceRequest request) {
         // Business Logic: Validate stock availability before creating invoice
         String locationId = request.getStoreId(); // Using store as location
@@ -85,24 +100,15 @@ public class BillingService {
                 .notes(request.getNotes())
                 .build();
 
+        // Capture cost of goods at the time of sale so later cost changes never rewrite history
+        Map<String, BigDecimal> unitCosts = inventoryService.getCurrentUnitCosts(
+                request.getItems().stream().map(InvoiceItemRequest::getProductId).collect(Collectors.toSet()),
+                locationId,
+                tenantId
+        );
+
         for (InvoiceItemRequest itemReq : request.getItems()) {
-            InvoiceItem item = InvoiceItem.builder()
-                    .productId(itemReq.getProductId())
-                    .productName(itemReq.getProductName())
-                    .productCode(itemReq.getProductCode())
-                    .barcode(itemReq.getBarcode())
-                    .quantity(itemReq.getQuantity())
-                    .unitPrice(itemReq.getUnitPrice())
-                    .discountAmount(itemReq.getDiscountAmount() != null ? itemReq.getDiscountAmount() : BigDecimal.ZERO)
-                    .discountType(itemReq.getDiscountType())
-                    .discountValue(itemReq.getDiscountValue())
-                    .taxAmount(itemReq.getTaxAmount() != null ? itemReq.getTaxAmount() : BigDecimal.ZERO)
-                    .taxRate(itemReq.getTaxRate())
-                    .lineTotal(BigDecimal.ZERO)
-                    .notes(itemReq.getNotes())
-                    .build();
-            item.calculateLineTotal();
-            invoice.addItem(item);
+            invoice.addItem(buildItem(itemReq, unitCosts.get(itemReq.getProductId())));
         }
 
         invoice.calculateTotals();
@@ -125,6 +131,9 @@ public class BillingService {
             }
         }
         
+        domainEventPublisher.publish(tenantId, INVOICE_AGGREGATE, saved.getId(), DomainEventType.INVOICE_CREATED,
+                invoiceEventPayload(saved, userId));
+
         log.info("Invoice created: {} with {} items", saved.getInvoiceNumber(), saved.getItems().size());
         return mapToResponse(saved);
     }
@@ -169,26 +178,15 @@ public class BillingService {
         invoice.setStatus(InvoiceStatus.COMPLETED);
         invoice.setCompletedBy(userId);
         invoice.setCompletedAt(LocalDateTime.now());
-
-        // Store items for stock deduction before saving (to avoid lazy loading issues)
-        String locationId = invoice.getStoreId();
-        String invoiceNumber = invoice.getInvoiceNumber();
-        List<InvoiceItem> itemsToDeduct = new ArrayList<>(invoice.getItems());
+        invoice.setDueDate(accountsReceivableService.dueDateFor(tenantId, invoice.getCompletedAt()));
 
         // Save invoice - payments are already persisted
         Invoice saved = invoiceRepository.save(invoice);
-        
-        // Now deduct stock - invoice and payments are already persisted
-        for (InvoiceItem item : itemsToDeduct) {
-            inventoryService.deductStock(
-                    item.getProductId(),
-                    locationId,
-                    BigDecimal.valueOf(item.getQuantity()),
-                    invoiceNumber,
-                    userId,
-                    tenantId
-            );
-        }
+
+        // Stock, receivables, loyalty, analytics and integrations follow from the event after commit
+        Map<String, Object> event = invoiceEventPayload(saved, userId);
+        event.put("paymentIds", payments.stream().map(Payment::getId).toList());
+        domainEventPublisher.publish(tenantId, INVOICE_AGGREGATE, saved.getId(), DomainEventType.INVOICE_COMPLETED, event);
         
         log.info("Invoice completed: {} with total amount: {}", 
                 saved.getInvoiceNumber(), saved.getTotalAmount());
@@ -196,6 +194,118 @@ public class BillingService {
         return mapToResponse(saved);
     }
 
+    /**
+     * Business Logic: Record a payment against the outstanding balance of a completed (credit) invoice
+     */
+    public InvoiceResponse recordPayment(Integer tenantId, String invoiceId, String userId, PaymentRequest payReq) {
+        // Locked so concurrent payments each see the balance the previous one left
+        Invoice invoice = invoiceRepository.findForUpdate(invoiceId, tenantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found"));
+
+        if (invoice.getStatus() != InvoiceStatus.COMPLETED
+                && invoice.getStatus() != InvoiceStatus.PARTIALLY_RETURNED
+                && invoice.getStatus() != InvoiceStatus.RETURNED) {
+            throw new IllegalStateException("Payments can only be recorded against completed invoices");
+        }
+        if (payReq.getAmount().signum() <= 0 || payReq.getAmount().compareTo(invoice.getBalanceAmount()) > 0) {
+            throw new IllegalArgumentException("Payment amount must be positive and not exceed the balance of "
+                    + invoice.getBalanceAmount());
+        }
+
+        Payment payment = Payment.builder()
+                .mode(payReq.getMode())
+                .amount(payReq.getAmount())
+                .referenceNumber(payReq.getReferenceNumber())
+                .cardLast4(payReq.getCardLast4())
+                .upiId(payReq.getUpiId())
+                .notes(payReq.getNotes())
+                .invoice(invoice)
+                .build();
+        entityManager.persist(payment);
+        invoice.getPayments().add(payment);
+        invoice.calculateTotals();
+
+        Invoice saved = invoiceRepository.save(invoice);
+        accountsReceivableService.recordPayment(saved, payment, userId);
+        Map<String, Object> event = WebhookService.invoiceData(saved);
+        event.put("paymentId", payment.getId());
+        event.put("paymentMode", payment.getMode());
+        event.put("paymentAmount", payment.getAmount());
+        webhookService.publish(tenantId, "PAYMENT_RECEIVED", payment.getId(), event);
+        workflowEngine.fire(WorkflowEvent.forInvoice(saved, "PAYMENT_RECEIVED", userId, event));
+        if (saved.getBalanceAmount() != null && saved.getBalanceAmount().signum() == 0) {
+            workflowEngine.fire(WorkflowEvent.forInvoice(saved, "INVOICE_PAID", userId, event));
+        }
+
+        log.info("Payment of {} recorded for invoice: {}, balance: {}",
+                payment.getAmount(), saved.getInvoiceNumber(), saved.getBalanceAmount());
+
+        return mapToResponse(saved);
+    }
+
+    /**
+     * Business Logic: Issue the invoice for one billing period of a recurring schedule.
+     * Issued directly as a completed credit sale (no stock, no payment) so it shows up in receivables.
+     * Call within the transaction that claims the period: the invoice number is taken in it.
+     */
+    public Invoice issueRecurringInvoice(RecurringInvoice schedule, LocalDate periodDate) {
+        Integer tenantId = schedule.getTenantId();
+        BigDecimal halfRate = schedule.getTaxRate() != null
+                ? schedule.getTaxRate().divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        InvoiceItem item = InvoiceItem.builder()
+                .tenantId(tenantId)
+                .productId(schedule.getId())
+                .productName(schedule.getDescription())
+                .quantity(1)
+                .unitPrice(schedule.getAmount())
+                .discountAmount(BigDecimal.ZERO)
+                .taxAmount(BigDecimal.ZERO)
+                .taxRate(schedule.getTaxRate())
+                .cgstRate(halfRate)
+                .sgstRate(halfRate)
+                .lineTotal(BigDecimal.ZERO)
+                .build();
+        item.calculateGst(false);
+
+        LocalDateTime now = LocalDateTime.now();
+        Invoice invoice = Invoice.builder()
+                .invoiceNumber(invoiceNumberService.generateInvoiceNumber(tenantId))
+                .status(InvoiceStatus.COMPLETED)
+                .tenantId(tenantId)
+                .storeId(RECURRING_CHANNEL)
+                .counterId(RECURRING_CHANNEL)
+                .customerId(schedule.getCustomerId())
+                .customerName(schedule.getCustomerName())
+                .customerPhone(schedule.getCustomerPhone())
+                .customerEmail(schedule.getCustomerEmail())
+                .createdBy(schedule.getCreatedBy())
+                .completedBy(schedule.getCreatedBy())
+                .completedAt(now)
+                .dueDate(periodDate.plusDays(schedule.getPaymentTermDays() != null ? schedule.getPaymentTermDays() : 0))
+                .subtotal(BigDecimal.ZERO)
+                .taxAmount(BigDecimal.ZERO)
+                .discountAmount(BigDecimal.ZERO)
+                .totalAmount(BigDecimal.ZERO)
+                .paidAmount(BigDecimal.ZERO)
+                .balanceAmount(BigDecimal.ZERO)
+                .notes("Recurring invoice for period " + periodDate
+                        + (schedule.getNotes() != null ? "\n" + schedule.getNotes() : ""))
+                .build();
+        invoice.addItem(item);
+        invoice.calculateTotals();
+
+        Invoice saved = invoiceRepository.save(invoice);
+        // Same event as checkout, so receivables, webhooks, workflows, loyalty and analytics see it;
+        // a service line moves no stock
+        Map<String, Object> event = invoiceEventPayload(saved, schedule.getCreatedBy());
+        event.put("paymentIds", List.of());
+        event.put("stockPosted", true);
+        domainEventPublisher.publish(tenantId, INVOICE_AGGREGATE, saved.getId(), DomainEventType.INVOICE_COMPLETED, event);
+        return saved;
+    }
+
     public String holdInvoice(Integer tenantId, String userId, InvoiceRequest request) {
         try {
             String holdReference = "HOLD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
@@ -306,6 +416,48 @@ public class BillingService {
         return invoice;
     }
 
+    /**
+     * Invoice line priced from the request, with the cost of goods captured at the time of sale.
+     */
+    static InvoiceItem buildItem(InvoiceItemRequest itemReq, BigDecimal unitCost) {
+        InvoiceItem item = InvoiceItem.builder()
+                .productId(itemReq.getProductId())
+                .productName(itemReq.getProductName())
+                .productCode(itemReq.getProductCode())
+                .barcode(itemReq.getBarcode())
+                .quantity(itemReq.getQuantity())
+                .unitPrice(itemReq.getUnitPrice())
+                .discountAmount(itemReq.getDiscountAmount() != null ? itemReq.getDiscountAmount() : BigDecimal.ZERO)
+                .discountType(itemReq.getDiscountType())
+                .discountValue(itemReq.getDiscountValue())
+                .taxAmount(itemReq.getTaxAmount() != null ? itemReq.getTaxAmount() : BigDecimal.ZERO)
+                .taxRate(itemReq.getTaxRate())
+                .lineTotal(BigDecimal.ZERO)
+                .notes(itemReq.getNotes())
+                .build();
+        item.applyUnitCost(unitCost);
+        item.calculateLineTotal();
+        return item;
+    }
+
+    /**
+     * Domain event payload for an invoice: its header plus the item lines consumers act on.
+     */
+    static Map<String, Object> invoiceEventPayload(Invoice invoice, String userId) {
+        Map<String, Object> payload = WebhookService.invoiceData(invoice);
+        payload.put("userId", userId);
+        List<Map<String, Object>> items = new ArrayList<>(invoice.getItems().size());
+        for (InvoiceItem item : invoice.getItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("productId", item.getProductId());
+            line.put("quantity", item.getQuantity());
+            line.put("unitCost", item.getUnitCost());
+            items.add(line);
+        }
+        payload.put("items", items);
+        return payload;
+    }
+
     private InvoiceResponse mapToResponse(Invoice invoice) {
         InvoiceResponse response = new InvoiceResponse();
         response.setId(invoice.getId());
@@ -322,6 +474,8 @@ public class BillingService {
         response.setTotalAmount(invoice.getTotalAmount());
         response.setPaidAmount(invoice.getPaidAmount());
         response.setBalanceAmount(invoice.getBalanceAmount());
+        response.setCreditedAmount(invoice.getCreditedAmount());
+        response.setDueDate(invoice.getDueDate());
         response.setCreatedAt(invoice.getCreatedAt());
         response.setCompletedAt(invoice.getCompletedAt());
         response.setNotes(invoice.getNotes());
@@ -387,19 +541,11 @@ public class BillingService {
                         "Cancelled by: " + userId + ", Reason: " + reason);
         
         Invoice saved = invoiceRepository.save(invoice);
-        
-        // Business Logic: Reverse stock deduction
-        String locationId = invoice.getStoreId();
-        for (InvoiceItem item : invoice.getItems()) {
-            inventoryService.reverseStockDeduction(
-                    item.getProductId(),
-                    locationId,
-                    BigDecimal.valueOf(item.getQuantity()),
-                    invoice.getInvoiceNumber(),
-                    userId,
-                    tenantId
-            );
-        }
+
+        // Stock reversal, receivables write-off and metrics follow from the event after commit
+        Map<String, Object> event = invoiceEventPayload(saved, userId);
+        event.put("reason", reason);
+        domainEventPublisher.publish(tenantId, INVOICE_AGGREGATE, saved.getId(), DomainEventType.INVOICE_CANCELLED, event);
         
         log.info("Invoice cancelled: {} by user: {}, reason: {}", 
                 invoice.getInvoiceNumber(), userId, reason);
@@ -429,6 +575,7 @@ public class BillingService {
                         item.getProductId(),
                         locationId,
                         BigDecimal.valueOf(item.getQuantity()),
+                        item.getUnitCost(),
                         invoice.getInvoiceNumber() + "-RTN",
                         userId,
                         tenantId
@@ -438,6 +585,8 @@ public class BillingService {
         
         Invoice saved = invoiceRepository.save(invoice);
         
+        performanceMetricsService.recordReturned(saved, userId);
+        
         log.info("Return processed for invoice: {} with {} items", 
                 invoice.getInvoiceNumber(), itemIds.size());
         
@@ -1,5 +1,6 @@
 package com.easybilling.service;
 
+import com.easybilling.cache.TwoLevelCacheManager;
 import com.easybilling.context.TenantContext;
 import com.easybilling.dto.SystemConfigurationDTO;
 import com.easybilling.dto.TenantConfigurationDTO;
@@ -8,19 +9,33 @@ import com.easybilling.entity.TenantConfiguration;
 import com.easybilling.exception.ResourceNotFoundException;
 import com.easybilling.repository.SystemConfigurationRepository;
 import com.easybilling.repository.TenantConfigurationRepository;
+import com.easybilling.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing system and tenant configurations.
  * Provides hierarchical configuration lookup: tenant config overrides system config.
+ * Hot paths read a tenant's parsed {@link TenantSettings} snapshot instead. A snapshot is built on
+ * first use and replaced after any write that affects it commits; writes on other nodes reach it
+ * through the config cache's invalidation messages, and app.config.settings-max-age-seconds bounds
+ * how long a missed message can leave it stale.
  */
 @Service
 @RequiredArgsConstructor
@@ -29,6 +44,44 @@ public class ConfigurationService {
     
     private final SystemConfigurationRepository systemConfigRepository;
     private final TenantConfigurationRepository tenantConfigRepository;
+    private final CacheManager cacheManager;
+
+    @Value("${app.config.settings-max-age-seconds:300}")
+    private long settingsMaxAgeSeconds;
+
+    private final Map<Integer, Snapshot> settings = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so a snapshot loaded across one is not kept
+    private final AtomicLong settingsGeneration = new AtomicLong();
+
+    @PostConstruct
+    void listenForRemoteChanges() {
+        if (cacheManager instanceof TwoLevelCacheManager twoLevel) {
+            twoLevel.addInvalidationListener((cacheName, key) -> {
+                if ("config".equals(cacheName)) {
+                    dropSettings(key != null ? tenantOf(key) : null);
+                }
+            });
+        }
+    }
+
+    /**
+     * The tenant's parsed settings; a single map read once loaded.
+     */
+    public TenantSettings getSettings(Integer tenantId) {
+        if (tenantId == null) {
+            return loadSettings(null);
+        }
+        Snapshot snapshot = settings.get(tenantId);
+        if (snapshot != null && System.nanoTime() - snapshot.loadedAt() < TimeUnit.SECONDS.toNanos(settingsMaxAgeSeconds)) {
+            return snapshot.settings();
+        }
+        long generation = settingsGeneration.get();
+        TenantSettings loaded = loadSettings(tenantId);
+        if (settingsGeneration.get() == generation) {
+            settings.put(tenantId, new Snapshot(loaded, System.nanoTime()));
+        }
+        return loaded;
+    }
     
     /**
      * Get configuration value with tenant override support.
@@ -122,11 +175,16 @@ public class ConfigurationService {
     }
     
     @Transactional
-    @CacheEvict(value = "systemConfig", key = "#dto.configKey")
+    @Caching(evict = {
+            @CacheEvict(value = "systemConfig", key = "#dto.configKey"),
+            // Tenant lookups fall back to the system value and are cached under "config" too
+            @CacheEvict(value = "config", allEntries = true)
+    })
     public SystemConfigurationDTO createSystemConfiguration(SystemConfigurationDTO dto) {
         if (systemConfigRepository.existsByConfigKey(dto.getConfigKey())) {
             throw new IllegalArgumentException("Configuration key already exists: " + dto.getConfigKey());
         }
+        TenantSettings.validate(dto.getConfigKey(), dto.getConfigValue());
         
         SystemConfiguration config = SystemConfiguration.builder()
                 .configKey(dto.getConfigKey())
@@ -142,12 +200,16 @@ public class ConfigurationService {
                 .build();
         
         config = systemConfigRepository.save(config);
+        AfterCommit.run(() -> dropSettings(null));
         log.info("Created system configuration: {}", config.getConfigKey());
         return toSystemConfigDTO(config);
     }
     
     @Transactional
-    @CacheEvict(value = "systemConfig", key = "#configKey")
+    @Caching(evict = {
+            @CacheEvict(value = "systemConfig", key = "#configKey"),
+            @CacheEvict(value = "config", allEntries = true)
+    })
     public SystemConfigurationDTO updateSystemConfiguration(String configKey, SystemConfigurationDTO dto) {
         SystemConfiguration config = systemConfigRepository.findByConfigKey(configKey)
                 .orElseThrow(() -> new ResourceNotFoundException("System configuration not found: " + configKey));
@@ -155,12 +217,14 @@ public class ConfigurationService {
         if (!config.getIsEditable()) {
             throw new IllegalArgumentException("Configuration is not editable: " + configKey);
         }
+        TenantSettings.validate(configKey, dto.getConfigValue());
         
         config.setConfigValue(dto.getConfigValue());
         config.setDescription(dto.getDescription());
         config.setUpdatedBy(dto.getUpdatedBy());
         
         config = systemConfigRepository.save(config);
+        AfterCommit.run(() -> dropSettings(null));
         log.info("Updated system configuration: {}", configKey);
         return toSystemConfigDTO(config);
     }
@@ -184,6 +248,7 @@ public class ConfigurationService {
     @Transactional
     @CacheEvict(value = "config", key = "#dto.configKey + '_' + #dto.tenantId")
     public TenantConfigurationDTO createOrUpdateTenantConfiguration(TenantConfigurationDTO dto) {
+        TenantSettings.validate(dto.getConfigKey(), dto.getConfigValue());
         TenantConfiguration config = tenantConfigRepository
                 .findByTenantIdAndConfigKey(dto.getTenantId(), dto.getConfigKey())
                 .orElse(TenantConfiguration.builder()
@@ -199,6 +264,7 @@ public class ConfigurationService {
         config.setUpdatedBy(dto.getUpdatedBy());
         
         config = tenantConfigRepository.save(config);
+        AfterCommit.run(() -> refreshSettings(dto.getTenantId()));
         log.info("Created/Updated tenant configuration: {} for tenant: {}", config.getConfigKey(), config.getTenantId());
         return toTenantConfigDTO(config);
     }
@@ -207,10 +273,51 @@ public class ConfigurationService {
     @CacheEvict(value = "config", key = "#configKey + '_' + #tenantId")
     public void deleteTenantConfiguration(Integer tenantId, String configKey) {
         tenantConfigRepository.deleteByTenantIdAndConfigKey(tenantId, configKey);
+        AfterCommit.run(() -> refreshSettings(tenantId));
         log.info("Deleted tenant configuration: {} for tenant: {}", configKey, tenantId);
     }
     
     // Helper methods
+
+    private TenantSettings loadSettings(Integer tenantId) {
+        Map<String, String> values = new HashMap<>();
+        systemConfigRepository.findByConfigKeyIn(TenantSettings.keys())
+                .forEach(config -> values.put(config.getConfigKey(), config.getConfigValue()));
+        if (tenantId != null) {
+            tenantConfigRepository.findByTenantIdAndConfigKeyIn(tenantId, TenantSettings.keys())
+                    .forEach(config -> values.put(config.getConfigKey(), config.getConfigValue()));
+        }
+        return TenantSettings.from(values);
+    }
+
+    /**
+     * Swap in a freshly loaded snapshot for a tenant whose configuration this node just changed.
+     */
+    private void refreshSettings(Integer tenantId) {
+        dropSettings(tenantId);
+        getSettings(tenantId);
+    }
+
+    /**
+     * Forget one tenant's snapshot, or every snapshot when {@code tenantId} is null.
+     */
+    private void dropSettings(Integer tenantId) {
+        settingsGeneration.incrementAndGet();
+        if (tenantId == null) {
+            settings.clear();
+        } else {
+            settings.remove(tenantId);
+        }
+    }
+
+    // Config cache keys are "<configKey>_<tenantId>"; null for anything else
+    private static Integer tenantOf(String cacheKey) {
+        try {
+            return Integer.valueOf(cacheKey.substring(cacheKey.lastIndexOf('_') + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
     
     private SystemConfigurationDTO toSystemConfigDTO(SystemConfiguration entity) {
         return SystemConfigurationDTO.builder()
@@ -245,4 +352,7 @@ public class ConfigurationService {
                 .updatedBy(entity.getUpdatedBy())
                 .build();
     }
+
+    private record Snapshot(TenantSettings settings, long loadedAt) {
+    }
 }
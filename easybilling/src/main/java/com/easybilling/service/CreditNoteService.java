@@ -35,6 +35,7 @@ public class CreditNoteService {
     private final InvoiceRepository invoiceRepository;
     private final InventoryService inventoryService;
     private final ConfigurationService configurationService;
+    private final AccountsReceivableService accountsReceivableService;
 
     /**
      * Create a new credit note
@@ -289,7 +290,7 @@ public class CreditNoteService {
         switch (creditNote.getApplicationMethod()) {
             case "REDUCE_INVOICE":
                 // Reduce invoice amount owed
-                applyToInvoice(creditNote);
+                applyToInvoice(creditNote, userId);
                 break;
             case "REFUND":
                 // Issue refund (would integrate with payment gateway)
@@ -375,7 +376,7 @@ public class CreditNoteService {
      * Generate credit note number
      */
     private String generateCreditNoteNumber(Integer tenantId) {
-        String prefix = configurationService.getConfigValue("billing.credit_note_prefix", tenantId, "CN");
+        String prefix = configurationService.getSettings(tenantId).creditNotePrefix();
         long count = creditNoteRepository.countByTenantId(tenantId) + 1;
         return String.format("%s/%04d", prefix, count);
     }
@@ -403,10 +404,16 @@ public class CreditNoteService {
     /**
      * Apply credit note to reduce invoice amount
      */
-    private void applyToInvoice(CreditNote creditNote) {
+    private void applyToInvoice(CreditNote creditNote, String userId) {
         log.info("Applying credit note {} to invoice {}", creditNote.getId(), creditNote.getInvoiceId());
-        // Implementation would update invoice to reduce amount owed
-        // This would integrate with payment/invoice service
+        Invoice invoice = invoiceRepository.findById(creditNote.getInvoiceId())
+                .filter(inv -> inv.getTenantId().equals(creditNote.getTenantId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + creditNote.getInvoiceId()));
+        BigDecimal unapplied = accountsReceivableService.applyCreditNote(invoice, creditNote, userId);
+        invoiceRepository.save(invoice);
+        if (unapplied.signum() > 0) {
+            log.warn("Credit note {} exceeds invoice balance; {} left unapplied", creditNote.getCreditNoteNumber(), unapplied);
+        }
     }
 
     /**
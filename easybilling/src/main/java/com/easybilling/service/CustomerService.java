@@ -4,6 +4,7 @@ import com.easybilling.dto.CustomerRequest;
 import com.easybilling.dto.CustomerResponse;
 import com.easybilling.entity.Customer;
 import com.easybilling.enums.CustomerSegment;
+import com.easybilling.enums.DomainEventType;
 import com.easybilling.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -24,11 +27,7 @@ public class CustomerService {
     private final CustomerRepository customerRepository;
     private final ConfigurationService configurationService;
     private final CustomFieldService customFieldService;
-    
-    // Business Logic Constants - now configurable via ConfigurationService
-    private static final BigDecimal DEFAULT_VIP_THRESHOLD = new BigDecimal("50000");
-    private static final BigDecimal DEFAULT_PREMIUM_THRESHOLD = new BigDecimal("100000");
-    private static final double DEFAULT_LOYALTY_POINTS_PER_RUPEE = 0.01; // 1 point per 100 rupees
+    private final DomainEventPublisher domainEventPublisher;
     
     public CustomerResponse createCustomer(CustomerRequest request, Integer tenantId) {
         log.info("Creating customer for tenant: {}", tenantId);
@@ -47,6 +46,14 @@ public class CustomerService {
                 .build();
         
         Customer saved = customerRepository.save(customer);
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("customerId", saved.getId());
+        event.put("name", saved.getName());
+        event.put("email", saved.getEmail());
+        event.put("phone", saved.getPhone());
+        event.put("city", saved.getCity());
+        domainEventPublisher.publish(tenantId, "CUSTOMER", saved.getId(), DomainEventType.CUSTOMER_CREATED, event);
         return mapToResponse(saved);
     }
     
@@ -181,13 +188,7 @@ public class CustomerService {
                 .orElseThrow(() -> new RuntimeException("Customer not found"));
         
         // Get minimum redemption points from configuration
-        Integer minRedemptionPoints = configurationService.getConfigValueAsInt(
-            "customer.loyalty.minimum_redemption_points", 
-            tenantId
-        );
-        if (minRedemptionPoints == null) {
-            minRedemptionPoints = 100; // Default
-        }
+        int minRedemptionPoints = configurationService.getSettings(tenantId).minRedemptionPoints();
         
         if (points < minRedemptionPoints) {
             throw new RuntimeException("Minimum redemption is " + minRedemptionPoints + " points");
@@ -272,20 +273,7 @@ public class CustomerService {
      * Uses tenant-specific configuration or system default.
      */
     private int calculateLoyaltyPoints(BigDecimal amount, Integer tenantId) {
-        String configValue = configurationService.getConfigValue(
-            "customer.loyalty.points_per_rupee", 
-            tenantId
-        );
-        
-        double pointsPerRupee = DEFAULT_LOYALTY_POINTS_PER_RUPEE;
-        if (configValue != null) {
-            try {
-                pointsPerRupee = Double.parseDouble(configValue);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid points_per_rupee config, using default: {}", DEFAULT_LOYALTY_POINTS_PER_RUPEE);
-            }
-        }
-        
+        double pointsPerRupee = configurationService.getSettings(tenantId).loyaltyPointsPerRupee();
         int points = (int) (amount.doubleValue() * pointsPerRupee);
         log.debug("Calculated {} loyalty points for amount {} using rate {}", 
                 points, amount, pointsPerRupee);
@@ -297,35 +285,9 @@ public class CustomerService {
      */
     private void updateCustomerSegment(Customer customer, Integer tenantId) {
         BigDecimal totalSpent = customer.getTotalSpent();
-        
-        // Get configurable thresholds
-        String vipConfig = configurationService.getConfigValue(
-            "customer.segment.vip_spending_threshold", 
-            tenantId
-        );
-        String premiumConfig = configurationService.getConfigValue(
-            "customer.segment.premium_spending_threshold", 
-            tenantId
-        );
-        
-        BigDecimal vipAmount = DEFAULT_VIP_THRESHOLD;
-        BigDecimal premiumAmount = DEFAULT_PREMIUM_THRESHOLD;
-        
-        if (vipConfig != null) {
-            try {
-                vipAmount = new BigDecimal(vipConfig);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid vip_spending_threshold config, using default");
-            }
-        }
-        
-        if (premiumConfig != null) {
-            try {
-                premiumAmount = new BigDecimal(premiumConfig);
-            } catch (NumberFormatException e) {
-                log.warn("Invalid premium_spending_threshold config, using default");
-            }
-        }
+        TenantSettings settings = configurationService.getSettings(tenantId);
+        BigDecimal vipAmount = settings.vipSpendingThreshold();
+        BigDecimal premiumAmount = settings.premiumSpendingThreshold();
         
         if (totalSpent.compareTo(premiumAmount) >= 0) {
             customer.setSegment(CustomerSegment.PREMIUM);
@@ -0,0 +1,478 @@
+package com.easybilling.service;
+
+import com.easybilling.context.ContextSnapshot;
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.entity.DomainEventPartition;
+import com.easybilling.entity.EventConsumerOffset;
+import com.easybilling.event.DomainEventConsumer;
+import com.easybilling.filter.TenantFilterJpaDialect;
+import com.easybilling.repository.DomainEventPartitionRepository;
+import com.easybilling.repository.DomainEventRepository;
+import com.easybilling.repository.EventConsumerOffsetRepository;
+import com.easybilling.repository.ProcessedEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Delivers outbox events to {@link DomainEventConsumer}s.
+ * <p>
+ * After commit, a partition's new events are numbered with a gap-free sequence under the partition
+ * row lock; because numbering happens after commit, a slow transaction can never be overtaken and
+ * skipped by a consumer's offset. Every (consumer, partition) pair is a lane processed by at most
+ * one thread cluster-wide (its offset row is locked with SKIP LOCKED), so each consumer sees an
+ * aggregate's events in order while different partitions and consumers proceed in parallel on a
+ * bounded pool. A lane handles a batch and advances its offset in one transaction; a failing batch
+ * is retried event by event, and a failing event pauses the lane with backoff and is skipped after
+ * app.events.max-attempts. A poll picks up work signalled on other nodes or lost in a crash.
+ * <p>
+ * Each event a consumer handles is recorded in processed_events in the same transaction, so
+ * {@link #replay} re-delivers only events the consumer never applied (such as ones skipped after
+ * failing) and every consumer is safe to rewind, however its effects are keyed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DomainEventDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int PURGE_CHUNK = 5000;
+
+    private final DomainEventRepository eventRepository;
+    private final DomainEventPartitionRepository partitionRepository;
+    private final EventConsumerOffsetRepository offsetRepository;
+    private final ProcessedEventRepository processedEventRepository;
+    private final List<DomainEventConsumer> consumers;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.events.partitions:16}")
+    private int partitions;
+
+    @Value("${app.events.threads:4}")
+    private int threads;
+
+    @Value("${app.events.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.events.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.events.retry-base-seconds:5}")
+    private long retryBaseSeconds;
+
+    @Value("${app.events.retry-max-seconds:600}")
+    private long retryMaxSeconds;
+
+    @Value("${app.events.retention-days:7}")
+    private int retentionDays;
+
+    private ThreadPoolExecutor executor;
+    private Task[] sequencers;
+    private Lane[][] lanes; // [consumer][partition]
+    private AtomicLongArray knownLastSeq;
+    private volatile boolean started;
+
+    @PostConstruct
+    void init() {
+        int laneCount = consumers.size() * partitions;
+        // Each task is queued at most once, so the queue can never hold more than this
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(laneCount + partitions), new CustomizableThreadFactory("domain-events-"));
+        knownLastSeq = new AtomicLongArray(partitions);
+        sequencers = new Task[partitions];
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            sequencers[p] = new Task(() -> sequence(partition));
+        }
+        lanes = new Lane[consumers.size()][partitions];
+        for (int c = 0; c < consumers.size(); c++) {
+            DomainEventConsumer consumer = consumers.get(c);
+            Counter consumed = meterRegistry.counter("events.consumed", "consumer", consumer.getName());
+            Counter failed = meterRegistry.counter("events.failed", "consumer", consumer.getName());
+            for (int p = 0; p < partitions; p++) {
+                lanes[c][p] = new Lane(consumer, p, consumed, failed);
+            }
+            Lane[] consumerLanes = lanes[c];
+            meterRegistry.gauge("events.consumer.lag", List.of(Tag.of("consumer", consumer.getName())),
+                    this, d -> d.lag(consumerLanes));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            for (int p = 0; p < partitions; p++) {
+                partitionRepository.insertIfAbsent(p);
+                for (DomainEventConsumer consumer : consumers) {
+                    offsetRepository.insertIfAbsent(consumer.getName(), p, now);
+                }
+            }
+        });
+        for (Lane[] consumerLanes : lanes) {
+            refreshOffsets(consumerLanes);
+        }
+        started = true;
+        log.info("Domain event dispatcher started: {} consumers, {} partitions, {} threads",
+                consumers.size(), partitions, threads);
+        poll();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        started = false;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublished(DomainEventPublisher.OutboxSignal signal) {
+        if (started && signal.partition() < partitions) {
+            schedule(sequencers[signal.partition()]);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.poll-interval-ms:1000}")
+    public void poll() {
+        if (!started) {
+            return;
+        }
+        try {
+            for (Integer partition : eventRepository.findPartitionsWithUnsequenced()) {
+                if (partition < partitions) {
+                    schedule(sequencers[partition]);
+                }
+            }
+            for (DomainEventPartition partition : partitionRepository.findAll()) {
+                int p = partition.getPartitionNo();
+                if (p < partitions) {
+                    knownLastSeq.accumulateAndGet(p, partition.getLastSeq(), Math::max);
+                    scheduleBehindLanes(p);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Domain event poll failed", e);
+        }
+    }
+
+    /**
+     * Replay a consumer from the first retained event created at or after {@code since}. Events it
+     * already applied are passed over; the rest are handled as if for the first time.
+     */
+    public int replay(String consumerName, Instant since) {
+        Integer rewound = transactionTemplate.execute(status -> offsetRepository.rewind(consumerName, since, Instant.now()));
+        for (int c = 0; c < consumers.size(); c++) {
+            if (consumers.get(c).getName().equals(consumerName)) {
+                refreshOffsets(lanes[c]);
+                for (Lane lane : lanes[c]) {
+                    schedule(lane);
+                }
+            }
+        }
+        log.info("Consumer {} rewound to {} in {} partitions", consumerName, since, rewound);
+        return rewound != null ? rewound : 0;
+    }
+
+    /**
+     * Delete events that every consumer has processed and that are past retention.
+     */
+    @Scheduled(cron = "${app.events.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        long purged = 0;
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            Integer deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> eventRepository.purgeConsumed(partition, before, PURGE_CHUNK));
+                purged += deleted != null ? deleted : 0;
+            } while (deleted != null && deleted == PURGE_CHUNK);
+        }
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> processedEventRepository.purgeOrphaned(before, PURGE_CHUNK));
+        } while (deleted != null && deleted == PURGE_CHUNK);
+        log.info("Purged {} consumed domain events older than {} days", purged, retentionDays);
+    }
+
+    private void sequence(int partition) {
+        while (true) {
+            long[] result = transactionTemplate.execute(status -> {
+                List<Long> locked = partitionRepository.lockLastSeq(partition);
+                if (locked.isEmpty()) {
+                    return null; // Another node is sequencing this partition
+                }
+                long lastSeq = locked.get(0);
+                int assigned = eventRepository.assignSequence(partition, lastSeq, batchSize);
+                if (assigned > 0) {
+                    partitionRepository.advance(partition, lastSeq + assigned);
+                }
+                return new long[]{lastSeq + assigned, assigned};
+            });
+            if (result == null) {
+                return;
+            }
+            knownLastSeq.accumulateAndGet(partition, result[0], Math::max);
+            scheduleBehindLanes(partition);
+            if (result[1] < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void scheduleBehindLanes(int partition) {
+        long known = knownLastSeq.get(partition);
+        long now = System.currentTimeMillis();
+        for (Lane[] consumerLanes : lanes) {
+            Lane lane = consumerLanes[partition];
+            if (lane.offset < known && lane.retryAtMillis <= now) {
+                schedule(lane);
+            }
+        }
+    }
+
+    private void drain(Lane lane) {
+        while (started) {
+            int processed = processBatch(lane, batchSize);
+            if (processed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Process up to {@code limit} events of a lane in one transaction. Returns the number of events
+     * consumed, or -1 when the lane is held elsewhere, paused or failed.
+     */
+    private int processBatch(Lane lane, int limit) {
+        try {
+            long[] result = transactionTemplate.execute(status -> consume(lane, limit));
+            if (result == null) {
+                return -1;
+            }
+            lane.offset = result[0];
+            return (int) result[1];
+        } catch (RuntimeException e) {
+            if (limit > 1) {
+                log.warn("Consumer {} failed a batch in partition {}; retrying event by event",
+                        lane.consumer.getName(), lane.partition, e);
+                for (int i = 0; i < limit; i++) {
+                    int processed = processBatch(lane, 1);
+                    if (processed != 1) {
+                        return processed;
+                    }
+                }
+                return limit;
+            }
+            recordFailure(lane, e);
+            return -1;
+        }
+    }
+
+    private long[] consume(Lane lane, int limit) {
+        Optional<EventConsumerOffset> locked = offsetRepository.lock(lane.consumer.getName(), lane.partition);
+        if (locked.isEmpty()) {
+            return null;
+        }
+        EventConsumerOffset offset = locked.get();
+        Instant now = Instant.now();
+        if (offset.getRetryAt() != null && offset.getRetryAt().isAfter(now)) {
+            lane.retryAtMillis = offset.getRetryAt().toEpochMilli();
+            return null;
+        }
+
+        List<DomainEvent> events = eventRepository.findByPartitionNoAndSeqGreaterThanOrderBySeqAsc(
+                lane.partition, offset.getLastSeq(), PageRequest.of(0, limit));
+        for (DomainEvent event : events) {
+            if (!lane.consumer.supports(event.getEventType())) {
+                continue;
+            }
+            if (processedEventRepository.markProcessed(lane.consumer.getName(), event.getId(), now) == 0) {
+                continue; // Applied before a replay rewound the offset
+            }
+            try (ContextSnapshot.Scope ignored = ContextSnapshot.ofTenant(event.getTenantId()).open()) {
+                // The transaction began with no tenant, so the tenant filter is switched here
+                TenantFilterJpaDialect.applyTenantFilter(entityManager);
+                lane.consumer.handle(event, parse(event));
+                entityManager.flush(); // While this event's tenant is current, for the tenant listener
+            } finally {
+                TenantFilterJpaDialect.applyTenantFilter(entityManager);
+            }
+            lane.consumed.increment();
+        }
+        if (!events.isEmpty() || offset.getFailedAttempts() > 0) {
+            if (!events.isEmpty()) {
+                offset.setLastSeq(events.get(events.size() - 1).getSeq());
+            }
+            offset.setFailedAttempts(0);
+            offset.setLastError(null);
+            offset.setRetryAt(null);
+            offset.setUpdatedAt(now);
+        }
+        lane.retryAtMillis = 0;
+        return new long[]{offset.getLastSeq(), events.size()};
+    }
+
+    private void recordFailure(Lane lane, RuntimeException error) {
+        lane.failed.increment();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Optional<EventConsumerOffset> locked = offsetRepository.lock(lane.consumer.getName(), lane.partition);
+                if (locked.isEmpty()) {
+                    return;
+                }
+                EventConsumerOffset offset = locked.get();
+                Instant now = Instant.now();
+                int attempts = offset.getFailedAttempts() + 1;
+                offset.setLastError(truncate(error.getClass().getSimpleName() + ": " + error.getMessage()));
+                offset.setUpdatedAt(now);
+                List<DomainEvent> next = eventRepository.findByPartitionNoAndSeqGreaterThanOrderBySeqAsc(
+                        lane.partition, offset.getLastSeq(), PageRequest.of(0, 1));
+                if (attempts >= maxAttempts && !next.isEmpty()) {
+                    DomainEvent skipped = next.get(0);
+                    log.error("Consumer {} skipping event {} ({} {}) after {} attempts",
+                            lane.consumer.getName(), skipped.getId(), skipped.getEventType(), skipped.getAggregateId(),
+                            attempts, error);
+                    offset.setLastSeq(skipped.getSeq());
+                    offset.setFailedAttempts(0);
+                    offset.setRetryAt(null);
+                    lane.offset = skipped.getSeq();
+                    lane.retryAtMillis = 0;
+                    return;
+                }
+                long delay = Math.min(retryBaseSeconds << Math.min(attempts - 1, 20), retryMaxSeconds);
+                Instant retryAt = now.plusSeconds(delay);
+                offset.setFailedAttempts(attempts);
+                offset.setRetryAt(retryAt);
+                lane.retryAtMillis = retryAt.toEpochMilli();
+                log.warn("Consumer {} paused in partition {} for {}s after attempt {}: {}",
+                        lane.consumer.getName(), lane.partition, delay, attempts, error.getMessage());
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not record failure for consumer {} partition {}", lane.consumer.getName(), lane.partition, e);
+            lane.retryAtMillis = System.currentTimeMillis() + Duration.ofSeconds(retryBaseSeconds).toMillis();
+        }
+    }
+
+    private void refreshOffsets(Lane[] consumerLanes) {
+        for (EventConsumerOffset offset : offsetRepository.findByConsumerName(consumerLanes[0].consumer.getName())) {
+            if (offset.getPartitionNo() < partitions) {
+                Lane lane = consumerLanes[offset.getPartitionNo()];
+                lane.offset = offset.getLastSeq();
+                lane.retryAtMillis = offset.getRetryAt() != null ? offset.getRetryAt().toEpochMilli() : 0;
+            }
+        }
+    }
+
+    private JsonNode parse(DomainEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload on domain event " + event.getId(), e);
+        }
+    }
+
+    private double lag(Lane[] consumerLanes) {
+        long lag = 0;
+        for (Lane lane : consumerLanes) {
+            lag += Math.max(0, knownLastSeq.get(lane.partition) - lane.offset);
+        }
+        return lag;
+    }
+
+    /**
+     * Run a task on the pool, at most one instance at a time; a request while it runs makes it
+     * run once more afterwards.
+     */
+    private void schedule(Task task) {
+        task.dirty = true;
+        if (task.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> run(task));
+        }
+    }
+
+    private void run(Task task) {
+        try {
+            do {
+                task.dirty = false;
+                task.body.run();
+            } while (task.dirty && started);
+        } catch (RuntimeException e) {
+            log.error("Domain event task failed", e);
+        } finally {
+            task.scheduled.set(false);
+            if (task.dirty && started) {
+                schedule(task);
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static class Task {
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean dirty;
+        Runnable body;
+
+        Task(Runnable body) {
+            this.body = body;
+        }
+    }
+
+    private final class Lane extends Task {
+        private final DomainEventConsumer consumer;
+        private final int partition;
+        private final Counter consumed;
+        private final Counter failed;
+        private volatile long offset;
+        private volatile long retryAtMillis;
+
+        Lane(DomainEventConsumer consumer, int partition, Counter consumed, Counter failed) {
+            super(null);
+            this.consumer = consumer;
+            this.partition = partition;
+            this.consumed = consumed;
+            this.failed = failed;
+            this.body = () -> drain(this);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.repository.DomainEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Writes domain events to the outbox in the caller's transaction and nudges the dispatcher
+ * once that transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class DomainEventPublisher {
+
+    private final DomainEventRepository eventRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Value("${app.events.partitions:16}")
+    private int partitions;
+
+    @Transactional
+    public void publish(Integer tenantId, String aggregateType, String aggregateId, DomainEventType type,
+                        Map<String, Object> payload) {
+        int partition = partitionOf(aggregateId);
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise " + type + " for " + aggregateId, e);
+        }
+        eventRepository.save(DomainEvent.builder()
+                .tenantId(tenantId)
+                .aggregateType(aggregateType)
+                .aggregateId(aggregateId)
+                .eventType(type)
+                .partitionNo(partition)
+                .payload(json)
+                .build());
+        applicationEventPublisher.publishEvent(new OutboxSignal(partition));
+    }
+
+    /**
+     * Changing app.events.partitions moves aggregates between partitions; drain the outbox first.
+     */
+    public int partitionOf(String aggregateId) {
+        return Math.floorMod(aggregateId.hashCode(), partitions);
+    }
+
+    /**
+     * Raised per published event; delivered to listeners after the publishing transaction commits.
+     */
+    public record OutboxSignal(int partition) {
+    }
+}
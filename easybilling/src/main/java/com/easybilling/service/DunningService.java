@@ -0,0 +1,222 @@
+package com.easybilling.service;
+
+import com.easybilling.dto.DunningRunResponse;
+import com.easybilling.entity.DunningRun;
+import com.easybilling.enums.TimerType;
+import com.easybilling.repository.DunningRunRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.util.NodeIdentity;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dunning: late fees and staged payment reminders for overdue invoices.
+ * A tenant's daily run walks its overdue open invoices in keyset chunks over
+ * (tenant_id, status, due_date). Each chunk is charged late fees with one set-based UPDATE, the
+ * fees are posted to the receivables ledger, and the run's totals and cursor are committed with
+ * them, so a restarted run resumes where it stopped. Each invoice's next reminder is set as a
+ * persisted {@link TimerService} timer in the same transaction, so reminders survive restarts
+ * without being polled for. When one fires, the invoice's dunning stage is advanced with a
+ * compare-and-set, so each reminder is sent at most once. An invoice that is further overdue
+ * than several stages gets only the latest one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DunningService {
+
+    private static final List<String> DUNNABLE_STATUSES = List.of("COMPLETED", "PARTIALLY_RETURNED");
+    private static final LocalDate CURSOR_START = LocalDate.of(1970, 1, 1);
+
+    private final InvoiceRepository invoiceRepository;
+    private final DunningRunRepository dunningRunRepository;
+    private final AccountsReceivableService accountsReceivableService;
+    private final ConfigurationService configurationService;
+    private final NotificationTriggerService notificationTriggerService;
+    private final TimerService timerService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.dunning.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.dunning.reminder-days:1,7,14,30}")
+    private int[] reminderDays;
+
+    @Value("${app.dunning.reminder-hour:10}")
+    private int reminderHour;
+
+    @PostConstruct
+    void sortStages() {
+        Arrays.sort(reminderDays);
+    }
+
+    /**
+     * Run (or resume) the tenant's dunning for {@code today}; a run that already finished is returned as is.
+     */
+    public DunningRunResponse run(Integer tenantId, LocalDate today) {
+        LateFeeTerms terms = termsFor(tenantId);
+        transactionTemplate.executeWithoutResult(status ->
+                dunningRunRepository.insertIfAbsent(tenantId, today, NodeIdentity.NODE_ID, LocalDateTime.now()));
+
+        boolean done = false;
+        while (!done) {
+            Boolean finished = transactionTemplate.execute(status -> processChunk(tenantId, today, terms));
+            done = !Boolean.FALSE.equals(finished);
+        }
+
+        DunningRun run = dunningRunRepository.findByTenantIdAndRunDate(tenantId, today)
+                .orElseThrow(() -> new IllegalStateException("Dunning run missing after insert"));
+        log.info("Dunning for tenant {} on {}: {} overdue ({}), {} late fees ({}), {} reminders scheduled",
+                tenantId, today, run.getOverdueInvoices(), run.getOverdueAmount(), run.getLateFeesApplied(),
+                run.getLateFeeAmount(), run.getRemindersScheduled());
+        return toResponse(run);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<DunningRunResponse> getRuns(Integer tenantId, Pageable pageable) {
+        return dunningRunRepository.findByTenantIdOrderByRunDateDesc(tenantId, pageable).map(this::toResponse);
+    }
+
+    /**
+     * Send a reminder stage set by a run, unless the invoice was settled or reminded meanwhile.
+     * Called by its timer, in the timer's transaction.
+     */
+    @Transactional
+    public void sendReminder(Integer tenantId, String invoiceId, String payload) {
+        String[] stages = payload.split(":");
+        int expectedStage = Integer.parseInt(stages[0]);
+        int stage = Integer.parseInt(stages[1]);
+        LocalDateTime now = LocalDateTime.now();
+        if (invoiceRepository.advanceDunningStage(invoiceId, expectedStage, stage, now) == 0) {
+            return; // Settled, cancelled or already reminded
+        }
+        invoiceRepository.findOverdueById(invoiceId).ifPresent(invoice -> {
+            int daysOverdue = (int) ChronoUnit.DAYS.between(invoice.getDueDate(), now.toLocalDate());
+            notificationTriggerService.sendPaymentReminder(tenantId, invoice.getCustomerEmail(),
+                    invoice.getCustomerPhone(), invoice.getBalanceAmount(), daysOverdue);
+        });
+    }
+
+    /**
+     * Process the next chunk under the run row's lock; returns true when the run is complete.
+     */
+    private boolean processChunk(Integer tenantId, LocalDate today, LateFeeTerms terms) {
+        DunningRun run = dunningRunRepository.findForUpdate(tenantId, today)
+                .orElseThrow(() -> new IllegalStateException("Dunning run missing after insert"));
+        if (run.getCompletedAt() != null) {
+            return true;
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+        List<InvoiceRepository.OverdueInvoiceView> invoices;
+        while (true) {
+            String status = run.getCursorStatus() != null ? run.getCursorStatus() : DUNNABLE_STATUSES.get(0);
+            invoices = invoiceRepository.findOverdueAfter(tenantId, status, today,
+                    run.getCursorDueDate() != null ? run.getCursorDueDate() : CURSOR_START,
+                    run.getCursorInvoiceId() != null ? run.getCursorInvoiceId() : "", chunkSize);
+            if (!invoices.isEmpty()) {
+                run.setCursorStatus(status);
+                break;
+            }
+            int next = DUNNABLE_STATUSES.indexOf(status) + 1;
+            if (next == DUNNABLE_STATUSES.size()) {
+                run.setCompletedAt(now);
+                run.setUpdatedAt(now);
+                return true;
+            }
+            run.setCursorStatus(DUNNABLE_STATUSES.get(next));
+            run.setCursorDueDate(null);
+            run.setCursorInvoiceId(null);
+        }
+
+        List<String> ids = invoices.stream().map(InvoiceRepository.OverdueInvoiceView::getId).toList();
+        int charged = invoiceRepository.applyLateFees(ids, terms.fixedAmount(), terms.percentage(),
+                terms.graceDays(), today, now);
+        BigDecimal fees = BigDecimal.ZERO;
+        if (charged > 0) {
+            fees = invoiceRepository.sumLateFees(ids, now);
+            accountsReceivableService.recordLateFees(tenantId, ids, now);
+        }
+
+        BigDecimal overdue = fees;
+        int reminders = 0;
+        for (InvoiceRepository.OverdueInvoiceView invoice : invoices) {
+            overdue = overdue.add(invoice.getBalanceAmount());
+            Reminder reminder = nextReminder(invoice, today, now);
+            if (reminder != null) {
+                timerService.schedule(tenantId, TimerType.PAYMENT_REMINDER, invoice.getId(), reminder.fireAt(),
+                        reminder.expectedStage() + ":" + reminder.stage());
+                reminders++;
+            }
+        }
+
+        InvoiceRepository.OverdueInvoiceView last = invoices.get(invoices.size() - 1);
+        run.setCursorDueDate(last.getDueDate());
+        run.setCursorInvoiceId(last.getId());
+        run.setOverdueInvoices(run.getOverdueInvoices() + invoices.size());
+        run.setOverdueAmount(run.getOverdueAmount().add(overdue));
+        run.setLateFeesApplied(run.getLateFeesApplied() + charged);
+        run.setLateFeeAmount(run.getLateFeeAmount().add(fees));
+        run.setRemindersScheduled(run.getRemindersScheduled() + reminders);
+        run.setUpdatedAt(now);
+        return false;
+    }
+
+    /**
+     * The next reminder for an overdue invoice: the latest stage already reached if it has not
+     * been sent, otherwise the following stage on its day, at the configured hour.
+     */
+    private Reminder nextReminder(InvoiceRepository.OverdueInvoiceView invoice, LocalDate today, LocalDateTime now) {
+        int sent = invoice.getDunningStage() != null ? invoice.getDunningStage() : 0;
+        if (sent >= reminderDays.length) {
+            return null;
+        }
+        long daysOverdue = ChronoUnit.DAYS.between(invoice.getDueDate(), today);
+        int reached = 0;
+        while (reached < reminderDays.length && reminderDays[reached] <= daysOverdue) {
+            reached++;
+        }
+        int stage = Math.max(reached, sent + 1);
+        LocalDate stageDate = invoice.getDueDate().plusDays(reminderDays[stage - 1]);
+        LocalDateTime fireAt = stageDate.atTime(reminderHour, 0);
+        return new Reminder(sent, stage, fireAt.isBefore(now) ? now : fireAt);
+    }
+
+    private LateFeeTerms termsFor(Integer tenantId) {
+        TenantSettings settings = configurationService.getSettings(tenantId);
+        return new LateFeeTerms(settings.lateFeeFixedAmount(), settings.lateFeePercentage(), settings.lateFeeGraceDays());
+    }
+
+    private DunningRunResponse toResponse(DunningRun run) {
+        return DunningRunResponse.builder()
+                .runDate(run.getRunDate())
+                .overdueInvoices(run.getOverdueInvoices())
+                .overdueAmount(run.getOverdueAmount())
+                .lateFeesApplied(run.getLateFeesApplied())
+                .lateFeeAmount(run.getLateFeeAmount())
+                .remindersScheduled(run.getRemindersScheduled())
+                .startedAt(run.getStartedAt())
+                .completedAt(run.getCompletedAt())
+                .build();
+    }
+
+    private record LateFeeTerms(BigDecimal fixedAmount, BigDecimal percentage, int graceDays) {
+    }
+
+    private record Reminder(int expectedStage, int stage, LocalDateTime fireAt) {
+    }
+}
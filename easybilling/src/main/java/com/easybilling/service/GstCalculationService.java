@@ -12,6 +12,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Service for GST calculation and validation.
@@ -23,6 +25,31 @@ public class GstCalculationService {
     
     private final GstRateRepository gstRateRepository;
     
+    /**
+     * GST state codes keyed by lower-case state / UT name.
+     */
+    private static final Map<String, String> STATE_CODES = Map.ofEntries(
+            Map.entry("jammu and kashmir", "01"), Map.entry("himachal pradesh", "02"),
+            Map.entry("punjab", "03"), Map.entry("chandigarh", "04"),
+            Map.entry("uttarakhand", "05"), Map.entry("haryana", "06"),
+            Map.entry("delhi", "07"), Map.entry("rajasthan", "08"),
+            Map.entry("uttar pradesh", "09"), Map.entry("bihar", "10"),
+            Map.entry("sikkim", "11"), Map.entry("arunachal pradesh", "12"),
+            Map.entry("nagaland", "13"), Map.entry("manipur", "14"),
+            Map.entry("mizoram", "15"), Map.entry("tripura", "16"),
+            Map.entry("meghalaya", "17"), Map.entry("assam", "18"),
+            Map.entry("west bengal", "19"), Map.entry("jharkhand", "20"),
+            Map.entry("odisha", "21"), Map.entry("chhattisgarh", "22"),
+            Map.entry("madhya pradesh", "23"), Map.entry("gujarat", "24"),
+            Map.entry("dadra and nagar haveli and daman and diu", "26"), Map.entry("maharashtra", "27"),
+            Map.entry("karnataka", "29"), Map.entry("goa", "30"),
+            Map.entry("lakshadweep", "31"), Map.entry("kerala", "32"),
+            Map.entry("tamil nadu", "33"), Map.entry("puducherry", "34"),
+            Map.entry("andaman and nicobar islands", "35"), Map.entry("telangana", "36"),
+            Map.entry("andhra pradesh", "37"), Map.entry("ladakh", "38"),
+            Map.entry("other territory", "97")
+    );
+    
     /**
      * Calculate GST for a given amount and HSN/SAC code.
      */
@@ -164,4 +191,22 @@ public class GstCalculationService {
         }
         return gstin.substring(2, 12);
     }
+    
+    /**
+     * Resolve a place of supply (state name or two-digit code) to its GST state code.
+     * Returns null when the value cannot be mapped.
+     */
+    public String resolveStateCode(String placeOfSupply) {
+        if (placeOfSupply == null || placeOfSupply.isBlank()) {
+            return null;
+        }
+        String value = placeOfSupply.trim();
+        if (value.matches("^[0-9]{2}$")) {
+            return value;
+        }
+        if (value.matches("^[0-9]{2}-.*")) {
+            return value.substring(0, 2);
+        }
+        return STATE_CODES.get(value.toLowerCase(Locale.ROOT).replace("&", "and"));
+    }
 }
@@ -0,0 +1,476 @@
+package com.easybilling.service;
+
+import com.easybilling.dto.GstReturnRows;
+import com.easybilling.dto.Gstr3bResponse;
+import com.easybilling.enums.CreditNoteStatus;
+import com.easybilling.enums.InvoiceStatus;
+import com.easybilling.repository.CreditNoteRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.repository.TenantRepository;
+import com.easybilling.util.DateTimeUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Service for generating statutory GST returns (GSTR-1 and GSTR-3B).
+ * Every GSTR-1 section is produced by one grouped SQL query whose rows are
+ * streamed straight into the portal JSON, so memory stays bounded regardless
+ * of the number of invoices in the period.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GstReturnService {
+
+    /**
+     * Invoice value above which an inter-state supply to an unregistered person is reported invoice-wise (B2CL).
+     */
+    private static final BigDecimal B2CL_LIMIT = new BigDecimal("100000");
+
+    private static final List<InvoiceStatus> RETURN_INVOICE_STATUSES =
+            List.of(InvoiceStatus.COMPLETED, InvoiceStatus.RETURNED, InvoiceStatus.PARTIALLY_RETURNED);
+
+    private static final List<CreditNoteStatus> RETURN_NOTE_STATUSES =
+            List.of(CreditNoteStatus.ISSUED, CreditNoteStatus.APPLIED);
+
+    private static final DateTimeFormatter RETURN_PERIOD = DateTimeFormatter.ofPattern("MMyyyy");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final InvoiceRepository invoiceRepository;
+    private final CreditNoteRepository creditNoteRepository;
+    private final TenantRepository tenantRepository;
+    private final GstCalculationService gstCalculationService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Write the GSTR-1 return for a month to the given stream in GST portal JSON format.
+     * The stream is not closed.
+     */
+    @Transactional(readOnly = true)
+    public void writeGstr1(Integer tenantId, YearMonth period, OutputStream out) throws IOException {
+        log.info("Generating GSTR-1 for tenant: {}, period: {}", tenantId, period);
+        LocalDateTime from = period.atDay(1).atStartOfDay();
+        LocalDateTime to = period.plusMonths(1).atDay(1).atStartOfDay();
+
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (json) {
+            json.writeStartObject();
+            json.writeStringField("gstin", supplierGstin(tenantId));
+            json.writeStringField("fp", period.format(RETURN_PERIOD));
+            writeB2b(json, tenantId, from, to);
+            writeB2cl(json, tenantId, from, to);
+            writeB2cs(json, tenantId, from, to);
+            writeCdnr(json, tenantId, from, to);
+            writeCdnur(json, tenantId, from, to);
+            writeHsn(json, tenantId, from, to);
+            json.writeEndObject();
+        }
+        log.info("GSTR-1 generated for tenant: {}, period: {}", tenantId, period);
+    }
+
+    /**
+     * Build the GSTR-3B summary for a month.
+     */
+    @Transactional(readOnly = true)
+    public Gstr3bResponse buildGstr3b(Integer tenantId, YearMonth period) {
+        return buildGstr3b(tenantId, period.atDay(1), period.atEndOfMonth());
+    }
+
+    /**
+     * Build a GSTR-3B style summary for an arbitrary date range (both ends inclusive).
+     * Two grouped queries (supplies and credit notes) feed the whole summary.
+     */
+    @Transactional(readOnly = true)
+    public Gstr3bResponse buildGstr3b(Integer tenantId, LocalDate startDate, LocalDate endDate) {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+
+        Gstr3bResponse.TaxTotals taxable = Gstr3bResponse.TaxTotals.zero();
+        Gstr3bResponse.TaxTotals nilExempt = Gstr3bResponse.TaxTotals.zero();
+        Map<String, Gstr3bResponse.PlaceOfSupplyTotal> unregistered = new TreeMap<>();
+
+        for (GstReturnRows.SupplySummaryRow row : invoiceRepository.summariseGstSupplies(
+                tenantId, RETURN_INVOICE_STATUSES, from, to)) {
+            BigDecimal rate = nz(row.getRate());
+            Gstr3bResponse.TaxTotals target = rate.signum() > 0 ? taxable : nilExempt;
+            target.add(nz(row.getTaxableValue()), nz(row.getIgst()), nz(row.getCgst()),
+                    nz(row.getSgst()), nz(row.getCess()));
+            if (rate.signum() > 0 && Boolean.TRUE.equals(row.getInterstate()) && !Boolean.TRUE.equals(row.getRegistered())) {
+                addUnregistered(unregistered, row.getPlaceOfSupply(), nz(row.getTaxableValue()), nz(row.getIgst()));
+            }
+        }
+
+        for (GstReturnRows.CreditSummaryRow row : creditNoteRepository.summariseGstCreditNotes(
+                tenantId, RETURN_NOTE_STATUSES, from, to, B2CL_LIMIT)) {
+            BigDecimal rate = nz(row.getRate());
+            boolean interstate = Boolean.TRUE.equals(row.getInterstate());
+            NoteTax tax = NoteTax.of(nz(row.getTaxableValue()), rate, interstate);
+            Gstr3bResponse.TaxTotals target = rate.signum() > 0 ? taxable : nilExempt;
+            target.add(tax.taxable().negate(), tax.igst().negate(), tax.cgst().negate(),
+                    tax.sgst().negate(), BigDecimal.ZERO);
+            if (rate.signum() > 0 && interstate && !Boolean.TRUE.equals(row.getRegistered())) {
+                addUnregistered(unregistered, row.getPlaceOfSupply(), tax.taxable().negate(), tax.igst().negate());
+            }
+        }
+
+        return Gstr3bResponse.builder()
+                .gstin(supplierGstin(tenantId))
+                .returnPeriod(startDate.format(RETURN_PERIOD))
+                .supplyDetails(Gstr3bResponse.SupplyDetails.builder()
+                        .outwardTaxable(taxable)
+                        .outwardZeroRated(Gstr3bResponse.TaxTotals.zero())
+                        .outwardNilExempt(nilExempt)
+                        .inwardReverseCharge(Gstr3bResponse.TaxTotals.zero())
+                        .outwardNonGst(Gstr3bResponse.TaxTotals.zero())
+                        .build())
+                .interStateSupplies(Gstr3bResponse.InterStateSupplies.builder()
+                        .unregisteredDetails(List.copyOf(unregistered.values()))
+                        .build())
+                .itcEligible(Gstr3bResponse.ItcEligible.builder().build())
+                .build();
+    }
+
+    // GSTR-1 sections
+
+    private void writeB2b(JsonGenerator json, Integer tenantId, LocalDateTime from, LocalDateTime to) throws IOException {
+        json.writeArrayFieldStart("b2b");
+        DocumentWriter writer = new DocumentWriter(json, "ctin", "inv");
+        try (Stream<GstReturnRows.InvoiceRateRow> rows = invoiceRepository.streamGstB2bRows(
+                tenantId, RETURN_INVOICE_STATUSES, from, to)) {
+            Iterator<GstReturnRows.InvoiceRateRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GstReturnRows.InvoiceRateRow row = iterator.next();
+                writer.next(row.getCtin(), row.getInvoiceId(),
+                        g -> {
+                            writeInvoiceHeader(g, row);
+                            g.writeStringField("pos", stateCode(row.getPlaceOfSupply()));
+                            g.writeStringField("rchrg", Boolean.TRUE.equals(row.getReverseCharge()) ? "Y" : "N");
+                            g.writeStringField("inv_typ", "R");
+                        },
+                        g -> writeTaxDetail(g, row, true));
+            }
+        }
+        writer.finish();
+        json.writeEndArray();
+    }
+
+    private void writeB2cl(JsonGenerator json, Integer tenantId, LocalDateTime from, LocalDateTime to) throws IOException {
+        json.writeArrayFieldStart("b2cl");
+        Map<String, List<String>> spellingsByState = new TreeMap<>();
+        for (String place : invoiceRepository.findGstB2clPlacesOfSupply(
+                tenantId, RETURN_INVOICE_STATUSES, from, to, B2CL_LIMIT)) {
+            spellingsByState.computeIfAbsent(stateCode(place), pos -> new ArrayList<>()).add(place);
+        }
+        DocumentWriter writer = new DocumentWriter(json, "pos", "inv");
+        for (Map.Entry<String, List<String>> state : spellingsByState.entrySet()) {
+            try (Stream<GstReturnRows.InvoiceRateRow> rows = invoiceRepository.streamGstB2clRows(
+                    tenantId, RETURN_INVOICE_STATUSES, from, to, B2CL_LIMIT, state.getValue())) {
+                Iterator<GstReturnRows.InvoiceRateRow> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    GstReturnRows.InvoiceRateRow row = iterator.next();
+                    writer.next(state.getKey(), row.getInvoiceId(),
+                            g -> writeInvoiceHeader(g, row),
+                            g -> writeTaxDetail(g, row, false));
+                }
+            }
+        }
+        writer.finish();
+        json.writeEndArray();
+    }
+
+    private void writeB2cs(JsonGenerator json, Integer tenantId, LocalDateTime from, LocalDateTime to) throws IOException {
+        // B2CS is a summary (place of supply x rate), so it is small enough to net credit notes in memory
+        Map<B2csKey, Gstr3bResponse.TaxTotals> totals = new LinkedHashMap<>();
+        try (Stream<GstReturnRows.B2csRow> rows = invoiceRepository.streamGstB2csRows(
+                tenantId, RETURN_INVOICE_STATUSES, from, to, B2CL_LIMIT)) {
+            Iterator<GstReturnRows.B2csRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GstReturnRows.B2csRow row = iterator.next();
+                totals.computeIfAbsent(B2csKey.of(row.getInterstate(), stateCode(row.getPlaceOfSupply()), row.getRate()),
+                                k -> Gstr3bResponse.TaxTotals.zero())
+                        .add(nz(row.getTaxableValue()), nz(row.getIgst()), nz(row.getCgst()),
+                                nz(row.getSgst()), nz(row.getCess()));
+            }
+        }
+        for (GstReturnRows.CreditSummaryRow row : creditNoteRepository.summariseGstCreditNotes(
+                tenantId, RETURN_NOTE_STATUSES, from, to, B2CL_LIMIT)) {
+            if (Boolean.TRUE.equals(row.getRegistered()) || Boolean.TRUE.equals(row.getLarge())) {
+                continue; // reported note-wise in CDNR / CDNUR
+            }
+            boolean interstate = Boolean.TRUE.equals(row.getInterstate());
+            NoteTax tax = NoteTax.of(nz(row.getTaxableValue()), nz(row.getRate()), interstate);
+            totals.computeIfAbsent(B2csKey.of(interstate, stateCode(row.getPlaceOfSupply()), row.getRate()),
+                            k -> Gstr3bResponse.TaxTotals.zero())
+                    .add(tax.taxable().negate(), tax.igst().negate(), tax.cgst().negate(),
+                            tax.sgst().negate(), BigDecimal.ZERO);
+        }
+
+        json.writeArrayFieldStart("b2cs");
+        for (Map.Entry<B2csKey, Gstr3bResponse.TaxTotals> entry : totals.entrySet()) {
+            B2csKey key = entry.getKey();
+            Gstr3bResponse.TaxTotals total = entry.getValue();
+            json.writeStartObject();
+            json.writeStringField("sply_ty", key.interstate() ? "INTER" : "INTRA");
+            json.writeStringField("pos", key.pos());
+            json.writeStringField("typ", "OE");
+            json.writeNumberField("rt", key.rate());
+            json.writeNumberField("txval", total.getTxval());
+            json.writeNumberField("iamt", total.getIamt());
+            json.writeNumberField("camt", total.getCamt());
+            json.writeNumberField("samt", total.getSamt());
+            json.writeNumberField("csamt", total.getCsamt());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    private void writeCdnr(JsonGenerator json, Integer tenantId, LocalDateTime from, LocalDateTime to) throws IOException {
+        json.writeArrayFieldStart("cdnr");
+        DocumentWriter writer = new DocumentWriter(json, "ctin", "nt");
+        try (Stream<GstReturnRows.CreditNoteRateRow> rows = creditNoteRepository.streamGstRegisteredNoteRows(
+                tenantId, RETURN_NOTE_STATUSES, from, to)) {
+            Iterator<GstReturnRows.CreditNoteRateRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GstReturnRows.CreditNoteRateRow row = iterator.next();
+                writer.next(row.getCtin(), row.getNoteId(),
+                        g -> {
+                            writeNoteHeader(g, row);
+                            g.writeStringField("rchrg", "N");
+                            g.writeStringField("inv_typ", "R");
+                        },
+                        g -> writeNoteDetail(g, row));
+            }
+        }
+        writer.finish();
+        json.writeEndArray();
+    }
+
+    private void writeCdnur(JsonGenerator json, Integer tenantId, LocalDateTime from, LocalDateTime to) throws IOException {
+        json.writeArrayFieldStart("cdnur");
+        DocumentWriter writer = new DocumentWriter(json, null, null);
+        try (Stream<GstReturnRows.CreditNoteRateRow> rows = creditNoteRepository.streamGstUnregisteredLargeNoteRows(
+                tenantId, RETURN_NOTE_STATUSES, from, to, B2CL_LIMIT)) {
+            Iterator<GstReturnRows.CreditNoteRateRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GstReturnRows.CreditNoteRateRow row = iterator.next();
+                writer.next(null, row.getNoteId(),
+                        g -> {
+                            g.writeStringField("typ", "B2CL");
+                            writeNoteHeader(g, row);
+                        },
+                        g -> writeNoteDetail(g, row));
+            }
+        }
+        writer.finish();
+        json.writeEndArray();
+    }
+
+    private void writeHsn(JsonGenerator json, Integer tenantId, LocalDateTime from, LocalDateTime to) throws IOException {
+        json.writeObjectFieldStart("hsn");
+        json.writeArrayFieldStart("data");
+        int num = 0;
+        try (Stream<GstReturnRows.HsnRow> rows = invoiceRepository.streamGstHsnRows(
+                tenantId, RETURN_INVOICE_STATUSES, from, to)) {
+            Iterator<GstReturnRows.HsnRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GstReturnRows.HsnRow row = iterator.next();
+                json.writeStartObject();
+                json.writeNumberField("num", ++num);
+                json.writeStringField("hsn_sc", row.getHsnCode() != null ? row.getHsnCode() : "");
+                json.writeStringField("desc", row.getDescription());
+                json.writeStringField("uqc", "NOS");
+                json.writeNumberField("qty", row.getQuantity() != null ? row.getQuantity() : 0L);
+                json.writeNumberField("val", nz(row.getTotalValue()));
+                json.writeNumberField("rt", nz(row.getRate()));
+                json.writeNumberField("txval", nz(row.getTaxableValue()));
+                json.writeNumberField("iamt", nz(row.getIgst()));
+                json.writeNumberField("camt", nz(row.getCgst()));
+                json.writeNumberField("samt", nz(row.getSgst()));
+                json.writeNumberField("csamt", nz(row.getCess()));
+                json.writeEndObject();
+            }
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    // Field writers
+
+    private void writeInvoiceHeader(JsonGenerator json, GstReturnRows.InvoiceRateRow row) throws IOException {
+        json.writeStringField("inum", row.getInvoiceNumber());
+        json.writeStringField("idt", row.getInvoiceDate().format(DateTimeUtils.DISPLAY_DATE));
+        json.writeNumberField("val", nz(row.getInvoiceValue()));
+    }
+
+    private void writeNoteHeader(JsonGenerator json, GstReturnRows.CreditNoteRateRow row) throws IOException {
+        json.writeStringField("ntty", "C");
+        json.writeStringField("nt_num", row.getNoteNumber());
+        json.writeStringField("nt_dt", row.getNoteDate().format(DateTimeUtils.DISPLAY_DATE));
+        json.writeNumberField("val", nz(row.getNoteValue()));
+        json.writeStringField("pos", stateCode(row.getPlaceOfSupply()));
+    }
+
+    private void writeTaxDetail(JsonGenerator json, GstReturnRows.TaxAmounts row, boolean intraStateFields) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("txval", nz(row.getTaxableValue()));
+        json.writeNumberField("rt", nz(row.getRate()));
+        json.writeNumberField("iamt", nz(row.getIgst()));
+        if (intraStateFields) {
+            json.writeNumberField("camt", nz(row.getCgst()));
+            json.writeNumberField("samt", nz(row.getSgst()));
+        }
+        json.writeNumberField("csamt", nz(row.getCess()));
+        json.writeEndObject();
+    }
+
+    private void writeNoteDetail(JsonGenerator json, GstReturnRows.CreditNoteRateRow row) throws IOException {
+        NoteTax tax = NoteTax.of(nz(row.getTaxableValue()), nz(row.getRate()), Boolean.TRUE.equals(row.getInterstate()));
+        json.writeStartObject();
+        json.writeNumberField("txval", tax.taxable());
+        json.writeNumberField("rt", nz(row.getRate()));
+        json.writeNumberField("iamt", tax.igst());
+        json.writeNumberField("camt", tax.cgst());
+        json.writeNumberField("samt", tax.sgst());
+        json.writeNumberField("csamt", BigDecimal.ZERO);
+        json.writeEndObject();
+    }
+
+    // Helpers
+
+    private String supplierGstin(Integer tenantId) {
+        return tenantRepository.findTaxNumberById(tenantId).orElse("");
+    }
+
+    private String stateCode(String placeOfSupply) {
+        String code = gstCalculationService.resolveStateCode(placeOfSupply);
+        return code != null ? code : "";
+    }
+
+    private void addUnregistered(Map<String, Gstr3bResponse.PlaceOfSupplyTotal> totals, String placeOfSupply,
+                                 BigDecimal taxable, BigDecimal igst) {
+        Gstr3bResponse.PlaceOfSupplyTotal total = totals.computeIfAbsent(stateCode(placeOfSupply),
+                pos -> Gstr3bResponse.PlaceOfSupplyTotal.builder().pos(pos).build());
+        total.setTxval(total.getTxval().add(taxable));
+        total.setIamt(total.getIamt().add(igst));
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    @FunctionalInterface
+    private interface JsonWriteAction {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    private record B2csKey(boolean interstate, String pos, BigDecimal rate) {
+        static B2csKey of(Boolean interstate, String pos, BigDecimal rate) {
+            return new B2csKey(Boolean.TRUE.equals(interstate), pos, nz(rate).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * Tax on a credit note line. Credit note items carry a single rate, so the
+     * split follows the inter-state treatment of the original invoice.
+     */
+    private record NoteTax(BigDecimal taxable, BigDecimal igst, BigDecimal cgst, BigDecimal sgst) {
+        static NoteTax of(BigDecimal taxable, BigDecimal rate, boolean interstate) {
+            BigDecimal tax = taxable.multiply(rate).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            if (interstate) {
+                return new NoteTax(taxable, tax, BigDecimal.ZERO, BigDecimal.ZERO);
+            }
+            BigDecimal half = tax.divide(TWO, 2, RoundingMode.HALF_UP);
+            return new NoteTax(taxable, BigDecimal.ZERO, half, tax.subtract(half));
+        }
+    }
+
+    /**
+     * Writes grouped, ordered (group, document, rate) rows as nested portal arrays:
+     * {@code [{group, docs: [{header..., itms: [{num, itm_det}]}]}]}. Rows must arrive
+     * ordered by group and document; only the current document is held open.
+     */
+    private static final class DocumentWriter {
+        private final JsonGenerator json;
+        private final String groupField;
+        private final String documentsField;
+        private boolean groupOpen;
+        private String currentGroup;
+        private String currentDocument;
+        private int itemNumber;
+
+        DocumentWriter(JsonGenerator json, String groupField, String documentsField) {
+            this.json = json;
+            this.groupField = groupField;
+            this.documentsField = documentsField;
+        }
+
+        void next(String group, String documentId, JsonWriteAction header, JsonWriteAction detail) throws IOException {
+            if (groupField != null && (!groupOpen || !Objects.equals(group, currentGroup))) {
+                closeDocument();
+                closeGroup();
+                json.writeStartObject();
+                json.writeStringField(groupField, group);
+                json.writeArrayFieldStart(documentsField);
+                groupOpen = true;
+                currentGroup = group;
+            }
+            if (!documentId.equals(currentDocument)) {
+                closeDocument();
+                json.writeStartObject();
+                header.write(json);
+                json.writeArrayFieldStart("itms");
+                currentDocument = documentId;
+                itemNumber = 0;
+            }
+            json.writeStartObject();
+            json.writeNumberField("num", ++itemNumber);
+            json.writeFieldName("itm_det");
+            detail.write(json);
+            json.writeEndObject();
+        }
+
+        void finish() throws IOException {
+            closeDocument();
+            closeGroup();
+        }
+
+        private void closeDocument() throws IOException {
+            if (currentDocument != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+                currentDocument = null;
+            }
+        }
+
+        private void closeGroup() throws IOException {
+            if (groupOpen) {
+                json.writeEndArray();
+                json.writeEndObject();
+                groupOpen = false;
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.easybilling.exception.ResourceNotFoundException;
 import com.easybilling.exception.ValidationException;
 import com.easybilling.dto.*;
 import com.easybilling.entity.*;
+import com.easybilling.enums.DomainEventType;
 import com.easybilling.enums.MovementType;
 import com.easybilling.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -22,8 +23,13 @@ import com.easybilling.dto.ProductSearchRequest;
 import com.easybilling.dto.InventoryDashboardResponse;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,6 +38,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryService {
+    private static final int COST_SCALE = 4;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final BrandRepository brandRepository;
@@ -39,6 +47,8 @@ public class InventoryService {
     private final StockMovementRepository stockMovementRepository;
     private final ConfigurationService configurationService;
     private final CustomFieldService customFieldService;
+    private final SalesSketchService salesSketchService;
+    private final DomainEventPublisher domainEventPublisher;
 
     // Product Management
     @Transactional
@@ -64,11 +74,7 @@ public class InventoryService {
         if (request.getLowStockThreshold() != null) {
             product.setLowStockThreshold(request.getLowStockThreshold());
         } else {
-            Integer defaultThreshold = configurationService.getConfigValueAsInt(
-                "inventory.default_low_stock_threshold", 
-                10
-            );
-            product.setLowStockThreshold(defaultThreshold);
+            product.setLowStockThreshold(configurationService.getSettings(tenantId).defaultLowStockThreshold());
         }
         
         product.setImageUrl(request.getImageUrl());
@@ -261,18 +267,23 @@ public class InventoryService {
             newStock.setQuantity(BigDecimal.ZERO);
             newStock.setReservedQuantity(BigDecimal.ZERO);
             newStock.setAvailableQuantity(BigDecimal.ZERO);
+            newStock.setAverageCost(BigDecimal.ZERO);
             newStock.setTenantId(tenantId);
             return newStock;
         });
 
         BigDecimal previousQty = stock.getQuantity();
         BigDecimal newQty;
+        BigDecimal onHandCost = currentUnitCost(stock, product);
+        BigDecimal unitCost = onHandCost;
 
         // Apply movement
         switch (request.getMovementType()) {
             case IN:
             case ADJUSTMENT:
                 newQty = previousQty.add(request.getQuantity());
+                unitCost = request.getUnitCost() != null ? request.getUnitCost() : onHandCost;
+                stock.setAverageCost(weightedAverageCost(previousQty, onHandCost, request.getQuantity(), unitCost));
                 break;
             case OUT:
                 newQty = previousQty.subtract(request.getQuantity());
@@ -299,6 +310,9 @@ public class InventoryService {
         movement.setQuantity(request.getQuantity());
         movement.setPreviousQuantity(previousQty);
         movement.setNewQuantity(newQty);
+        movement.setUnitCost(unitCost);
+        movement.setTotalCost(unitCost.multiply(request.getQuantity()).setScale(2, RoundingMode.HALF_UP));
+        movement.setAverageCostAfter(stock.getAverageCost());
         movement.setReferenceType(request.getReferenceType());
         movement.setReferenceId(request.getReferenceId());
         movement.setNotes(request.getNotes());
@@ -306,9 +320,35 @@ public class InventoryService {
         movement.setTenantId(tenantId);
 
         stockMovementRepository.save(movement);
+        publishStockChanged(product, request.getLocationId(), previousQty, newQty, request.getMovementType(),
+                request.getReferenceId(), tenantId);
         log.info("Stock movement recorded for product: {} at location: {}", product.getId(), request.getLocationId());
     }
 
+    /**
+     * Unit cost per product at a location, read from the stock ledger in one query.
+     * Product ids that are not numeric or unknown are mapped to zero cost.
+     */
+    public Map<String, BigDecimal> getCurrentUnitCosts(Collection<String> productIds, String locationId, Integer tenantId) {
+        Map<Long, String> ids = new HashMap<>();
+        for (String productId : productIds) {
+            try {
+                ids.put(Long.parseLong(productId), productId);
+            } catch (NumberFormatException e) {
+                log.debug("Skipping cost lookup for non-numeric product id: {}", productId);
+            }
+        }
+
+        Map<String, BigDecimal> costs = new HashMap<>();
+        productIds.forEach(id -> costs.put(id, BigDecimal.ZERO));
+        if (!ids.isEmpty()) {
+            for (StockRepository.UnitCostView view : stockRepository.findUnitCosts(ids.keySet(), locationId, tenantId)) {
+                costs.put(ids.get(view.getProductId()), view.getUnitCost());
+            }
+        }
+        return costs;
+    }
+
     /**
      * Check if product has sufficient stock available
      */
@@ -363,7 +403,7 @@ public class InventoryService {
     /**
      * Reverse stock deduction (for returns/cancellations)
      */
-    public void reverseStockDeduction(String productId, String locationId, BigDecimal quantity, String referenceId, String performedBy, Integer tenantId) {
+    public void reverseStockDeduction(String productId, String locationId, BigDecimal quantity, BigDecimal unitCost, String referenceId, String performedBy, Integer tenantId) {
         try {
             Long productIdLong = Long.parseLong(productId);
             StockMovementRequest request = new StockMovementRequest();
@@ -371,6 +411,7 @@ public class InventoryService {
             request.setLocationId(locationId);
             request.setMovementType(MovementType.IN);
             request.setQuantity(quantity);
+            request.setUnitCost(unitCost); // Goods come back at the cost they left with
             request.setReferenceId(referenceId);
             request.setReferenceType("RETURN");
             request.setNotes("Return - Invoice: " + referenceId);
@@ -382,7 +423,115 @@ public class InventoryService {
         }
     }
 
+    /**
+     * Deduct the summed sale quantities of many invoices at one location in a single pass: the
+     * stock rows are locked in one query and each product gets one movement for the whole
+     * reference. As with {@link #deductStock}, products that cannot be deducted are logged and
+     * skipped so the sales still stand. Returns the number of products deducted.
+     */
+    @Transactional
+    public int deductStockAggregated(String locationId, Map<String, BigDecimal> quantities, String referenceId,
+                                     String performedBy, Integer tenantId) {
+        Map<Long, BigDecimal> byProduct = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            try {
+                byProduct.merge(Long.parseLong(productId), quantity, BigDecimal::add);
+            } catch (NumberFormatException e) {
+                log.warn("Skipping stock deduction for non-numeric product id: {}", productId);
+            }
+        });
+        if (byProduct.isEmpty()) {
+            return 0;
+        }
+
+        List<StockMovement> movements = new ArrayList<>();
+        for (Stock stock : stockRepository.findForUpdate(byProduct.keySet(), locationId, tenantId)) {
+            Product product = stock.getProduct();
+            BigDecimal quantity = byProduct.remove(product.getId());
+            BigDecimal previousQty = stock.getQuantity();
+            BigDecimal newQty = previousQty.subtract(quantity);
+            if (newQty.signum() < 0) {
+                log.warn("Insufficient stock to deduct {} of product {} at {} for {}", quantity, product.getId(),
+                        locationId, referenceId);
+                continue;
+            }
+            stock.setQuantity(newQty);
+            BigDecimal unitCost = currentUnitCost(stock, product);
+
+            StockMovement movement = new StockMovement();
+            movement.setProduct(product);
+            movement.setLocationId(locationId);
+            movement.setMovementType(MovementType.OUT);
+            movement.setQuantity(quantity);
+            movement.setPreviousQuantity(previousQty);
+            movement.setNewQuantity(newQty);
+            movement.setUnitCost(unitCost);
+            movement.setTotalCost(unitCost.multiply(quantity).setScale(2, RoundingMode.HALF_UP));
+            movement.setAverageCostAfter(stock.getAverageCost());
+            movement.setReferenceType("SALE");
+            movement.setReferenceId(referenceId);
+            movement.setNotes("Sale - Offline batch: " + referenceId);
+            movement.setPerformedBy(performedBy);
+            movement.setTenantId(tenantId);
+            movements.add(movement);
+            publishStockChanged(product, locationId, previousQty, newQty, MovementType.OUT, referenceId, tenantId);
+        }
+        if (!byProduct.isEmpty()) {
+            log.warn("No stock at {} for products {}; not deducted for {}", locationId, byProduct.keySet(), referenceId);
+        }
+        stockMovementRepository.saveAll(movements);
+        return movements.size();
+    }
+
     // Helper methods
+
+    /**
+     * Publish a STOCK_CHANGED event keyed by product and location. lowStockReached is set only
+     * when this movement takes tracked stock below the product's threshold.
+     */
+    private void publishStockChanged(Product product, String locationId, BigDecimal previousQty, BigDecimal newQty,
+                                     MovementType movementType, String referenceId, Integer tenantId) {
+        boolean lowStockReached = false;
+        if (Boolean.TRUE.equals(product.getTrackStock()) && product.getLowStockThreshold() != null) {
+            BigDecimal threshold = BigDecimal.valueOf(product.getLowStockThreshold());
+            lowStockReached = newQty.compareTo(threshold) < 0 && previousQty.compareTo(threshold) >= 0;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("productId", product.getId());
+        payload.put("productName", product.getName());
+        payload.put("locationId", locationId);
+        payload.put("movementType", movementType);
+        payload.put("previousQuantity", previousQty);
+        payload.put("newQuantity", newQty);
+        payload.put("referenceId", referenceId);
+        payload.put("lowStockReached", lowStockReached);
+        domainEventPublisher.publish(tenantId, "STOCK", product.getId() + "@" + locationId,
+                DomainEventType.STOCK_CHANGED, payload);
+    }
+    /**
+     * Ledger cost basis of a stock record, or the product cost price before any costed receipt.
+     */
+    private BigDecimal currentUnitCost(Stock stock, Product product) {
+        if (stock.getAverageCost() != null && stock.getAverageCost().signum() > 0) {
+            return stock.getAverageCost();
+        }
+        return product.getCostPrice() != null ? product.getCostPrice() : BigDecimal.ZERO;
+    }
+
+    /**
+     * Moving weighted-average cost after receiving {@code inQty} units at {@code inCost}.
+     * When on-hand stock is zero or negative the incoming cost becomes the new basis.
+     */
+    private BigDecimal weightedAverageCost(BigDecimal onHandQty, BigDecimal onHandCost, BigDecimal inQty, BigDecimal inCost) {
+        if (onHandQty.signum() <= 0) {
+            return inCost.setScale(COST_SCALE, RoundingMode.HALF_UP);
+        }
+        BigDecimal totalQty = onHandQty.add(inQty);
+        return onHandQty.multiply(onHandCost)
+                .add(inQty.multiply(inCost))
+                .divide(totalQty, COST_SCALE, RoundingMode.HALF_UP);
+    }
+
     private String generateSKU() {
         String datePart = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
         String randomPart = String.format("%05d", (int) (Math.random() * 100000));
@@ -483,12 +632,16 @@ public class InventoryService {
             newStock.setQuantity(BigDecimal.ZERO);
             newStock.setReservedQuantity(BigDecimal.ZERO);
             newStock.setAvailableQuantity(BigDecimal.ZERO);
+            newStock.setAverageCost(BigDecimal.ZERO);
             newStock.setTenantId(tenantId);
             return stockRepository.save(newStock);
         });
 
         BigDecimal previousQty = stock.getQuantity();
         BigDecimal newQty;
+        // Adjustments move stock at the current cost basis and never change it
+        BigDecimal unitCost = currentUnitCost(stock, product);
+        stock.setAverageCost(unitCost);
 
         switch (request.getAdjustmentType()) {
             case INCREASE:
@@ -518,12 +671,17 @@ public class InventoryService {
         movement.setQuantity(request.getQuantity());
         movement.setPreviousQuantity(previousQty);
         movement.setNewQuantity(newQty);
+        movement.setUnitCost(unitCost);
+        movement.setTotalCost(unitCost.multiply(request.getQuantity()).setScale(2, RoundingMode.HALF_UP));
+        movement.setAverageCostAfter(stock.getAverageCost());
         movement.setReferenceType("ADJUSTMENT");
         movement.setReferenceId(request.getReferenceNumber());
         movement.setNotes("Adjustment: " + request.getReason() + ". " + (request.getNotes() != null ? request.getNotes() : ""));
         movement.setPerformedBy(userId);
         movement.setTenantId(tenantId);
         stockMovementRepository.save(movement);
+        publishStockChanged(product, request.getLocationId(), previousQty, newQty, MovementType.ADJUSTMENT,
+                request.getReferenceNumber(), tenantId);
 
         log.info("Stock adjusted for product: {} at location: {} by user: {}", 
                 product.getId(), request.getLocationId(), userId);
@@ -543,6 +701,10 @@ public class InventoryService {
             throw new ValidationException("Insufficient stock at source location");
         }
 
+        // Goods carry the source cost basis to the destination
+        BigDecimal unitCost = currentUnitCost(fromStock, product);
+        BigDecimal totalCost = unitCost.multiply(request.getQuantity()).setScale(2, RoundingMode.HALF_UP);
+
         // Deduct from source
         BigDecimal fromPreviousQty = fromStock.getQuantity();
         BigDecimal fromNewQty = fromPreviousQty.subtract(request.getQuantity());
@@ -559,12 +721,14 @@ public class InventoryService {
             newStock.setQuantity(BigDecimal.ZERO);
             newStock.setReservedQuantity(BigDecimal.ZERO);
             newStock.setAvailableQuantity(BigDecimal.ZERO);
+            newStock.setAverageCost(BigDecimal.ZERO);
             newStock.setTenantId(tenantId);
             return stockRepository.save(newStock);
         });
 
         BigDecimal toPreviousQty = toStock.getQuantity();
         BigDecimal toNewQty = toPreviousQty.add(request.getQuantity());
+        toStock.setAverageCost(weightedAverageCost(toPreviousQty, currentUnitCost(toStock, product), request.getQuantity(), unitCost));
         toStock.setQuantity(toNewQty);
         stockRepository.save(toStock);
 
@@ -576,6 +740,9 @@ public class InventoryService {
         outMovement.setQuantity(request.getQuantity());
         outMovement.setPreviousQuantity(fromPreviousQty);
         outMovement.setNewQuantity(fromNewQty);
+        outMovement.setUnitCost(unitCost);
+        outMovement.setTotalCost(totalCost);
+        outMovement.setAverageCostAfter(fromStock.getAverageCost());
         outMovement.setReferenceType("TRANSFER");
         outMovement.setReferenceId(request.getReferenceNumber());
         outMovement.setNotes("Transfer to " + request.getToLocationId() + ". " + (request.getNotes() != null ? request.getNotes() : ""));
@@ -590,12 +757,19 @@ public class InventoryService {
         inMovement.setQuantity(request.getQuantity());
         inMovement.setPreviousQuantity(toPreviousQty);
         inMovement.setNewQuantity(toNewQty);
+        inMovement.setUnitCost(unitCost);
+        inMovement.setTotalCost(totalCost);
+        inMovement.setAverageCostAfter(toStock.getAverageCost());
         inMovement.setReferenceType("TRANSFER");
         inMovement.setReferenceId(request.getReferenceNumber());
         inMovement.setNotes("Transfer from " + request.getFromLocationId() + ". " + (request.getNotes() != null ? request.getNotes() : ""));
         inMovement.setPerformedBy(userId);
         inMovement.setTenantId(tenantId);
         stockMovementRepository.save(inMovement);
+        publishStockChanged(product, request.getFromLocationId(), fromPreviousQty, fromNewQty, MovementType.TRANSFER,
+                request.getReferenceNumber(), tenantId);
+        publishStockChanged(product, request.getToLocationId(), toPreviousQty, toNewQty, MovementType.IN,
+                request.getReferenceNumber(), tenantId);
 
         log.info("Stock transferred for product: {} from {} to {} by user: {}", 
                 product.getId(), request.getFromLocationId(), request.getToLocationId(), userId);
@@ -765,7 +939,7 @@ public class InventoryService {
                 .lowStockAlerts(lowStockAlerts)
                 .recentMovements(recentMovementList)
                 .categorySummary(List.of()) // Would need to calculate
-                .topProducts(List.of()) // Would need to calculate from sales
+                .topProducts(getTopSellingProducts(tenantId))
                 .valuation(InventoryDashboardResponse.InventoryValuation.builder()
                         .totalCostValue(totalInventoryValue)
                         .totalSellingValue(allProducts.stream()
@@ -777,18 +951,32 @@ public class InventoryService {
                 .build();
     }
 
+    /**
+     * Top sellers of the last 30 days, merged from the daily sales sketches.
+     */
+    private List<InventoryDashboardResponse.TopProduct> getTopSellingProducts(Integer tenantId) {
+        LocalDate today = LocalDate.now();
+        return salesSketchService.estimateTopProducts(tenantId, today.minusDays(29), today, 10).stream()
+                .map(p -> InventoryDashboardResponse.TopProduct.builder()
+                        .productId(parseProductId(p.getProductId()))
+                        .productName(p.getProductName())
+                        .totalSales(p.getRevenue())
+                        .totalQuantity(BigDecimal.valueOf(p.getQuantity()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private Long parseProductId(String productId) {
+        try {
+            return productId != null ? Long.parseLong(productId) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     public List<StockResponse> getLowStockAlerts(Integer tenantId, String locationId) {
-        List<Product> products = productRepository.findByTenantId(tenantId, Pageable.unpaged()).getContent();
-        List<Stock> stocks = locationId != null 
-                ? stockRepository.findByLocationIdAndTenantId(locationId, tenantId)
-                : stockRepository.findByTenantId(tenantId);
-        
-        return products.stream()
-                .filter(Product::getTrackStock)
-                .flatMap(p -> stocks.stream()
-                        .filter(s -> s.getProduct().getId().equals(p.getId()))
-                        .filter(s -> s.getAvailableQuantity().compareTo(BigDecimal.valueOf(p.getLowStockThreshold())) < 0)
-                        .map(s -> mapToStockResponse(s, p)))
+        return stockRepository.findLowStock(tenantId, locationId).stream()
+                .map(s -> mapToStockResponse(s, s.getProduct()))
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,309 @@
+package com.easybilling.service;
+
+import com.easybilling.dto.InvoiceBatchRequest;
+import com.easybilling.dto.InvoiceBatchResponse;
+import com.easybilling.dto.InvoiceItemRequest;
+import com.easybilling.dto.OfflineInvoiceRequest;
+import com.easybilling.dto.PaymentRequest;
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.InvoiceIngestKey;
+import com.easybilling.entity.InvoiceItem;
+import com.easybilling.entity.Payment;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.enums.IngestStatus;
+import com.easybilling.enums.InvoiceStatus;
+import com.easybilling.exception.ValidationException;
+import com.easybilling.repository.InvoiceIngestKeyRepository;
+import com.easybilling.repository.InvoiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests invoices billed at offline counters in one transaction per batch.
+ * Keys seen before are answered from invoice_ingest_keys without touching anything else. New
+ * invoices are validated together (numbers against each other and the table, costs per store in
+ * one query), written with JDBC batch inserts, and their stock is deducted in one aggregated pass
+ * per store. Each still publishes INVOICE_COMPLETED, marked stockPosted, so receivables, loyalty
+ * and analytics follow as for counter sales. A concurrent replay of the same key fails on the key's
+ * unique constraint and rolls back; retrying it then returns the stored result.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InvoiceIngestionService {
+
+    private static final String INVOICE_AGGREGATE = "INVOICE";
+
+    private static final String INSERT_INVOICE = "INSERT INTO invoices (id, invoice_number, status, tenant_id, "
+            + "store_id, counter_id, customer_id, customer_name, customer_phone, customer_email, created_by, "
+            + "completed_by, created_at, updated_at, completed_at, due_date, subtotal, tax_amount, discount_amount, "
+            + "total_amount, paid_amount, balance_amount, credited_amount, late_fee_amount, dunning_stage, "
+            + "total_cgst, total_sgst, total_igst, total_cess, place_of_supply, supplier_gstin, customer_gstin, "
+            + "reverse_charge, is_interstate, notes) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM = "INSERT INTO invoice_items (id, invoice_id, tenant_id, product_id, "
+            + "product_name, product_code, barcode, quantity, unit_price, discount_amount, discount_type, "
+            + "discount_value, tax_amount, tax_rate, line_total, unit_cost, cost_amount, hsn_code, sac_code, "
+            + "cgst_rate, sgst_rate, igst_rate, cess_rate, cgst_amount, sgst_amount, igst_amount, cess_amount, notes) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PAYMENT = "INSERT INTO payments (id, invoice_id, tenant_id, mode, amount, "
+            + "reference_number, card_last4, upi_id, paid_at, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_KEY = "INSERT INTO invoice_ingest_keys (tenant_id, idempotency_key, "
+            + "invoice_id, invoice_number, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceIngestKeyRepository ingestKeyRepository;
+    private final InventoryService inventoryService;
+    private final AccountsReceivableService accountsReceivableService;
+    private final DomainEventPublisher domainEventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.billing.ingest.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Transactional
+    public InvoiceBatchResponse ingest(Integer tenantId, String userId, InvoiceBatchRequest request) {
+        List<OfflineInvoiceRequest> submitted = request.getInvoices();
+        if (submitted.size() > maxBatchSize) {
+            throw new ValidationException("At most " + maxBatchSize + " invoices per batch");
+        }
+
+        Map<String, InvoiceIngestKey> seen = ingestKeyRepository.findByTenantIdAndIdempotencyKeyIn(tenantId,
+                        submitted.stream().map(OfflineInvoiceRequest::getIdempotencyKey).toList()).stream()
+                .collect(Collectors.toMap(InvoiceIngestKey::getIdempotencyKey, key -> key));
+        Set<String> takenNumbers = new HashSet<>(invoiceRepository.findExistingInvoiceNumbers(
+                submitted.stream().map(OfflineInvoiceRequest::getInvoiceNumber).toList()));
+
+        List<InvoiceBatchResponse.Result> results = new ArrayList<>(submitted.size());
+        List<OfflineInvoiceRequest> accepted = new ArrayList<>();
+        Set<String> batchKeys = new HashSet<>();
+        for (OfflineInvoiceRequest offline : submitted) {
+            InvoiceIngestKey replay = seen.get(offline.getIdempotencyKey());
+            if (replay != null) {
+                results.add(result(offline, IngestStatus.REPLAYED, replay.getInvoiceId(), replay.getInvoiceNumber(), null));
+                continue;
+            }
+            String error = validate(offline, batchKeys, takenNumbers);
+            if (error != null) {
+                results.add(result(offline, IngestStatus.REJECTED, null, offline.getInvoiceNumber(), error));
+                continue;
+            }
+            results.add(null); // Filled in once the invoice is built
+            accepted.add(offline);
+        }
+
+        List<Invoice> invoices = build(tenantId, userId, accepted);
+        if (!invoices.isEmpty()) {
+            write(tenantId, accepted, invoices);
+            postStock(tenantId, userId, invoices);
+            for (Invoice invoice : invoices) {
+                Map<String, Object> event = BillingService.invoiceEventPayload(invoice, userId);
+                event.put("paymentIds", invoice.getPayments().stream().map(Payment::getId).toList());
+                event.put("stockPosted", true);
+                domainEventPublisher.publish(tenantId, INVOICE_AGGREGATE, invoice.getId(),
+                        DomainEventType.INVOICE_COMPLETED, event);
+            }
+        }
+
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Invoice invoice = invoices.get(next);
+                results.set(i, result(accepted.get(next), IngestStatus.CREATED, invoice.getId(),
+                        invoice.getInvoiceNumber(), null));
+                next++;
+            }
+        }
+        int replayed = (int) results.stream().filter(r -> r.getStatus() == IngestStatus.REPLAYED).count();
+        log.info("Ingested offline batch for tenant {}: {} created, {} replayed, {} rejected",
+                tenantId, invoices.size(), replayed, results.size() - invoices.size() - replayed);
+        return InvoiceBatchResponse.builder()
+                .created(invoices.size())
+                .replayed(replayed)
+                .rejected(results.size() - invoices.size() - replayed)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Checks that need the rest of the batch; returns the reason to reject, or null.
+     */
+    private String validate(OfflineInvoiceRequest offline, Set<String> batchKeys, Set<String> takenNumbers) {
+        if (!batchKeys.add(offline.getIdempotencyKey())) {
+            return "Idempotency key repeated within the batch";
+        }
+        if (!takenNumbers.add(offline.getInvoiceNumber())) {
+            return "Invoice number " + offline.getInvoiceNumber() + " is already used";
+        }
+        if (offline.getInvoice().getItems().isEmpty()) {
+            return "Invoice has no items";
+        }
+        if (offline.getPayments() != null) {
+            for (PaymentRequest payment : offline.getPayments()) {
+                if (payment.getAmount().signum() <= 0) {
+                    return "Payment amounts must be positive";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Completed invoices with ids assigned up front, costed per store with one lookup each.
+     */
+    private List<Invoice> build(Integer tenantId, String userId, List<OfflineInvoiceRequest> accepted) {
+        Map<String, Set<String>> productsByStore = new HashMap<>();
+        for (OfflineInvoiceRequest offline : accepted) {
+            offline.getInvoice().getItems().forEach(item -> productsByStore
+                    .computeIfAbsent(offline.getInvoice().getStoreId(), store -> new HashSet<>())
+                    .add(item.getProductId()));
+        }
+        Map<String, Map<String, BigDecimal>> costsByStore = new HashMap<>();
+        productsByStore.forEach((store, products) ->
+                costsByStore.put(store, inventoryService.getCurrentUnitCosts(products, store, tenantId)));
+
+        List<Invoice> invoices = new ArrayList<>(accepted.size());
+        for (OfflineInvoiceRequest offline : accepted) {
+            var request = offline.getInvoice();
+            Invoice invoice = Invoice.builder()
+                    .id(UUID.randomUUID().toString())
+                    .invoiceNumber(offline.getInvoiceNumber())
+                    .status(InvoiceStatus.COMPLETED)
+                    .tenantId(tenantId)
+                    .storeId(request.getStoreId())
+                    .counterId(request.getCounterId())
+                    .customerId(request.getCustomerId())
+                    .customerName(request.getCustomerName())
+                    .customerPhone(request.getCustomerPhone())
+                    .customerEmail(request.getCustomerEmail())
+                    .customerGstin(request.getCustomerGstin())
+                    .placeOfSupply(request.getPlaceOfSupply())
+                    .supplierGstin(request.getSupplierGstin())
+                    .reverseCharge(Boolean.TRUE.equals(request.getReverseCharge()))
+                    .createdBy(userId)
+                    .completedBy(userId)
+                    .createdAt(offline.getIssuedAt())
+                    .completedAt(offline.getIssuedAt())
+                    .dueDate(accountsReceivableService.dueDateFor(tenantId, offline.getIssuedAt()))
+                    .notes(request.getNotes())
+                    .build();
+            Map<String, BigDecimal> costs = costsByStore.get(request.getStoreId());
+            for (InvoiceItemRequest itemReq : request.getItems()) {
+                InvoiceItem item = BillingService.buildItem(itemReq, costs.get(itemReq.getProductId()));
+                item.setId(UUID.randomUUID().toString());
+                item.setTenantId(tenantId);
+                invoice.addItem(item);
+            }
+            if (offline.getPayments() != null) {
+                for (PaymentRequest payReq : offline.getPayments()) {
+                    invoice.addPayment(Payment.builder()
+                            .id(UUID.randomUUID().toString())
+                            .tenantId(tenantId)
+                            .mode(payReq.getMode())
+                            .amount(payReq.getAmount())
+                            .referenceNumber(payReq.getReferenceNumber())
+                            .cardLast4(payReq.getCardLast4())
+                            .upiId(payReq.getUpiId())
+                            .paidAt(offline.getIssuedAt())
+                            .notes(payReq.getNotes())
+                            .build());
+                }
+            }
+            invoice.calculateTotals();
+            invoices.add(invoice);
+        }
+        return invoices;
+    }
+
+    private void write(Integer tenantId, List<OfflineInvoiceRequest> accepted, List<Invoice> invoices) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> invoiceRows = new ArrayList<>(invoices.size());
+        List<Object[]> itemRows = new ArrayList<>();
+        List<Object[]> paymentRows = new ArrayList<>();
+        List<Object[]> keyRows = new ArrayList<>(invoices.size());
+        for (int i = 0; i < invoices.size(); i++) {
+            Invoice inv = invoices.get(i);
+            invoiceRows.add(new Object[]{inv.getId(), inv.getInvoiceNumber(), inv.getStatus().name(), tenantId,
+                    inv.getStoreId(), inv.getCounterId(), inv.getCustomerId(), inv.getCustomerName(),
+                    inv.getCustomerPhone(), inv.getCustomerEmail(), inv.getCreatedBy(), inv.getCompletedBy(),
+                    inv.getCreatedAt(), now, inv.getCompletedAt(), inv.getDueDate(), inv.getSubtotal(),
+                    inv.getTaxAmount(), inv.getDiscountAmount(), inv.getTotalAmount(), inv.getPaidAmount(),
+                    inv.getBalanceAmount(), inv.getCreditedAmount(), inv.getLateFeeAmount(), inv.getDunningStage(),
+                    inv.getTotalCgst(), inv.getTotalSgst(), inv.getTotalIgst(), inv.getTotalCess(),
+                    inv.getPlaceOfSupply(), inv.getSupplierGstin(), inv.getCustomerGstin(), inv.getReverseCharge(),
+                    inv.getIsInterstate(), inv.getNotes()});
+            for (InvoiceItem item : inv.getItems()) {
+                itemRows.add(new Object[]{item.getId(), inv.getId(), tenantId, item.getProductId(),
+                        item.getProductName(), item.getProductCode(), item.getBarcode(), item.getQuantity(),
+                        item.getUnitPrice(), item.getDiscountAmount(),
+                        item.getDiscountType() != null ? item.getDiscountType().name() : null,
+                        item.getDiscountValue(), item.getTaxAmount(), item.getTaxRate(), item.getLineTotal(),
+                        item.getUnitCost(), item.getCostAmount(), item.getHsnCode(), item.getSacCode(),
+                        item.getCgstRate(), item.getSgstRate(), item.getIgstRate(), item.getCessRate(),
+                        item.getCgstAmount(), item.getSgstAmount(), item.getIgstAmount(), item.getCessAmount(),
+                        item.getNotes()});
+            }
+            for (Payment payment : inv.getPayments()) {
+                paymentRows.add(new Object[]{payment.getId(), inv.getId(), tenantId, payment.getMode().name(),
+                        payment.getAmount(), payment.getReferenceNumber(), payment.getCardLast4(),
+                        payment.getUpiId(), payment.getPaidAt(), payment.getNotes()});
+            }
+            keyRows.add(new Object[]{tenantId, accepted.get(i).getIdempotencyKey(), inv.getId(),
+                    inv.getInvoiceNumber(), now});
+        }
+        // Keys first: a concurrent replay of the same key fails here, before the heavier inserts
+        jdbcTemplate.batchUpdate(INSERT_KEY, keyRows);
+        jdbcTemplate.batchUpdate(INSERT_INVOICE, invoiceRows);
+        jdbcTemplate.batchUpdate(INSERT_ITEM, itemRows);
+        if (!paymentRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PAYMENT, paymentRows);
+        }
+    }
+
+    /**
+     * Sum the batch's quantities per store and product and deduct them store by store.
+     */
+    private void postStock(Integer tenantId, String userId, List<Invoice> invoices) {
+        Map<String, Map<String, BigDecimal>> quantitiesByStore = new LinkedHashMap<>();
+        for (Invoice invoice : invoices) {
+            Map<String, BigDecimal> quantities = quantitiesByStore.computeIfAbsent(invoice.getStoreId(),
+                    store -> new HashMap<>());
+            for (InvoiceItem item : invoice.getItems()) {
+                quantities.merge(item.getProductId(), BigDecimal.valueOf(item.getQuantity()), BigDecimal::add);
+            }
+        }
+        String reference = invoices.get(0).getInvoiceNumber() + ".." + invoices.get(invoices.size() - 1).getInvoiceNumber();
+        quantitiesByStore.forEach((store, quantities) ->
+                inventoryService.deductStockAggregated(store, quantities, reference, userId, tenantId));
+    }
+
+    private static InvoiceBatchResponse.Result result(OfflineInvoiceRequest offline, IngestStatus status,
+                                                      String invoiceId, String invoiceNumber, String error) {
+        return InvoiceBatchResponse.Result.builder()
+                .idempotencyKey(offline.getIdempotencyKey())
+                .status(status)
+                .invoiceId(invoiceId)
+                .invoiceNumber(invoiceNumber)
+                .error(error)
+                .build();
+    }
+}
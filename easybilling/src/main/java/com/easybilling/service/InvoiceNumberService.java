@@ -1,18 +1,21 @@
 package com.easybilling.service;
 
+import com.easybilling.entity.InvoiceSequence;
+import com.easybilling.repository.InvoiceSequenceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.Month;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for generating Indian financial year based invoice numbers.
  * Format: INV/2024-25/0001
  * Integrated with ConfigurationService for customizable invoice prefix.
+ * Sequence numbers come from a per tenant and financial year row ({@link InvoiceSequence}) that is
+ * locked until the issuing transaction ends, so numbers are unique across nodes and have no gaps.
  */
 @Slf4j
 @Service
@@ -20,22 +23,20 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class InvoiceNumberService {
     
     private final ConfigurationService configurationService;
-    
-    // In-memory counter per tenant and financial year
-    // In production, this should be stored in database or Redis
-    private final ConcurrentHashMap<String, AtomicInteger> sequenceCounters = new ConcurrentHashMap<>();
+    private final InvoiceSequenceRepository invoiceSequenceRepository;
     
     /**
      * Generate invoice number in Indian financial year format.
      * Format: INV/YYYY-YY/NNNN
      * Example: INV/2024-25/0001
+     * Joins the caller's transaction; other invoices of the tenant wait for it to end.
      */
+    @Transactional
     public String generateInvoiceNumber(Integer tenantId, String prefix) {
         String financialYear = getCurrentFinancialYear();
-        String key = tenantId + "_" + financialYear;
-        
-        AtomicInteger counter = sequenceCounters.computeIfAbsent(key, k -> new AtomicInteger(0));
-        int sequence = counter.incrementAndGet();
+        InvoiceSequence row = lockSequence(tenantId, financialYear);
+        long sequence = row.getLastNumber() + 1;
+        row.setLastNumber(sequence);
         
         String invoicePrefix = (prefix != null && !prefix.isEmpty()) ? prefix : "INV";
         String invoiceNumber = String.format("%s/%s/%04d", invoicePrefix, financialYear, sequence);
@@ -48,12 +49,10 @@ public class InvoiceNumberService {
      * Generate invoice number with default prefix from configuration.
      * Uses tenant-specific or system default invoice prefix.
      */
+    @Transactional
     public String generateInvoiceNumber(Integer tenantId) {
         // Get tenant-specific invoice prefix from configuration
-        String prefix = configurationService.getConfigValue("billing.invoice_prefix", tenantId);
-        if (prefix == null || prefix.isEmpty()) {
-            prefix = "INV"; // Fallback to default
-        }
+        String prefix = configurationService.getSettings(tenantId).invoicePrefix();
         log.debug("Using invoice prefix '{}' for tenant: {}", prefix, tenantId);
         return generateInvoiceNumber(tenantId, prefix);
     }
@@ -110,20 +109,33 @@ public class InvoiceNumberService {
     /**
      * Reset sequence counter (use with caution, typically for new financial year).
      */
+    @Transactional
     public void resetSequence(Integer tenantId, String financialYear) {
-        String key = tenantId + "_" + financialYear;
-        sequenceCounters.put(key, new AtomicInteger(0));
+        lockSequence(tenantId, financialYear).setLastNumber(0L);
         log.info("Reset invoice sequence for tenant: {} and FY: {}", tenantId, financialYear);
     }
     
     /**
      * Get current sequence number (for display/debugging).
      */
-    public int getCurrentSequence(Integer tenantId) {
-        String financialYear = getCurrentFinancialYear();
-        String key = tenantId + "_" + financialYear;
-        AtomicInteger counter = sequenceCounters.get(key);
-        return counter != null ? counter.get() : 0;
+    @Transactional(readOnly = true)
+    public long getCurrentSequence(Integer tenantId) {
+        return invoiceSequenceRepository.findByTenantIdAndFinancialYear(tenantId, getCurrentFinancialYear())
+                .map(InvoiceSequence::getLastNumber)
+                .orElse(0L);
+    }
+    
+    /**
+     * The tenant's sequence row for a financial year, locked; created on the year's first invoice.
+     * Locking first keeps the common path to one statement (and off the shared lock a duplicate
+     * INSERT IGNORE takes, which two issuers would then both try to upgrade).
+     */
+    private InvoiceSequence lockSequence(Integer tenantId, String financialYear) {
+        return invoiceSequenceRepository.findForUpdate(tenantId, financialYear).orElseGet(() -> {
+            invoiceSequenceRepository.insertIfAbsent(tenantId, financialYear);
+            return invoiceSequenceRepository.findForUpdate(tenantId, financialYear)
+                    .orElseThrow(() -> new IllegalStateException("Invoice sequence missing after insert"));
+        });
     }
     
     /**
@@ -0,0 +1,297 @@
+package com.easybilling.service;
+
+import com.easybilling.context.ContextSnapshot;
+import com.easybilling.entity.JobRun;
+import com.easybilling.entity.Tenant.TenantStatus;
+import com.easybilling.enums.JobRunStatus;
+import com.easybilling.job.ScheduledJob;
+import com.easybilling.repository.JobLockRepository;
+import com.easybilling.repository.JobRunRepository;
+import com.easybilling.repository.TenantRepository;
+import com.easybilling.util.NodeIdentity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@link ScheduledJob}s across the cluster. Every node schedules every job, but a tick only
+ * runs where the job_locks lease is won, and the lease records the tick so it never runs twice.
+ * The lease is extended while the run lasts and released when it ends; a crashed node's lease
+ * simply expires. Tenants are read in keyset pages and run on a shared pool, at most
+ * app.jobs.tenant-parallelism at a time per run. Each run is recorded in job_runs and timed
+ * as jobs.run; the jobs actuator endpoint shows schedules and recent runs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobScheduler {
+
+    private static final Collection<TenantStatus> RUNNABLE_TENANTS = List.of(TenantStatus.ACTIVE, TenantStatus.TRIAL);
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final List<ScheduledJob> jobs;
+    private final JobLockRepository jobLockRepository;
+    private final JobRunRepository jobRunRepository;
+    private final TenantRepository tenantRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jobs.tenant-threads:8}")
+    private int tenantThreads;
+
+    @Value("${app.jobs.tenant-parallelism:4}")
+    private int tenantParallelism;
+
+    @Value("${app.jobs.tenant-page-size:200}")
+    private int tenantPageSize;
+
+    @Value("${app.jobs.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.jobs.history-days:30}")
+    private int historyDays;
+
+    private final Map<String, Instant> nextTicks = new ConcurrentHashMap<>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolTaskScheduler scheduler;
+    private ExecutorService tenantPool;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || jobs.isEmpty()) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        for (ScheduledJob job : jobs) {
+            if (!names.add(job.getName())) {
+                throw new IllegalStateException("Duplicate scheduled job name: " + job.getName());
+            }
+            transactionTemplate.executeWithoutResult(status -> jobLockRepository.insertIfAbsent(job.getName()));
+        }
+
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(jobs.size() + 1); // One per job plus lease renewals
+        scheduler.setThreadNamePrefix("job-");
+        scheduler.initialize();
+        tenantPool = Executors.newFixedThreadPool(tenantThreads, new CustomizableThreadFactory("job-tenant-"));
+
+        Instant now = Instant.now();
+        for (ScheduledJob job : jobs) {
+            scheduleNext(job, now);
+            log.info("Scheduled job {} ({}), first tick at {}", job.getName(), job.getSchedule(), nextTicks.get(job.getName()));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            tenantPool.shutdownNow();
+        }
+    }
+
+    public List<ScheduledJob> getJobs() {
+        return jobs;
+    }
+
+    public Instant getNextTick(String jobName) {
+        return nextTicks.get(jobName);
+    }
+
+    public boolean isRunningHere(String jobName) {
+        return running.contains(jobName);
+    }
+
+    /**
+     * Drop run history older than app.jobs.history-days.
+     */
+    @Scheduled(cron = "${app.jobs.history-purge-cron:0 45 3 * * *}")
+    public void purgeHistory() {
+        Integer deleted = transactionTemplate.execute(status ->
+                jobRunRepository.deleteStartedBefore(LocalDateTime.now().minusDays(historyDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} job run records", deleted);
+        }
+    }
+
+    private void scheduleNext(ScheduledJob job, Instant after) {
+        Instant tick = job.getSchedule().next(after);
+        nextTicks.put(job.getName(), tick);
+        try {
+            scheduler.schedule(() -> fire(job, tick), tick);
+        } catch (RejectedExecutionException e) {
+            log.debug("Not scheduling job {}; shutting down", job.getName());
+        }
+    }
+
+    private void fire(ScheduledJob job, Instant tick) {
+        try {
+            execute(job, tick);
+        } catch (RuntimeException e) {
+            log.error("Scheduled job {} failed to run for tick {}", job.getName(), tick, e);
+        } finally {
+            // Ticks missed while this run overran are skipped, not queued
+            Instant now = Instant.now();
+            scheduleNext(job, now.isAfter(tick) ? now : tick);
+        }
+    }
+
+    private void execute(ScheduledJob job, Instant tick) {
+        String name = job.getName();
+        LocalDateTime scheduledAt = LocalDateTime.ofInstant(tick, ZoneId.systemDefault());
+        LocalDateTime now = LocalDateTime.now();
+        Integer acquired = transactionTemplate.execute(status ->
+                jobLockRepository.acquire(name, NodeIdentity.NODE_ID, scheduledAt, now, now.plusSeconds(leaseSeconds)));
+        if (acquired == null || acquired == 0) {
+            log.debug("Job {} tick {} taken by another node", name, scheduledAt);
+            return;
+        }
+
+        running.add(name);
+        long startedNanos = System.nanoTime();
+        JobRun run = jobRunRepository.save(JobRun.builder()
+                .jobName(name)
+                .nodeId(NodeIdentity.NODE_ID)
+                .scheduledAt(scheduledAt)
+                .startedAt(now)
+                .status(JobRunStatus.RUNNING)
+                .tenantsProcessed(0)
+                .tenantsFailed(0)
+                .build());
+        Duration renewEvery = Duration.ofSeconds(Math.max(1, leaseSeconds / 3));
+        ScheduledFuture<?> renewal = scheduler.scheduleAtFixedRate(() -> extendLease(name),
+                Instant.now().plus(renewEvery), renewEvery);
+
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        JobRunStatus outcome = JobRunStatus.FAILED;
+        try {
+            if (job.isPerTenant()) {
+                fanOut(job, processed, failed, firstError);
+            } else {
+                processed.set(job.runAcrossTenants());
+            }
+            outcome = failed.get() > 0 ? JobRunStatus.PARTIAL : JobRunStatus.SUCCEEDED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            firstError.compareAndSet(null, "Interrupted");
+        } catch (RuntimeException e) {
+            log.error("Job {} aborted", name, e);
+            firstError.set(e.toString());
+        } finally {
+            renewal.cancel(false);
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+            run.setStatus(outcome);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMs(durationMs);
+            run.setTenantsProcessed(processed.get());
+            run.setTenantsFailed(failed.get());
+            run.setError(truncate(firstError.get()));
+            jobRunRepository.save(run);
+            transactionTemplate.executeWithoutResult(status ->
+                    jobLockRepository.extend(name, NodeIdentity.NODE_ID, LocalDateTime.now()));
+            running.remove(name);
+
+            meterRegistry.timer("jobs.run", Tags.of("job", name, "status", outcome.name()))
+                    .record(durationMs, TimeUnit.MILLISECONDS);
+            meterRegistry.counter("jobs.tenants.failed", "job", name).increment(failed.get());
+            log.info("Job {} {} in {} ms: {} tenants processed, {} failed",
+                    name, outcome, durationMs, processed.get(), failed.get());
+        }
+    }
+
+    /**
+     * Walk tenants in keyset pages, running up to tenantParallelism at once, and wait for all of them.
+     */
+    private void fanOut(ScheduledJob job, AtomicInteger processed, AtomicInteger failed,
+                        AtomicReference<String> firstError) throws InterruptedException {
+        Semaphore permits = new Semaphore(tenantParallelism);
+        Integer afterId = 0;
+        List<Integer> page;
+        try {
+            do {
+                page = tenantRepository.findIdsByStatusAfter(RUNNABLE_TENANTS, afterId, PageRequest.of(0, tenantPageSize));
+                for (Integer tenantId : page) {
+                    permits.acquire();
+                    try {
+                        tenantPool.execute(() -> {
+                            try {
+                                runForTenant(job, tenantId, processed, failed, firstError);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1);
+                }
+            } while (page.size() == tenantPageSize);
+        } finally {
+            permits.acquireUninterruptibly(tenantParallelism); // Let in-flight tenants finish before recording
+        }
+    }
+
+    private void runForTenant(ScheduledJob job, Integer tenantId, AtomicInteger processed, AtomicInteger failed,
+                              AtomicReference<String> firstError) {
+        try (ContextSnapshot.Scope ignored = ContextSnapshot.ofTenant(tenantId).open()) {
+            job.runForTenant(tenantId);
+            processed.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            firstError.compareAndSet(null, "Tenant " + tenantId + ": " + e);
+            log.warn("Job {} failed for tenant {}", job.getName(), tenantId, e);
+        }
+    }
+
+    private void extendLease(String name) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jobLockRepository.extend(name, NodeIdentity.NODE_ID, LocalDateTime.now().plusSeconds(leaseSeconds)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to extend lease of job {}", name, e);
+        }
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_ERROR_LENGTH ? value.substring(0, MAX_ERROR_LENGTH) : value;
+    }
+}
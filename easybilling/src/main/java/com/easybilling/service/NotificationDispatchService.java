@@ -0,0 +1,247 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Notification;
+import com.easybilling.enums.NotificationStatus;
+import com.easybilling.enums.NotificationType;
+import com.easybilling.notification.DeliveryResult;
+import com.easybilling.notification.NotificationProvider;
+import com.easybilling.repository.NotificationRepository;
+import com.easybilling.util.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the notifications outbox. Per channel, batches of ready notifications are claimed with
+ * SELECT ... FOR UPDATE SKIP LOCKED (so several nodes can dispatch) on the scheduler thread, then
+ * handed to a bounded pool of sender threads, which call the channel's provider outside any
+ * transaction and record the outcome in a second short transaction. Batches are only claimed while
+ * a sender is free, so a slow provider backs up its own rows rather than the scheduler.
+ * Each provider is throttled by a token bucket (per node). Failures are retried with exponential
+ * backoff and jitter until app.notifications.max-retries, then dead-lettered. A node that dies
+ * mid-batch leaves SENDING rows whose claim expires, so delivery is at-least-once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatchService {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final NotificationRepository notificationRepository;
+    private final List<NotificationProvider> providers;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+
+    @Value("${app.notifications.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${app.notifications.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${app.notifications.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${app.notifications.claim-seconds:120}")
+    private long claimSeconds;
+
+    @Value("${app.notifications.max-batches-per-channel:20}")
+    private int maxBatchesPerChannel;
+
+    @Value("${app.notifications.sender-threads:8}")
+    private int senderThreads;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor senders;
+    private Semaphore idleSenders;
+
+    @PostConstruct
+    void init() {
+        idleSenders = new Semaphore(senderThreads);
+        // A batch is only submitted after taking a sender, so the queue just covers a finishing thread
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(senderThreads), new CustomizableThreadFactory("notification-sender-"));
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        senders.shutdown();
+        senders.awaitTermination(10, TimeUnit.SECONDS); // Unfinished batches go back to the queue when their claim expires
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.dispatch-interval-ms:2000}")
+    public void dispatch() {
+        for (NotificationType type : NotificationType.values()) {
+            NotificationProvider provider = providerFor(type);
+            if (provider == null) {
+                continue;
+            }
+            TokenBucket bucket = bucketFor(provider);
+            for (int i = 0; i < maxBatchesPerChannel; i++) {
+                if (!idleSenders.tryAcquire()) {
+                    return; // Every sender is busy; the rest waits for a later tick
+                }
+                int permits = bucket.tryAcquireUpTo(provider.maxBatchSize());
+                if (permits == 0) {
+                    idleSenders.release();
+                    break; // Rate limit reached; the rest waits for a later tick
+                }
+                List<Notification> batch;
+                try {
+                    batch = claim(type, permits);
+                } catch (RuntimeException e) {
+                    log.error("Notification dispatch failed for channel {}", type, e);
+                    batch = Collections.emptyList();
+                }
+                if (batch.size() < permits) {
+                    bucket.refund(permits - batch.size());
+                }
+                if (batch.isEmpty() || !submit(type, provider, batch)) {
+                    idleSenders.release();
+                    break;
+                }
+                if (batch.size() < permits) {
+                    break; // Channel drained
+                }
+            }
+        }
+    }
+
+    private List<Notification> claim(NotificationType type, int limit) {
+        List<Notification> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> ids = notificationRepository.lockDispatchable(type.name(), now, limit);
+            if (ids.isEmpty()) {
+                return Collections.<Notification>emptyList();
+            }
+            notificationRepository.markSending(ids, now.plusSeconds(claimSeconds), now);
+            return notificationRepository.findAllById(ids);
+        });
+        return batch != null ? batch : Collections.emptyList();
+    }
+
+    /**
+     * Hands a claimed batch to a sender thread, which gives its sender back when done.
+     */
+    private boolean submit(NotificationType type, NotificationProvider provider, List<Notification> batch) {
+        try {
+            senders.execute(() -> {
+                try {
+                    send(type, provider, batch);
+                } catch (RuntimeException e) {
+                    log.error("Failed to record the outcome of {} {} notifications", batch.size(), type, e);
+                } finally {
+                    idleSenders.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Notification senders are shut down; {} claimed {} notifications will be retried", batch.size(), type);
+            return false;
+        }
+    }
+
+    private void send(NotificationType type, NotificationProvider provider, List<Notification> batch) {
+        List<DeliveryResult> results;
+        try {
+            results = provider.send(batch);
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("Provider " + provider.getName() + " returned "
+                        + (results == null ? 0 : results.size()) + " results for " + batch.size() + " notifications");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Provider {} failed a batch of {} {} notifications", provider.getName(), batch.size(), type, e);
+            results = Collections.nCopies(batch.size(), DeliveryResult.retry(e.getMessage()));
+        }
+
+        List<DeliveryResult> outcome = results;
+        transactionTemplate.executeWithoutResult(status -> recordOutcome(batch, outcome, provider.getName()));
+    }
+
+    private void recordOutcome(List<Notification> batch, List<DeliveryResult> results, String providerName) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> sent = new ArrayList<>();
+        List<Notification> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            DeliveryResult result = results.get(i);
+            Notification notification = batch.get(i);
+            if (result.delivered()) {
+                sent.add(notification.getId());
+                continue;
+            }
+            int retries = (notification.getRetryCount() != null ? notification.getRetryCount() : 0) + 1;
+            notification.setRetryCount(retries);
+            notification.setProvider(providerName);
+            notification.setErrorMessage(truncate(result.error()));
+            if (result.permanent() || retries >= maxRetries) {
+                notification.setStatus(NotificationStatus.DEAD_LETTER);
+                notification.setNextAttemptAt(null);
+                log.warn("Notification {} dead-lettered after {} attempts: {}", notification.getId(), retries, result.error());
+            } else {
+                notification.setStatus(NotificationStatus.PENDING);
+                notification.setNextAttemptAt(now.plusSeconds(backoffSeconds(retries)));
+            }
+            failed.add(notification);
+        }
+        if (!sent.isEmpty()) {
+            notificationRepository.markSent(sent, providerName, now);
+        }
+        if (!failed.isEmpty()) {
+            notificationRepository.saveAll(failed);
+        }
+    }
+
+    /**
+     * Exponential backoff with up to 20% jitter so retries of one failed batch spread out.
+     */
+    private long backoffSeconds(int retries) {
+        long delay = backoffBaseSeconds << Math.min(retries - 1, 20);
+        delay = Math.min(delay, backoffMaxSeconds);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private NotificationProvider providerFor(NotificationType type) {
+        for (NotificationProvider provider : providers) {
+            if (provider.supports(type)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    private TokenBucket bucketFor(NotificationProvider provider) {
+        return buckets.computeIfAbsent(provider.getName(), name -> {
+            double rate = environment.getProperty("app.notifications.rate-limits." + name, Double.class,
+                    provider.permitsPerSecond());
+            return new TokenBucket(rate, Math.max(rate, 1));
+        });
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
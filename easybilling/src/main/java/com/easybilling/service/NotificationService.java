@@ -8,7 +8,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,10 +20,13 @@ public class NotificationService {
     
     private final NotificationRepository notificationRepository;
     
-    @Async
+    /**
+     * Queue a notification in the outbox. Runs in the caller's transaction, so the notification
+     * is only sent if the business change commits; delivery happens in NotificationDispatchService.
+     */
     @Transactional
     public void sendNotification(NotificationRequest request, Integer tenantId) {
-        log.info("Sending {} notification to {} for tenant: {}", 
+        log.info("Queueing {} notification to {} for tenant: {}", 
                 request.getType(), request.getRecipient(), tenantId);
         
         Notification notification = Notification.builder()
@@ -35,20 +37,9 @@ public class NotificationService {
                 .message(request.getMessage())
                 .status(NotificationStatus.PENDING)
                 .retryCount(0)
+                .nextAttemptAt(LocalDateTime.now())
                 .build();
         
-        try {
-            // TODO: Integrate with actual notification providers (SMS, Email, WhatsApp)
-            // For now, just mark as sent
-            notification.setStatus(NotificationStatus.SENT);
-            notification.setSentAt(LocalDateTime.now());
-            log.info("Notification sent successfully");
-        } catch (Exception e) {
-            log.error("Failed to send notification", e);
-            notification.setStatus(NotificationStatus.FAILED);
-            notification.setErrorMessage(e.getMessage());
-        }
-        
         notificationRepository.save(notification);
     }
     
@@ -1,12 +1,14 @@
 package com.easybilling.service;
 
 import com.easybilling.dto.NotificationRequest;
+import com.easybilling.dto.StockResponse;
 import com.easybilling.enums.NotificationType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Service for triggering automatic notifications based on business events
@@ -16,6 +18,8 @@ import java.math.BigDecimal;
 @Slf4j
 public class NotificationTriggerService {
     
+    private static final int LOW_STOCK_DIGEST_LIMIT = 100;
+    
     private final NotificationService notificationService;
     
     /**
@@ -67,6 +71,30 @@ public class NotificationTriggerService {
         notificationService.sendNotification(request, tenantId);
     }
     
+    /**
+     * Send one email listing every low-stock item, capped to keep the message readable
+     */
+    public void sendLowStockDigest(Integer tenantId, String adminEmail, List<StockResponse> lowStock) {
+        log.info("Triggering low stock digest for tenant: {} ({} items)", tenantId, lowStock.size());
+        
+        StringBuilder message = new StringBuilder("The following items are below their low stock threshold:\n\n");
+        lowStock.stream().limit(LOW_STOCK_DIGEST_LIMIT).forEach(stock -> message
+                .append(String.format("- %s @ %s: %s available%n",
+                        stock.getProductName(), stock.getLocationId(), stock.getAvailableQuantity().stripTrailingZeros().toPlainString())));
+        if (lowStock.size() > LOW_STOCK_DIGEST_LIMIT) {
+            message.append(String.format("...and %d more.%n", lowStock.size() - LOW_STOCK_DIGEST_LIMIT));
+        }
+        message.append("\nPlease reorder soon.");
+        
+        NotificationRequest request = new NotificationRequest();
+        request.setType(NotificationType.EMAIL);
+        request.setRecipient(adminEmail);
+        request.setSubject("Low Stock Digest - " + lowStock.size() + " items");
+        request.setMessage(message.toString());
+        
+        notificationService.sendNotification(request, tenantId);
+    }
+    
     /**
      * Send payment reminder to customer
      */
@@ -74,15 +102,30 @@ public class NotificationTriggerService {
                                    BigDecimal outstandingAmount, int daysDue) {
         log.info("Triggering payment reminder. Outstanding amount: {}", outstandingAmount);
         
-        NotificationRequest request = new NotificationRequest();
-        request.setType(NotificationType.SMS);
-        request.setRecipient(customerPhone);
-        request.setSubject("Payment Reminder");
-        request.setMessage(String.format(
+        String message = String.format(
                 "Payment reminder: You have an outstanding balance of %s. Due since %d days. Please pay at your earliest convenience.",
-                outstandingAmount, daysDue));
+                outstandingAmount, daysDue);
         
-        notificationService.sendNotification(request, tenantId);
+        if (customerPhone != null && !customerPhone.isBlank()) {
+            NotificationRequest smsRequest = new NotificationRequest();
+            smsRequest.setType(NotificationType.SMS);
+            smsRequest.setRecipient(customerPhone);
+            smsRequest.setSubject("Payment Reminder");
+            smsRequest.setMessage(message);
+            
+            notificationService.sendNotification(smsRequest, tenantId);
+        }
+        
+        // Send Email if available
+        if (customerEmail != null && !customerEmail.isBlank()) {
+            NotificationRequest emailRequest = new NotificationRequest();
+            emailRequest.setType(NotificationType.EMAIL);
+            emailRequest.setRecipient(customerEmail);
+            emailRequest.setSubject("Payment Reminder");
+            emailRequest.setMessage(message);
+            
+            notificationService.sendNotification(emailRequest, tenantId);
+        }
     }
     
     /**
@@ -4,6 +4,7 @@ import com.easybilling.dto.OfferRequest;
 import com.easybilling.dto.OfferResponse;
 import com.easybilling.entity.Offer;
 import com.easybilling.enums.OfferStatus;
+import com.easybilling.enums.TimerType;
 import com.easybilling.repository.OfferRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,6 +26,7 @@ import java.util.List;
 public class OffersService {
     
     private final OfferRepository offerRepository;
+    private final TimerService timerService;
     private final ObjectMapper objectMapper;
     
     public OfferResponse createOffer(OfferRequest request, Integer tenantId) {
@@ -51,6 +53,7 @@ public class OffersService {
                 .build();
         
         Offer saved = offerRepository.save(offer);
+        scheduleExpiry(saved);
         return mapToResponse(saved);
     }
     
@@ -95,6 +98,7 @@ public class OffersService {
         offer.setTermsAndConditions(request.getTermsAndConditions());
         
         Offer updated = offerRepository.save(offer);
+        scheduleExpiry(updated);
         return mapToResponse(updated);
     }
     
@@ -103,6 +107,7 @@ public class OffersService {
                 .orElseThrow(() -> new RuntimeException("Offer not found"));
         offer.setStatus(OfferStatus.ACTIVE);
         Offer updated = offerRepository.save(offer);
+        scheduleExpiry(updated);
         return mapToResponse(updated);
     }
     
@@ -118,6 +123,21 @@ public class OffersService {
         Offer offer = offerRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new RuntimeException("Offer not found"));
         offerRepository.delete(offer);
+        timerService.cancel(TimerType.OFFER_EXPIRY, id);
+    }
+    
+    /**
+     * Flip an active or paused offer to EXPIRED once its validTo has passed; fired by its timer.
+     */
+    public boolean expireOffer(String id, Integer tenantId) {
+        LocalDateTime now = LocalDateTime.now();
+        return offerRepository.expire(id, tenantId, List.of(OfferStatus.ACTIVE, OfferStatus.PAUSED), now) > 0;
+    }
+    
+    private void scheduleExpiry(Offer offer) {
+        if (offer.getValidTo() != null) {
+            timerService.schedule(offer.getTenantId(), TimerType.OFFER_EXPIRY, offer.getId(), offer.getValidTo(), null);
+        }
     }
     
     // Business Logic Methods
@@ -0,0 +1,277 @@
+package com.easybilling.service;
+
+import com.easybilling.dto.PerformanceMetricsResponse;
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.InvoiceItem;
+import com.easybilling.enums.PerformanceDimension;
+import com.easybilling.repository.PerformanceSnapshotRepository;
+import com.easybilling.util.AfterCommit;
+import com.easybilling.util.NodeIdentity;
+import com.easybilling.util.TimeBucketRing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cashier, store and counter performance metrics.
+ * Billing events are folded into per-key rings of one-minute buckets covering 24 hours,
+ * so live reads never touch the invoices table. Hourly totals are flushed periodically
+ * into performance_snapshots, which serve historical reports.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PerformanceMetricsService {
+
+    private static final int RING_MINUTES = 24 * 60;
+    private static final int BILLS = 0;
+    private static final int ITEMS = 1;
+    private static final int SALES_MINOR = 2; // Amount in paise to keep the ring in longs
+    private static final int VOIDS = 3;
+    private static final int RETURNS = 4;
+    private static final int METRIC_COUNT = 5;
+
+    private final PerformanceSnapshotRepository snapshotRepository;
+
+    private final Map<Integer, Map<MetricKey, TimeBucketRing>> rings = new ConcurrentHashMap<>();
+
+    /**
+     * Record a completed bill once the surrounding transaction commits.
+     */
+    public void recordCompleted(Invoice invoice) {
+        long items = invoice.getItems().stream()
+                .map(InvoiceItem::getQuantity)
+                .filter(Objects::nonNull)
+                .mapToLong(Integer::longValue)
+                .sum();
+        long salesMinor = toMinor(invoice.getTotalAmount());
+        record(invoice, invoice.getCompletedBy(), items, salesMinor, 0, 0);
+    }
+
+    /**
+     * Record a voided (cancelled) bill once the surrounding transaction commits.
+     */
+    public void recordCancelled(Invoice invoice, String userId) {
+        record(invoice, userId, 0, 0, 1, 0);
+    }
+
+    /**
+     * Record a return against a bill once the surrounding transaction commits.
+     */
+    public void recordReturned(Invoice invoice, String userId) {
+        record(invoice, userId, 0, 0, 0, 1);
+    }
+
+    /**
+     * Live metrics for the last {@code minutes} minutes, served from memory only.
+     */
+    public PerformanceMetricsResponse getLiveMetrics(Integer tenantId, int minutes) {
+        int window = Math.max(1, Math.min(minutes, RING_MINUTES));
+        long now = currentMinute();
+        long from = now - window + 1;
+
+        List<PerformanceMetricsResponse.DimensionMetrics> users = new ArrayList<>();
+        List<PerformanceMetricsResponse.DimensionMetrics> stores = new ArrayList<>();
+        List<PerformanceMetricsResponse.DimensionMetrics> counters = new ArrayList<>();
+        rings.getOrDefault(tenantId, Map.of()).forEach((key, ring) -> {
+            long[] totals = ring.sum(from, now);
+            if (totals[BILLS] == 0 && totals[VOIDS] == 0 && totals[RETURNS] == 0) {
+                return;
+            }
+            PerformanceMetricsResponse.DimensionMetrics metrics = toMetrics(key.dimension(), key.dimensionId(),
+                    totals[BILLS], totals[ITEMS], BigDecimal.valueOf(totals[SALES_MINOR], 2),
+                    totals[VOIDS], totals[RETURNS], totals[METRIC_COUNT], window);
+            listFor(key.dimension(), users, stores, counters).add(metrics);
+        });
+
+        return PerformanceMetricsResponse.builder()
+                .windowStart(toDateTime(from))
+                .windowEnd(toDateTime(now + 1))
+                .source("LIVE")
+                .users(sorted(users))
+                .stores(sorted(stores))
+                .counters(sorted(counters))
+                .build();
+    }
+
+    /**
+     * Historical metrics from hourly snapshots (both dates inclusive).
+     */
+    @Transactional(readOnly = true)
+    public PerformanceMetricsResponse getHistoricalMetrics(Integer tenantId, LocalDate startDate, LocalDate endDate,
+                                                           String storeId, String userId) {
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+        long windowMinutes = Duration.between(from, to).toMinutes();
+
+        return PerformanceMetricsResponse.builder()
+                .windowStart(from)
+                .windowEnd(to)
+                .source("SNAPSHOT")
+                .users(historical(tenantId, PerformanceDimension.USER, from, to, windowMinutes, userId, false))
+                .stores(historical(tenantId, PerformanceDimension.STORE, from, to, windowMinutes, storeId, false))
+                .counters(historical(tenantId, PerformanceDimension.COUNTER, from, to, windowMinutes, storeId, true))
+                .build();
+    }
+
+    /**
+     * Flush the current and previous hour of every window into snapshots, and drop
+     * windows that have been idle for longer than they can hold.
+     */
+    @Scheduled(fixedDelayString = "${app.performance.snapshot-interval-ms:300000}")
+    @Transactional
+    public void flushSnapshots() {
+        long now = currentMinute();
+        LocalDateTime flushedAt = LocalDateTime.now();
+        long currentHour = toEpochMinute(flushedAt.truncatedTo(ChronoUnit.HOURS));
+        int written = 0;
+
+        for (Map.Entry<Integer, Map<MetricKey, TimeBucketRing>> tenant : rings.entrySet()) {
+            for (Map.Entry<MetricKey, TimeBucketRing> entry : tenant.getValue().entrySet()) {
+                MetricKey key = entry.getKey();
+                TimeBucketRing ring = entry.getValue();
+                if (ring.getLastBucket() < now - RING_MINUTES) {
+                    tenant.getValue().remove(key, ring);
+                    continue;
+                }
+                if (ring.getLastBucket() < currentHour - 60) {
+                    continue; // Nothing new since both hours were last flushed
+                }
+                for (long hour : new long[]{currentHour - 60, currentHour}) {
+                    long[] totals = ring.sum(hour, hour + 59);
+                    if (totals[METRIC_COUNT] == 0) {
+                        continue;
+                    }
+                    snapshotRepository.upsert(tenant.getKey(), key.dimension().name(), key.dimensionId(),
+                            toDateTime(hour), NodeIdentity.NODE_ID, totals[BILLS], totals[ITEMS],
+                            BigDecimal.valueOf(totals[SALES_MINOR], 2), totals[VOIDS], totals[RETURNS],
+                            (int) totals[METRIC_COUNT], flushedAt);
+                    written++;
+                }
+            }
+        }
+        log.debug("Flushed {} performance snapshot rows", written);
+    }
+
+    private void record(Invoice invoice, String userId, long items, long salesMinor, long voids, long returns) {
+        Integer tenantId = invoice.getTenantId();
+        String storeId = invoice.getStoreId();
+        String counterKey = storeId + ":" + invoice.getCounterId();
+        Runnable apply = () -> {
+            long minute = currentMinute();
+            long bills = voids == 0 && returns == 0 ? 1 : 0;
+            if (userId != null) {
+                ring(tenantId, PerformanceDimension.USER, userId, minute).add(minute, bills, items, salesMinor, voids, returns);
+            }
+            ring(tenantId, PerformanceDimension.STORE, storeId, minute).add(minute, bills, items, salesMinor, voids, returns);
+            ring(tenantId, PerformanceDimension.COUNTER, counterKey, minute).add(minute, bills, items, salesMinor, voids, returns);
+        };
+
+        AfterCommit.run(apply);
+    }
+
+    private TimeBucketRing ring(Integer tenantId, PerformanceDimension dimension, String dimensionId, long minute) {
+        return rings.computeIfAbsent(tenantId, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(new MetricKey(dimension, dimensionId),
+                        k -> new TimeBucketRing(RING_MINUTES, METRIC_COUNT, minute));
+    }
+
+    private List<PerformanceMetricsResponse.DimensionMetrics> historical(Integer tenantId, PerformanceDimension dimension,
+                                                                         LocalDateTime from, LocalDateTime to,
+                                                                         long windowMinutes, String filter, boolean prefix) {
+        List<PerformanceMetricsResponse.DimensionMetrics> result = new ArrayList<>();
+        for (PerformanceSnapshotRepository.DimensionTotalsView row : snapshotRepository.summarise(tenantId, dimension, from, to)) {
+            if (filter != null && !(prefix ? row.getDimensionId().startsWith(filter + ":") : row.getDimensionId().equals(filter))) {
+                continue;
+            }
+            result.add(toMetrics(dimension, row.getDimensionId(), nz(row.getBills()), nz(row.getItems()),
+                    row.getSales() != null ? row.getSales() : BigDecimal.ZERO, nz(row.getVoids()),
+                    nz(row.getReturns()), nz(row.getActiveMinutes()), windowMinutes));
+        }
+        return result;
+    }
+
+    private PerformanceMetricsResponse.DimensionMetrics toMetrics(PerformanceDimension dimension, String dimensionId,
+                                                                  long bills, long items, BigDecimal sales, long voids,
+                                                                  long returns, long activeMinutes, long windowMinutes) {
+        return PerformanceMetricsResponse.DimensionMetrics.builder()
+                .dimension(dimension)
+                .dimensionId(dimensionId)
+                .bills(bills)
+                .items(items)
+                .salesAmount(sales)
+                .voids(voids)
+                .returns(returns)
+                .activeMinutes(activeMinutes)
+                .billsPerHour(ratio(BigDecimal.valueOf(bills * 60), windowMinutes))
+                .averageBasket(ratio(sales, bills))
+                .itemsPerMinute(ratio(BigDecimal.valueOf(items), activeMinutes))
+                .voidRate(ratio(BigDecimal.valueOf(voids * 100), bills))
+                .returnRate(ratio(BigDecimal.valueOf(returns * 100), bills))
+                .build();
+    }
+
+    private static List<PerformanceMetricsResponse.DimensionMetrics> listFor(
+            PerformanceDimension dimension,
+            List<PerformanceMetricsResponse.DimensionMetrics> users,
+            List<PerformanceMetricsResponse.DimensionMetrics> stores,
+            List<PerformanceMetricsResponse.DimensionMetrics> counters) {
+        return switch (dimension) {
+            case USER -> users;
+            case STORE -> stores;
+            case COUNTER -> counters;
+        };
+    }
+
+    private static List<PerformanceMetricsResponse.DimensionMetrics> sorted(List<PerformanceMetricsResponse.DimensionMetrics> list) {
+        list.sort(Comparator.comparing(PerformanceMetricsResponse.DimensionMetrics::getSalesAmount).reversed());
+        return list;
+    }
+
+    private static BigDecimal ratio(BigDecimal numerator, long denominator) {
+        return denominator > 0
+                ? numerator.divide(BigDecimal.valueOf(denominator), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact() : 0L;
+    }
+
+    private static long nz(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+    }
+
+    private static LocalDateTime toDateTime(long epochMinute) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), ZoneId.systemDefault());
+    }
+
+    private record MetricKey(PerformanceDimension dimension, String dimensionId) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.easybilling.service;
+
+import com.easybilling.dto.ProfitLossResponse;
+import com.easybilling.enums.CreditNoteStatus;
+import com.easybilling.enums.InvoiceStatus;
+import com.easybilling.exception.ValidationException;
+import com.easybilling.repository.CreditNoteRepository;
+import com.easybilling.repository.InvoiceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Profit and loss engine. Revenue, discounts, tax and cost of goods come from one
+ * grouped query over invoice lines (cost is the value captured on each line at sale time),
+ * and credit notes from a second one; the daily rows are then rolled up per period.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProfitLossService {
+
+    /**
+     * Ranges longer than this are reported per month instead of per day.
+     */
+    private static final long MAX_DAILY_PERIODS = 92;
+
+    private static final List<InvoiceStatus> REVENUE_STATUSES =
+            List.of(InvoiceStatus.COMPLETED, InvoiceStatus.RETURNED, InvoiceStatus.PARTIALLY_RETURNED);
+
+    private static final List<CreditNoteStatus> RETURN_STATUSES =
+            List.of(CreditNoteStatus.ISSUED, CreditNoteStatus.APPLIED);
+
+    private final InvoiceRepository invoiceRepository;
+    private final CreditNoteRepository creditNoteRepository;
+
+    @Transactional(readOnly = true)
+    public ProfitLossResponse generate(Integer tenantId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new ValidationException("End date must not be before start date");
+        }
+        log.info("Generating P&L for tenant: {} from {} to {}", tenantId, startDate, endDate);
+
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+        boolean monthly = ChronoUnit.DAYS.between(startDate, endDate) >= MAX_DAILY_PERIODS;
+
+        Map<LocalDate, Accumulator> periods = new TreeMap<>();
+        for (InvoiceRepository.DailySalesView row : invoiceRepository.summariseDailySales(
+                tenantId, REVENUE_STATUSES, from, to)) {
+            Accumulator acc = periods.computeIfAbsent(periodStart(row.getDay(), monthly), Accumulator::new);
+            acc.invoiceCount += row.getInvoices() != null ? row.getInvoices() : 0L;
+            acc.grossSales = acc.grossSales.add(nz(row.getGrossSales()));
+            acc.discounts = acc.discounts.add(nz(row.getDiscounts()));
+            acc.tax = acc.tax.add(nz(row.getTax()));
+            acc.cogs = acc.cogs.add(nz(row.getCogs()));
+        }
+        for (CreditNoteRepository.DailyReturnsView row : creditNoteRepository.summariseDailyReturns(
+                tenantId, RETURN_STATUSES, from, to)) {
+            Accumulator acc = periods.computeIfAbsent(periodStart(row.getDay(), monthly), Accumulator::new);
+            acc.returns = acc.returns.add(nz(row.getReturns()));
+            acc.tax = acc.tax.subtract(nz(row.getReturnTax()));
+            acc.cogs = acc.cogs.subtract(nz(row.getReturnedCogs()));
+        }
+
+        Accumulator totals = new Accumulator(startDate);
+        List<ProfitLossResponse.PeriodSummary> summaries = new ArrayList<>(periods.size());
+        for (Accumulator acc : periods.values()) {
+            LocalDate periodEnd = monthly ? acc.periodStart.plusMonths(1).minusDays(1) : acc.periodStart;
+            summaries.add(acc.toSummary(max(acc.periodStart, startDate), min(periodEnd, endDate)));
+            totals.merge(acc);
+        }
+
+        return ProfitLossResponse.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .granularity(monthly ? "MONTH" : "DAY")
+                .totals(totals.toSummary(startDate, endDate))
+                .periods(summaries)
+                .build();
+    }
+
+    private static LocalDate periodStart(LocalDate day, boolean monthly) {
+        return monthly ? day.withDayOfMonth(1) : day;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static BigDecimal nz(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static final class Accumulator {
+        private final LocalDate periodStart;
+        private long invoiceCount;
+        private BigDecimal grossSales = BigDecimal.ZERO;
+        private BigDecimal discounts = BigDecimal.ZERO;
+        private BigDecimal returns = BigDecimal.ZERO;
+        private BigDecimal tax = BigDecimal.ZERO;
+        private BigDecimal cogs = BigDecimal.ZERO;
+
+        Accumulator(LocalDate periodStart) {
+            this.periodStart = periodStart;
+        }
+
+        void merge(Accumulator other) {
+            invoiceCount += other.invoiceCount;
+            grossSales = grossSales.add(other.grossSales);
+            discounts = discounts.add(other.discounts);
+            returns = returns.add(other.returns);
+            tax = tax.add(other.tax);
+            cogs = cogs.add(other.cogs);
+        }
+
+        ProfitLossResponse.PeriodSummary toSummary(LocalDate start, LocalDate end) {
+            BigDecimal netSales = grossSales.subtract(discounts);
+            BigDecimal netRevenue = netSales.subtract(returns);
+            BigDecimal grossProfit = netRevenue.subtract(cogs);
+            BigDecimal margin = netRevenue.signum() != 0
+                    ? grossProfit.multiply(BigDecimal.valueOf(100)).divide(netRevenue, 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+
+            return ProfitLossResponse.PeriodSummary.builder()
+                    .periodStart(start)
+                    .periodEnd(end)
+                    .invoiceCount(invoiceCount)
+                    .grossSales(scale(grossSales))
+                    .discounts(scale(discounts))
+                    .netSales(scale(netSales))
+                    .salesReturns(scale(returns))
+                    .netRevenue(scale(netRevenue))
+                    .taxCollected(scale(tax))
+                    .costOfGoodsSold(scale(cogs))
+                    .grossProfit(scale(grossProfit))
+                    .grossMarginPercent(margin)
+                    .build();
+        }
+
+        private static BigDecimal scale(BigDecimal value) {
+            return value.setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
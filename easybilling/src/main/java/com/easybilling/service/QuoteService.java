@@ -4,23 +4,31 @@ import com.easybilling.dto.*;
 import com.easybilling.entity.Customer;
 import com.easybilling.entity.Quote;
 import com.easybilling.entity.QuoteItem;
+import com.easybilling.enums.DomainEventType;
 import com.easybilling.enums.QuoteStatus;
+import com.easybilling.enums.TimerType;
 import com.easybilling.exception.ResourceNotFoundException;
 import com.easybilling.repository.CustomerRepository;
 import com.easybilling.repository.QuoteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -32,10 +40,19 @@ import java.util.stream.Collectors;
 @Transactional
 public class QuoteService {
 
+    private static final String QUOTE_BATCH_AGGREGATE = "QUOTE_BATCH";
+    private static final int EXPIRED_EVENT_BATCH = 100; // Quotes per event; keeps the payload well inside TEXT
+
     private final QuoteRepository quoteRepository;
     private final CustomerRepository customerRepository;
     private final InvoiceNumberService invoiceNumberService;
     private final BillingService billingService;
+    private final DomainEventPublisher domainEventPublisher;
+    private final TimerService timerService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.quotes.expiry-chunk-size:1000}")
+    private int expiryChunkSize;
 
     /**
      * Create a new quote
@@ -129,6 +146,11 @@ public class QuoteService {
         quote.setSentAt(LocalDateTime.now());
 
         Quote updated = quoteRepository.save(quote);
+        if (quote.getValidUntil() != null) {
+            // Expires the moment its last valid day ends; the daily sweep remains as a backstop
+            timerService.schedule(tenantId, TimerType.QUOTE_EXPIRY, quote.getId(),
+                    quote.getValidUntil().plusDays(1).atStartOfDay(), null);
+        }
         log.info("Quote sent: {}", quote.getQuoteNumber());
 
         // TODO: Send email notification with quote PDF
@@ -265,16 +287,93 @@ public class QuoteService {
     }
 
     /**
-     * Mark expired quotes
+     * Expire SENT quotes past their validity date for every tenant. Works in chunks: each chunk is
+     * locked with SKIP LOCKED, expired with one UPDATE and committed together with its
+     * QUOTES_EXPIRED events, so concurrent sweeps share the work. Returns the count per tenant.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<Integer, Integer> expireQuotes(LocalDate today) {
+        return sweepExpired(null, today);
+    }
+
+    /**
+     * Expire one tenant's SENT quotes past their validity date; see {@link #expireQuotes}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int markExpiredQuotes(Integer tenantId) {
+        return sweepExpired(tenantId, LocalDate.now()).getOrDefault(tenantId, 0);
+    }
+
+    /**
+     * Expire a single SENT quote whose validity date has passed, publishing QUOTES_EXPIRED for it.
+     * Returns false when the quote is no longer SENT or still valid.
      */
-    @Transactional
-    public void markExpiredQuotes(Integer tenantId) {
-        List<Quote> expiredQuotes = quoteRepository.findExpiredQuotes(tenantId, QuoteStatus.SENT, LocalDate.now());
-        expiredQuotes.forEach(quote -> {
-            quote.setStatus(QuoteStatus.EXPIRED);
-            log.info("Quote marked as expired: {}", quote.getQuoteNumber());
+    public boolean expireQuote(Integer tenantId, String quoteId) {
+        List<QuoteRepository.ExpiringQuoteView> quotes =
+                quoteRepository.lockExpiringById(tenantId, quoteId, LocalDate.now());
+        if (quotes.isEmpty()) {
+            return false;
+        }
+        quoteRepository.markExpired(List.of(quoteId), LocalDateTime.now());
+        publishExpired(tenantId, quotes);
+        log.info("Quote expired: {}", quotes.get(0).getQuoteNumber());
+        return true;
+    }
+
+    private Map<Integer, Integer> sweepExpired(Integer tenantId, LocalDate today) {
+        Map<Integer, Integer> expired = new TreeMap<>();
+        List<QuoteRepository.ExpiringQuoteView> chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> expireChunk(tenantId, today));
+            if (chunk == null) {
+                break;
+            }
+            chunk.forEach(quote -> expired.merge(quote.getTenantId(), 1, Integer::sum));
+        } while (chunk.size() == expiryChunkSize);
+
+        if (!expired.isEmpty()) {
+            log.info("Expired {} quotes across {} tenants: {}",
+                    expired.values().stream().mapToInt(Integer::intValue).sum(), expired.size(), expired);
+        }
+        return expired;
+    }
+
+    private List<QuoteRepository.ExpiringQuoteView> expireChunk(Integer tenantId, LocalDate today) {
+        List<QuoteRepository.ExpiringQuoteView> quotes = tenantId != null
+                ? quoteRepository.lockExpiringForTenant(tenantId, today, expiryChunkSize)
+                : quoteRepository.lockExpiring(today, expiryChunkSize);
+        if (quotes.isEmpty()) {
+            return quotes;
+        }
+        quoteRepository.markExpired(quotes.stream().map(QuoteRepository.ExpiringQuoteView::getId).toList(),
+                LocalDateTime.now());
+
+        Map<Integer, List<QuoteRepository.ExpiringQuoteView>> byTenant = quotes.stream()
+                .collect(Collectors.groupingBy(QuoteRepository.ExpiringQuoteView::getTenantId,
+                        LinkedHashMap::new, Collectors.toList()));
+        byTenant.forEach((tenant, tenantQuotes) -> {
+            for (int from = 0; from < tenantQuotes.size(); from += EXPIRED_EVENT_BATCH) {
+                publishExpired(tenant, tenantQuotes.subList(from, Math.min(from + EXPIRED_EVENT_BATCH, tenantQuotes.size())));
+            }
         });
-        quoteRepository.saveAll(expiredQuotes);
+        return quotes;
+    }
+
+    private void publishExpired(Integer tenantId, List<QuoteRepository.ExpiringQuoteView> quotes) {
+        List<Map<String, Object>> entries = new ArrayList<>(quotes.size());
+        for (QuoteRepository.ExpiringQuoteView quote : quotes) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("quoteId", quote.getId());
+            entry.put("quoteNumber", quote.getQuoteNumber());
+            entry.put("customerId", quote.getCustomerId());
+            entry.put("customerName", quote.getCustomerName());
+            entry.put("customerEmail", quote.getCustomerEmail());
+            entry.put("total", quote.getTotal());
+            entry.put("validUntil", quote.getValidUntil() != null ? quote.getValidUntil().toString() : null);
+            entries.add(entry);
+        }
+        domainEventPublisher.publish(tenantId, QUOTE_BATCH_AGGREGATE, quotes.get(0).getId(),
+                DomainEventType.QUOTES_EXPIRED, Map.of("quotes", entries));
     }
 
     /**
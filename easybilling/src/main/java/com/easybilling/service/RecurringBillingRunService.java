@@ -0,0 +1,245 @@
+package com.easybilling.service;
+
+import com.easybilling.context.ContextSnapshot;
+import com.easybilling.entity.RecurringInvoice;
+import com.easybilling.repository.RecurringInvoiceRepository;
+import com.easybilling.util.NodeIdentity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-safe recurring billing run.
+ * Due schedules are claimed in chunks with SELECT ... FOR UPDATE SKIP LOCKED and a time-limited
+ * lease, so any number of nodes can share a run and a crashed node's work is picked up once its
+ * leases expire. Workers take tenants round-robin, one chunk at a time, so a large tenant cannot
+ * starve small ones. Each chunk commits on its own; a failing chunk is retried schedule by schedule.
+ * Every billing period is keyed by (schedule, period date), which makes re-runs idempotent.
+ * Progress and throughput are published as billing.recurring.* metrics under /actuator/metrics.
+ * Runs are started by {@link com.easybilling.job.RecurringBillingJob}, off the shared scheduler thread.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecurringBillingRunService {
+
+    private static final long IDLE_WAIT_MS = 20;
+
+    private final RecurringInvoiceRepository recurringInvoiceRepository;
+    private final RecurringInvoiceService recurringInvoiceService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.recurring.workers:4}")
+    private int workers;
+
+    @Value("${app.recurring.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${app.recurring.lease-seconds:600}")
+    private long leaseSeconds;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong dueAtStart = new AtomicLong();
+    private final AtomicLong processedThisRun = new AtomicLong();
+    private final AtomicLong generatedThisRun = new AtomicLong();
+    private volatile long runStartedNanos;
+
+    private Counter generatedCounter;
+    private Counter failedCounter;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        generatedCounter = meterRegistry.counter("billing.recurring.invoices.generated");
+        failedCounter = meterRegistry.counter("billing.recurring.schedules.failed");
+        chunkTimer = meterRegistry.timer("billing.recurring.chunk");
+        meterRegistry.gauge("billing.recurring.run.active", running, r -> r.get() ? 1 : 0);
+        meterRegistry.gauge("billing.recurring.run.remaining", this,
+                s -> Math.max(0, s.dueAtStart.get() - s.processedThisRun.get()));
+        meterRegistry.gauge("billing.recurring.run.progress", this, RecurringBillingRunService::progress);
+        meterRegistry.gauge("billing.recurring.run.throughput", this, RecurringBillingRunService::throughput);
+    }
+
+    /**
+     * Generate every period due on or before {@code today}. Returns the number of invoices this
+     * node generated, or -1 when a run is already in progress on this node.
+     */
+    public long run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Recurring billing run already in progress on this node");
+            return -1;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("billing-run-"));
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Integer> tenants = recurringInvoiceRepository.findTenantsWithDueSchedules(today, now);
+            if (tenants.isEmpty()) {
+                return 0;
+            }
+            dueAtStart.set(recurringInvoiceRepository.countDueSchedules(today, now));
+            processedThisRun.set(0);
+            generatedThisRun.set(0);
+            runStartedNanos = System.nanoTime();
+            log.info("Recurring billing run started: {} due schedules across {} tenants, {} workers",
+                    dueAtStart.get(), tenants.size(), workers);
+
+            ConcurrentLinkedDeque<Integer> queue = new ConcurrentLinkedDeque<>(tenants);
+            AtomicInteger claiming = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(() -> work(queue, claiming, today)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            log.info("Recurring billing run finished: {} invoices from {} schedules in {}s",
+                    generatedThisRun.get(), processedThisRun.get(),
+                    Duration.ofNanos(System.nanoTime() - runStartedNanos).toSeconds());
+            return generatedThisRun.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Recurring billing run interrupted");
+            return generatedThisRun.get();
+        } catch (ExecutionException e) {
+            log.error("Recurring billing run worker failed", e.getCause());
+            return generatedThisRun.get();
+        } finally {
+            pool.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Take the next tenant, claim one chunk and put the tenant back at the tail before processing,
+     * so other workers can move on to other tenants (or the same one) meanwhile. Exits when no
+     * tenant has claimable work and no other worker is mid-claim.
+     */
+    private void work(ConcurrentLinkedDeque<Integer> queue, AtomicInteger claiming, LocalDate today) {
+        while (!Thread.currentThread().isInterrupted()) {
+            claiming.incrementAndGet();
+            Integer tenantId = queue.pollFirst();
+            if (tenantId == null) {
+                if (claiming.decrementAndGet() == 0 && queue.isEmpty()) {
+                    return;
+                }
+                sleepQuietly();
+                continue;
+            }
+
+            List<String> ids;
+            try {
+                ids = claimChunk(tenantId, today);
+                if (!ids.isEmpty()) {
+                    queue.addLast(tenantId);
+                }
+            } finally {
+                claiming.decrementAndGet();
+            }
+            if (!ids.isEmpty()) {
+                processChunk(tenantId, ids, today);
+            }
+        }
+    }
+
+    private List<String> claimChunk(Integer tenantId, LocalDate today) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> ids = recurringInvoiceRepository.lockDueIds(tenantId, today, now, chunkSize);
+            if (!ids.isEmpty()) {
+                recurringInvoiceRepository.acquireLease(ids, NodeIdentity.NODE_ID, now.plusSeconds(leaseSeconds));
+            }
+            return ids;
+        });
+    }
+
+    private void processChunk(Integer tenantId, List<String> ids, LocalDate today) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // The tenant stays bound through the individual retries as well as the chunk
+        try (ContextSnapshot.Scope ignored = ContextSnapshot.ofTenant(tenantId).open()) {
+            try {
+                record(generate(ids, today), ids.size());
+            } catch (RuntimeException e) {
+                log.warn("Recurring billing chunk of {} schedules failed for tenant {}; retrying individually",
+                        ids.size(), tenantId, e);
+                for (String id : ids) {
+                    try {
+                        record(generate(List.of(id), today), 1);
+                    } catch (RuntimeException ex) {
+                        // The lease is left to expire so this run does not spin on the schedule
+                        failedCounter.increment();
+                        processedThisRun.incrementAndGet();
+                        log.error("Recurring invoice {} failed to generate", id, ex);
+                    }
+                }
+            }
+        } finally {
+            sample.stop(chunkTimer);
+        }
+    }
+
+    /**
+     * Generate due periods for the leased schedules in one transaction and release their leases.
+     */
+    private int generate(Collection<String> ids, LocalDate today) {
+        Integer generated = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (RecurringInvoice recurring : recurringInvoiceRepository.findLeasedForUpdate(ids, NodeIdentity.NODE_ID)) {
+                count += recurringInvoiceService.generateDuePeriods(recurring, today, NodeIdentity.NODE_ID);
+            }
+            recurringInvoiceRepository.releaseLease(ids, NodeIdentity.NODE_ID);
+            return count;
+        });
+        return generated != null ? generated : 0;
+    }
+
+    private void record(int generated, int schedules) {
+        generatedCounter.increment(generated);
+        generatedThisRun.addAndGet(generated);
+        processedThisRun.addAndGet(schedules);
+    }
+
+    private double progress() {
+        long due = dueAtStart.get();
+        return due > 0 ? Math.min(1.0, (double) processedThisRun.get() / due) : 1.0;
+    }
+
+    private double throughput() {
+        if (!running.get()) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - runStartedNanos) / 1e9;
+        return seconds > 0 ? generatedThisRun.get() / seconds : 0;
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(IDLE_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.easybilling.service;
 
 import com.easybilling.dto.*;
 import com.easybilling.entity.Customer;
+import com.easybilling.entity.Invoice;
 import com.easybilling.entity.RecurringInvoice;
 import com.easybilling.enums.RecurringFrequency;
 import com.easybilling.exception.ResourceNotFoundException;
 import com.easybilling.repository.CustomerRepository;
 import com.easybilling.repository.RecurringInvoiceRepository;
+import com.easybilling.repository.RecurringInvoiceRunRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -15,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,7 +35,10 @@ public class RecurringInvoiceService {
     private final RecurringInvoiceRepository recurringInvoiceRepository;
     private final CustomerRepository customerRepository;
     private final BillingService billingService;
-    private final ConfigurationService configurationService;
+    private final RecurringInvoiceRunRepository runRepository;
+
+    // Node recorded on runs generated on demand rather than by the billing run
+    private static final String MANUAL_NODE = "manual";
 
     /**
      * Create a new recurring invoice schedule
@@ -49,22 +55,28 @@ public class RecurringInvoiceService {
         recurringInvoice.setTenantId(tenantId);
         recurringInvoice.setCustomerId(request.getCustomerId());
         recurringInvoice.setCustomerName(customer.getName());
+        recurringInvoice.setCustomerEmail(customer.getEmail());
+        recurringInvoice.setCustomerPhone(customer.getPhone());
         recurringInvoice.setFrequency(request.getFrequency());
         recurringInvoice.setStartDate(request.getStartDate());
         recurringInvoice.setEndDate(request.getEndDate());
         recurringInvoice.setNextInvoiceDate(request.getStartDate());
         recurringInvoice.setAmount(request.getAmount());
+        recurringInvoice.setTaxRate(request.getTaxRate());
         recurringInvoice.setDescription(request.getDescription());
-        recurringInvoice.setPaymentTerms(request.getPaymentTerms() != null ? request.getPaymentTerms() : "Net 30");
+        recurringInvoice.setPaymentTermDays(request.getPaymentTermDays() != null ? request.getPaymentTermDays() : 30);
         recurringInvoice.setLateFeePercentage(request.getLateFeePercentage() != null ? request.getLateFeePercentage() : BigDecimal.ZERO);
-        recurringInvoice.setLateFeeAmount(request.getLateFeeAmount() != null ? request.getLateFeeAmount() : BigDecimal.ZERO);
-        recurringInvoice.setGracePeriodDays(request.getGracePeriodDays() != null ? request.getGracePeriodDays() : 0);
+        recurringInvoice.setLateFeeFixedAmount(request.getLateFeeFixedAmount() != null ? request.getLateFeeFixedAmount() : BigDecimal.ZERO);
+        recurringInvoice.setLateGracePeriodDays(request.getLateGracePeriodDays() != null ? request.getLateGracePeriodDays() : 0);
+        recurringInvoice.setNotes(request.getNotes());
+        recurringInvoice.setTerms(request.getTerms());
+        recurringInvoice.setDocumentTemplateId(request.getDocumentTemplateId());
         recurringInvoice.setMaxInvoices(request.getMaxInvoices());
         recurringInvoice.setInvoicesGenerated(0);
-        recurringInvoice.setAutoEmail(request.getAutoEmail() != null ? request.getAutoEmail() : false);
-        recurringInvoice.setActive(true);
+        recurringInvoice.setAutoSendEmail(request.getAutoSendEmail() != null ? request.getAutoSendEmail() : false);
+        recurringInvoice.setIsActive(true);
         recurringInvoice.setCreatedBy(userId);
-        recurringInvoice.setCreatedAt(LocalDateTime.now());
+        calculateAmounts(recurringInvoice);
 
         recurringInvoice = recurringInvoiceRepository.save(recurringInvoice);
         log.info("Created recurring invoice with ID: {}", recurringInvoice.getId());
@@ -75,7 +87,7 @@ public class RecurringInvoiceService {
     /**
      * Update existing recurring invoice
      */
-    public RecurringInvoiceResponse updateRecurringInvoice(Long id, Integer tenantId, String userId, RecurringInvoiceRequest request) {
+    public RecurringInvoiceResponse updateRecurringInvoice(String id, Integer tenantId, String userId, RecurringInvoiceRequest request) {
         log.info("Updating recurring invoice: {} for tenant: {}", id, tenantId);
 
         RecurringInvoice recurringInvoice = recurringInvoiceRepository.findByIdAndTenantId(id, tenantId)
@@ -88,20 +100,23 @@ public class RecurringInvoiceService {
         if (request.getAmount() != null) {
             recurringInvoice.setAmount(request.getAmount());
         }
+        if (request.getTaxRate() != null) {
+            recurringInvoice.setTaxRate(request.getTaxRate());
+        }
         if (request.getDescription() != null) {
             recurringInvoice.setDescription(request.getDescription());
         }
-        if (request.getPaymentTerms() != null) {
-            recurringInvoice.setPaymentTerms(request.getPaymentTerms());
+        if (request.getPaymentTermDays() != null) {
+            recurringInvoice.setPaymentTermDays(request.getPaymentTermDays());
         }
         if (request.getLateFeePercentage() != null) {
             recurringInvoice.setLateFeePercentage(request.getLateFeePercentage());
         }
-        if (request.getLateFeeAmount() != null) {
-            recurringInvoice.setLateFeeAmount(request.getLateFeeAmount());
+        if (request.getLateFeeFixedAmount() != null) {
+            recurringInvoice.setLateFeeFixedAmount(request.getLateFeeFixedAmount());
         }
-        if (request.getGracePeriodDays() != null) {
-            recurringInvoice.setGracePeriodDays(request.getGracePeriodDays());
+        if (request.getLateGracePeriodDays() != null) {
+            recurringInvoice.setLateGracePeriodDays(request.getLateGracePeriodDays());
         }
         if (request.getEndDate() != null) {
             recurringInvoice.setEndDate(request.getEndDate());
@@ -109,15 +124,19 @@ public class RecurringInvoiceService {
         if (request.getMaxInvoices() != null) {
             recurringInvoice.setMaxInvoices(request.getMaxInvoices());
         }
-        if (request.getAutoEmail() != null) {
-            recurringInvoice.setAutoEmail(request.getAutoEmail());
+        if (request.getNotes() != null) {
+            recurringInvoice.setNotes(request.getNotes());
         }
-
-        recurringInvoice.setUpdatedBy(userId);
-        recurringInvoice.setUpdatedAt(LocalDateTime.now());
+        if (request.getTerms() != null) {
+            recurringInvoice.setTerms(request.getTerms());
+        }
+        if (request.getAutoSendEmail() != null) {
+            recurringInvoice.setAutoSendEmail(request.getAutoSendEmail());
+        }
+        calculateAmounts(recurringInvoice);
 
         recurringInvoice = recurringInvoiceRepository.save(recurringInvoice);
-        log.info("Updated recurring invoice: {}", id);
+        log.info("Updated recurring invoice: {} by user: {}", id, userId);
 
         return mapToResponse(recurringInvoice);
     }
@@ -126,7 +145,7 @@ public class RecurringInvoiceService {
      * Get recurring invoice by ID
      */
     @Transactional(readOnly = true)
-    public RecurringInvoiceResponse getRecurringInvoiceById(Long id, Integer tenantId) {
+    public RecurringInvoiceResponse getRecurringInvoiceById(String id, Integer tenantId) {
         RecurringInvoice recurringInvoice = recurringInvoiceRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Recurring invoice not found with id: " + id));
         return mapToResponse(recurringInvoice);
@@ -146,7 +165,7 @@ public class RecurringInvoiceService {
      */
     @Transactional(readOnly = true)
     public List<RecurringInvoiceResponse> getActiveRecurringInvoices(Integer tenantId) {
-        List<RecurringInvoice> invoices = recurringInvoiceRepository.findByTenantIdAndActive(tenantId, true);
+        List<RecurringInvoice> invoices = recurringInvoiceRepository.findByTenantIdAndIsActive(tenantId, true);
         return invoices.stream().map(this::mapToResponse).collect(Collectors.toList());
     }
 
@@ -154,7 +173,7 @@ public class RecurringInvoiceService {
      * Get recurring invoices by customer
      */
     @Transactional(readOnly = true)
-    public List<RecurringInvoiceResponse> getRecurringInvoicesByCustomer(Integer tenantId, Long customerId) {
+    public List<RecurringInvoiceResponse> getRecurringInvoicesByCustomer(Integer tenantId, String customerId) {
         List<RecurringInvoice> invoices = recurringInvoiceRepository.findByTenantIdAndCustomerId(tenantId, customerId);
         return invoices.stream().map(this::mapToResponse).collect(Collectors.toList());
     }
@@ -162,84 +181,106 @@ public class RecurringInvoiceService {
     /**
      * Activate/Deactivate recurring invoice
      */
-    public RecurringInvoiceResponse toggleActive(Long id, Integer tenantId, String userId, boolean active) {
-        log.info("Setting recurring invoice {} active status to: {}", id, active);
+    public RecurringInvoiceResponse toggleActive(String id, Integer tenantId, String userId, boolean active) {
+        log.info("Setting recurring invoice {} active status to: {} by user: {}", id, active, userId);
 
         RecurringInvoice recurringInvoice = recurringInvoiceRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Recurring invoice not found with id: " + id));
 
-        recurringInvoice.setActive(active);
-        recurringInvoice.setUpdatedBy(userId);
-        recurringInvoice.setUpdatedAt(LocalDateTime.now());
+        recurringInvoice.setIsActive(active);
+        if (active) {
+            recurringInvoice.setPausedAt(null);
+            recurringInvoice.setPausedBy(null);
+        } else {
+            recurringInvoice.setPausedAt(LocalDateTime.now());
+            recurringInvoice.setPausedBy(userId);
+        }
 
         recurringInvoice = recurringInvoiceRepository.save(recurringInvoice);
         return mapToResponse(recurringInvoice);
     }
 
     /**
-     * Process due recurring invoices - called by scheduler
+     * Manually generate the invoice for the schedule's next billing period
      */
-    public void processDueInvoices() {
-        log.info("Processing due recurring invoices");
-
-        LocalDate today = LocalDate.now();
-        List<RecurringInvoice> dueInvoices = recurringInvoiceRepository.findDueInvoices(today);
+    public InvoiceResponse generateNextInvoice(String id, Integer tenantId) {
+        RecurringInvoice recurring = recurringInvoiceRepository.findByIdAndTenantId(id, tenantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recurring invoice not found with id: " + id));
+        if (!Boolean.TRUE.equals(recurring.getIsActive())) {
+            throw new IllegalStateException("Recurring invoice is not active");
+        }
 
-        log.info("Found {} due recurring invoices", dueInvoices.size());
+        LocalDate periodDate = recurring.getNextInvoiceDate();
+        Invoice invoice = generateForPeriod(recurring, periodDate, MANUAL_NODE);
+        if (invoice == null) {
+            throw new IllegalStateException("Invoice for period " + periodDate + " was already generated or the schedule has ended");
+        }
+        return billingService.getInvoice(tenantId, invoice.getId());
+    }
 
-        for (RecurringInvoice recurring : dueInvoices) {
-            try {
-                generateInvoiceFromRecurring(recurring);
-            } catch (Exception e) {
-                log.error("Error generating invoice for recurring invoice: {}", recurring.getId(), e);
+    /**
+     * Generate every billing period that is due on or before {@code today}, catching up on missed periods.
+     * Must run inside the caller's transaction with the schedule row locked.
+     *
+     * @return number of invoices generated
+     */
+    public int generateDuePeriods(RecurringInvoice recurring, LocalDate today, String nodeId) {
+        int generated = 0;
+        while (Boolean.TRUE.equals(recurring.getIsActive()) && !recurring.getNextInvoiceDate().isAfter(today)) {
+            if (generateForPeriod(recurring, recurring.getNextInvoiceDate(), nodeId) != null) {
+                generated++;
             }
         }
+        return generated;
     }
 
     /**
-     * Generate an invoice from a recurring invoice schedule
+     * Generate the invoice for one billing period and advance the schedule. The period is claimed
+     * through the (recurring invoice, period date) key first, so a period that was already generated
+     * only advances the schedule. Returns null when nothing was generated.
      */
-    public InvoiceResponse generateInvoiceFromRecurring(RecurringInvoice recurring) {
-        log.info("Generating invoice from recurring invoice: {}", recurring.getId());
-
+    private Invoice generateForPeriod(RecurringInvoice recurring, LocalDate periodDate, String nodeId) {
         // Check if max invoices reached
         if (recurring.getMaxInvoices() != null && recurring.getInvoicesGenerated() >= recurring.getMaxInvoices()) {
             log.info("Max invoices reached for recurring invoice: {}", recurring.getId());
-            recurring.setActive(false);
+            recurring.setIsActive(false);
             recurringInvoiceRepository.save(recurring);
             return null;
         }
 
         // Check if end date passed
-        if (recurring.getEndDate() != null && LocalDate.now().isAfter(recurring.getEndDate())) {
+        if (recurring.getEndDate() != null && periodDate.isAfter(recurring.getEndDate())) {
             log.info("End date passed for recurring invoice: {}", recurring.getId());
-            recurring.setActive(false);
+            recurring.setIsActive(false);
             recurringInvoiceRepository.save(recurring);
             return null;
         }
 
-        // Create invoice request
-        InvoiceRequest invoiceRequest = new InvoiceRequest();
-        invoiceRequest.setCustomerId(recurring.getCustomerId());
-        invoiceRequest.setTotalAmount(recurring.getAmount());
-        invoiceRequest.setNotes("Auto-generated from recurring invoice schedule");
-        // Add more details as needed
-
-        // Generate invoice using billing service
-        InvoiceResponse invoice = billingService.createInvoice(recurring.getTenantId(), recurring.getCreatedBy(), invoiceRequest);
-
-        // Update recurring invoice
-        recurring.setInvoicesGenerated(recurring.getInvoicesGenerated() + 1);
-        recurring.setLastInvoiceDate(LocalDate.now());
-        recurring.setNextInvoiceDate(calculateNextInvoiceDate(recurring.getNextInvoiceDate(), recurring.getFrequency()));
-        recurring.setUpdatedAt(LocalDateTime.now());
-        recurringInvoiceRepository.save(recurring);
-
-        log.info("Generated invoice {} from recurring invoice {}", invoice.getId(), recurring.getId());
+        Invoice invoice = null;
+        if (runRepository.claimPeriod(recurring.getTenantId(), recurring.getId(), periodDate, nodeId, LocalDateTime.now()) > 0) {
+            invoice = billingService.issueRecurringInvoice(recurring, periodDate);
+            runRepository.attachInvoice(recurring.getId(), periodDate, invoice.getId());
+            recurring.setInvoicesGenerated(recurring.getInvoicesGenerated() + 1);
+            recurring.setLastInvoiceDate(periodDate);
+            log.debug("Generated invoice {} from recurring invoice {} for period {}",
+                    invoice.getInvoiceNumber(), recurring.getId(), periodDate);
+        } else {
+            log.info("Period {} of recurring invoice {} already generated; advancing schedule", periodDate, recurring.getId());
+        }
 
+        recurring.setNextInvoiceDate(calculateNextInvoiceDate(periodDate, recurring.getFrequency()));
+        recurringInvoiceRepository.save(recurring);
         return invoice;
     }
 
+    private void calculateAmounts(RecurringInvoice recurring) {
+        BigDecimal tax = recurring.getTaxRate() != null
+                ? recurring.getAmount().multiply(recurring.getTaxRate()).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        recurring.setTaxAmount(tax);
+        recurring.setTotalAmount(recurring.getAmount().add(tax));
+    }
+
     /**
      * Calculate next invoice date based on frequency
      */
@@ -268,30 +309,36 @@ public class RecurringInvoiceService {
      * Map entity to response DTO
      */
     private RecurringInvoiceResponse mapToResponse(RecurringInvoice recurring) {
-        RecurringInvoiceResponse response = new RecurringInvoiceResponse();
-        response.setId(recurring.getId());
-        response.setTenantId(recurring.getTenantId());
-        response.setCustomerId(recurring.getCustomerId());
-        response.setCustomerName(recurring.getCustomerName());
-        response.setFrequency(recurring.getFrequency());
-        response.setStartDate(recurring.getStartDate());
-        response.setEndDate(recurring.getEndDate());
-        response.setNextInvoiceDate(recurring.getNextInvoiceDate());
-        response.setLastInvoiceDate(recurring.getLastInvoiceDate());
-        response.setAmount(recurring.getAmount());
-        response.setDescription(recurring.getDescription());
-        response.setPaymentTerms(recurring.getPaymentTerms());
-        response.setLateFeePercentage(recurring.getLateFeePercentage());
-        response.setLateFeeAmount(recurring.getLateFeeAmount());
-        response.setGracePeriodDays(recurring.getGracePeriodDays());
-        response.setMaxInvoices(recurring.getMaxInvoices());
-        response.setInvoicesGenerated(recurring.getInvoicesGenerated());
-        response.setAutoEmail(recurring.getAutoEmail());
-        response.setActive(recurring.getActive());
-        response.setCreatedBy(recurring.getCreatedBy());
-        response.setCreatedAt(recurring.getCreatedAt());
-        response.setUpdatedBy(recurring.getUpdatedBy());
-        response.setUpdatedAt(recurring.getUpdatedAt());
-        return response;
+        return RecurringInvoiceResponse.builder()
+                .id(recurring.getId())
+                .customerId(recurring.getCustomerId())
+                .customerName(recurring.getCustomerName())
+                .customerEmail(recurring.getCustomerEmail())
+                .customerPhone(recurring.getCustomerPhone())
+                .description(recurring.getDescription())
+                .frequency(recurring.getFrequency())
+                .startDate(recurring.getStartDate())
+                .endDate(recurring.getEndDate())
+                .nextInvoiceDate(recurring.getNextInvoiceDate())
+                .lastInvoiceDate(recurring.getLastInvoiceDate())
+                .isActive(recurring.getIsActive())
+                .amount(recurring.getAmount())
+                .taxRate(recurring.getTaxRate())
+                .taxAmount(recurring.getTaxAmount())
+                .totalAmount(recurring.getTotalAmount())
+                .paymentTermDays(recurring.getPaymentTermDays())
+                .lateFeePercentage(recurring.getLateFeePercentage())
+                .lateFeeFixedAmount(recurring.getLateFeeFixedAmount())
+                .lateGracePeriodDays(recurring.getLateGracePeriodDays())
+                .notes(recurring.getNotes())
+                .terms(recurring.getTerms())
+                .documentTemplateId(recurring.getDocumentTemplateId())
+                .invoicesGenerated(recurring.getInvoicesGenerated())
+                .maxInvoices(recurring.getMaxInvoices())
+                .autoSendEmail(recurring.getAutoSendEmail())
+                .createdBy(recurring.getCreatedBy())
+                .createdAt(recurring.getCreatedAt())
+                .updatedAt(recurring.getUpdatedAt())
+                .build();
     }
 }
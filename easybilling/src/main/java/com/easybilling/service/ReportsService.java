@@ -18,6 +18,13 @@ import java.util.List;
 @Slf4j
 public class ReportsService {
     
+    private static final int TOP_PRODUCTS = 10;
+    
+    private final GstReturnService gstReturnService;
+    private final ProfitLossService profitLossService;
+    private final PerformanceMetricsService performanceMetricsService;
+    private final SalesSketchService salesSketchService;
+    
     public Object generateReport(ReportRequest request, Integer tenantId) {
         log.info("Generating {} report for tenant: {}", request.getReportType(), tenantId);
         
@@ -55,14 +62,33 @@ public class ReportsService {
                 .totalTax(BigDecimal.ZERO)
                 .netProfit(BigDecimal.ZERO)
                 .totalInvoices(0)
-                .totalCustomers(0)
+                .totalCustomers((int) distinctCustomers(request, tenantId))
                 .averageOrderValue(BigDecimal.ZERO)
                 .dailySales(dailySales)
                 .categorySales(new ArrayList<>())
-                .topProducts(new ArrayList<>())
+                .topProducts(topProducts(request, tenantId))
                 .build();
     }
     
+    private long distinctCustomers(ReportRequest request, Integer tenantId) {
+        return Boolean.TRUE.equals(request.getExact())
+                ? salesSketchService.countDistinctCustomers(tenantId, request.getStartDate(), request.getEndDate())
+                : salesSketchService.estimateDistinctCustomers(tenantId, request.getStartDate(), request.getEndDate());
+    }
+    
+    private List<SalesReportResponse.TopProduct> topProducts(ReportRequest request, Integer tenantId) {
+        List<SalesSketchService.ProductSales> products = Boolean.TRUE.equals(request.getExact())
+                ? salesSketchService.findTopProducts(tenantId, request.getStartDate(), request.getEndDate(), TOP_PRODUCTS)
+                : salesSketchService.estimateTopProducts(tenantId, request.getStartDate(), request.getEndDate(), TOP_PRODUCTS);
+        return products.stream()
+                .map(p -> SalesReportResponse.TopProduct.builder()
+                        .productName(p.getProductName())
+                        .revenue(p.getRevenue())
+                        .quantitySold((int) p.getQuantity())
+                        .build())
+                .toList();
+    }
+    
     private InventoryReportResponse generateInventoryReport(ReportRequest request, Integer tenantId) {
         // TODO: Integrate with inventory service to get actual stock data
         
@@ -81,18 +107,16 @@ public class ReportsService {
         return new Object();
     }
     
-    private Object generateTaxReport(ReportRequest request, Integer tenantId) {
-        // TODO: Calculate tax summary from invoices
-        return new Object();
+    private Gstr3bResponse generateTaxReport(ReportRequest request, Integer tenantId) {
+        return gstReturnService.buildGstr3b(tenantId, request.getStartDate(), request.getEndDate());
     }
     
-    private Object generateProfitLossReport(ReportRequest request, Integer tenantId) {
-        // TODO: Calculate P&L from sales and purchases
-        return new Object();
+    private ProfitLossResponse generateProfitLossReport(ReportRequest request, Integer tenantId) {
+        return profitLossService.generate(tenantId, request.getStartDate(), request.getEndDate());
     }
     
-    private Object generatePerformanceReport(ReportRequest request, Integer tenantId) {
-        // TODO: Generate user/store performance metrics
-        return new Object();
+    private PerformanceMetricsResponse generatePerformanceReport(ReportRequest request, Integer tenantId) {
+        return performanceMetricsService.getHistoricalMetrics(tenantId, request.getStartDate(), request.getEndDate(),
+                request.getStoreId(), request.getUserId());
     }
 }
@@ -0,0 +1,248 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.DailySalesSketch;
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.InvoiceItem;
+import com.easybilling.enums.InvoiceStatus;
+import com.easybilling.repository.DailySalesSketchRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.util.AfterCommit;
+import com.easybilling.util.HyperLogLog;
+import com.easybilling.util.SpaceSavingSketch;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Approximate distinct-customer and top-product figures for dashboards.
+ * Completed invoices are folded into in-memory per-day sketch deltas, which are
+ * periodically merged into daily_sales_sketches under a row lock. Range queries merge
+ * the stored day sketches (plus unflushed deltas) instead of scanning invoices.
+ * Exact variants remain available for audits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesSketchService {
+
+    /**
+     * Items tracked per day; comfortably above the top-N shown on dashboards.
+     */
+    private static final int PRODUCT_CAPACITY = 100;
+
+    private static final List<InvoiceStatus> SALE_STATUSES =
+            List.of(InvoiceStatus.COMPLETED, InvoiceStatus.RETURNED, InvoiceStatus.PARTIALLY_RETURNED);
+
+    private final DailySalesSketchRepository sketchRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<DayKey, DaySketch> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Fold a completed invoice into today's sketch once the transaction commits.
+     */
+    public void recordCompleted(Invoice invoice) {
+        Integer tenantId = invoice.getTenantId();
+        LocalDate day = (invoice.getCompletedAt() != null ? invoice.getCompletedAt() : LocalDateTime.now()).toLocalDate();
+        String customerId = invoice.getCustomerId();
+        List<LineSale> lines = new ArrayList<>(invoice.getItems().size());
+        for (InvoiceItem item : invoice.getItems()) {
+            lines.add(new LineSale(item.getProductId(), item.getProductName(),
+                    item.getQuantity() != null ? item.getQuantity() : 0, toMinor(item.getLineTotal())));
+        }
+
+        AfterCommit.run(() -> {
+            DayKey key = new DayKey(tenantId, day);
+            while (true) {
+                DaySketch sketch = pending.computeIfAbsent(key, k -> new DaySketch());
+                synchronized (sketch) {
+                    if (sketch.detached) {
+                        continue; // Taken by a flush in the meantime; use the fresh one
+                    }
+                    sketch.invoices++;
+                    sketch.customers.offer(customerId);
+                    for (LineSale line : lines) {
+                        sketch.products.offer(line.getProductId(), line.getProductName(), line.getQuantity(), line.getRevenueMinor());
+                    }
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Approximate number of distinct customers over a date range (both ends inclusive).
+     */
+    @Transactional(readOnly = true)
+    public long estimateDistinctCustomers(Integer tenantId, LocalDate startDate, LocalDate endDate) {
+        HyperLogLog merged = new HyperLogLog();
+        for (DailySalesSketch row : sketchRepository.findByTenantIdAndSketchDateBetween(tenantId, startDate, endDate)) {
+            merged.merge(HyperLogLog.fromBytes(row.getCustomerSketch()));
+        }
+        forEachPending(tenantId, startDate, endDate, sketch -> merged.merge(sketch.customers));
+        return merged.cardinality();
+    }
+
+    /**
+     * Approximate top products by quantity sold over a date range (both ends inclusive).
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSales> estimateTopProducts(Integer tenantId, LocalDate startDate, LocalDate endDate, int limit) {
+        SpaceSavingSketch merged = new SpaceSavingSketch(PRODUCT_CAPACITY);
+        for (DailySalesSketch row : sketchRepository.findByTenantIdAndSketchDateBetween(tenantId, startDate, endDate)) {
+            merged.merge(SpaceSavingSketch.fromBytes(row.getProductSketch(), PRODUCT_CAPACITY));
+        }
+        forEachPending(tenantId, startDate, endDate, sketch -> merged.merge(sketch.products));
+
+        List<ProductSales> result = new ArrayList<>(limit);
+        for (SpaceSavingSketch.Counter counter : merged.top(limit)) {
+            result.add(new ProductSales(counter.getItem(), counter.getLabel(), counter.getCount(),
+                    BigDecimal.valueOf(counter.getValue(), 2)));
+        }
+        return result;
+    }
+
+    /**
+     * Exact distinct customers, for audits.
+     */
+    @Transactional(readOnly = true)
+    public long countDistinctCustomers(Integer tenantId, LocalDate startDate, LocalDate endDate) {
+        return invoiceRepository.countDistinctCustomers(tenantId, SALE_STATUSES,
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Exact top products by quantity sold, for audits.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSales> findTopProducts(Integer tenantId, LocalDate startDate, LocalDate endDate, int limit) {
+        return invoiceRepository.findTopProducts(tenantId, SALE_STATUSES,
+                        startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(), PageRequest.of(0, limit))
+                .stream()
+                .map(row -> new ProductSales(row.getProductId(), row.getProductName(),
+                        row.getQuantity() != null ? row.getQuantity() : 0L,
+                        row.getRevenue() != null ? row.getRevenue() : BigDecimal.ZERO))
+                .toList();
+    }
+
+    /**
+     * Merge pending per-day deltas into the stored sketches. Each day row is locked while
+     * merging so several nodes can flush concurrently; a failed flush is re-queued.
+     */
+    @Scheduled(fixedDelayString = "${app.sketches.flush-interval-ms:60000}")
+    public void flush() {
+        for (DayKey key : new ArrayList<>(pending.keySet())) {
+            DaySketch delta = pending.remove(key);
+            if (delta == null) {
+                continue;
+            }
+            synchronized (delta) {
+                delta.detached = true;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoStore(key, delta));
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush sales sketch for tenant: {}, day: {}; will retry", key.tenantId(), key.day(), e);
+                requeue(key, delta);
+            }
+        }
+    }
+
+    private void requeue(DayKey key, DaySketch delta) {
+        while (true) {
+            DaySketch current = pending.computeIfAbsent(key, k -> new DaySketch());
+            synchronized (current) {
+                if (!current.detached) {
+                    current.merge(delta);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void mergeIntoStore(DayKey key, DaySketch delta) {
+        sketchRepository.insertIfAbsent(key.tenantId(), key.day());
+        DailySalesSketch row = sketchRepository.findForUpdate(key.tenantId(), key.day())
+                .orElseThrow(() -> new IllegalStateException("Sketch row missing after insert"));
+
+        HyperLogLog customers = HyperLogLog.fromBytes(row.getCustomerSketch());
+        customers.merge(delta.customers);
+        SpaceSavingSketch products = SpaceSavingSketch.fromBytes(row.getProductSketch(), PRODUCT_CAPACITY);
+        products.merge(delta.products);
+
+        row.setCustomerSketch(customers.toBytes());
+        row.setProductSketch(products.toBytes());
+        row.setInvoiceCount(row.getInvoiceCount() + delta.invoices);
+        row.setUpdatedAt(LocalDateTime.now());
+        sketchRepository.save(row);
+    }
+
+    private void forEachPending(Integer tenantId, LocalDate startDate, LocalDate endDate,
+                                Consumer<DaySketch> action) {
+        pending.forEach((key, sketch) -> {
+            if (key.tenantId().equals(tenantId) && !key.day().isBefore(startDate) && !key.day().isAfter(endDate)) {
+                synchronized (sketch) {
+                    action.accept(sketch);
+                }
+            }
+        });
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+    }
+
+    /**
+     * Product sales figure, approximate or exact depending on the source.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class ProductSales {
+        private String productId;
+        private String productName;
+        private long quantity;
+        private BigDecimal revenue;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class LineSale {
+        private String productId;
+        private String productName;
+        private long quantity;
+        private long revenueMinor;
+    }
+
+    private record DayKey(Integer tenantId, LocalDate day) {
+    }
+
+    private static final class DaySketch {
+        private final HyperLogLog customers = new HyperLogLog();
+        private final SpaceSavingSketch products = new SpaceSavingSketch(PRODUCT_CAPACITY);
+        private long invoices;
+        private boolean detached; // Removed from the pending map by a flush
+
+        void merge(DaySketch other) {
+            customers.merge(other.customers);
+            products.merge(other.products);
+            invoices += other.invoices;
+        }
+    }
+}
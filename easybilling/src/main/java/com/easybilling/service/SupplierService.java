@@ -30,10 +30,7 @@ public class SupplierService {
         // Use configurable default credit days if not provided
         Integer creditDays = request.getCreditDays();
         if (creditDays == null) {
-            creditDays = configurationService.getConfigValueAsInt(
-                "supplier.default_credit_days", 
-                0
-            );
+            creditDays = configurationService.getSettings(tenantId).supplierDefaultCreditDays();
         }
         
         Supplier supplier = Supplier.builder()
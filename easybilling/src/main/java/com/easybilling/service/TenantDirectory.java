@@ -0,0 +1,101 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Tenant.SubscriptionPlan;
+import com.easybilling.entity.Tenant.TenantStatus;
+import com.easybilling.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+/**
+ * Tenant lookups for request routing: subdomain slug to tenant, and a tenant's status and plan.
+ * Served from the two-level "tenantDirectory" cache, so a hit costs no database or network round
+ * trip. Unknown slugs and ids are cached as well, so probing random subdomains does not reach the
+ * database. TenantService evicts a tenant's entries when it changes, on every node.
+ */
+@Service
+@RequiredArgsConstructor
+public class TenantDirectory {
+
+    public static final String CACHE = "tenantDirectory";
+
+    private final TenantRepository tenantRepository;
+    private final CacheManager cacheManager;
+
+    /**
+     * The id of the tenant a subdomain slug belongs to, or null if there is none.
+     */
+    public Integer findIdBySlug(String slug) {
+        TenantRef ref = cache().get(slugKey(slug), () -> tenantRepository.findRefBySlug(slug)
+                .map(TenantDirectory::toRef)
+                .orElse(null));
+        return ref != null ? ref.id() : null;
+    }
+
+    /**
+     * A tenant's status, or null if the tenant does not exist.
+     */
+    public TenantStatus statusOf(Integer tenantId) {
+        TenantRef ref = findById(tenantId);
+        return ref != null ? ref.status() : null;
+    }
+
+    /**
+     * A tenant's subscription plan, or null if the tenant does not exist.
+     */
+    public SubscriptionPlan planOf(Integer tenantId) {
+        TenantRef ref = findById(tenantId);
+        return ref != null ? ref.plan() : null;
+    }
+
+    /**
+     * Whether requests for a tenant in this status are refused outright.
+     */
+    public static boolean isBlocked(TenantStatus status) {
+        return status == TenantStatus.SUSPENDED || status == TenantStatus.CANCELLED;
+    }
+
+    /**
+     * Drop a tenant's entries, including any cached absence of its slugs. Inside a transaction
+     * this takes effect when it commits.
+     */
+    public void evict(Integer tenantId, String... slugs) {
+        Cache cache = cache();
+        if (tenantId != null) {
+            cache.evict(idKey(tenantId));
+        }
+        for (String slug : slugs) {
+            if (slug != null) {
+                cache.evict(slugKey(slug));
+            }
+        }
+    }
+
+    private TenantRef findById(Integer tenantId) {
+        return cache().get(idKey(tenantId), () -> tenantRepository.findRefById(tenantId)
+                .map(TenantDirectory::toRef)
+                .orElse(null));
+    }
+
+    private static TenantRef toRef(TenantRepository.TenantRefView view) {
+        return new TenantRef(view.getId(), view.getStatus(), view.getPlan());
+    }
+
+    private Cache cache() {
+        return Objects.requireNonNull(cacheManager.getCache(CACHE), "Cache " + CACHE + " not configured");
+    }
+
+    private static String slugKey(String slug) {
+        return "slug:" + slug;
+    }
+
+    private static String idKey(Integer tenantId) {
+        return "id:" + tenantId;
+    }
+
+    public record TenantRef(Integer id, TenantStatus status, SubscriptionPlan plan) {
+    }
+}
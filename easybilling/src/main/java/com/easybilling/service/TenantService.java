@@ -30,6 +30,7 @@ public class TenantService {
     private final TenantRepository tenantRepository;
     private final TenantMapper tenantMapper;
     private final TenantProvisioningService provisioningService;
+    private final TenantDirectory tenantDirectory;
     
     /**
      * Create a new tenant.
@@ -63,6 +64,7 @@ public class TenantService {
         // Update status to TRIAL
         tenant.setStatus(TenantStatus.TRIAL);
         tenant = tenantRepository.save(tenant);
+        tenantDirectory.evict(tenant.getId(), tenant.getSlug()); // The slug may be cached as unknown
         
         log.info("Tenant created successfully: {}", tenant.getId());
         return tenantMapper.toResponse(tenant);
@@ -95,9 +97,11 @@ public class TenantService {
         log.info("Updating tenant: {}", id);
         
         Tenant tenant = findTenantById(id);
+        String previousSlug = tenant.getSlug();
         tenantMapper.updateEntity(tenant, request);
         
         tenant = tenantRepository.save(tenant);
+        tenantDirectory.evict(tenant.getId(), previousSlug, tenant.getSlug());
         
         log.info("Tenant updated successfully: {}", id);
         return tenantMapper.toResponse(tenant);
@@ -116,6 +120,7 @@ public class TenantService {
         tenant.setSubscriptionEndDate(Instant.now().plus(365, ChronoUnit.DAYS)); // 1 year
         
         tenant = tenantRepository.save(tenant);
+        tenantDirectory.evict(tenant.getId(), tenant.getSlug());
         
         log.info("Tenant activated successfully: {}", id);
         return tenantMapper.toResponse(tenant);
@@ -132,6 +137,7 @@ public class TenantService {
         tenant.setStatus(TenantStatus.SUSPENDED);
         
         tenant = tenantRepository.save(tenant);
+        tenantDirectory.evict(tenant.getId(), tenant.getSlug());
         
         log.info("Tenant suspended successfully: {}", id);
         return tenantMapper.toResponse(tenant);
@@ -148,6 +154,7 @@ public class TenantService {
         tenant.setStatus(TenantStatus.CANCELLED);
         
         tenant = tenantRepository.save(tenant);
+        tenantDirectory.evict(tenant.getId(), tenant.getSlug());
         
         log.info("Tenant cancelled successfully: {}", id);
         return tenantMapper.toResponse(tenant);
@@ -0,0 +1,152 @@
+package com.easybilling.service;
+
+import com.easybilling.exception.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A tenant's effective settings for hot paths, parsed once from its configuration (tenant values
+ * over system values over the defaults here). Obtained from {@link ConfigurationService#getSettings}.
+ * Values are checked with {@link #validate} when they are written, so parsing here only falls
+ * back to a default for rows that predate the check.
+ */
+@Slf4j
+public record TenantSettings(
+        double loyaltyPointsPerRupee,
+        int minRedemptionPoints,
+        BigDecimal vipSpendingThreshold,
+        BigDecimal premiumSpendingThreshold,
+        String invoicePrefix,
+        String creditNotePrefix,
+        int defaultLowStockThreshold,
+        int supplierDefaultCreditDays,
+        int paymentTermsDays,
+        BigDecimal lateFeeFixedAmount,
+        BigDecimal lateFeePercentage,
+        int lateFeeGraceDays,
+        int apiReadsPerMinute,
+        int apiWritesPerMinute,
+        int apiSearchesPerMinute) {
+
+    public static final String LOYALTY_POINTS_PER_RUPEE = "customer.loyalty.points_per_rupee";
+    public static final String MIN_REDEMPTION_POINTS = "customer.loyalty.minimum_redemption_points";
+    public static final String VIP_SPENDING_THRESHOLD = "customer.segment.vip_spending_threshold";
+    public static final String PREMIUM_SPENDING_THRESHOLD = "customer.segment.premium_spending_threshold";
+    public static final String INVOICE_PREFIX = "billing.invoice_prefix";
+    public static final String CREDIT_NOTE_PREFIX = "billing.credit_note_prefix";
+    public static final String DEFAULT_LOW_STOCK_THRESHOLD = "inventory.default_low_stock_threshold";
+    public static final String SUPPLIER_DEFAULT_CREDIT_DAYS = "supplier.default_credit_days";
+    public static final String PAYMENT_TERMS_DAYS = "billing.payment_terms_days";
+    public static final String LATE_FEE_FIXED_AMOUNT = "billing.late_fee_fixed_amount";
+    public static final String LATE_FEE_PERCENTAGE = "billing.late_fee_percentage";
+    public static final String LATE_FEE_GRACE_DAYS = "billing.late_fee_grace_days";
+    public static final String API_READS_PER_MINUTE = "api.rate_limit.reads_per_minute";
+    public static final String API_WRITES_PER_MINUTE = "api.rate_limit.writes_per_minute";
+    public static final String API_SEARCHES_PER_MINUTE = "api.rate_limit.searches_per_minute";
+
+    private static final Map<String, Setting> SETTINGS = Map.ofEntries(
+            Map.entry(LOYALTY_POINTS_PER_RUPEE, new Setting(TenantSettings::nonNegativeDecimal, new BigDecimal("0.01"))),
+            Map.entry(MIN_REDEMPTION_POINTS, new Setting(TenantSettings::nonNegativeInt, 100)),
+            Map.entry(VIP_SPENDING_THRESHOLD, new Setting(TenantSettings::nonNegativeDecimal, new BigDecimal("50000"))),
+            Map.entry(PREMIUM_SPENDING_THRESHOLD, new Setting(TenantSettings::nonNegativeDecimal, new BigDecimal("100000"))),
+            Map.entry(INVOICE_PREFIX, new Setting(TenantSettings::prefix, "INV")),
+            Map.entry(CREDIT_NOTE_PREFIX, new Setting(TenantSettings::prefix, "CN")),
+            Map.entry(DEFAULT_LOW_STOCK_THRESHOLD, new Setting(TenantSettings::nonNegativeInt, 10)),
+            Map.entry(SUPPLIER_DEFAULT_CREDIT_DAYS, new Setting(TenantSettings::nonNegativeInt, 0)),
+            Map.entry(PAYMENT_TERMS_DAYS, new Setting(TenantSettings::nonNegativeInt, 0)),
+            Map.entry(LATE_FEE_FIXED_AMOUNT, new Setting(TenantSettings::nonNegativeDecimal, BigDecimal.ZERO)),
+            Map.entry(LATE_FEE_PERCENTAGE, new Setting(TenantSettings::nonNegativeDecimal, BigDecimal.ZERO)),
+            Map.entry(LATE_FEE_GRACE_DAYS, new Setting(TenantSettings::nonNegativeInt, 0)),
+            Map.entry(API_READS_PER_MINUTE, new Setting(TenantSettings::nonNegativeInt, 600)),
+            Map.entry(API_WRITES_PER_MINUTE, new Setting(TenantSettings::nonNegativeInt, 120)),
+            Map.entry(API_SEARCHES_PER_MINUTE, new Setting(TenantSettings::nonNegativeInt, 120)));
+
+    /**
+     * Configuration keys a snapshot is built from.
+     */
+    public static Set<String> keys() {
+        return SETTINGS.keySet();
+    }
+
+    /**
+     * Reject a value for a snapshot key that the snapshot could not use; other keys are not checked.
+     */
+    public static void validate(String key, String value) {
+        Setting setting = SETTINGS.get(key);
+        if (setting == null || value == null) {
+            return;
+        }
+        try {
+            setting.parser().apply(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid value for " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build a snapshot from the effective values by key; missing keys take their defaults.
+     */
+    static TenantSettings from(Map<String, String> values) {
+        return new TenantSettings(
+                ((BigDecimal) value(values, LOYALTY_POINTS_PER_RUPEE)).doubleValue(),
+                (Integer) value(values, MIN_REDEMPTION_POINTS),
+                (BigDecimal) value(values, VIP_SPENDING_THRESHOLD),
+                (BigDecimal) value(values, PREMIUM_SPENDING_THRESHOLD),
+                (String) value(values, INVOICE_PREFIX),
+                (String) value(values, CREDIT_NOTE_PREFIX),
+                (Integer) value(values, DEFAULT_LOW_STOCK_THRESHOLD),
+                (Integer) value(values, SUPPLIER_DEFAULT_CREDIT_DAYS),
+                (Integer) value(values, PAYMENT_TERMS_DAYS),
+                (BigDecimal) value(values, LATE_FEE_FIXED_AMOUNT),
+                (BigDecimal) value(values, LATE_FEE_PERCENTAGE),
+                (Integer) value(values, LATE_FEE_GRACE_DAYS),
+                (Integer) value(values, API_READS_PER_MINUTE),
+                (Integer) value(values, API_WRITES_PER_MINUTE),
+                (Integer) value(values, API_SEARCHES_PER_MINUTE));
+    }
+
+    private static Object value(Map<String, String> values, String key) {
+        Setting setting = SETTINGS.get(key);
+        String raw = values.get(key);
+        if (raw == null) {
+            return setting.defaultValue();
+        }
+        try {
+            return setting.parser().apply(raw.trim());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid {} value '{}', using default {}", key, raw, setting.defaultValue());
+            return setting.defaultValue();
+        }
+    }
+
+    private static Object nonNegativeInt(String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed < 0) {
+            throw new IllegalArgumentException("must not be negative");
+        }
+        return parsed;
+    }
+
+    private static Object nonNegativeDecimal(String value) {
+        BigDecimal parsed = new BigDecimal(value);
+        if (parsed.signum() < 0) {
+            throw new IllegalArgumentException("must not be negative");
+        }
+        return parsed;
+    }
+
+    private static Object prefix(String value) {
+        if (value.isEmpty() || value.length() > 10
+                || !value.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '_')) {
+            throw new IllegalArgumentException("must be 1-10 letters, digits, '-' or '_'");
+        }
+        return value;
+    }
+
+    private record Setting(Function<String, Object> parser, Object defaultValue) {
+    }
+}
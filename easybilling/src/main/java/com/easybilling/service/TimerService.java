@@ -0,0 +1,288 @@
+package com.easybilling.service;
+
+import com.easybilling.context.ContextSnapshot;
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+import com.easybilling.repository.ScheduledTimerRepository;
+import com.easybilling.timer.TimerHandler;
+import com.easybilling.util.AfterCommit;
+import com.easybilling.util.HierarchicalTimingWheel;
+import com.easybilling.util.NodeIdentity;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One-shot timers for reminders and expiries, persisted in scheduled_timers and fired in process.
+ * Timers are written in the caller's transaction. Each node periodically claims, with SKIP LOCKED
+ * and a lease, the timers due within app.timers.horizon-seconds and puts them into a hierarchical
+ * timing wheel, so only the near future is held in memory and nothing is polled per timer. A due
+ * timer is re-read under lock and handed to its {@link TimerHandler} on a small pool; handling and
+ * deleting the timer commit together. Timers survive restarts in the table: a stopped node hands
+ * its claims back and a crashed node's claims lapse. Failures are retried with backoff until
+ * app.timers.max-attempts, after which the row is kept with its last error. Metrics: timers.*.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimerService {
+
+    private static final int WHEEL_SIZE = 60;
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final ObjectProvider<TimerHandler> handlerProvider; // Handlers call back into services that schedule
+    private final ScheduledTimerRepository timerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.timers.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.timers.threads:4}")
+    private int threads;
+
+    @Value("${app.timers.tick-ms:100}")
+    private long tickMillis;
+
+    @Value("${app.timers.horizon-seconds:120}")
+    private long horizonSeconds;
+
+    @Value("${app.timers.load-batch-size:1000}")
+    private int loadBatchSize;
+
+    @Value("${app.timers.max-loaded:100000}")
+    private int maxLoaded;
+
+    @Value("${app.timers.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.timers.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.timers.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.timers.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    private final Map<TimerType, TimerHandler> handlers = new EnumMap<>(TimerType.class);
+    private final AtomicBoolean loadRequested = new AtomicBoolean();
+
+    private volatile HierarchicalTimingWheel<Due> wheel;
+    private ScheduledExecutorService ticker;
+    private ExecutorService pool;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        for (TimerHandler handler : handlerProvider) {
+            if (handlers.put(handler.getType(), handler) != null) {
+                throw new IllegalStateException("Duplicate timer handler for " + handler.getType());
+            }
+        }
+        pool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("timer-"));
+        ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("timer-tick-"));
+        HierarchicalTimingWheel<Due> timingWheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        meterRegistry.gauge("timers.loaded", timingWheel, HierarchicalTimingWheel::size);
+        wheel = timingWheel; // Loading starts here
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        load();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (wheel == null) {
+            return;
+        }
+        ticker.shutdownNow();
+        pool.shutdownNow();
+        try {
+            Integer released = transactionTemplate.execute(status -> timerRepository.releaseClaims(NodeIdentity.NODE_ID));
+            log.info("Released {} unfired timers", released);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release timer claims; they lapse after their lease", e);
+        }
+    }
+
+    /**
+     * Set the target's timer to fire at {@code fireAt}, replacing any earlier one, as part of the
+     * caller's transaction. A timer inside the horizon is loaded as soon as the transaction commits.
+     */
+    @Transactional
+    public void schedule(Integer tenantId, TimerType type, String targetId, LocalDateTime fireAt, String payload) {
+        LocalDateTime at = fireAt.truncatedTo(ChronoUnit.MILLIS);
+        LocalDateTime now = LocalDateTime.now();
+        timerRepository.upsert(tenantId, type.name(), targetId, at, payload, now);
+        if (at.isBefore(now.plusSeconds(horizonSeconds))) {
+            AfterCommit.run(this::requestLoad);
+        }
+    }
+
+    @Transactional
+    public void cancel(TimerType type, String targetId) {
+        timerRepository.deleteByTarget(type, targetId);
+    }
+
+    /**
+     * Claim timers due within the horizon and put them into the wheel, batch by batch.
+     */
+    @Scheduled(fixedDelayString = "${app.timers.load-interval-ms:30000}")
+    public void load() {
+        if (wheel == null) {
+            return; // Not started yet, or disabled
+        }
+        try {
+            List<ScheduledTimer> claimed;
+            do {
+                if (wheel.size() >= maxLoaded) {
+                    log.warn("{} timers already loaded; leaving the rest to the next pass or another node", wheel.size());
+                    return;
+                }
+                claimed = transactionTemplate.execute(status -> claimBatch());
+                if (claimed == null) {
+                    return;
+                }
+                claimed.forEach(this::enqueue);
+            } while (claimed.size() == loadBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to load due timers", e);
+        }
+    }
+
+    private List<ScheduledTimer> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = timerRepository.lockDue(now.plusSeconds(horizonSeconds), now, maxAttempts, loadBatchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        timerRepository.claim(ids, NodeIdentity.NODE_ID, now.plusSeconds(horizonSeconds + leaseSeconds));
+        return timerRepository.findAllById(ids);
+    }
+
+    private void requestLoad() {
+        if (wheel == null || !loadRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                loadRequested.set(false);
+                load();
+            });
+        } catch (RejectedExecutionException e) {
+            loadRequested.set(false);
+        }
+    }
+
+    private void enqueue(ScheduledTimer timer) {
+        Due due = new Due(timer.getId(), timer.getTenantId(), timer.getTimerType(), timer.getFireAt(),
+                timer.getAttempts());
+        long fireAtMillis = toMillis(timer.getFireAt());
+        // Rounded up to the next tick so a bucket never fires before the timers in it are due
+        if (!wheel.add(fireAtMillis + tickMillis - 1, due)) {
+            long wait = fireAtMillis - System.currentTimeMillis();
+            try {
+                ticker.schedule(() -> dispatch(due), Math.max(0, wait), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Not firing timer {}; shutting down", due.id());
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            wheel.advance(System.currentTimeMillis()).forEach(this::dispatch);
+        } catch (RuntimeException e) {
+            log.error("Timer tick failed", e);
+        }
+    }
+
+    private void dispatch(Due due) {
+        try {
+            pool.execute(() -> fire(due));
+        } catch (RejectedExecutionException e) {
+            log.debug("Not firing timer {}; shutting down", due.id());
+        }
+    }
+
+    private void fire(Due due) {
+        try (ContextSnapshot.Scope ignored = ContextSnapshot.ofTenant(due.tenantId()).open()) {
+            Boolean fired = transactionTemplate.execute(status -> {
+                ScheduledTimer timer = timerRepository.findClaimedForUpdate(due.id(), NodeIdentity.NODE_ID, due.fireAt())
+                        .orElse(null);
+                if (timer == null) {
+                    return false; // Moved, cancelled or taken over since it was loaded
+                }
+                TimerHandler handler = handlers.get(timer.getTimerType());
+                if (handler == null) {
+                    throw new IllegalStateException("No handler for timer type " + timer.getTimerType());
+                }
+                handler.handle(timer);
+                timerRepository.delete(timer);
+                return true;
+            });
+            if (Boolean.TRUE.equals(fired)) {
+                meterRegistry.counter("timers.fired", "type", due.type().name()).increment();
+                meterRegistry.timer("timers.lag", "type", due.type().name())
+                        .record(Math.max(0, System.currentTimeMillis() - toMillis(due.fireAt())), TimeUnit.MILLISECONDS);
+            }
+        } catch (RuntimeException e) {
+            meterRegistry.counter("timers.failed", "type", due.type().name()).increment();
+            retry(due, e);
+        }
+    }
+
+    private void retry(Due due, RuntimeException cause) {
+        int attempt = due.attempts() + 1;
+        long delay = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempt - 1, 20));
+        LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofSeconds(delay)).truncatedTo(ChronoUnit.MILLIS);
+        if (attempt >= maxAttempts) {
+            log.error("Timer {} {} for tenant {} failed {} times; giving up", due.id(), due.type(), due.tenantId(), attempt, cause);
+        } else {
+            log.warn("Timer {} {} for tenant {} failed (attempt {}); retrying at {}",
+                    due.id(), due.type(), due.tenantId(), attempt, retryAt, cause);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> timerRepository.retry(due.id(), NodeIdentity.NODE_ID,
+                    due.fireAt(), retryAt, truncate(cause.toString())));
+        } catch (RuntimeException e) {
+            log.warn("Failed to reschedule timer {}; it is retried once its claim lapses", due.id(), e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_ERROR_LENGTH ? value.substring(0, MAX_ERROR_LENGTH) : value;
+    }
+
+    private record Due(Long id, Integer tenantId, TimerType type, LocalDateTime fireAt, int attempts) {
+    }
+}
@@ -0,0 +1,437 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Webhook;
+import com.easybilling.entity.WebhookDelivery;
+import com.easybilling.enums.WebhookDeliveryStatus;
+import com.easybilling.repository.WebhookDeliveryRepository;
+import com.easybilling.repository.WebhookRepository;
+import com.easybilling.util.CircuitBreaker;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends queued webhook deliveries. Each tick claims due rows with SELECT ... FOR UPDATE SKIP LOCKED
+ * (so several nodes can share the queue) and fires them through one shared non-blocking HttpClient,
+ * which pools connections per origin. Concurrency is capped globally and per target host, and each
+ * target has a circuit breaker so a failing endpoint is not hammered; deliveries held back by either
+ * are deferred without using up a retry. Outcomes are collected in memory and written back in one
+ * transaction on the next tick, retrying failures after the webhook's retryInterval until its
+ * retryCount is exhausted. Webhook success/failure counters are accumulated and flushed in batches.
+ * Requests are signed with HMAC-SHA256 over "timestamp.body" using the webhook's secret key.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WebhookDeliveryService {
+
+    public static final String SIGNATURE_HEADER = "X-EasyBilling-Signature";
+    public static final String TIMESTAMP_HEADER = "X-EasyBilling-Timestamp";
+    public static final String EVENT_HEADER = "X-EasyBilling-Event";
+    public static final String DELIVERY_HEADER = "X-EasyBilling-Delivery";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final TypeReference<Map<String, String>> HEADER_MAP = new TypeReference<>() {
+    };
+
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final WebhookRepository webhookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.webhooks.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${app.webhooks.max-concurrency-per-target:8}")
+    private int maxPerTarget;
+
+    @Value("${app.webhooks.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.webhooks.max-timeout-seconds:60}")
+    private int maxTimeoutSeconds;
+
+    @Value("${app.webhooks.connect-timeout-seconds:10}")
+    private int connectTimeoutSeconds;
+
+    @Value("${app.webhooks.dispatch-interval-ms:1000}")
+    private long dispatchIntervalMs;
+
+    @Value("${app.webhooks.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${app.webhooks.breaker.open-seconds:30}")
+    private long breakerOpenSeconds;
+
+    @Value("${app.webhooks.breaker.max-open-seconds:600}")
+    private long breakerMaxOpenSeconds;
+
+    private HttpClient httpClient;
+    private Semaphore inFlight;
+    private final Map<String, Semaphore> targetPermits = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Queue<Outcome> outcomes = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Counts> counts = new ConcurrentHashMap<>();
+
+    private Timer latencyTimer;
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        inFlight = new Semaphore(maxInFlight);
+        latencyTimer = meterRegistry.timer("webhooks.delivery.latency");
+        meterRegistry.gauge("webhooks.delivery.in_flight", this, s -> s.maxInFlight - s.inFlight.availablePermits());
+        meterRegistry.gauge("webhooks.breakers.open", breakers,
+                b -> b.values().stream().filter(cb -> cb.getState() != CircuitBreaker.State.CLOSED).count());
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhooks.dispatch-interval-ms:1000}")
+    public void dispatch() {
+        try {
+            recordOutcomes();
+        } catch (RuntimeException e) {
+            log.error("Failed to record webhook delivery outcomes", e); // Re-queued; claims stay IN_FLIGHT meanwhile
+        }
+        int capacity = Math.min(inFlight.availablePermits(), batchSize);
+        if (capacity == 0) {
+            return;
+        }
+        try {
+            send(claim(capacity));
+        } catch (RuntimeException e) {
+            log.error("Webhook dispatch failed", e);
+        }
+    }
+
+    /**
+     * Add accumulated per-webhook counters to the webhooks table, one statement per webhook.
+     */
+    @Scheduled(fixedDelayString = "${app.webhooks.counter-flush-ms:10000}")
+    public void flushCounters() {
+        Map<Long, long[]> deltas = new HashMap<>();
+        Map<Long, Instant> lastTriggered = new HashMap<>();
+        counts.forEach((webhookId, c) -> {
+            long successes = c.successes.getAndSet(0);
+            long failures = c.failures.getAndSet(0);
+            if (successes > 0 || failures > 0) {
+                deltas.put(webhookId, new long[]{successes, failures});
+                lastTriggered.put(webhookId, c.lastTriggeredAt.get());
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((webhookId, delta) ->
+                    webhookRepository.addCounts(webhookId, delta[0], delta[1], lastTriggered.get(webhookId))));
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush webhook counters for {} webhooks; will retry", deltas.size(), e);
+            deltas.forEach((webhookId, delta) -> {
+                Counts c = countsFor(webhookId);
+                c.successes.addAndGet(delta[0]);
+                c.failures.addAndGet(delta[1]);
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        try {
+            recordOutcomes();
+            flushCounters();
+        } catch (RuntimeException e) {
+            log.warn("Could not persist webhook state on shutdown; in-flight claims will expire and retry", e);
+        }
+    }
+
+    private Claim claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<Long> ids = deliveryRepository.lockDue(now, limit);
+            if (ids.isEmpty()) {
+                return new Claim(Collections.emptyList(), Collections.emptyMap());
+            }
+            // A claim outlives the longest request, so it only expires if this node dies
+            deliveryRepository.markInFlight(ids, now.plusSeconds(maxTimeoutSeconds * 2L + 30), now);
+            List<WebhookDelivery> deliveries = deliveryRepository.findAllById(ids);
+            List<Long> webhookIds = deliveries.stream().map(WebhookDelivery::getWebhookId).distinct().toList();
+            Map<Long, Webhook> webhooks = webhookRepository.findAllById(webhookIds).stream()
+                    .collect(Collectors.toMap(Webhook::getId, Function.identity()));
+            return new Claim(deliveries, webhooks);
+        });
+    }
+
+    private void send(Claim claim) {
+        if (claim == null || claim.deliveries().isEmpty()) {
+            return;
+        }
+        Map<Instant, List<Long>> deferred = new HashMap<>();
+        Instant now = Instant.now();
+        for (WebhookDelivery delivery : claim.deliveries()) {
+            Webhook webhook = claim.webhooks().get(delivery.getWebhookId());
+            if (webhook == null || !Boolean.TRUE.equals(webhook.getIsActive())) {
+                outcomes.add(Outcome.abandoned(delivery.getId(), "Webhook deleted or inactive"));
+                continue;
+            }
+            URI uri;
+            try {
+                uri = URI.create(webhook.getTargetUrl());
+                if (uri.getHost() == null) {
+                    throw new IllegalArgumentException("No host in " + webhook.getTargetUrl());
+                }
+            } catch (IllegalArgumentException e) {
+                outcomes.add(Outcome.abandoned(delivery.getId(), "Invalid target URL: " + e.getMessage()));
+                continue;
+            }
+
+            String target = targetKey(uri);
+            Semaphore permits = targetPermits.computeIfAbsent(target, t -> new Semaphore(maxPerTarget));
+            if (!permits.tryAcquire()) {
+                deferred.computeIfAbsent(now.plusMillis(dispatchIntervalMs), t -> new ArrayList<>()).add(delivery.getId());
+                continue;
+            }
+            CircuitBreaker breaker = breakerFor(target);
+            long nowMillis = System.currentTimeMillis();
+            if (!breaker.tryAcquire(nowMillis)) {
+                permits.release();
+                Instant retryAt = Instant.ofEpochMilli(Math.max(breaker.retryAtMillis(nowMillis), nowMillis + dispatchIntervalMs));
+                deferred.computeIfAbsent(retryAt, t -> new ArrayList<>()).add(delivery.getId());
+                continue;
+            }
+            if (!inFlight.tryAcquire()) {
+                permits.release(); // Capacity was checked up front, so this only guards against drift
+                breaker.cancel();
+                deferred.computeIfAbsent(now.plusMillis(dispatchIntervalMs), t -> new ArrayList<>()).add(delivery.getId());
+                continue;
+            }
+            fire(delivery, webhook, uri, permits, breaker);
+        }
+        if (!deferred.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    deferred.forEach((at, ids) -> deliveryRepository.defer(ids, at)));
+        }
+    }
+
+    private void fire(WebhookDelivery delivery, Webhook webhook, URI uri, Semaphore permits, CircuitBreaker breaker) {
+        long startNanos = System.nanoTime();
+        HttpRequest request;
+        try {
+            request = buildRequest(delivery, webhook, uri);
+        } catch (RuntimeException e) {
+            permits.release();
+            inFlight.release();
+            breaker.cancel(); // The target was never contacted
+            outcomes.add(Outcome.abandoned(delivery.getId(), "Invalid request: " + e.getMessage()));
+            return;
+        }
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            permits.release();
+            inFlight.release();
+            latencyTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+            Integer statusCode = response != null ? response.statusCode() : null;
+            boolean delivered = statusCode != null && statusCode >= 200 && statusCode < 300;
+            // 4xx means the target is up but rejected the call; only trip the breaker on outages
+            if (statusCode != null && statusCode < 500) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure(System.currentTimeMillis());
+            }
+
+            Counts c = countsFor(webhook.getId());
+            c.lastTriggeredAt.accumulateAndGet(Instant.now(), (a, b) -> a == null || a.isBefore(b) ? b : a);
+            (delivered ? c.successes : c.failures).incrementAndGet();
+            meterRegistry.counter("webhooks.deliveries", "outcome", delivered ? "delivered" : "failed").increment();
+
+            String errorText = error != null ? error.getClass().getSimpleName() + ": " + error.getMessage()
+                    : delivered ? null : "HTTP " + statusCode;
+            outcomes.add(new Outcome(delivery.getId(), delivered, false, statusCode, errorText,
+                    nz(webhook.getRetryCount(), 3), nz(webhook.getRetryInterval(), 300), Instant.now()));
+        });
+    }
+
+    private HttpRequest buildRequest(WebhookDelivery delivery, Webhook webhook, URI uri) {
+        String body = delivery.getPayload();
+        String timestamp = String.valueOf(Instant.now().getEpochSecond());
+        int timeout = Math.max(1, Math.min(nz(webhook.getTimeout(), 30), maxTimeoutSeconds));
+        String method = webhook.getHttpMethod() != null ? webhook.getHttpMethod().toUpperCase() : "POST";
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(timeout))
+                .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        boolean contentType = false;
+        for (Map.Entry<String, String> header : customHeaders(webhook).entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+            contentType |= header.getKey().equalsIgnoreCase("Content-Type");
+        }
+        if (!contentType) {
+            builder.header("Content-Type", "application/json");
+        }
+        builder.header(EVENT_HEADER, delivery.getEventType())
+                .header(DELIVERY_HEADER, String.valueOf(delivery.getId()))
+                .header(TIMESTAMP_HEADER, timestamp);
+        if (webhook.getSecretKey() != null && !webhook.getSecretKey().isBlank()) {
+            builder.header(SIGNATURE_HEADER, "sha256=" + sign(webhook.getSecretKey(), timestamp + "." + body));
+        }
+        return builder.build();
+    }
+
+    private Map<String, String> customHeaders(Webhook webhook) {
+        if (webhook.getHeaders() == null || webhook.getHeaders().isBlank()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(webhook.getHeaders(), HEADER_MAP);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed headers on webhook {}", webhook.getId());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Write queued outcomes back in one transaction. Results for rows no longer IN_FLIGHT
+     * (the claim expired and another node took over) are ignored.
+     */
+    private void recordOutcomes() {
+        List<Outcome> batch = new ArrayList<>();
+        for (Outcome outcome; (outcome = outcomes.poll()) != null; ) {
+            batch.add(outcome);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, WebhookDelivery> rows = deliveryRepository.findAllById(
+                                batch.stream().map(Outcome::deliveryId).toList()).stream()
+                        .collect(Collectors.toMap(WebhookDelivery::getId, Function.identity()));
+                List<WebhookDelivery> changed = new ArrayList<>(batch.size());
+                for (Outcome outcome : batch) {
+                    WebhookDelivery delivery = rows.get(outcome.deliveryId());
+                    if (delivery == null || delivery.getStatus() != WebhookDeliveryStatus.IN_FLIGHT) {
+                        continue;
+                    }
+                    apply(delivery, outcome);
+                    changed.add(delivery);
+                }
+                deliveryRepository.saveAll(changed);
+            });
+        } catch (RuntimeException e) {
+            outcomes.addAll(batch);
+            throw e;
+        }
+    }
+
+    private void apply(WebhookDelivery delivery, Outcome outcome) {
+        delivery.setResponseStatus(outcome.statusCode());
+        delivery.setLastError(truncate(outcome.error()));
+        if (outcome.abandoned()) {
+            delivery.setStatus(WebhookDeliveryStatus.FAILED);
+            return;
+        }
+        int attempts = nz(delivery.getAttempts(), 0) + 1;
+        delivery.setAttempts(attempts);
+        if (outcome.delivered()) {
+            delivery.setStatus(WebhookDeliveryStatus.DELIVERED);
+            delivery.setDeliveredAt(outcome.completedAt());
+        } else if (attempts > outcome.retryCount()) {
+            delivery.setStatus(WebhookDeliveryStatus.FAILED);
+            log.warn("Webhook delivery {} failed after {} attempts: {}", delivery.getId(), attempts, outcome.error());
+        } else {
+            delivery.setStatus(WebhookDeliveryStatus.PENDING);
+            delivery.setNextAttemptAt(outcome.completedAt().plusSeconds(outcome.retryIntervalSeconds()));
+        }
+    }
+
+    private CircuitBreaker breakerFor(String target) {
+        return breakers.computeIfAbsent(target, t -> new CircuitBreaker(breakerFailureThreshold,
+                breakerOpenSeconds * 1000, breakerMaxOpenSeconds * 1000));
+    }
+
+    private Counts countsFor(Long webhookId) {
+        return counts.computeIfAbsent(webhookId, id -> new Counts());
+    }
+
+    private static String targetKey(URI uri) {
+        int port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        return uri.getScheme().toLowerCase() + "://" + uri.getHost().toLowerCase() + ":" + port;
+    }
+
+    static String sign(String secret, String message) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private static int nz(Integer value, int fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private record Claim(List<WebhookDelivery> deliveries, Map<Long, Webhook> webhooks) {
+    }
+
+    private record Outcome(Long deliveryId, boolean delivered, boolean abandoned, Integer statusCode, String error,
+                           int retryCount, int retryIntervalSeconds, Instant completedAt) {
+
+        static Outcome abandoned(Long deliveryId, String error) {
+            return new Outcome(deliveryId, false, true, null, error, 0, 0, Instant.now());
+        }
+    }
+
+    private static final class Counts {
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicReference<Instant> lastTriggeredAt = new AtomicReference<>();
+    }
+}
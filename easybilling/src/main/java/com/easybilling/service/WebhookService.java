@@ -0,0 +1,136 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.Webhook;
+import com.easybilling.repository.WebhookDeliveryRepository;
+import com.easybilling.repository.WebhookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Publishes business events to tenant webhooks. Deliveries are queued in webhook_deliveries
+ * within the caller's transaction, so an event is only sent if the change that raised it commits;
+ * {@link WebhookDeliveryService} does the sending.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WebhookService {
+
+    private static final Pattern MERGE_FIELD = Pattern.compile("\\{\\{\\s*([\\w.]+)\\s*}}");
+
+    private final WebhookRepository webhookRepository;
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.customization.webhooks-enabled:true}")
+    private boolean webhooksEnabled;
+
+    /**
+     * Queue {@code eventType} for every active webhook of the tenant subscribed to it.
+     * {@code eventId} identifies the event; publishing the same event twice queues it once.
+     */
+    @Transactional
+    public int publish(Integer tenantId, String eventType, String eventId, Map<String, Object> data) {
+        if (!webhooksEnabled) {
+            return 0;
+        }
+        List<Webhook> webhooks = webhookRepository.findByTenantIdAndEventTypeAndIsActiveTrue(tenantId, eventType);
+        if (webhooks.isEmpty()) {
+            return 0;
+        }
+
+        Instant now = Instant.now();
+        String envelope = null;
+        int queued = 0;
+        for (Webhook webhook : webhooks) {
+            String payload;
+            if (webhook.getPayloadTemplate() != null && !webhook.getPayloadTemplate().isBlank()) {
+                payload = render(webhook.getPayloadTemplate(), tenantId, eventType, eventId, now, data);
+            } else {
+                if (envelope == null) {
+                    envelope = envelope(tenantId, eventType, eventId, now, data);
+                }
+                payload = envelope;
+            }
+            queued += deliveryRepository.enqueue(tenantId, webhook.getId(), eventType, eventId, payload, now);
+        }
+        log.debug("Queued {} webhook deliveries for {} {}", queued, eventType, eventId);
+        return queued;
+    }
+
+    /**
+     * Standard data block for invoice events.
+     */
+    public static Map<String, Object> invoiceData(Invoice invoice) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("invoiceId", invoice.getId());
+        data.put("invoiceNumber", invoice.getInvoiceNumber());
+        data.put("customerId", invoice.getCustomerId());
+        data.put("storeId", invoice.getStoreId());
+        data.put("status", invoice.getStatus());
+        data.put("totalAmount", invoice.getTotalAmount());
+        data.put("paidAmount", invoice.getPaidAmount());
+        data.put("balanceAmount", invoice.getBalanceAmount());
+        data.put("dueDate", invoice.getDueDate() != null ? invoice.getDueDate().toString() : null);
+        return data;
+    }
+
+    private String envelope(Integer tenantId, String eventType, String eventId, Instant occurredAt,
+                            Map<String, Object> data) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("event", eventType);
+        body.put("id", eventId);
+        body.put("tenantId", tenantId);
+        body.put("occurredAt", occurredAt.toString());
+        body.put("data", data);
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise webhook payload for " + eventType, e);
+        }
+    }
+
+    /**
+     * Substitute {{field}} merge fields. Values are JSON-escaped (without quotes) so a template like
+     * {"number": "{{invoiceNumber}}"} stays valid JSON; unknown fields render empty.
+     */
+    private String render(String template, Integer tenantId, String eventType, String eventId,
+                          Instant occurredAt, Map<String, Object> data) {
+        Map<String, Object> fields = new LinkedHashMap<>(data);
+        fields.put("event", eventType);
+        fields.put("eventId", eventId);
+        fields.put("tenantId", tenantId);
+        fields.put("occurredAt", occurredAt.toString());
+
+        Matcher matcher = MERGE_FIELD.matcher(template);
+        StringBuilder out = new StringBuilder(template.length() + 64);
+        while (matcher.find()) {
+            Object value = fields.get(matcher.group(1));
+            matcher.appendReplacement(out, Matcher.quoteReplacement(value != null ? escape(value.toString()) : ""));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    private String escape(String value) {
+        try {
+            String quoted = objectMapper.writeValueAsString(value);
+            return quoted.substring(1, quoted.length() - 1);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.easybilling.service;
+
+import com.easybilling.context.ContextSnapshot;
+import com.easybilling.context.UserContext;
+import com.easybilling.entity.CustomWorkflow;
+import com.easybilling.repository.CustomWorkflowRepository;
+import com.easybilling.util.AfterCommit;
+import com.easybilling.workflow.CompiledWorkflow;
+import com.easybilling.workflow.WorkflowCompiler;
+import com.easybilling.workflow.WorkflowEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tenant workflows for business events. Each (tenant, trigger) set of active workflows is
+ * compiled once by {@link WorkflowCompiler} and cached in execution order; the cache re-checks a
+ * cheap count/max(updated_at) version every app.workflows.refresh-ms, so edits on any node are
+ * picked up and only the affected set is recompiled. Conditions are evaluated on the caller's
+ * thread; matched actions run on a bounded pool after the caller's transaction commits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkflowEngine {
+
+    private final CustomWorkflowRepository workflowRepository;
+    private final WorkflowCompiler compiler;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.customization.custom-workflows-enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.workflows.refresh-ms:5000}")
+    private long refreshMs;
+
+    @Value("${app.workflows.action-threads:4}")
+    private int actionThreads;
+
+    @Value("${app.workflows.action-queue-capacity:1000}")
+    private int actionQueueCapacity;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        // When the queue is full the committing thread runs the actions itself, which throttles producers
+        executor = new ThreadPoolExecutor(actionThreads, actionThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(actionQueueCapacity), new CustomizableThreadFactory("workflow-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        meterRegistry.gauge("workflows.actions.queued", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("workflows.compiled.sets", cache, Map::size);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Evaluate the event against the tenant's workflows for its trigger and schedule the
+     * actions of every match. Returns the number of matched workflows.
+     */
+    public int fire(WorkflowEvent event) {
+        if (!enabled) {
+            return 0;
+        }
+        List<CompiledWorkflow> workflows = compiled(event.getTenantId(), event.getTriggerEvent());
+        List<CompiledWorkflow> matched = null;
+        for (CompiledWorkflow workflow : workflows) {
+            if (workflow.matches(event)) {
+                if (matched == null) {
+                    matched = new ArrayList<>();
+                }
+                matched.add(workflow);
+            }
+        }
+        if (matched == null) {
+            return 0;
+        }
+        List<CompiledWorkflow> toRun = matched;
+        // Restores the caller's context when the full queue makes the committing thread run it
+        ContextSnapshot context = new ContextSnapshot(event.getTenantId(), UserContext.getUserId());
+        AfterCommit.run(() -> executor.execute(context.wrap(() -> runActions(event, toRun))));
+        return matched.size();
+    }
+
+    /**
+     * Drop the compiled set so the next event recompiles it; call after changing workflows.
+     */
+    public void invalidate(Integer tenantId, String triggerEvent) {
+        cache.remove(new Key(tenantId, triggerEvent));
+    }
+
+    /**
+     * The compiled workflows for (tenant, trigger) in execution order.
+     */
+    public List<CompiledWorkflow> compiled(Integer tenantId, String triggerEvent) {
+        Key key = new Key(tenantId, triggerEvent);
+        Entry entry = cache.get(key);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.checkedAt() < TimeUnit.MILLISECONDS.toNanos(refreshMs)) {
+            return entry.workflows();
+        }
+
+        CustomWorkflowRepository.VersionView version = workflowRepository.findVersion(tenantId, triggerEvent);
+        long count = version != null && version.getWorkflows() != null ? version.getWorkflows() : 0;
+        Instant lastUpdated = version != null ? version.getLastUpdated() : null;
+        if (entry != null && entry.count() == count && Objects.equals(entry.lastUpdated(), lastUpdated)) {
+            cache.put(key, new Entry(entry.workflows(), count, lastUpdated, now));
+            return entry.workflows();
+        }
+
+        List<CompiledWorkflow> workflows = count == 0 ? Collections.emptyList() : compile(tenantId, triggerEvent);
+        cache.put(key, new Entry(workflows, count, lastUpdated, now));
+        return workflows;
+    }
+
+    private List<CompiledWorkflow> compile(Integer tenantId, String triggerEvent) {
+        List<CompiledWorkflow> compiled = new ArrayList<>();
+        for (CustomWorkflow workflow : workflowRepository
+                .findByTenantIdAndTriggerEventAndIsActiveTrueOrderByExecutionOrderAscIdAsc(tenantId, triggerEvent)) {
+            try {
+                compiled.add(compiler.compile(workflow));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping workflow {} for tenant {}: {}", workflow.getId(), tenantId, e.getMessage());
+            }
+        }
+        log.debug("Compiled {} workflows for tenant {} trigger {}", compiled.size(), tenantId, triggerEvent);
+        return Collections.unmodifiableList(compiled);
+    }
+
+    /**
+     * Run matched workflows in order, each in its own transaction so one failing workflow
+     * does not undo the actions of the others.
+     */
+    private void runActions(WorkflowEvent event, List<CompiledWorkflow> workflows) {
+        for (CompiledWorkflow workflow : workflows) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (CompiledWorkflow.Step step : workflow.steps()) {
+                        step.action().execute(step.type(), step.config(), event);
+                    }
+                    workflowRepository.recordExecution(workflow.id(), 1, 0, Instant.now());
+                });
+                meterRegistry.counter("workflows.executions", "outcome", "success").increment();
+            } catch (RuntimeException e) {
+                log.error("Workflow {} failed for {} {}", workflow.id(), event.getTriggerEvent(), event.getEntityId(), e);
+                meterRegistry.counter("workflows.executions", "outcome", "failure").increment();
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            workflowRepository.recordExecution(workflow.id(), 1, 1, Instant.now()));
+                } catch (RuntimeException ex) {
+                    log.warn("Could not record failure of workflow {}", workflow.id(), ex);
+                }
+            }
+        }
+    }
+
+    private record Key(Integer tenantId, String triggerEvent) {
+    }
+
+    private record Entry(List<CompiledWorkflow> workflows, long count, Instant lastUpdated, long checkedAt) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.easybilling.timer;
+
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+import com.easybilling.service.OffersService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marks an offer expired when its validTo passes.
+ */
+@Component
+@RequiredArgsConstructor
+public class OfferExpiryTimerHandler implements TimerHandler {
+
+    private final OffersService offersService;
+
+    @Override
+    public TimerType getType() {
+        return TimerType.OFFER_EXPIRY;
+    }
+
+    @Override
+    public void handle(ScheduledTimer timer) {
+        offersService.expireOffer(timer.getTargetId(), timer.getTenantId());
+    }
+}
@@ -0,0 +1,27 @@
+package com.easybilling.timer;
+
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+import com.easybilling.service.DunningService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the dunning reminder stage scheduled for an overdue invoice.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentReminderTimerHandler implements TimerHandler {
+
+    private final DunningService dunningService;
+
+    @Override
+    public TimerType getType() {
+        return TimerType.PAYMENT_REMINDER;
+    }
+
+    @Override
+    public void handle(ScheduledTimer timer) {
+        dunningService.sendReminder(timer.getTenantId(), timer.getTargetId(), timer.getPayload());
+    }
+}
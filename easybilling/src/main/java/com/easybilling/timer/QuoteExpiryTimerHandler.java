@@ -0,0 +1,27 @@
+package com.easybilling.timer;
+
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+import com.easybilling.service.QuoteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Expires a sent quote when its validity date passes.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuoteExpiryTimerHandler implements TimerHandler {
+
+    private final QuoteService quoteService;
+
+    @Override
+    public TimerType getType() {
+        return TimerType.QUOTE_EXPIRY;
+    }
+
+    @Override
+    public void handle(ScheduledTimer timer) {
+        quoteService.expireQuote(timer.getTenantId(), timer.getTargetId());
+    }
+}
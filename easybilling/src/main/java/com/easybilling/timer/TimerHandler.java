@@ -0,0 +1,16 @@
+package com.easybilling.timer;
+
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+
+/**
+ * Acts on due timers of one type. Handlers run in the transaction that deletes the timer, with the
+ * tenant context set, so their writes commit only if the timer is consumed. Throwing rolls both
+ * back and retries the timer later. A timer can fire after its target changed, so check state.
+ */
+public interface TimerHandler {
+
+    TimerType getType();
+
+    void handle(ScheduledTimer timer);
+}
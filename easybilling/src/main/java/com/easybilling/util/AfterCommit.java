@@ -0,0 +1,31 @@
+package com.easybilling.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers side effects until the surrounding transaction commits.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Run the action after the current transaction commits, or immediately when no
+     * transaction synchronization is active. Rolled-back work never runs the action.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
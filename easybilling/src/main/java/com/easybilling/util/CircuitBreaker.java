@@ -0,0 +1,86 @@
+package com.easybilling.util;
+
+/**
+ * Consecutive-failure circuit breaker. Opens after {@code failureThreshold} failures in a row,
+ * rejects calls for a cool-down that doubles on each failed probe (up to {@code maxOpenMillis}),
+ * then lets a single probe through (half-open); a successful probe closes the circuit.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis;
+    private long openUntil;
+
+    public CircuitBreaker(int failureThreshold, long baseOpenMillis, long maxOpenMillis) {
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.openMillis = baseOpenMillis;
+    }
+
+    /**
+     * Whether a call may proceed now. In the half-open state only one probe is admitted at a time.
+     */
+    public synchronized boolean tryAcquire(long nowMillis) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowMillis < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true; // The probe
+            default:
+                return false; // A probe is already in flight
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openMillis = baseOpenMillis;
+    }
+
+    public synchronized void onFailure(long nowMillis) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, maxOpenMillis);
+            open(nowMillis);
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open(nowMillis);
+        }
+    }
+
+    /**
+     * Give back an admission that was not used, so a half-open circuit can probe again.
+     */
+    public synchronized void cancel() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    /**
+     * Earliest time a call could be admitted again.
+     */
+    public synchronized long retryAtMillis(long nowMillis) {
+        return state == State.OPEN ? Math.max(openUntil, nowMillis) : nowMillis;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open(long nowMillis) {
+        state = State.OPEN;
+        openUntil = nowMillis + openMillis;
+    }
+}
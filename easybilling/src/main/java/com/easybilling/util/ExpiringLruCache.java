@@ -0,0 +1,64 @@
+package com.easybilling.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small bounded in-process cache: least recently used entries are dropped beyond
+ * {@code maxEntries}, and each entry is fresh for {@code ttlMillis} after it was put. Expired
+ * entries are kept until they are replaced or pushed out, so a caller whose source of truth is
+ * unreachable can still fall back to the last known value. Thread-safe.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ExpiringLruCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and TTL must be positive");
+        }
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The value if present and not expired at {@code nowMillis}, otherwise null.
+     */
+    public synchronized V getFresh(K key, long nowMillis) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt > nowMillis ? entry.value : null;
+    }
+
+    /**
+     * The value if present, expired or not.
+     */
+    public synchronized V getStale(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public synchronized void put(K key, V value, long nowMillis) {
+        entries.put(key, new Entry<>(value, nowMillis + ttlMillis));
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.easybilling.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck; as in Kafka's purgatory). The first level has
+ * {@code wheelSize} buckets of {@code tickMillis}; each further level, created on demand, has
+ * buckets as wide as the whole level below, so far-off deadlines cost no more than near ones.
+ * Only non-empty buckets are queued, so advancing the clock never walks empty ticks, and
+ * entries cascade down a level as their bucket comes due. Deadlines resolve to the tick.
+ * Thread-safe; {@link #advance} returns expired items so callers handle them outside the lock.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final PriorityQueue<Bucket<T>> queue = new PriorityQueue<>(Comparator.comparingLong(b -> b.expiration));
+    private final Level root;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size above one");
+        }
+        this.root = new Level(tickMillis, wheelSize, startMillis);
+    }
+
+    /**
+     * Schedule {@code item} for {@code deadlineMillis}. Returns false, without scheduling, when the
+     * deadline falls within the current tick; the caller should handle the item now.
+     */
+    public synchronized boolean add(long deadlineMillis, T item) {
+        if (!root.add(new Entry<>(deadlineMillis, item))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Move the clock to {@code nowMillis} and return the items that came due, earliest bucket first.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        Bucket<T> bucket;
+        while ((bucket = queue.peek()) != null && bucket.expiration <= nowMillis) {
+            queue.poll();
+            root.advanceClock(bucket.expiration);
+            List<Entry<T>> entries = bucket.entries;
+            bucket.entries = new ArrayList<>();
+            bucket.expiration = -1;
+            for (Entry<T> entry : entries) {
+                if (!root.add(entry)) { // Otherwise cascaded into a finer bucket
+                    size--;
+                    expired.add(entry.item);
+                }
+            }
+        }
+        root.advanceClock(nowMillis);
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private final class Level {
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        boolean add(Entry<T> entry) {
+            if (entry.deadline < currentTime + tickMillis) {
+                return false;
+            }
+            if (entry.deadline < currentTime + interval) {
+                long virtualId = entry.deadline / tickMillis;
+                Bucket<T> bucket = buckets[(int) Math.floorMod(virtualId, (long) wheelSize)];
+                bucket.entries.add(entry);
+                long expiration = virtualId * tickMillis;
+                if (bucket.expiration != expiration) {
+                    bucket.expiration = expiration;
+                    queue.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, wheelSize, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        void advanceClock(long time) {
+            if (time >= currentTime + tickMillis) {
+                currentTime = time - Math.floorMod(time, tickMillis);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket<T> {
+        private long expiration = -1;
+        private List<Entry<T>> entries = new ArrayList<>();
+    }
+
+    private record Entry<T>(long deadline, T item) {
+    }
+}
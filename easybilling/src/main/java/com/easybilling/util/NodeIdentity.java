@@ -0,0 +1,18 @@
+package com.easybilling.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Identifies this application instance (pid@host) in rows shared between cluster nodes.
+ */
+public final class NodeIdentity {
+
+    public static final String NODE_ID = truncate(ManagementFactory.getRuntimeMXBean().getName(), 100);
+
+    private NodeIdentity() {
+    }
+
+    private static String truncate(String value, int max) {
+        return value.length() > max ? value.substring(0, max) : value;
+    }
+}
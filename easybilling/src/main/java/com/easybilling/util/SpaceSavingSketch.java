@@ -0,0 +1,150 @@
+package com.easybilling.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitters sketch tracking at most {@code capacity} items by weight.
+ * Any item whose true weight exceeds total/capacity is guaranteed to be tracked, and each
+ * tracked count over-estimates the truth by at most its recorded error. A secondary value
+ * (e.g. revenue) is accumulated for tracked items. Sketches merge per Agarwal et al.,
+ * so per-day sketches can be combined over any date range.
+ */
+public class SpaceSavingSketch {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(String item, String label, long weight, long value) {
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(item, label, 0, 0, 0);
+            } else {
+                Counter min = minCounter();
+                counters.remove(min.item);
+                // The newcomer inherits the evicted count as its error bound
+                counter = new Counter(item, label, min.count, min.count, 0);
+            }
+            counters.put(item, counter);
+        }
+        counter.count += weight;
+        counter.value += value;
+        if (label != null) {
+            counter.label = label;
+        }
+    }
+
+    public void merge(SpaceSavingSketch other) {
+        long thisMin = counters.size() < capacity ? 0 : minCounter().count;
+        long otherMin = other.counters.size() < other.capacity ? 0 : other.minCounter().count;
+
+        Map<String, Counter> merged = new HashMap<>();
+        for (Counter counter : counters.values()) {
+            Counter peer = other.counters.get(counter.item);
+            merged.put(counter.item, peer != null
+                    ? new Counter(counter.item, counter.label, counter.count + peer.count,
+                            counter.error + peer.error, counter.value + peer.value)
+                    : new Counter(counter.item, counter.label, counter.count + otherMin,
+                            counter.error + otherMin, counter.value));
+        }
+        for (Counter peer : other.counters.values()) {
+            if (!merged.containsKey(peer.item)) {
+                merged.put(peer.item, new Counter(peer.item, peer.label, peer.count + thisMin,
+                        peer.error + thisMin, peer.value));
+            }
+        }
+
+        counters.clear();
+        merged.values().stream()
+                .sorted(Comparator.comparingLong(Counter::getCount).reversed())
+                .limit(capacity)
+                .forEach(c -> counters.put(c.item, c));
+    }
+
+    /**
+     * The {@code n} heaviest tracked items, heaviest first.
+     */
+    public List<Counter> top(int n) {
+        List<Counter> result = new ArrayList<>(counters.values());
+        result.sort(Comparator.comparingLong(Counter::getCount).reversed());
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    public byte[] toBytes() {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(capacity);
+            out.writeShort(counters.size());
+            for (Counter counter : counters.values()) {
+                out.writeUTF(counter.item);
+                out.writeUTF(counter.label != null ? counter.label : "");
+                out.writeLong(counter.count);
+                out.writeLong(counter.error);
+                out.writeLong(counter.value);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static SpaceSavingSketch fromBytes(byte[] bytes, int defaultCapacity) {
+        if (bytes == null || bytes.length == 0) {
+            return new SpaceSavingSketch(defaultCapacity);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            in.readByte(); // Format version
+            SpaceSavingSketch sketch = new SpaceSavingSketch(in.readUnsignedShort());
+            int size = in.readUnsignedShort();
+            for (int i = 0; i < size; i++) {
+                Counter counter = new Counter(in.readUTF(), in.readUTF(), in.readLong(), in.readLong(), in.readLong());
+                sketch.counters.put(counter.item, counter);
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Counter minCounter() {
+        Counter min = null;
+        for (Counter counter : counters.values()) {
+            if (min == null || counter.count < min.count) {
+                min = counter;
+            }
+        }
+        return min;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Counter {
+        private final String item;
+        private String label;
+        private long count;
+        private long error;
+        private long value;
+    }
+}
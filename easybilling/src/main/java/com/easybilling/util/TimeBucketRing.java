@@ -0,0 +1,83 @@
+package com.easybilling.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of time buckets holding a small set of long counters per bucket.
+ * Bucket numbers are absolute (e.g. epoch minutes); a slot is lazily reset when a newer
+ * bucket maps onto it, so the ring never needs a background sweeper and old data
+ * simply ages out after {@code size} buckets.
+ */
+public class TimeBucketRing {
+
+    private final int size;
+    private final int metrics;
+    private final long[] stamps;
+    private final long[] values;
+    private long lastBucket;
+
+    public TimeBucketRing(int size, int metrics, long createdBucket) {
+        this.size = size;
+        this.metrics = metrics;
+        this.stamps = new long[size];
+        this.values = new long[size * metrics];
+        this.lastBucket = createdBucket;
+        Arrays.fill(stamps, Long.MIN_VALUE);
+    }
+
+    /**
+     * Add deltas (one per metric, in metric order) to the given bucket.
+     */
+    public synchronized void add(long bucket, long... deltas) {
+        int slot = slot(bucket);
+        if (stamps[slot] != bucket) {
+            if (stamps[slot] > bucket) {
+                return; // Older than the ring can hold
+            }
+            stamps[slot] = bucket;
+            Arrays.fill(values, slot * metrics, slot * metrics + metrics, 0L);
+        }
+        int base = slot * metrics;
+        for (int i = 0; i < deltas.length && i < metrics; i++) {
+            values[base + i] += deltas[i];
+        }
+        lastBucket = Math.max(lastBucket, bucket);
+    }
+
+    /**
+     * Sum every metric over buckets {@code [fromBucket, toBucket]}. The extra trailing
+     * element of the result is the number of non-empty buckets in the range.
+     */
+    public synchronized long[] sum(long fromBucket, long toBucket) {
+        long[] totals = new long[metrics + 1];
+        long from = Math.max(fromBucket, toBucket - size + 1);
+        for (long bucket = from; bucket <= toBucket; bucket++) {
+            int slot = slot(bucket);
+            if (stamps[slot] != bucket) {
+                continue;
+            }
+            int base = slot * metrics;
+            boolean active = false;
+            for (int i = 0; i < metrics; i++) {
+                totals[i] += values[base + i];
+                active |= values[base + i] != 0;
+            }
+            if (active) {
+                totals[metrics]++;
+            }
+        }
+        return totals;
+    }
+
+    public synchronized long getLastBucket() {
+        return lastBucket;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) size);
+    }
+}
@@ -0,0 +1,19 @@
+package com.easybilling.workflow;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A workflow with its conditions compiled to a predicate tree and its actions bound to beans.
+ */
+public record CompiledWorkflow(Long id, String name, int executionOrder,
+                               Predicate<WorkflowEvent> condition, List<Step> steps) {
+
+    public boolean matches(WorkflowEvent event) {
+        return condition.test(event);
+    }
+
+    public record Step(String type, WorkflowAction action, Map<String, Object> config) {
+    }
+}
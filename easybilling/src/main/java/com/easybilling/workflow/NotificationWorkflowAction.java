@@ -0,0 +1,58 @@
+package com.easybilling.workflow;
+
+import com.easybilling.dto.NotificationRequest;
+import com.easybilling.enums.NotificationType;
+import com.easybilling.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SEND_EMAIL / SEND_SMS / SEND_WHATSAPP / SEND_PUSH: queue a notification.
+ * Config: {@code to}, {@code subject}, {@code message}; each may use {{field}} merge fields.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationWorkflowAction implements WorkflowAction {
+
+    private static final Pattern MERGE_FIELD = Pattern.compile("\\{\\{\\s*([\\w.]+)\\s*}}");
+
+    private final NotificationService notificationService;
+
+    @Override
+    public Set<String> getTypes() {
+        return Set.of("SEND_EMAIL", "SEND_SMS", "SEND_WHATSAPP", "SEND_PUSH");
+    }
+
+    @Override
+    public void validate(String type, Map<String, Object> config) {
+        if (config.get("to") == null || config.get("message") == null) {
+            throw new IllegalArgumentException(type + " requires 'to' and 'message'");
+        }
+    }
+
+    @Override
+    public void execute(String type, Map<String, Object> config, WorkflowEvent event) {
+        NotificationRequest request = new NotificationRequest();
+        request.setType(NotificationType.valueOf(type.substring("SEND_".length())));
+        request.setRecipient(render(config.get("to"), event));
+        request.setSubject(render(config.getOrDefault("subject", event.getTriggerEvent()), event));
+        request.setMessage(render(config.get("message"), event));
+        notificationService.sendNotification(request, event.getTenantId());
+    }
+
+    private static String render(Object template, WorkflowEvent event) {
+        Matcher matcher = MERGE_FIELD.matcher(String.valueOf(template));
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            Object value = WorkflowFields.any(matcher.group(1)).apply(event);
+            matcher.appendReplacement(out, Matcher.quoteReplacement(value != null ? value.toString() : ""));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+}
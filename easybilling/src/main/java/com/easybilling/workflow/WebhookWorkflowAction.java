@@ -0,0 +1,41 @@
+package com.easybilling.workflow;
+
+import com.easybilling.service.WebhookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CALL_WEBHOOK: publish the event to the tenant's webhooks subscribed to {@code config.event}.
+ */
+@Component
+@RequiredArgsConstructor
+public class WebhookWorkflowAction implements WorkflowAction {
+
+    private final WebhookService webhookService;
+
+    @Override
+    public Set<String> getTypes() {
+        return Set.of("CALL_WEBHOOK");
+    }
+
+    @Override
+    public void validate(String type, Map<String, Object> config) {
+        if (config.get("event") == null) {
+            throw new IllegalArgumentException(type + " requires 'event'");
+        }
+    }
+
+    @Override
+    public void execute(String type, Map<String, Object> config, WorkflowEvent event) {
+        String eventType = config.get("event").toString();
+        Map<String, Object> data = new LinkedHashMap<>(event.getAttributes());
+        data.put("trigger", event.getTriggerEvent());
+        data.put("entityId", event.getEntityId());
+        webhookService.publish(event.getTenantId(), eventType,
+                event.getTriggerEvent() + ":" + event.getEntityId(), data);
+    }
+}
@@ -0,0 +1,25 @@
+package com.easybilling.workflow;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An action a workflow can run when its conditions match, e.g. SEND_EMAIL. Actions are Spring
+ * beans looked up by type when a workflow is compiled, and are executed off the request thread
+ * after the triggering transaction commits, with the tenant context set.
+ */
+public interface WorkflowAction {
+
+    /**
+     * Action types (the "type" in a workflow's actions JSON) handled by this bean.
+     */
+    Set<String> getTypes();
+
+    /**
+     * Check an action's config when the workflow is compiled; throw IllegalArgumentException if invalid.
+     */
+    default void validate(String type, Map<String, Object> config) {
+    }
+
+    void execute(String type, Map<String, Object> config, WorkflowEvent event);
+}
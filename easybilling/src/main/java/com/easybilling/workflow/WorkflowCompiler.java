@@ -0,0 +1,395 @@
+package com.easybilling.workflow;
+
+import com.easybilling.entity.CustomWorkflow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles a workflow's JSON conditions and actions once, so evaluating an event is a walk over
+ * plain predicates with typed field accessors and pre-converted constants.
+ * <p>
+ * Conditions are an array (all must hold) of {@code {field, operator, value}} objects, which may be
+ * nested with {@code {all: [...]}}, {@code {any: [...]}} and {@code {not: {...}}}. Operators:
+ * = != &gt; &gt;= &lt; &lt;= between in not_in contains starts_with ends_with matches is_null is_not_null.
+ * Actions are an array of {@code {type, config}} objects bound to {@link WorkflowAction} beans.
+ * Unquoted field names and single quotes are accepted, as in the stored examples.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkflowCompiler {
+
+    private static final TypeReference<Map<String, Object>> CONFIG_MAP = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final List<WorkflowAction> actionBeans;
+
+    private ObjectReader reader;
+    private final Map<String, WorkflowAction> actions = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        reader = objectMapper.reader().withFeatures(
+                JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES.mappedFeature(),
+                JsonReadFeature.ALLOW_SINGLE_QUOTES.mappedFeature());
+        for (WorkflowAction action : actionBeans) {
+            for (String type : action.getTypes()) {
+                actions.put(type.toUpperCase(Locale.ROOT), action);
+            }
+        }
+    }
+
+    /**
+     * Compile a workflow; throws IllegalArgumentException when its definition is invalid.
+     */
+    public CompiledWorkflow compile(CustomWorkflow workflow) {
+        try {
+            Predicate<WorkflowEvent> condition = compileNode(parse(workflow.getConditions()));
+            List<CompiledWorkflow.Step> steps = compileActions(parse(workflow.getActions()));
+            return new CompiledWorkflow(workflow.getId(), workflow.getWorkflowName(),
+                    workflow.getExecutionOrder() != null ? workflow.getExecutionOrder() : 0, condition, steps);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid workflow '" + workflow.getWorkflowName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    private JsonNode parse(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return reader.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Predicate<WorkflowEvent> compileNode(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return e -> true;
+        }
+        if (node.isArray()) {
+            return all(node);
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("condition must be an object or array: " + node);
+        }
+        if (node.has("all")) {
+            return all(node.get("all"));
+        }
+        if (node.has("any")) {
+            return any(node.get("any"));
+        }
+        if (node.has("not")) {
+            return compileNode(node.get("not")).negate();
+        }
+        return comparison(node);
+    }
+
+    private Predicate<WorkflowEvent> all(JsonNode nodes) {
+        List<Predicate<WorkflowEvent>> children = children(nodes);
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        int size = children.size();
+        return e -> {
+            for (int i = 0; i < size; i++) {
+                if (!children.get(i).test(e)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private Predicate<WorkflowEvent> any(JsonNode nodes) {
+        List<Predicate<WorkflowEvent>> children = children(nodes);
+        if (children.isEmpty()) {
+            return e -> false;
+        }
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        int size = children.size();
+        return e -> {
+            for (int i = 0; i < size; i++) {
+                if (children.get(i).test(e)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private List<Predicate<WorkflowEvent>> children(JsonNode nodes) {
+        if (nodes == null || !nodes.isArray()) {
+            throw new IllegalArgumentException("all/any expects an array");
+        }
+        List<Predicate<WorkflowEvent>> children = new ArrayList<>(nodes.size());
+        nodes.forEach(child -> children.add(compileNode(child)));
+        return List.copyOf(children);
+    }
+
+    private Predicate<WorkflowEvent> comparison(JsonNode node) {
+        String field = node.path("field").asText(null);
+        if (field == null || field.isBlank()) {
+            throw new IllegalArgumentException("condition without a field: " + node);
+        }
+        String operator = node.path("operator").asText("==").trim().toLowerCase(Locale.ROOT);
+        JsonNode value = node.get("value");
+
+        switch (operator) {
+            case "is_null":
+            case "is_not_null": {
+                Function<WorkflowEvent, Object> accessor = WorkflowFields.any(field);
+                Predicate<WorkflowEvent> isNull = e -> accessor.apply(e) == null;
+                return operator.equals("is_null") ? isNull : isNull.negate();
+            }
+            case ">":
+            case "gt":
+            case ">=":
+            case "gte":
+            case "<":
+            case "lt":
+            case "<=":
+            case "lte":
+            case "between":
+                return numeric(field, operator, value);
+            case "=":
+            case "==":
+            case "eq":
+            case "!=":
+            case "<>":
+            case "ne":
+            case "in":
+            case "not_in":
+                return isNumeric(field, value) ? numeric(field, operator, value) : text(field, operator, value);
+            case "contains":
+            case "starts_with":
+            case "ends_with":
+            case "matches":
+                return text(field, operator, value);
+            default:
+                throw new IllegalArgumentException("unknown operator '" + operator + "'");
+        }
+    }
+
+    private Predicate<WorkflowEvent> numeric(String field, String operator, JsonNode value) {
+        Function<WorkflowEvent, BigDecimal> typed = WorkflowFields.number(field);
+        Function<WorkflowEvent, BigDecimal> accessor = typed != null ? typed
+                : e -> toDecimal(e.getAttributes().get(field));
+
+        switch (operator) {
+            case ">":
+            case "gt": {
+                BigDecimal c = decimal(value);
+                return e -> { BigDecimal v = accessor.apply(e); return v != null && v.compareTo(c) > 0; };
+            }
+            case ">=":
+            case "gte": {
+                BigDecimal c = decimal(value);
+                return e -> { BigDecimal v = accessor.apply(e); return v != null && v.compareTo(c) >= 0; };
+            }
+            case "<":
+            case "lt": {
+                BigDecimal c = decimal(value);
+                return e -> { BigDecimal v = accessor.apply(e); return v != null && v.compareTo(c) < 0; };
+            }
+            case "<=":
+            case "lte": {
+                BigDecimal c = decimal(value);
+                return e -> { BigDecimal v = accessor.apply(e); return v != null && v.compareTo(c) <= 0; };
+            }
+            case "between": {
+                BigDecimal[] range = decimals(value);
+                if (range.length != 2) {
+                    throw new IllegalArgumentException("between expects [min, max]");
+                }
+                return e -> {
+                    BigDecimal v = accessor.apply(e);
+                    return v != null && v.compareTo(range[0]) >= 0 && v.compareTo(range[1]) <= 0;
+                };
+            }
+            case "in":
+            case "not_in": {
+                BigDecimal[] options = decimals(value);
+                Predicate<WorkflowEvent> in = e -> {
+                    BigDecimal v = accessor.apply(e);
+                    if (v == null) {
+                        return false;
+                    }
+                    for (BigDecimal option : options) {
+                        if (v.compareTo(option) == 0) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+                return operator.equals("in") ? in : in.negate();
+            }
+            default: {
+                BigDecimal c = decimal(value);
+                Predicate<WorkflowEvent> eq = e -> { BigDecimal v = accessor.apply(e); return v != null && v.compareTo(c) == 0; };
+                return operator.equals("=") || operator.equals("==") || operator.equals("eq") ? eq : eq.negate();
+            }
+        }
+    }
+
+    private Predicate<WorkflowEvent> text(String field, String operator, JsonNode value) {
+        Function<WorkflowEvent, String> typed = WorkflowFields.text(field);
+        Function<WorkflowEvent, String> accessor = typed != null ? typed : e -> {
+            Object v = e.getAttributes().get(field);
+            return v != null ? v.toString() : null;
+        };
+
+        switch (operator) {
+            case "in":
+            case "not_in": {
+                Set<String> options = new HashSet<>(texts(value));
+                Predicate<WorkflowEvent> in = e -> options.contains(accessor.apply(e));
+                return operator.equals("in") ? in : in.negate();
+            }
+            case "contains": {
+                String c = text(value);
+                return e -> { String v = accessor.apply(e); return v != null && v.contains(c); };
+            }
+            case "starts_with": {
+                String c = text(value);
+                return e -> { String v = accessor.apply(e); return v != null && v.startsWith(c); };
+            }
+            case "ends_with": {
+                String c = text(value);
+                return e -> { String v = accessor.apply(e); return v != null && v.endsWith(c); };
+            }
+            case "matches": {
+                Pattern pattern;
+                try {
+                    pattern = Pattern.compile(text(value));
+                } catch (PatternSyntaxException ex) {
+                    throw new IllegalArgumentException("invalid pattern: " + ex.getDescription());
+                }
+                return e -> { String v = accessor.apply(e); return v != null && pattern.matcher(v).matches(); };
+            }
+            default: {
+                String c = text(value);
+                Predicate<WorkflowEvent> eq = e -> c.equals(accessor.apply(e));
+                return operator.equals("=") || operator.equals("==") || operator.equals("eq") ? eq : eq.negate();
+            }
+        }
+    }
+
+    private List<CompiledWorkflow.Step> compileActions(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return Collections.emptyList();
+        }
+        if (!node.isArray()) {
+            throw new IllegalArgumentException("actions must be an array");
+        }
+        List<CompiledWorkflow.Step> steps = new ArrayList<>(node.size());
+        for (JsonNode item : node) {
+            String type = item.path("type").asText("").trim().toUpperCase(Locale.ROOT);
+            WorkflowAction action = actions.get(type);
+            if (action == null) {
+                throw new IllegalArgumentException("unknown action type '" + type + "'");
+            }
+            JsonNode configNode = item.get("config");
+            Map<String, Object> config = configNode != null && configNode.isObject()
+                    ? Collections.unmodifiableMap(new LinkedHashMap<>(objectMapper.convertValue(configNode, CONFIG_MAP)))
+                    : Collections.emptyMap();
+            action.validate(type, config);
+            steps.add(new CompiledWorkflow.Step(type, action, config));
+        }
+        return Collections.unmodifiableList(steps);
+    }
+
+    private static boolean isNumeric(String field, JsonNode value) {
+        if (WorkflowFields.number(field) != null) {
+            return true;
+        }
+        if (WorkflowFields.text(field) != null) {
+            return false;
+        }
+        JsonNode sample = value != null && value.isArray() && value.size() > 0 ? value.get(0) : value;
+        return sample != null && sample.isNumber();
+    }
+
+    private static BigDecimal decimal(JsonNode value) {
+        if (value != null && value.isNumber()) {
+            return value.decimalValue();
+        }
+        if (value != null && value.isTextual()) {
+            try {
+                return new BigDecimal(value.asText().trim());
+            } catch (NumberFormatException e) {
+                // Fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException("expected a number but got " + value);
+    }
+
+    private static BigDecimal[] decimals(JsonNode value) {
+        if (value == null || !value.isArray()) {
+            return new BigDecimal[]{decimal(value)};
+        }
+        BigDecimal[] result = new BigDecimal[value.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = decimal(value.get(i));
+        }
+        return result;
+    }
+
+    private static String text(JsonNode value) {
+        if (value == null || value.isNull() || value.isContainerNode()) {
+            throw new IllegalArgumentException("expected a value but got " + value);
+        }
+        return value.asText();
+    }
+
+    private static List<String> texts(JsonNode value) {
+        if (value == null || !value.isArray()) {
+            return List.of(text(value));
+        }
+        List<String> result = new ArrayList<>(value.size());
+        value.forEach(v -> result.add(text(v)));
+        return result;
+    }
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        try {
+            return new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
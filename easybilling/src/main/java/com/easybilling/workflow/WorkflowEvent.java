@@ -0,0 +1,57 @@
+package com.easybilling.workflow;
+
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.InvoiceItem;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A business event evaluated against the tenant's workflows for its trigger.
+ * Common fields are typed so compiled conditions read them without conversion;
+ * anything else travels in {@link #attributes}.
+ */
+@Getter
+@Builder
+public class WorkflowEvent {
+
+    private final Integer tenantId;
+    private final String triggerEvent;
+    private final String entityId;
+    private final String userId;
+    private final String customerId;
+    private final String storeId;
+    private final String status;
+    private final BigDecimal amount;
+    private final BigDecimal balanceAmount;
+    private final Long quantity;
+
+    @Builder.Default
+    private final Map<String, Object> attributes = Map.of();
+
+    /**
+     * Event for an invoice trigger, carrying the invoice's status, amounts and total quantity.
+     */
+    public static WorkflowEvent forInvoice(Invoice invoice, String trigger, String userId, Map<String, Object> attributes) {
+        return WorkflowEvent.builder()
+                .tenantId(invoice.getTenantId())
+                .triggerEvent(trigger)
+                .entityId(invoice.getId())
+                .userId(userId)
+                .customerId(invoice.getCustomerId())
+                .storeId(invoice.getStoreId())
+                .status(invoice.getStatus() != null ? invoice.getStatus().name() : null)
+                .amount(invoice.getTotalAmount())
+                .balanceAmount(invoice.getBalanceAmount())
+                .quantity(invoice.getItems().stream()
+                        .map(InvoiceItem::getQuantity)
+                        .filter(Objects::nonNull)
+                        .mapToLong(Integer::longValue)
+                        .sum())
+                .attributes(attributes)
+                .build();
+    }
+}
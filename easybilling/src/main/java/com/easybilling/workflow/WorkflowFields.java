@@ -0,0 +1,79 @@
+package com.easybilling.workflow;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Field accessors available to workflow conditions and message templates. Names are matched
+ * case-insensitively with underscores ignored, so "totalAmount" and "total_amount" are the same
+ * field. Names that are not typed fields resolve to the event attribute of that name.
+ */
+public final class WorkflowFields {
+
+    private static final Map<String, Function<WorkflowEvent, BigDecimal>> NUMBERS = new HashMap<>();
+    private static final Map<String, Function<WorkflowEvent, String>> TEXTS = new HashMap<>();
+
+    static {
+        number(WorkflowEvent::getAmount, "amount", "totalAmount");
+        number(WorkflowEvent::getBalanceAmount, "balance", "balanceAmount");
+        number(e -> e.getQuantity() != null ? BigDecimal.valueOf(e.getQuantity()) : null, "quantity");
+        text(WorkflowEvent::getEntityId, "entityId", "id");
+        text(WorkflowEvent::getUserId, "userId");
+        text(WorkflowEvent::getCustomerId, "customerId");
+        text(WorkflowEvent::getStoreId, "storeId");
+        text(WorkflowEvent::getStatus, "status");
+        text(WorkflowEvent::getTriggerEvent, "event", "triggerEvent");
+    }
+
+    private WorkflowFields() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Typed numeric accessor for the field, or null when it is not a numeric field.
+     */
+    public static Function<WorkflowEvent, BigDecimal> number(String name) {
+        return NUMBERS.get(normalise(name));
+    }
+
+    /**
+     * Typed text accessor for the field, or null when it is not a text field.
+     */
+    public static Function<WorkflowEvent, String> text(String name) {
+        return TEXTS.get(normalise(name));
+    }
+
+    /**
+     * Accessor for any field: typed fields first, otherwise the attribute of that name.
+     */
+    public static Function<WorkflowEvent, Object> any(String name) {
+        Function<WorkflowEvent, BigDecimal> number = number(name);
+        if (number != null) {
+            return number::apply;
+        }
+        Function<WorkflowEvent, String> text = text(name);
+        if (text != null) {
+            return text::apply;
+        }
+        return e -> e.getAttributes().get(name);
+    }
+
+    private static void number(Function<WorkflowEvent, BigDecimal> accessor, String... names) {
+        for (String name : names) {
+            NUMBERS.put(normalise(name), accessor);
+        }
+    }
+
+    private static void text(Function<WorkflowEvent, String> accessor, String... names) {
+        for (String name : names) {
+            TEXTS.put(normalise(name), accessor);
+        }
+    }
+
+    private static String normalise(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,362 @@
+package com.easybilling.cache;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.dto.InvoiceItemRequest;
+import com.easybilling.dto.InvoiceRequest;
+import com.easybilling.dto.InvoiceResponse;
+import com.easybilling.dto.PaymentRequest;
+import com.easybilling.dto.ProductResponse;
+import com.easybilling.entity.Brand;
+import com.easybilling.entity.Category;
+import com.easybilling.entity.GstRate;
+import com.easybilling.entity.Product;
+import com.easybilling.entity.SecurityGroup;
+import com.easybilling.entity.Stock;
+import com.easybilling.enums.PaymentMode;
+import com.easybilling.filter.TenantFilterInstaller;
+import com.easybilling.repository.BrandRepository;
+import com.easybilling.repository.CategoryRepository;
+import com.easybilling.repository.CustomFieldRepository;
+import com.easybilling.repository.CustomFieldValueRepository;
+import com.easybilling.repository.DomainEventRepository;
+import com.easybilling.repository.GstRateRepository;
+import com.easybilling.repository.HeldInvoiceRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.repository.InvoiceSequenceRepository;
+import com.easybilling.repository.ProductRepository;
+import com.easybilling.repository.SecurityGroupRepository;
+import com.easybilling.repository.StockMovementRepository;
+import com.easybilling.repository.StockRepository;
+import com.easybilling.service.AccountsReceivableService;
+import com.easybilling.service.BillingService;
+import com.easybilling.service.ConfigurationService;
+import com.easybilling.service.CustomFieldService;
+import com.easybilling.service.DomainEventPublisher;
+import com.easybilling.service.InventoryService;
+import com.easybilling.service.InvoiceNumberService;
+import com.easybilling.service.PerformanceMetricsService;
+import com.easybilling.service.SalesSketchService;
+import com.easybilling.service.TenantSettings;
+import com.easybilling.service.WebhookService;
+import com.easybilling.service.WorkflowEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cached reference lookups stop reaching the database, changes are seen on the next lookup, and
+ * the tenant filter still applies to entities served from the second-level cache. The statement
+ * counts of a product page and a checkout pin what each costs once the cache is warm.
+ */
+@DataJpaTest(showSql = false, properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TenantFilterInstaller.class)
+class LocalRegionFactoryTest {
+
+    private static final int TENANT_A = 1;
+    private static final int TENANT_B = 2;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private GstRateRepository gstRateRepository;
+
+    @Autowired
+    private SecurityGroupRepository securityGroupRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private InvoiceSequenceRepository invoiceSequenceRepository;
+
+    @Autowired
+    private DomainEventRepository domainEventRepository;
+
+    @Autowired
+    private CustomFieldRepository customFieldRepository;
+
+    @Autowired
+    private CustomFieldValueRepository customFieldValueRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Statistics statistics;
+    private TransactionTemplate transactionTemplate;
+    private InventoryService inventoryService;
+    private BillingService billingService;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        TenantSettings settings = mock(TenantSettings.class);
+        when(settings.invoicePrefix()).thenReturn("INV");
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getSettings(anyInt())).thenReturn(settings);
+        DomainEventPublisher domainEventPublisher = new DomainEventPublisher(domainEventRepository, objectMapper,
+                event -> { });
+        ReflectionTestUtils.setField(domainEventPublisher, "partitions", 16);
+        CustomFieldService customFieldService = new CustomFieldService(customFieldRepository,
+                customFieldValueRepository);
+        inventoryService = new InventoryService(productRepository, categoryRepository, brandRepository,
+                stockRepository, stockMovementRepository, configurationService, customFieldService,
+                mock(SalesSketchService.class), domainEventPublisher);
+        AccountsReceivableService accountsReceivableService = mock(AccountsReceivableService.class);
+        when(accountsReceivableService.dueDateFor(anyInt(), any())).thenReturn(LocalDate.now().plusDays(30));
+        billingService = new BillingService(invoiceRepository, mock(HeldInvoiceRepository.class), objectMapper,
+                inventoryService, mock(PerformanceMetricsService.class), accountsReceivableService,
+                mock(WebhookService.class), mock(WorkflowEngine.class), domainEventPublisher,
+                new InvoiceNumberService(configurationService, invoiceSequenceRepository), customFieldService);
+        ReflectionTestUtils.setField(billingService, "entityManager", entityManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        entityManagerFactory.getCache().evictAll();
+        for (String table : List.of("domain_events", "payments", "invoice_items", "invoices", "invoice_sequences",
+                "custom_field_values", "stock_movements", "stock", "products", "brands", "categories", "gst_rates",
+                "security_group_permissions", "security_groups")) {
+            jdbc.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        Brand brand = brandRepository.save(brand("Acme", TENANT_A));
+        brandRepository.save(brand("Globex", TENANT_A));
+        entityManagerFactory.getCache().evictAll();
+        TenantContext.setTenantId(TENANT_A);
+
+        statistics.clear();
+        assertThat(brandRepository.findByTenantIdAndIsActive(TENANT_A, true)).hasSize(2);
+        assertThat(brandRepository.findById(brand.getId())).isPresent();
+        long cold = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        for (int i = 0; i < 10; i++) {
+            assertThat(brandRepository.findByTenantIdAndIsActive(TENANT_A, true)).hasSize(2);
+            assertThat(brandRepository.findById(brand.getId())).isPresent();
+        }
+
+        assertThat(cold).isPositive();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(10);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void changesAreSeenOnTheNextLookup() {
+        Brand brand = brandRepository.save(brand("Acme", TENANT_A));
+        TenantContext.setTenantId(TENANT_A);
+        assertThat(brandRepository.findByTenantIdAndIsActive(TENANT_A, true)).hasSize(1);
+
+        brandRepository.save(brand("Globex", TENANT_A));
+        brand.setName("Acme Ltd");
+        brandRepository.save(brand);
+
+        assertThat(brandRepository.findByTenantIdAndIsActive(TENANT_A, true))
+                .extracting(Brand::getName).containsExactlyInAnyOrder("Acme Ltd", "Globex");
+        assertThat(brandRepository.findById(brand.getId())).get().extracting(Brand::getName).isEqualTo("Acme Ltd");
+    }
+
+    @Test
+    void cachedEntitiesOfAnotherTenantAreNotLoadedById() {
+        Brand brand = brandRepository.save(brand("Initech", TENANT_B));
+        Category category = new Category();
+        category.setName("Hardware");
+        category.setTenantId(TENANT_B);
+        category = categoryRepository.save(category);
+        GstRate gstRate = gstRateRepository.save(GstRate.builder()
+                .hsnCode("8471").taxCategory("GST_18")
+                .cgstRate(new BigDecimal("9")).sgstRate(new BigDecimal("9")).igstRate(new BigDecimal("18"))
+                .effectiveFrom(LocalDate.of(2024, 1, 1))
+                .tenantId(TENANT_B)
+                .build());
+        SecurityGroup group = securityGroupRepository.save(SecurityGroup.builder()
+                .name("Cashiers").tenantId(TENANT_B).build());
+
+        // Tenant B's own loads put the entities in the second-level cache
+        TenantContext.setTenantId(TENANT_B);
+        assertThat(brandRepository.findById(brand.getId())).isPresent();
+        assertThat(categoryRepository.findById(category.getId())).isPresent();
+        assertThat(gstRateRepository.findById(gstRate.getId())).isPresent();
+        assertThat(securityGroupRepository.findById(group.getId())).isPresent();
+        assertThat(entityManagerFactory.getCache().contains(Brand.class, brand.getId())).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(GstRate.class, gstRate.getId())).isTrue();
+
+        TenantContext.setTenantId(TENANT_A);
+        assertThat(brandRepository.findById(brand.getId())).isEmpty();
+        assertThat(categoryRepository.findById(category.getId())).isEmpty();
+        assertThat(gstRateRepository.findById(gstRate.getId())).isEmpty();
+        assertThat(securityGroupRepository.findById(group.getId())).isEmpty();
+
+        TenantContext.setTenantId(TENANT_B);
+        assertThat(brandRepository.findById(brand.getId())).isPresent();
+    }
+
+    @Test
+    void aWarmProductPageReadsOnlyTheProductAndItsCustomFields() {
+        Long productId = product(brandRepository.save(brand("Acme", TENANT_A)),
+                categoryRepository.save(category("Hardware", TENANT_A))).getId();
+        entityManagerFactory.getCache().evictAll();
+        TenantContext.setTenantId(TENANT_A);
+
+        long cold = statements(() -> productPage(productId));
+        long warm = statements(() -> productPage(productId));
+
+        // Product, category, brand and custom field values; then the category and brand come from the cache
+        assertThat(cold).isEqualTo(4);
+        assertThat(warm).isEqualTo(2);
+    }
+
+    @Test
+    void checkoutStatementsOnceTheCacheIsWarm() {
+        Product product = product(brandRepository.save(brand("Acme", TENANT_A)),
+                categoryRepository.save(category("Hardware", TENANT_A)));
+        Stock stock = new Stock();
+        stock.setProduct(product);
+        stock.setLocationId("store-1");
+        stock.setQuantity(new BigDecimal("100"));
+        stock.setAvailableQuantity(new BigDecimal("100"));
+        stock.setAverageCost(new BigDecimal("25.00"));
+        stock.setTenantId(TENANT_A);
+        stockRepository.save(stock);
+        TenantContext.setTenantId(TENANT_A);
+        // The first checkout of the year creates the tenant's invoice sequence
+        complete(create(product));
+
+        String[] invoiceId = new String[1];
+        long created = statements(() -> invoiceId[0] = create(product).getId());
+        long completed = statements(() -> complete(invoiceId[0]));
+
+        // Stock check and unit costs, the locked sequence row, the invoice with its item and event, custom fields
+        assertThat(created).isEqualTo(9);
+        // The invoice with its items and payments, the new payment, the event, custom fields, the invoice update
+        assertThat(completed).isEqualTo(7);
+    }
+
+    private ProductResponse productPage(Long productId) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> inventoryService.getProduct(productId, TENANT_A));
+    }
+
+    private InvoiceResponse create(Product product) {
+        InvoiceItemRequest item = new InvoiceItemRequest();
+        item.setProductId(product.getId().toString());
+        item.setProductName(product.getName());
+        item.setQuantity(2);
+        item.setUnitPrice(product.getSellingPrice());
+        InvoiceRequest request = new InvoiceRequest();
+        request.setStoreId("store-1");
+        request.setCounterId("counter-1");
+        request.setItems(List.of(item));
+        return transactionTemplate.execute(status -> billingService.createInvoice(TENANT_A, "cashier-1", request));
+    }
+
+    private void complete(InvoiceResponse invoice) {
+        complete(invoice.getId());
+    }
+
+    private void complete(String invoiceId) {
+        PaymentRequest payment = new PaymentRequest();
+        payment.setMode(PaymentMode.CASH);
+        payment.setAmount(new BigDecimal("80.00"));
+        transactionTemplate.executeWithoutResult(status ->
+                billingService.completeInvoice(TENANT_A, invoiceId, "cashier-1", List.of(payment)));
+    }
+
+    /**
+     * Statements prepared while {@code work} runs.
+     */
+    private long statements(Runnable work) {
+        statistics.clear();
+        work.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Product product(Brand brand, Category category) {
+        Product product = new Product();
+        product.setSku("SKU-1");
+        product.setName("Drill");
+        product.setBarcode("8901");
+        product.setCostPrice(new BigDecimal("25.00"));
+        product.setSellingPrice(new BigDecimal("40.00"));
+        product.setMrp(new BigDecimal("45.00"));
+        product.setUnit("PC");
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setTenantId(TENANT_A);
+        return productRepository.save(product);
+    }
+
+    private static Category category(String name, int tenantId) {
+        Category category = new Category();
+        category.setName(name);
+        category.setTenantId(tenantId);
+        return category;
+    }
+
+    private static Brand brand(String name, int tenantId) {
+        Brand brand = new Brand();
+        brand.setName(name);
+        brand.setTenantId(tenantId);
+        return brand;
+    }
+}
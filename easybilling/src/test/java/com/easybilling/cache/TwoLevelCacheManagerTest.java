@@ -0,0 +1,145 @@
+package com.easybilling.cache;
+
+import com.easybilling.util.CircuitBreaker;
+import com.easybilling.util.NodeIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes sharing one L2, with the Redis channel replaced by handing each published message to
+ * the other node. Both nodes run in this JVM, so the sender's node id is rewritten on the way, as
+ * it would differ between real nodes.
+ */
+class TwoLevelCacheManagerTest {
+
+    private static final String CHANNEL = "cache-invalidation";
+    private static final String OTHER_NODE = "other-node";
+
+    private final ConcurrentMapCacheManager redis = new ConcurrentMapCacheManager("config", "plain");
+    private final List<String> published = new ArrayList<>();
+    private final List<String> heardByB = new ArrayList<>();
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisA = mock(StringRedisTemplate.class);
+        StringRedisTemplate redisB = mock(StringRedisTemplate.class);
+        nodeA = manager(redisA);
+        nodeB = manager(redisB);
+        when(redisA.convertAndSend(eq(CHANNEL), any())).thenAnswer(call -> deliver(call.getArgument(1), nodeB));
+        when(redisB.convertAndSend(eq(CHANNEL), any())).thenAnswer(call -> deliver(call.getArgument(1), nodeA));
+        nodeB.addInvalidationListener((cache, key) -> heardByB.add(cache + "/" + key));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictionOnOneNodeDropsTheOtherNodesCopy() {
+        nodeA.getCache("config").put("tenant:1:currency", "INR");
+        assertThat(nodeB.getCache("config").get("tenant:1:currency").get()).isEqualTo("INR");
+
+        // B now answers from its L1, even when the shared tier changes under it
+        redis.getCache("config").put("tenant:1:currency", "USD");
+        assertThat(nodeB.getCache("config").get("tenant:1:currency").get()).isEqualTo("INR");
+
+        nodeA.getCache("config").evict("tenant:1:currency");
+        assertThat(published).containsExactly(NodeIdentity.NODE_ID + "\nconfig\ntenant:1:currency");
+        assertThat(heardByB).containsExactly("config/tenant:1:currency");
+        assertThat(nodeB.getCache("config").get("tenant:1:currency")).isNull();
+
+        nodeA.getCache("config").put("tenant:1:currency", "USD");
+        assertThat(nodeB.getCache("config").get("tenant:1:currency").get()).isEqualTo("USD");
+    }
+
+    @Test
+    void clearOnOneNodeClearsTheOtherNodesCache() {
+        nodeA.getCache("config").put("a", "1");
+        nodeA.getCache("config").put("b", "2");
+        nodeB.getCache("config").get("a");
+        nodeB.getCache("config").get("b");
+        redis.getCache("config").put("a", "changed");
+
+        nodeA.getCache("config").clear();
+
+        assertThat(heardByB).containsExactly("config/null");
+        assertThat(nodeB.getCache("config").get("a")).isNull();
+        assertThat(nodeB.getCache("config").get("b")).isNull();
+    }
+
+    @Test
+    void ownMessagesAreIgnored() {
+        nodeA.getCache("config").put("k", "v");
+        redis.getCache("config").put("k", "changed");
+
+        nodeA.onMessage(message(NodeIdentity.NODE_ID + "\nconfig\nk"), null);
+
+        assertThat(nodeA.getCache("config").get("k").get()).isEqualTo("v");
+    }
+
+    @Test
+    void evictionInsideATransactionIsBroadcastAfterCommit() {
+        nodeA.getCache("config").put("k", "v");
+        nodeB.getCache("config").get("k");
+
+        TransactionSynchronizationManager.initSynchronization();
+        nodeA.getCache("config").evict("k");
+        assertThat(published).isEmpty();
+        assertThat(nodeB.getCache("config").get("k").get()).isEqualTo("v");
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(published).hasSize(1);
+        assertThat(nodeB.getCache("config").get("k")).isNull();
+    }
+
+    @Test
+    void cachesNotConfiguredAsTwoLevelPassThrough() {
+        assertThat(nodeA.getCache("plain")).isSameAs(redis.getCache("plain"));
+        nodeA.getCache("plain").evict("k");
+        assertThat(published).isEmpty();
+    }
+
+    private TwoLevelCacheManager manager(StringRedisTemplate redisTemplate) {
+        return new TwoLevelCacheManager(redis, Set.of("config"), 100, Duration.ofMinutes(5), redisTemplate, CHANNEL,
+                new CircuitBreaker(3, 5000, 60_000), new SimpleMeterRegistry());
+    }
+
+    private Long deliver(Object body, TwoLevelCacheManager receiver) {
+        String text = body.toString();
+        published.add(text);
+        receiver.onMessage(message(OTHER_NODE + text.substring(text.indexOf('\n'))), null);
+        return 1L;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
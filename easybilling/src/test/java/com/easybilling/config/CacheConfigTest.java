@@ -0,0 +1,138 @@
+package com.easybilling.config;
+
+import com.easybilling.cache.EnumSetRedisSerializer;
+import com.easybilling.cache.MeteredRedisSerializer;
+import com.easybilling.dto.CustomThemeDTO;
+import com.easybilling.dto.SecurityGroupResponse;
+import com.easybilling.entity.Tenant.SubscriptionPlan;
+import com.easybilling.entity.Tenant.TenantStatus;
+import com.easybilling.enums.Permission;
+import com.easybilling.service.TenantDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The per-cache Redis codecs: every configured cache's values survive a round trip, JSON values
+ * carry no class metadata, and oversized values are refused.
+ */
+class CacheConfigTest {
+
+    private static final Instant CREATED = Instant.parse("2024-03-15T10:15:30Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<String, RedisSerializer<?>> codecs =
+            ReflectionTestUtils.invokeMethod(new CacheConfig(), "codecs", objectMapper);
+
+    @Test
+    void everyConfiguredCodecRoundTrips() {
+        Map<String, Object> samples = Map.of(
+                "config", "{\"currency\":\"INR\",\"label\":\"₹ rupee\"}",
+                "systemConfig", "maintenance=false",
+                "userPermissions", EnumSet.of(Permission.USER_READ, Permission.PRODUCT_CREATE, Permission.USER_LIST),
+                "securityGroups", List.of(securityGroup("Cashiers", Set.of(Permission.PRODUCT_READ)),
+                        securityGroup("Managers", EnumSet.of(Permission.USER_CREATE, Permission.USER_DELETE))),
+                "theme", theme(),
+                TenantDirectory.CACHE, new TenantDirectory.TenantRef(7, TenantStatus.ACTIVE, SubscriptionPlan.PRO));
+
+        assertThat(codecs.keySet()).as("a sample for every configured cache").isEqualTo(samples.keySet());
+        samples.forEach((cache, value) -> assertThat(roundTrip(codecs.get(cache), value)).as(cache).isEqualTo(value));
+    }
+
+    @Test
+    void jsonValuesCarryNoTypeMetadataOrNulls() {
+        String json = new String(serialize(codecs.get("theme"), theme()), StandardCharsets.UTF_8);
+
+        assertThat(json).doesNotContain("@class").doesNotContain("null").contains("\"themeName\":\"Dark\"");
+    }
+
+    @Test
+    void jsonValuesWrittenByANewerVersionStillRead() {
+        byte[] newer = "{\"id\":3,\"themeName\":\"Dark\",\"addedLater\":true}".getBytes(StandardCharsets.UTF_8);
+
+        Object theme = codecs.get("theme").deserialize(newer);
+
+        assertThat(theme).isEqualTo(CustomThemeDTO.builder().id(3L).themeName("Dark").build());
+    }
+
+    @Test
+    void permissionSetsAreWrittenAsConstantNames() {
+        EnumSetRedisSerializer<Permission> codec = new EnumSetRedisSerializer<>(Permission.class);
+
+        byte[] bytes = codec.serialize(EnumSet.of(Permission.USER_READ, Permission.USER_CREATE));
+
+        assertThat(new String(bytes, StandardCharsets.US_ASCII)).isEqualTo("USER_CREATE,USER_READ");
+        assertThat(codec.deserialize(codec.serialize(EnumSet.noneOf(Permission.class)))).isEmpty();
+        assertThat(codec.serialize(null)).isNull();
+        assertThat(codec.deserialize(null)).isNull();
+        assertThatThrownBy(() -> codec.deserialize("USER_READ,NOT_A_PERMISSION".getBytes(StandardCharsets.US_ASCII)))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("NOT_A_PERMISSION");
+    }
+
+    @Test
+    void meteredCodecRecordsSizesAndRefusesOversizedValues() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MeteredRedisSerializer<String> codec = new MeteredRedisSerializer<>("config", RedisSerializer.string(), 16,
+                meterRegistry);
+
+        assertThat(codec.deserialize(codec.serialize("small value"))).isEqualTo("small value");
+        assertThatThrownBy(() -> codec.serialize("a value over sixteen bytes"))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("16 byte limit");
+
+        assertThat(meterRegistry.get("cache.payload.bytes").tag("cache", "config").summary().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.payload.bytes").tag("cache", "config").summary().max()).isEqualTo(26);
+        assertThat(meterRegistry.get("cache.codec.time").tags("cache", "config", "op", "serialize").timer().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("cache.codec.time").tags("cache", "config", "op", "deserialize").timer().count())
+                .isEqualTo(1);
+    }
+
+    private static SecurityGroupResponse securityGroup(String name, Set<Permission> permissions) {
+        return SecurityGroupResponse.builder()
+                .id("sg-" + name.toLowerCase())
+                .name(name)
+                .tenantId(7)
+                .permissions(permissions)
+                .isActive(true)
+                .createdAt(CREATED)
+                .createdBy("admin")
+                .userCount(4)
+                .build();
+    }
+
+    private static CustomThemeDTO theme() {
+        return CustomThemeDTO.builder()
+                .id(3L)
+                .tenantId(7)
+                .themeName("Dark")
+                .primaryColor("#101820")
+                .customCss(".invoice { font-weight: 600; }")
+                .isActive(true)
+                .createdAt(CREATED)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] serialize(RedisSerializer<?> codec, Object value) {
+        return ((RedisSerializer<Object>) codec).serialize(value);
+    }
+
+    private static Object roundTrip(RedisSerializer<?> codec, Object value) {
+        return codec.deserialize(serialize(codec, value));
+    }
+}
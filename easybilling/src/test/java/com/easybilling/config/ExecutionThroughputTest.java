@@ -0,0 +1,163 @@
+package com.easybilling.config;
+
+import com.easybilling.context.TenantContext;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskDecorator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput and p99 latency of a burst of requests against a Hikari pool of
+ * {@value #POOL_SIZE} connections, served by Tomcat's default {@value #PLATFORM_THREADS} platform
+ * threads or by one virtual thread per request. Each request waits on a downstream call, then
+ * holds a connection for a query and the database's own latency, and runs through the
+ * {@link ExecutionConfig} task decorator as async work does. The virtual thread case runs only on
+ * a Java 21+ runtime.
+ */
+@Slf4j
+class ExecutionThroughputTest {
+
+    private static final int POOL_SIZE = 20;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int REQUESTS = 4_000;
+    private static final long DOWNSTREAM_MILLIS = 4;
+    private static final long DATABASE_MILLIS = 1;
+
+    private static HikariDataSource dataSource;
+
+    private final TaskDecorator decorator = new ExecutionConfig().contextPropagatingTaskDecorator();
+
+    @BeforeAll
+    static void createPool() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:throughput;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        config.setPoolName("throughput");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        config.setConnectionTimeout(30_000);
+        dataSource = new HikariDataSource(config);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS counters (tenant_id INT PRIMARY KEY, hits BIGINT)");
+            statement.execute("MERGE INTO counters KEY (tenant_id) VALUES (1, 0)");
+        }
+    }
+
+    @AfterAll
+    static void closePool() {
+        dataSource.close();
+    }
+
+    @Test
+    void platformThreads() throws Exception {
+        Result result = run(Executors.newFixedThreadPool(PLATFORM_THREADS));
+
+        log.info("Platform threads ({}), Hikari {}: {} requests/s, p99 {} ms", PLATFORM_THREADS, POOL_SIZE,
+                result.throughput(), result.p99Millis());
+        assertThat(result.completed()).isEqualTo(REQUESTS);
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            executor = null;
+        }
+        assumeTrue(executor != null, "virtual threads need a Java 21+ runtime");
+
+        Result result = run(executor);
+
+        log.info("Virtual threads, Hikari {}: {} requests/s, p99 {} ms", POOL_SIZE, result.throughput(),
+                result.p99Millis());
+        assertThat(result.completed()).isEqualTo(REQUESTS);
+    }
+
+    /**
+     * Submits every request at once and times each from submission to completion, so waiting for a
+     * thread counts towards its latency as waiting for a connection does.
+     */
+    private Result run(ExecutorService executor) throws Exception {
+        TenantContext.setTenantId(1);
+        try {
+            // Warm up the pool, the executor and the JIT
+            collect(submit(executor, REQUESTS / 4));
+
+            long start = System.nanoTime();
+            long[] latencies = collect(submit(executor, REQUESTS));
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return new Result(latencies.length,
+                    Math.round(latencies.length / (elapsed / 1e9)),
+                    TimeUnit.NANOSECONDS.toMillis(latencies[(int) Math.ceil(latencies.length * 0.99) - 1]));
+        } finally {
+            TenantContext.clear();
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private List<Future<Long>> submit(ExecutorService executor, int requests) {
+        List<Future<Long>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            long submitted = System.nanoTime();
+            Runnable request = decorator.decorate(this::handle);
+            futures.add(executor.submit(() -> {
+                request.run();
+                return System.nanoTime() - submitted;
+            }));
+        }
+        return futures;
+    }
+
+    private long[] collect(List<Future<Long>> futures) throws Exception {
+        long[] latencies = new long[futures.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = futures.get(i).get(60, TimeUnit.SECONDS);
+        }
+        return latencies;
+    }
+
+    private void handle() {
+        try {
+            Thread.sleep(DOWNSTREAM_MILLIS);
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "SELECT hits FROM counters WHERE tenant_id = ?")) {
+                statement.setInt(1, TenantContext.getTenantId());
+                try (ResultSet rows = statement.executeQuery()) {
+                    assertThat(rows.next()).isTrue();
+                }
+                Thread.sleep(DATABASE_MILLIS);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(int completed, long throughput, long p99Millis) {
+    }
+}
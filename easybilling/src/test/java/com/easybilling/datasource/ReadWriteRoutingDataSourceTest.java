@@ -0,0 +1,206 @@
+package com.easybilling.datasource;
+
+import com.easybilling.config.DataSourceConfig;
+import com.easybilling.context.UserContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two H2 databases stand in for the primary and the replica, each holding one row naming itself,
+ * so every query shows which pool the router picked. Wired as in {@code DataSourceConfig}: the
+ * router behind a LazyConnectionDataSourceProxy. The JPA cases bind one EntityManager across
+ * transactions as open-in-view does.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final long STICKY_MILLIS = 300;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource primary = database("rw-primary", ReadWriteRoutingDataSource.PRIMARY);
+    private final DataSource replica = database("rw-replica", ReadWriteRoutingDataSource.REPLICA);
+    private ReadWriteRoutingDataSource router;
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        router = new ReadWriteRoutingDataSource(primary, replica, 100, STICKY_MILLIS, meterRegistry);
+        router.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(router);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserContext.clear();
+        new JdbcTemplate(primary).execute("DROP ALL OBJECTS");
+        new JdbcTemplate(replica).execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        // On first use the proxy takes one connection from the default (primary) pool to read its defaults
+        assertThat(pool()).as("outside a transaction").isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        double readWriteBefore = routed(ReadWriteRoutingDataSource.PRIMARY, "read-write");
+
+        assertThat(poolIn(readOnly)).isEqualTo(ReadWriteRoutingDataSource.REPLICA);
+        assertThat(poolIn(readWrite)).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+
+        assertThat(routed(ReadWriteRoutingDataSource.REPLICA, "read-only")).isEqualTo(1);
+        assertThat(routed(ReadWriteRoutingDataSource.PRIMARY, "read-write") - readWriteBefore).isEqualTo(1);
+    }
+
+    @Test
+    void writersReadTheirOwnWritesFromThePrimary() throws InterruptedException {
+        UserContext.setUserId("writer");
+        readWrite.executeWithoutResult(status -> jdbc.update("INSERT INTO marker (name) VALUES ('written')"));
+
+        assertThat(writtenIn(readOnly)).as("writer, within the window").isEqualTo(1);
+        assertThat(routed(ReadWriteRoutingDataSource.PRIMARY, "read-your-writes")).isEqualTo(1);
+
+        UserContext.setUserId("someone-else");
+        assertThat(writtenIn(readOnly)).as("another user").isZero();
+
+        Thread.sleep(STICKY_MILLIS + 100);
+        UserContext.setUserId("writer");
+        assertThat(poolIn(readOnly)).as("writer, after the window")
+                .isEqualTo(ReadWriteRoutingDataSource.REPLICA);
+    }
+
+    @Test
+    void readsStayOnThePrimaryWhileTheReplicaIsOutOfRotation() {
+        router.setReplicaUsable(false);
+        assertThat(poolIn(readOnly)).isEqualTo(ReadWriteRoutingDataSource.PRIMARY);
+        assertThat(routed(ReadWriteRoutingDataSource.PRIMARY, "replica-lagging")).isEqualTo(1);
+
+        router.setReplicaUsable(true);
+        assertThat(poolIn(readOnly)).isEqualTo(ReadWriteRoutingDataSource.REPLICA);
+    }
+
+    @Test
+    void replicaWithoutReplicationStatusIsTakenOutOfRotation() {
+        // H2 has no SHOW REPLICA STATUS, which the monitor treats like an unreachable replica
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, router, 5, meterRegistry);
+
+        monitor.check();
+
+        assertThat(router.isReplicaUsable()).isFalse();
+        assertThat(meterRegistry.get("datasource.replica.lag.seconds").gauge().value()).isEqualTo(-1);
+    }
+
+    @Test
+    void aReadWriteTransactionAfterAReadOnlyOneInTheSameEntityManagerGoesToThePrimary() {
+        Map<String, Object> properties = new HashMap<>();
+        new DataSourceConfig().replicaConnectionHandling().customize(properties);
+
+        assertThat(poolsInOneEntityManager(properties))
+                .containsExactly(ReadWriteRoutingDataSource.REPLICA, ReadWriteRoutingDataSource.PRIMARY);
+        assertThat(new JdbcTemplate(primary).queryForObject(
+                "SELECT COUNT(*) FROM marker WHERE name = 'written'", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void holdingTheConnectionForTheEntityManagerKeepsWritesOnTheReplica() {
+        // Hibernate's default under Spring: the connection stays with the EntityManager until it closes
+        assertThat(poolsInOneEntityManager(new HashMap<>()))
+                .containsExactly(ReadWriteRoutingDataSource.REPLICA, ReadWriteRoutingDataSource.REPLICA);
+    }
+
+    /**
+     * The pool seen by a read-only transaction and then by a read-write one that inserts a row,
+     * both through a shared EntityManager that resolves to one request-scoped EntityManager.
+     */
+    private List<String> poolsInOneEntityManager(Map<String, Object> properties) {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setPackagesToScan(getClass().getPackageName());
+        factory.setPersistenceUnitName("routing");
+        factory.setJpaPropertyMap(properties);
+        factory.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = factory.getObject();
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        TransactionTemplate jpaReadOnly = new TransactionTemplate(transactionManager);
+        jpaReadOnly.setReadOnly(true);
+        TransactionTemplate jpaReadWrite = new TransactionTemplate(transactionManager);
+        EntityManager shared = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+
+        EntityManager requestScoped = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(requestScoped));
+        try {
+            String read = jpaReadOnly.execute(status -> pool(shared));
+            String written = jpaReadWrite.execute(status -> {
+                shared.createNativeQuery("INSERT INTO marker (name) VALUES ('written')").executeUpdate();
+                return pool(shared);
+            });
+            return List.of(read, written);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            requestScoped.close();
+            factory.destroy();
+        }
+    }
+
+    private static String pool(EntityManager entityManager) {
+        return (String) entityManager.createNativeQuery("SELECT name FROM marker ORDER BY id LIMIT 1")
+                .getSingleResult();
+    }
+
+    private String poolIn(TransactionTemplate transaction) {
+        return transaction.execute(status -> pool());
+    }
+
+    private long writtenIn(TransactionTemplate transaction) {
+        Long written = transaction.execute(status -> count("written"));
+        return written != null ? written : 0;
+    }
+
+    private String pool() {
+        return jdbc.queryForObject("SELECT name FROM marker ORDER BY id LIMIT 1", String.class);
+    }
+
+    private long count(String name) {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM marker WHERE name = ?", Long.class, name);
+        return count != null ? count : 0;
+    }
+
+    private double routed(String pool, String reason) {
+        return meterRegistry.get("datasource.routed").tags("pool", pool, "reason", reason).counter().count();
+    }
+
+    private static DataSource database(String name, String marker) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS marker (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20))");
+        jdbc.update("INSERT INTO marker (name) VALUES (?)", marker);
+        return dataSource;
+    }
+}
@@ -0,0 +1,166 @@
+package com.easybilling.filter;
+
+import com.easybilling.config.ExecutionConfig;
+import com.easybilling.context.TenantContext;
+import com.easybilling.entity.Customer;
+import com.easybilling.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * With {@link TenantFilterInstaller} in place, a tenant sees only its own rows whichever way the
+ * query is reached: a repository call with or without a surrounding transaction, a
+ * TransactionTemplate, or an @Async method on the application task executor.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({TenantFilterInstaller.class, ExecutionConfig.class, TenantFilterJpaDialectTest.AsyncConfig.class,
+        TenantFilterJpaDialectTest.AsyncReader.class})
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+class TenantFilterJpaDialectTest {
+
+    private static final int TENANT_A = 1;
+    private static final int TENANT_B = 2;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AsyncReader asyncReader;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        insertCustomer("a-1", TENANT_A, "9000000001");
+        insertCustomer("a-2", TENANT_A, "9000000002");
+        insertCustomer("b-1", TENANT_B, "9000000003");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        jdbc.execute("DELETE FROM customers");
+    }
+
+    @Test
+    void repositoryCallsOutsideATransactionSeeOnlyTheCurrentTenant() {
+        TenantContext.setTenantId(TENANT_A);
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+
+        assertThat(customerRepository.findById("b-1")).isEmpty();
+        assertThat(customerRepository.findByIdAndTenantId("b-1", TENANT_B)).isEmpty();
+        assertThat(customerRepository.findByTenantIdAndPhone(TENANT_B, "9000000003")).isEmpty();
+        assertThat(entityManager.createQuery("SELECT c.id FROM Customer c", String.class).getResultList())
+                .containsExactlyInAnyOrder("a-1", "a-2");
+        assertThat(customerRepository.findAll()).extracting(Customer::getId).containsExactlyInAnyOrder("a-1", "a-2");
+        assertThat(customerRepository.count()).isEqualTo(2);
+
+        TenantContext.setTenantId(TENANT_B);
+        assertThat(customerRepository.findAll()).extracting(Customer::getId).containsExactly("b-1");
+    }
+
+    @Test
+    void repositoryCallsInsideATransactionSeeOnlyTheCurrentTenant() {
+        TenantContext.setTenantId(TENANT_A);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        List<String> ids = transactionTemplate.execute(status -> {
+            assertThat(customerRepository.findById("b-1")).isEmpty();
+            assertThat(customerRepository.findByIdAndTenantId("b-1", TENANT_B)).isEmpty();
+            return customerRepository.findAll().stream().map(Customer::getId).toList();
+        });
+        assertThat(ids).containsExactlyInAnyOrder("a-1", "a-2");
+
+        transactionTemplate.setReadOnly(true);
+        TenantContext.setTenantId(TENANT_B);
+        Long count = transactionTemplate.execute(status -> customerRepository.count());
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    void systemWorkWithNoTenantSeesEveryTenant() {
+        assertThat(customerRepository.findAll()).hasSize(3);
+        Long count = new TransactionTemplate(transactionManager).execute(status -> customerRepository.count());
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    void asyncMethodsSeeOnlyTheSubmittingTenant() throws Exception {
+        TenantContext.setTenantId(TENANT_A);
+        Reading reading = asyncReader.read().get(10, TimeUnit.SECONDS);
+
+        assertThat(reading.thread()).isNotEqualTo(Thread.currentThread().getName());
+        assertThat(reading.ids()).containsExactlyInAnyOrder("a-1", "a-2");
+        assertThat(reading.idsInTransaction()).containsExactlyInAnyOrder("a-1", "a-2");
+
+        TenantContext.setTenantId(TENANT_B);
+        assertThat(asyncReader.read().get(10, TimeUnit.SECONDS).ids()).containsExactly("b-1");
+    }
+
+    private void insertCustomer(String id, int tenantId, String phone) {
+        jdbc.update("INSERT INTO customers (id, tenant_id, name, phone, segment, loyalty_points, wallet_balance, "
+                        + "total_spent, visit_count, active, created_at) VALUES (?, ?, ?, ?, 'REGULAR', 0, 0, 0, 0, TRUE, ?)",
+                id, tenantId, "Customer " + id, phone, LocalDateTime.now());
+    }
+
+    record Reading(String thread, List<String> ids, List<String> idsInTransaction) {
+    }
+
+    @TestConfiguration
+    @EnableAsync
+    static class AsyncConfig {
+    }
+
+    static class AsyncReader {
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PlatformTransactionManager transactionManager;
+
+        @Async
+        public CompletableFuture<Reading> read() {
+            List<String> ids = customerRepository.findAll().stream().map(Customer::getId).toList();
+            List<String> inTransaction = new TransactionTemplate(transactionManager).execute(status ->
+                    customerRepository.findAll().stream().map(Customer::getId).toList());
+            return CompletableFuture.completedFuture(new Reading(Thread.currentThread().getName(), ids, inTransaction));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.easybilling.filter;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times repository calls with the tenant filter applied once per transaction, as now, against the
+ * same calls with the aspect it replaced re-enabling the filter before each one. Each transaction
+ * makes {@value #CALLS_PER_TRANSACTION} lookups served from the persistence context, so the
+ * timing is dominated by per-call overhead rather than SQL.
+ */
+@Slf4j
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(TenantFilterInstaller.class)
+class TenantFilterOverheadTest {
+
+    private static final int TENANT = 1;
+    private static final int CALLS_PER_TRANSACTION = 20;
+    private static final int TRANSACTIONS = 2_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+    private CustomerRepository withAspect;
+
+    @BeforeEach
+    void setUp() {
+        jdbc.update("INSERT INTO customers (id, tenant_id, name, phone, segment, loyalty_points, wallet_balance, "
+                + "total_spent, visit_count, active, created_at) VALUES ('c-1', ?, 'Customer', '9000000001', "
+                + "'REGULAR', 0, 0, 0, 0, TRUE, ?)", TENANT, LocalDateTime.now());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(customerRepository);
+        proxyFactory.addAspect(new LegacyTenantFilterAspect(entityManager));
+        withAspect = proxyFactory.getProxy();
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        jdbc.execute("DELETE FROM customers");
+    }
+
+    @Test
+    void applyingTheFilterPerTransactionCostsLessThanPerCall() {
+        // Warm up both paths
+        run(customerRepository);
+        run(withAspect);
+
+        long dialect = Long.MAX_VALUE;
+        long aspect = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            dialect = Math.min(dialect, run(customerRepository));
+            aspect = Math.min(aspect, run(withAspect));
+        }
+
+        long calls = (long) TRANSACTIONS * CALLS_PER_TRANSACTION;
+        log.info("Repository call, best of {} rounds: {} ns per transaction of {} calls ({} ns per call); "
+                        + "with the old aspect: {} ns ({} ns per call)", ROUNDS, dialect / TRANSACTIONS,
+                CALLS_PER_TRANSACTION, dialect / calls, aspect / TRANSACTIONS, aspect / calls);
+        assertThat(dialect).isLessThan(aspect);
+    }
+
+    /**
+     * Nanoseconds to run the transactions through {@code repository}.
+     */
+    private long run(CustomerRepository repository) {
+        long start = System.nanoTime();
+        for (int t = 0; t < TRANSACTIONS; t++) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int c = 0; c < CALLS_PER_TRANSACTION; c++) {
+                    if (repository.findById("c-1").isEmpty()) {
+                        throw new IllegalStateException("Customer not visible to its tenant");
+                    }
+                }
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The aspect as it was before the filter moved into {@link TenantFilterJpaDialect}.
+     */
+    @Aspect
+    static class LegacyTenantFilterAspect {
+
+        private final EntityManager entityManager;
+
+        LegacyTenantFilterAspect(EntityManager entityManager) {
+            this.entityManager = entityManager;
+        }
+
+        @Before("execution(* com.easybilling.repository..*(..))")
+        public void enableTenantFilter() {
+            Integer tenantId = TenantContext.getTenantId();
+            if (tenantId != null) {
+                Session session = entityManager.unwrap(Session.class);
+                org.hibernate.Filter filter = session.enableFilter("tenantFilter");
+                filter.setParameter("tenantId", tenantId);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.easybilling.interceptor;
+
+import com.easybilling.service.TenantDirectory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A general lane of one permit and no tenant, so a second request is refused while the first
+ * holds it.
+ */
+class BulkheadInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BulkheadInterceptor interceptor =
+            new BulkheadInterceptor(mock(TenantDirectory.class), meterRegistry, new MockEnvironment());
+    private final HandlerMethod handler = handler();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(interceptor, "checkoutReserved", 0);
+        ReflectionTestUtils.setField(interceptor, "defaultTenantMaxConcurrent", 6);
+        ReflectionTestUtils.setField(interceptor, "defaultQueueTimeoutMs", 10L);
+        ReflectionTestUtils.invokeMethod(interceptor, "init");
+    }
+
+    @Test
+    void aFullLaneRefusesWith429UntilThePermitIsReleased() throws Exception {
+        MockHttpServletRequest first = new MockHttpServletRequest();
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(first, firstResponse, handler)).isTrue();
+
+        MockHttpServletRequest refused = new MockHttpServletRequest();
+        MockHttpServletResponse refusedResponse = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(refused, refusedResponse, handler)).isFalse();
+        assertThat(refusedResponse.getStatus()).isEqualTo(429);
+        assertThat(refusedResponse.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.get("bulkhead.rejected").tag("lane", "general").counter().count()).isEqualTo(1);
+        // A refused request holds nothing to release
+        interceptor.afterCompletion(refused, refusedResponse, handler, null);
+        assertThat(admitted()).isFalse();
+
+        interceptor.afterCompletion(first, firstResponse, handler, null);
+        assertThat(admitted()).isTrue();
+    }
+
+    @Test
+    void anAsyncRequestHoldsItsPermitsUntilTheAsyncDispatchCompletes() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request, response, handler)).isTrue();
+        // The handler returned a StreamingResponseBody; the initial dispatch ends without afterCompletion
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        assertThat(admitted()).isFalse();
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertThat(interceptor.preHandle(request, response, handler)).isTrue();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(admitted()).isFalse();
+
+        interceptor.afterCompletion(request, response, handler, null);
+        assertThat(admitted()).isTrue();
+        assertThat(meterRegistry.get("bulkhead.rejected").tag("lane", "general").counter().count()).isEqualTo(2);
+    }
+
+    /**
+     * Whether a new request gets the lane's permit, releasing it again if so.
+     */
+    private boolean admitted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, null);
+        return admitted;
+    }
+
+    private static HandlerMethod handler() {
+        try {
+            return new HandlerMethod(new Object(), Object.class.getMethod("toString"));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
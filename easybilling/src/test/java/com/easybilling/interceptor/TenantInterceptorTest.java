@@ -0,0 +1,87 @@
+package com.easybilling.interceptor;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.entity.Tenant.TenantStatus;
+import com.easybilling.resolver.HeaderTenantResolver;
+import com.easybilling.service.TenantDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A token's tenant cannot be switched by a header: the request is refused unless the header names
+ * the same tenant. Without a token, the header names the tenant.
+ */
+class TenantInterceptorTest {
+
+    private final TenantDirectory tenantDirectory = mock(TenantDirectory.class);
+    private final TenantInterceptor interceptor =
+            new TenantInterceptor(List.of(new HeaderTenantResolver()), tenantDirectory);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        when(tenantDirectory.statusOf(any())).thenReturn(TenantStatus.ACTIVE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void headerNamingAnotherTenantThanTheTokenIsRefused() throws Exception {
+        TenantContext.setTenantId(1);
+
+        assertThat(interceptor.preHandle(request("2"), response, null)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getErrorMessage()).isEqualTo("Tenant does not match token");
+        assertThat(TenantContext.getTenantId()).isNull();
+    }
+
+    @Test
+    void headerNamingTheTokensTenantIsAllowed() throws Exception {
+        TenantContext.setTenantId(1);
+
+        assertThat(interceptor.preHandle(request("1"), response, null)).isTrue();
+        assertThat(TenantContext.getTenantId()).isEqualTo(1);
+
+        assertThat(interceptor.preHandle(request(null), response, null)).isTrue();
+        assertThat(TenantContext.getTenantId()).isEqualTo(1);
+    }
+
+    @Test
+    void withoutATokenTheHeaderNamesTheTenant() throws Exception {
+        assertThat(interceptor.preHandle(request("2"), response, null)).isTrue();
+
+        assertThat(TenantContext.getTenantId()).isEqualTo(2);
+    }
+
+    @Test
+    void blockedTenantsAreRefused() throws Exception {
+        when(tenantDirectory.statusOf(2)).thenReturn(TenantStatus.SUSPENDED);
+
+        assertThat(interceptor.preHandle(request("2"), response, null)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(TenantContext.getTenantId()).isNull();
+    }
+
+    private static MockHttpServletRequest request(String tenantHeader) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/invoices");
+        if (tenantHeader != null) {
+            request.addHeader("X-Tenant-Id", tenantHeader);
+        }
+        return request;
+    }
+}
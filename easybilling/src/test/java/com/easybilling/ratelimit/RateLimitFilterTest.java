@@ -0,0 +1,96 @@
+package com.easybilling.ratelimit;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.context.UserContext;
+import com.easybilling.service.ConfigurationService;
+import com.easybilling.service.TenantSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Requests over a tenant's per-minute limit are refused with 429 and told when to retry; other
+ * users and route classes keep their own buckets.
+ */
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        TenantSettings settings = mock(TenantSettings.class);
+        when(settings.apiReadsPerMinute()).thenReturn(3);
+        when(settings.apiWritesPerMinute()).thenReturn(0);
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getSettings(1)).thenReturn(settings);
+
+        RateLimiter rateLimiter = new RateLimiter(mock(StringRedisTemplate.class), meterRegistry);
+        ReflectionTestUtils.setField(rateLimiter, "stripes", 4);
+        ReflectionTestUtils.invokeMethod(rateLimiter, "init");
+        filter = new RateLimitFilter(rateLimiter, configurationService, meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.invokeMethod(filter, "init");
+
+        TenantContext.setTenantId(1);
+        UserContext.setUserId("u-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        UserContext.clear();
+    }
+
+    @Test
+    void requestsOverTheLimitGet429WithRetryAfter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = send("GET");
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("3");
+            assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo(Integer.toString(2 - i));
+            assertThat(response.getHeader("RateLimit-Policy")).isEqualTo("3;w=60");
+        }
+
+        MockHttpServletResponse refused = send("GET");
+
+        assertThat(refused.getStatus()).isEqualTo(429);
+        assertThat(refused.getErrorMessage()).isEqualTo("Rate limit exceeded");
+        assertThat(refused.getHeader("RateLimit-Remaining")).isEqualTo("0");
+        // One token comes back every 20 seconds at 3 per minute
+        assertThat(Long.parseLong(refused.getHeader("Retry-After"))).isBetween(19L, 20L);
+        assertThat(meterRegistry.get("ratelimit.rejected").tag("route", "READ").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherUsersAndUnlimitedRoutesAreNotAffected() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            send("GET");
+        }
+
+        UserContext.setUserId("u-2");
+        assertThat(send("GET").getStatus()).isEqualTo(200);
+
+        // Writes have no limit configured
+        UserContext.setUserId("u-1");
+        MockHttpServletResponse write = send("POST");
+        assertThat(write.getStatus()).isEqualTo(200);
+        assertThat(write.getHeader("RateLimit-Limit")).isNull();
+    }
+
+    private MockHttpServletResponse send(String method) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, "/api/v1/invoices"), response, new MockFilterChain());
+        return response;
+    }
+}
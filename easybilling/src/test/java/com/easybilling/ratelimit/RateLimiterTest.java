@@ -0,0 +1,126 @@
+package com.easybilling.ratelimit;
+
+import com.easybilling.ratelimit.RateLimitKey.RouteClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each sync pass charges a bucket only with what other nodes admitted since the last pass that
+ * reported the key, including when the key sat out passes in between. Checking a request stays
+ * within a few microseconds when many threads hit the same bucket.
+ */
+@Slf4j
+class RateLimiterTest {
+
+    private static final RateLimitKey KEY = new RateLimitKey(1, "u-1", RouteClass.READ);
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RateLimiter rateLimiter = new RateLimiter(redisTemplate, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimiter, "stripes", 4);
+        ReflectionTestUtils.setField(rateLimiter, "redisSync", true);
+        ReflectionTestUtils.invokeMethod(rateLimiter, "init");
+    }
+
+    @Test
+    void keysIdleForAPassAreNotChargedTwice() {
+        rateLimiter.tryAcquire(KEY, 20);
+        // Ours plus 4 from other nodes
+        redisTotal(5);
+        rateLimiter.sync();
+
+        // Nothing new here, so the key is not reported
+        rateLimiter.sync();
+
+        // Ours plus 1 more from another node; only that one is charged
+        rateLimiter.tryAcquire(KEY, 20);
+        redisTotal(7);
+        rateLimiter.sync();
+        assertThat(rateLimiter.tryAcquire(KEY, 20).remaining()).isEqualTo(20 - 5 - 2 - 1);
+    }
+
+    @Test
+    void passesWithNothingToReportSkipRedis() {
+        rateLimiter.sync();
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void tryAcquireStaysWithinMicrosecondsUnderContention() throws Exception {
+        RateLimiter contended = new RateLimiter(redisTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(contended, "stripes", 64);
+        ReflectionTestUtils.invokeMethod(contended, "init");
+        int threads = 8;
+        int callsPerThread = 200_000;
+        int busyCores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // Warm up, then keep the best round
+            timeCalls(contended, executor, threads, callsPerThread);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                best = Math.min(best, timeCalls(contended, executor, threads, callsPerThread));
+            }
+
+            long nanosPerCall = best * busyCores / ((long) threads * callsPerThread);
+            log.info("tryAcquire with {} threads on {} cores: {} ns per call", threads, busyCores, nanosPerCall);
+            assertThat(nanosPerCall).isLessThan(TimeUnit.MICROSECONDS.toNanos(3));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wall-clock nanoseconds for every thread to make its calls, alternating between one bucket
+     * they all share and one of their own.
+     */
+    private static long timeCalls(RateLimiter limiter, ExecutorService executor, int threads, int calls)
+            throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        List<Future<?>> done = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            RateLimitKey own = new RateLimitKey(1, "u-" + t, RouteClass.WRITE);
+            done.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < calls; i++) {
+                    limiter.tryAcquire((i & 1) == 0 ? KEY : own, 1_000_000);
+                }
+                return null;
+            }));
+        }
+        start.await();
+        long begin = System.nanoTime();
+        for (Future<?> future : done) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private void redisTotal(long total) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(total, true));
+    }
+}
@@ -0,0 +1,92 @@
+package com.easybilling.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Buckets of "n per minute" allow a burst of n, then one request every 1/n minute as they refill.
+ */
+class TokenBucketStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final TokenBucketStore<String> store = new TokenBucketStore<>(4);
+
+    @Test
+    void burstUpToTheLimitThenRefillOneTokenPerInterval() {
+        long start = 1_000 * SECOND;
+        for (int i = 0; i < 60; i++) {
+            TokenBucketStore.Decision decision = store.tryConsume("k", 60, start);
+            assertThat(decision.allowed()).as("request %d", i).isTrue();
+            assertThat(decision.remaining()).isEqualTo(59 - i);
+        }
+
+        TokenBucketStore.Decision refused = store.tryConsume("k", 60, start);
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.retryAfterNanos()).isEqualTo(SECOND);
+        assertThat(refused.resetNanos()).isEqualTo(60 * SECOND);
+
+        // One token a second comes back
+        assertThat(store.tryConsume("k", 60, start + SECOND).allowed()).isTrue();
+        assertThat(store.tryConsume("k", 60, start + SECOND).allowed()).isFalse();
+        assertThat(store.tryConsume("k", 60, start + 3 * SECOND).remaining()).isEqualTo(1);
+
+        // A minute after the last request the bucket is full again
+        TokenBucketStore.Decision refilled = store.tryConsume("k", 60, start + 63 * SECOND);
+        assertThat(refilled.allowed()).isTrue();
+        assertThat(refilled.remaining()).isEqualTo(59);
+    }
+
+    @Test
+    void chargesFromOtherNodesEmptyTheBucketAtMost() {
+        long now = 1_000 * SECOND;
+        store.tryConsume("k", 10, now);
+
+        store.charge("k", 1_000, now);
+
+        TokenBucketStore.Decision refused = store.tryConsume("k", 10, now);
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.resetNanos()).isEqualTo(60 * SECOND);
+    }
+
+    @Test
+    void onlyBucketsWithNewRequestsAreDrained() {
+        long now = 1_000 * SECOND;
+        store.tryConsume("busy", 10, now);
+        store.tryConsume("busy", 10, now);
+        store.tryConsume("idle", 10, now);
+        drain();
+
+        store.tryConsume("busy", 10, now);
+
+        assertThat(drain()).containsExactly(Map.entry("busy", 1L));
+        assertThat(drain()).isEmpty();
+    }
+
+    @Test
+    void sweepDropsRefilledBucketsWithNothingToReport() {
+        long now = 1_000 * SECOND;
+        store.tryConsume("a", 60, now);
+        store.tryConsume("b", 60, now);
+        drain();
+        store.tryConsume("b", 60, now + 30 * SECOND);
+
+        store.sweep(now + 2 * SECOND);
+        assertThat(store.size()).isEqualTo(1);
+
+        drain();
+        store.sweep(now + 31 * SECOND);
+        assertThat(store.size()).isZero();
+    }
+
+    private Map<String, Long> drain() {
+        Map<String, Long> drained = new HashMap<>();
+        store.drainUnsynced(drained::put);
+        return drained;
+    }
+}
@@ -0,0 +1,306 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.event.DomainEventConsumer;
+import com.easybilling.repository.DomainEventPartitionRepository;
+import com.easybilling.repository.DomainEventRepository;
+import com.easybilling.repository.EventConsumerOffsetRepository;
+import com.easybilling.repository.ProcessedEventRepository;
+import com.easybilling.util.AfterCommit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Events published from concurrent transactions, some slow to commit and some rolled back, are
+ * numbered 1..n in every partition without gaps or repeats, and a consumer sees each partition
+ * in sequence order and each aggregate's events in the order they were published.
+ * <p>
+ * H2 has no UPDATE ... JOIN, so {@link DomainEventRepository#assignSequence} is replaced by an
+ * equivalent select-then-update run in the same transaction, under the same partition lock.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DomainEventDispatcherTest {
+
+    private static final int PARTITIONS = 4;
+    private static final int WRITERS = 8;
+    private static final int AGGREGATES_PER_WRITER = 5;
+    private static final int EVENTS_PER_AGGREGATE = 50;
+    private static final int EXPECTED_EVENTS = WRITERS * AGGREGATES_PER_WRITER * EVENTS_PER_AGGREGATE;
+
+    @Autowired
+    private DomainEventRepository eventRepository;
+
+    @Autowired
+    private DomainEventPartitionRepository partitionRepository;
+
+    @Autowired
+    private EventConsumerOffsetRepository offsetRepository;
+
+    @Autowired
+    private ProcessedEventRepository processedEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<Integer, List<Long>> seqsByPartition = new ConcurrentHashMap<>();
+    private final Map<String, List<Integer>> publishedOrderByAggregate = new ConcurrentHashMap<>();
+    private final AtomicInteger consumed = new AtomicInteger();
+    private final Set<String> failingAggregates = ConcurrentHashMap.newKeySet();
+    private final List<String> applied = Collections.synchronizedList(new ArrayList<>());
+    private TransactionTemplate transactionTemplate;
+    private DomainEventDispatcher dispatcher;
+    private DomainEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        DomainEventRepository events = mock(DomainEventRepository.class, delegatesTo(eventRepository));
+        doAnswer(call -> assignSequence(call.getArgument(0), call.getArgument(1), call.getArgument(2)))
+                .when(events).assignSequence(anyInt(), anyLong(), anyInt());
+
+        dispatcher = new DomainEventDispatcher(events, partitionRepository, offsetRepository,
+                processedEventRepository, List.of(new Recorder()), transactionTemplate, new ObjectMapper(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "entityManager", entityManager);
+        ReflectionTestUtils.setField(dispatcher, "partitions", PARTITIONS);
+        ReflectionTestUtils.setField(dispatcher, "threads", 4);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 25);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 10);
+        ReflectionTestUtils.setField(dispatcher, "retryBaseSeconds", 1L);
+        ReflectionTestUtils.setField(dispatcher, "retryMaxSeconds", 5L);
+        dispatcher.init();
+        dispatcher.start();
+
+        // Signals reach the dispatcher after commit, as with the @TransactionalEventListener
+        publisher = new DomainEventPublisher(eventRepository, new ObjectMapper(), event ->
+                AfterCommit.run(() -> dispatcher.onPublished((DomainEventPublisher.OutboxSignal) event)));
+        ReflectionTestUtils.setField(publisher, "partitions", PARTITIONS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+        for (String table : List.of("domain_events", "domain_event_partitions", "event_consumer_offsets",
+                "processed_events")) {
+            jdbc.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void partitionsAreNumberedWithoutGapsAndConsumedInOrder() throws Exception {
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> done = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            done.add(writers.submit(() -> publishAll(writer)));
+        }
+        for (Future<?> future : done) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        writers.shutdown();
+
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (consumed.get() < EXPECTED_EVENTS && System.nanoTime() < deadline) {
+            dispatcher.poll();
+            Thread.sleep(50);
+        }
+        assertThat(consumed).hasValue(EXPECTED_EVENTS);
+        assertThat(count("SELECT COUNT(*) FROM domain_events")).isEqualTo(EXPECTED_EVENTS);
+        assertThat(count("SELECT COUNT(*) FROM domain_events WHERE seq IS NULL")).isZero();
+
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            long events = count("SELECT COUNT(*) FROM domain_events WHERE partition_no = ?", partition);
+            List<Long> expected = LongStream.rangeClosed(1, events).boxed().toList();
+            assertThat(jdbc.queryForList("SELECT seq FROM domain_events WHERE partition_no = ? ORDER BY seq",
+                    Long.class, partition)).as("partition %d", partition).isEqualTo(expected);
+            assertThat(seqsByPartition.getOrDefault(partition, List.of())).as("partition %d", partition)
+                    .isEqualTo(expected);
+            assertThat(count("SELECT last_seq FROM domain_event_partitions WHERE partition_no = ?", partition))
+                    .isEqualTo(events);
+            assertThat(count("SELECT last_seq FROM event_consumer_offsets WHERE partition_no = ?", partition))
+                    .isEqualTo(events);
+        }
+
+        List<Integer> inOrder = IntStream.range(0, EVENTS_PER_AGGREGATE).boxed().toList();
+        assertThat(publishedOrderByAggregate).hasSize(WRITERS * AGGREGATES_PER_WRITER);
+        publishedOrderByAggregate.forEach((aggregate, order) ->
+                assertThat(order).as("aggregate %s", aggregate).isEqualTo(inOrder));
+    }
+
+    @Test
+    void replayOnlyDeliversEventsTheConsumerNeverApplied() throws InterruptedException {
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 2);
+        failingAggregates.add("broken");
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int n = 0; n < 3; n++) {
+                publisher.publish(1, "Invoice", "healthy", DomainEventType.INVOICE_COMPLETED, Map.of("n", n));
+            }
+            publisher.publish(1, "Invoice", "broken", DomainEventType.INVOICE_COMPLETED, Map.of("n", 0));
+        });
+        // The broken event fails twice, a retry interval apart, and is then skipped
+        awaitOffsets(4);
+        assertThat(applied).containsExactly("healthy-0", "healthy-1", "healthy-2");
+
+        failingAggregates.clear();
+        assertThat(dispatcher.replay("recorder", Instant.EPOCH)).isEqualTo(PARTITIONS);
+        awaitOffsets(4);
+        Thread.sleep(200);
+        dispatcher.poll();
+
+        assertThat(applied).containsExactly("healthy-0", "healthy-1", "healthy-2", "broken-0");
+        assertThat(count("SELECT COUNT(*) FROM processed_events WHERE consumer_name = 'recorder'")).isEqualTo(4);
+    }
+
+    @Test
+    void pollFindsUnsequencedPartitionsThroughTheIndex() {
+        String plan = jdbc.queryForObject(
+                "EXPLAIN SELECT partition_no FROM domain_events WHERE seq IS NULL GROUP BY partition_no", String.class);
+        assertThat(plan).contains("idx_domain_event_unsequenced");
+    }
+
+    /**
+     * Publish each of the writer's aggregates' events in order, one to three per transaction.
+     * Some transactions stay open a few milliseconds after writing, and some roll back.
+     */
+    private void publishAll(int writer) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] next = new int[AGGREGATES_PER_WRITER];
+        int remaining = AGGREGATES_PER_WRITER * EVENTS_PER_AGGREGATE;
+        while (remaining > 0) {
+            int a = random.nextInt(AGGREGATES_PER_WRITER);
+            if (next[a] == EVENTS_PER_AGGREGATE) {
+                continue;
+            }
+            String aggregate = "W" + writer + "-A" + a;
+            int batch = Math.min(random.nextInt(1, 4), EVENTS_PER_AGGREGATE - next[a]);
+            boolean rollback = random.nextInt(10) == 0;
+            int from = next[a];
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < batch; i++) {
+                    publisher.publish(1, "Invoice", aggregate, DomainEventType.INVOICE_COMPLETED,
+                            Map.of("n", rollback ? -1 : from + i));
+                }
+                if (random.nextInt(4) == 0) {
+                    sleep(random.nextInt(1, 6));
+                }
+                if (rollback) {
+                    status.setRollbackOnly();
+                }
+            });
+            if (!rollback) {
+                next[a] += batch;
+                remaining -= batch;
+            }
+        }
+    }
+
+    /**
+     * Same effect as the MySQL statement: number the partition's committed, unsequenced events
+     * in id order after {@code lastSeq}.
+     */
+    private int assignSequence(int partition, long lastSeq, int limit) {
+        List<Long> ids = jdbc.queryForList("SELECT id FROM domain_events WHERE partition_no = ? AND seq IS NULL "
+                + "ORDER BY id LIMIT ?", Long.class, partition, limit);
+        for (int i = 0; i < ids.size(); i++) {
+            jdbc.update("UPDATE domain_events SET seq = ? WHERE id = ?", lastSeq + i + 1, ids.get(i));
+        }
+        return ids.size();
+    }
+
+    private void awaitOffsets(long total) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (count("SELECT COALESCE(SUM(last_seq), 0) FROM event_consumer_offsets") < total) {
+            assertThat(System.nanoTime()).as("offsets reach %d", total).isLessThan(deadline);
+            dispatcher.poll();
+            Thread.sleep(50);
+        }
+    }
+
+    private long count(String sql, Object... args) {
+        Long value = jdbc.queryForObject(sql, Long.class, args);
+        return value != null ? value : 0;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Recorder implements DomainEventConsumer {
+
+        @Override
+        public String getName() {
+            return "recorder";
+        }
+
+        @Override
+        public boolean supports(DomainEventType type) {
+            return true;
+        }
+
+        @Override
+        public void handle(DomainEvent event, JsonNode payload) {
+            if (failingAggregates.contains(event.getAggregateId())) {
+                throw new IllegalStateException("Cannot handle " + event.getAggregateId());
+            }
+            String applies = event.getAggregateId() + "-" + payload.get("n").asInt();
+            AfterCommit.run(() -> applied.add(applies));
+            seqsByPartition.computeIfAbsent(event.getPartitionNo(), p -> new ArrayList<>()).add(event.getSeq());
+            publishedOrderByAggregate.computeIfAbsent(event.getAggregateId(), a -> new ArrayList<>())
+                    .add(payload.get("n").asInt());
+            consumed.incrementAndGet();
+        }
+    }
+}
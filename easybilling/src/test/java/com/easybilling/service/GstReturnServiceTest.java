@@ -0,0 +1,308 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Invoice;
+import com.easybilling.entity.InvoiceItem;
+import com.easybilling.enums.InvoiceStatus;
+import com.easybilling.repository.CreditNoteRepository;
+import com.easybilling.repository.GstRateRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.repository.TenantRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * GSTR-1 for a fixture month against the portal JSON expected for it (gst/gstr1-032024.json), and
+ * a timed run over a large month showing the return is streamed rather than built in memory.
+ */
+@Slf4j
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class GstReturnServiceTest {
+
+    private static final int TENANT = 1;
+    private static final int OTHER_TENANT = 2;
+    private static final LocalDateTime IN_PERIOD = LocalDateTime.of(2024, 3, 15, 11, 0);
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private CreditNoteRepository creditNoteRepository;
+
+    @Autowired
+    private GstRateRepository gstRateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GstReturnService service;
+
+    @BeforeEach
+    void setUp() {
+        TenantRepository tenantRepository = mock(TenantRepository.class);
+        when(tenantRepository.findTaxNumberById(TENANT)).thenReturn(Optional.of("27AAACE1234F1Z5"));
+        service = new GstReturnService(invoiceRepository, creditNoteRepository, tenantRepository,
+                new GstCalculationService(gstRateRepository), objectMapper);
+
+        invoiceRepository.saveAll(List.of(
+                // B2B: one registered buyer, two rates on one invoice and a second invoice
+                invoice("INV-001", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, "27AABCB5678K1Z2", "27", false,
+                        item("8471", 2, "5000.00", "18"), item("4901", 10, "100.00", "5")),
+                invoice("INV-002", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD.plusDays(1), "27AABCB5678K1Z2", "Maharashtra", false,
+                        item("8471", 1, "5000.00", "18")),
+                // B2CL: Maharashtra spelt three ways must be one place of supply
+                invoice("INV-003", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, null, "Maharashtra", true,
+                        item("8471", 30, "5000.00", "18")),
+                invoice("INV-004", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, "", "27", true,
+                        item("8471", 25, "5000.00", "18")),
+                invoice("INV-005", TENANT, InvoiceStatus.PARTIALLY_RETURNED, IN_PERIOD, null, "27-Maharashtra", true,
+                        item("8471", 40, "5000.00", "18")),
+                invoice("INV-006", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, null, "Karnataka", true,
+                        item("8471", 20, "5000.00", "18"), item("4901", 100, "100.00", "5")),
+                // B2CS: small unregistered supplies, summarised by place of supply and rate
+                invoice("INV-007", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, null, "Karnataka", true,
+                        item("4901", 10, "100.00", "5")),
+                invoice("INV-008", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, null, "29", true,
+                        item("4901", 20, "100.00", "5")),
+                invoice("INV-009", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, null, "27", false,
+                        item("8471", 1, "1000.00", "18")),
+                // Not in the return: other month, not completed, other tenant
+                invoice("INV-010", TENANT, InvoiceStatus.COMPLETED, IN_PERIOD.plusMonths(1), null, "27", false,
+                        item("8471", 1, "1000.00", "18")),
+                invoice("INV-011", TENANT, InvoiceStatus.DRAFT, IN_PERIOD, null, "27", false,
+                        item("8471", 1, "1000.00", "18")),
+                invoice("INV-012", OTHER_TENANT, InvoiceStatus.COMPLETED, IN_PERIOD, null, "Maharashtra", true,
+                        item("8471", 30, "5000.00", "18"))));
+    }
+
+    @Test
+    void gstr1MatchesFixtureMonth() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeGstr1(TENANT, YearMonth.of(2024, 3), out);
+
+        JsonNode actual = normalise(objectMapper.readTree(out.toByteArray()));
+        JsonNode expected;
+        try (InputStream in = new ClassPathResource("gst/gstr1-032024.json").getInputStream()) {
+            expected = normalise(objectMapper.readTree(in));
+        }
+        assertThat(actual.equals(GstReturnServiceTest::compareValues, expected))
+                .as("GSTR-1 JSON%nactual:   %s%nexpected: %s", actual, expected)
+                .isTrue();
+    }
+
+    @Test
+    void b2clHasOneEntryPerStateWhateverTheSpelling() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.writeGstr1(TENANT, YearMonth.of(2024, 3), out);
+
+        JsonNode b2cl = objectMapper.readTree(out.toByteArray()).get("b2cl");
+        assertThat(b2cl).extracting(pos -> pos.get("pos").asText()).containsExactly("27", "29");
+        assertThat(b2cl.get(0).get("inv")).extracting(inv -> inv.get("inum").asText())
+                .containsExactlyInAnyOrder("INV-003", "INV-004", "INV-005");
+    }
+
+    @Test
+    void largeMonthStreamsInBoundedMemory() throws Exception {
+        int invoices = 100_000;
+        insertLargeMonth(invoices);
+
+        HeapWatchingOutputStream out = new HeapWatchingOutputStream();
+        long start = System.nanoTime();
+        service.writeGstr1(TENANT, YearMonth.of(2024, 3), out);
+        // Heap sampling pauses the writer for full collections, which is not part of the run
+        long elapsed = System.nanoTime() - start - out.samplingNanos;
+
+        long retainedMb = out.peakRetained / (1024 * 1024);
+        log.info("GSTR-1 for {} invoices: {} MB of JSON in {} ms ({} invoices/s), peak retained heap {} MB",
+                invoices, out.written / (1024 * 1024), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                Math.round(invoices / (elapsed / 1e9)), retainedMb);
+        assertThat(invoices / (elapsed / 1e9)).as("invoices per second").isGreaterThan(1000);
+        assertThat(out.samples).as("heap samples taken while writing").isGreaterThan(5);
+        // Only the group being written is held, so the heap stays far below the return's own size
+        assertThat(out.peakRetained).isLessThan(out.written / 2);
+    }
+
+    /**
+     * Half the invoices go to twenty registered buyers (B2B, one entry per invoice), the other
+     * half are small local sales (B2CS); each has two lines at different rates.
+     */
+    private void insertLargeMonth(int invoices) {
+        Timestamp completedAt = Timestamp.valueOf(IN_PERIOD);
+        List<Object[]> invoiceRows = new ArrayList<>(invoices);
+        List<Object[]> itemRows = new ArrayList<>(invoices * 2);
+        for (int i = 0; i < invoices; i++) {
+            String id = "bulk-" + i;
+            String gstin = i % 2 == 0 ? String.format("27AABCB%04dK1Z2", i % 20) : null;
+            invoiceRows.add(new Object[] {id, "BULK-" + i, gstin, completedAt, completedAt});
+            itemRows.add(new Object[] {id + "-1", id, "P-8471", "Laptop", "8471", 1, "1000.00", "180.00", "1180.00",
+                    "9", "9", "90.00", "90.00"});
+            itemRows.add(new Object[] {id + "-2", id, "P-4901", "Book", "4901", 2, "100.00", "10.00", "210.00",
+                    "2.5", "2.5", "5.00", "5.00"});
+        }
+        jdbc.batchUpdate("INSERT INTO invoices (id, invoice_number, status, tenant_id, store_id, counter_id, created_by, "
+                + "customer_gstin, place_of_supply, is_interstate, subtotal, tax_amount, discount_amount, total_amount, "
+                + "completed_at, created_at) VALUES (?, ?, 'COMPLETED', 1, 'store-1', 'counter-1', 'cashier', ?, '27', "
+                + "FALSE, 1200.00, 190.00, 0, 1390.00, ?, ?)", invoiceRows);
+        jdbc.batchUpdate("INSERT INTO invoice_items (id, invoice_id, product_id, product_name, hsn_code, quantity, "
+                + "unit_price, tax_amount, line_total, cgst_rate, sgst_rate, cgst_amount, sgst_amount, tax_rate, tenant_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 18, 1)", itemRows);
+    }
+
+    /**
+     * Discards what is written, and every few megabytes collects garbage and samples the heap
+     * still in use, which is what the generator and its open result sets are holding on to.
+     */
+    private static final class HeapWatchingOutputStream extends OutputStream {
+
+        private static final long SAMPLE_EVERY = 2 * 1024 * 1024;
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long baseline;
+        private long written;
+        private long nextSample = SAMPLE_EVERY;
+        private long peakRetained;
+        private long samplingNanos;
+        private int samples;
+
+        HeapWatchingOutputStream() {
+            baseline = usedAfterGc();
+        }
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int bytes) {
+            written += bytes;
+            if (written >= nextSample) {
+                nextSample += SAMPLE_EVERY;
+                samples++;
+                long start = System.nanoTime();
+                peakRetained = Math.max(peakRetained, usedAfterGc() - baseline);
+                samplingNanos += System.nanoTime() - start;
+            }
+        }
+
+        private long usedAfterGc() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    /**
+     * Documents within a group are ordered by id, which is generated, so compare them by number.
+     */
+    private static JsonNode normalise(JsonNode gstr1) {
+        for (String section : List.of("b2b", "b2cl")) {
+            for (JsonNode group : gstr1.get(section)) {
+                List<JsonNode> invoices = new ArrayList<>();
+                group.get("inv").forEach(invoices::add);
+                invoices.sort(Comparator.comparing(inv -> inv.get("inum").asText()));
+                ((ObjectNode) group).set("inv", new ArrayNode(null, invoices));
+            }
+        }
+        return gstr1;
+    }
+
+    private static int compareValues(JsonNode a, JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue());
+        }
+        return a.equals(b) ? 0 : 1;
+    }
+
+    private static Invoice invoice(String number, int tenantId, InvoiceStatus status, LocalDateTime completedAt,
+                                   String customerGstin, String placeOfSupply, boolean interstate,
+                                   InvoiceItem... items) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal tax = BigDecimal.ZERO;
+        Invoice invoice = Invoice.builder()
+                .invoiceNumber(number)
+                .status(status)
+                .tenantId(tenantId)
+                .storeId("store-1")
+                .counterId("counter-1")
+                .createdBy("cashier")
+                .completedAt(completedAt)
+                .customerGstin(customerGstin)
+                .placeOfSupply(placeOfSupply)
+                .isInterstate(interstate)
+                .discountAmount(BigDecimal.ZERO)
+                .build();
+        for (InvoiceItem item : items) {
+            BigDecimal taxable = item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            BigDecimal itemTax = taxable.multiply(item.getTaxRate()).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            BigDecimal half = itemTax.divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+            item.setInvoice(invoice);
+            item.setTenantId(tenantId);
+            item.setTaxAmount(itemTax);
+            item.setLineTotal(taxable.add(itemTax));
+            if (interstate) {
+                item.setIgstRate(item.getTaxRate());
+                item.setIgstAmount(itemTax);
+            } else {
+                item.setCgstRate(item.getTaxRate().divide(BigDecimal.valueOf(2)));
+                item.setSgstRate(item.getTaxRate().divide(BigDecimal.valueOf(2)));
+                item.setCgstAmount(half);
+                item.setSgstAmount(itemTax.subtract(half));
+            }
+            invoice.getItems().add(item);
+            subtotal = subtotal.add(taxable);
+            tax = tax.add(itemTax);
+        }
+        invoice.setSubtotal(subtotal);
+        invoice.setTaxAmount(tax);
+        invoice.setTotalAmount(subtotal.add(tax));
+        return invoice;
+    }
+
+    private static InvoiceItem item(String hsn, int quantity, String unitPrice, String rate) {
+        return InvoiceItem.builder()
+                .productId("P-" + hsn)
+                .productName(hsn.startsWith("84") ? "Laptop" : "Book")
+                .hsnCode(hsn)
+                .quantity(quantity)
+                .unitPrice(new BigDecimal(unitPrice))
+                .taxRate(new BigDecimal(rate))
+                .build();
+    }
+}
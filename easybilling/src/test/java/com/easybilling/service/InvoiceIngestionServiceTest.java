@@ -0,0 +1,298 @@
+package com.easybilling.service;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.dto.InvoiceBatchRequest;
+import com.easybilling.dto.InvoiceBatchResponse;
+import com.easybilling.dto.InvoiceItemRequest;
+import com.easybilling.dto.InvoiceRequest;
+import com.easybilling.dto.OfflineInvoiceRequest;
+import com.easybilling.dto.PaymentRequest;
+import com.easybilling.entity.DomainEvent;
+import com.easybilling.entity.Product;
+import com.easybilling.entity.Stock;
+import com.easybilling.enums.DomainEventType;
+import com.easybilling.enums.IngestStatus;
+import com.easybilling.enums.PaymentMode;
+import com.easybilling.event.InventoryEventConsumer;
+import com.easybilling.repository.BrandRepository;
+import com.easybilling.repository.CategoryRepository;
+import com.easybilling.repository.DomainEventRepository;
+import com.easybilling.repository.InvoiceIngestKeyRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.repository.ProductRepository;
+import com.easybilling.repository.StockMovementRepository;
+import com.easybilling.repository.StockRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Offline batches: replays answer from the stored keys and change nothing, keys and numbers
+ * repeated within a batch are rejected, and stock is deducted once per store and product, with
+ * the inventory consumer leaving invoices marked stockPosted alone.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InvoiceIngestionServiceTest {
+
+    private static final int TENANT = 1;
+    private static final String USER = "cashier-1";
+    private static final String STORE_A = "store-a";
+    private static final String STORE_B = "store-b";
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private InvoiceIngestKeyRepository ingestKeyRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private DomainEventRepository domainEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LocalDateTime issuedAt = LocalDateTime.now().minusHours(2).withNano(0);
+    private TransactionTemplate transactionTemplate;
+    private InventoryService inventoryService;
+    private InvoiceIngestionService ingestionService;
+    private String soap;
+    private String rice;
+
+    @BeforeEach
+    void setUp() {
+        TenantContext.setTenantId(TENANT);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        DomainEventPublisher domainEventPublisher = new DomainEventPublisher(domainEventRepository, objectMapper,
+                event -> { });
+        ReflectionTestUtils.setField(domainEventPublisher, "partitions", 16);
+        inventoryService = new InventoryService(productRepository, mock(CategoryRepository.class),
+                mock(BrandRepository.class), stockRepository, stockMovementRepository, mock(ConfigurationService.class),
+                mock(CustomFieldService.class), mock(SalesSketchService.class), domainEventPublisher);
+        AccountsReceivableService accountsReceivableService = mock(AccountsReceivableService.class);
+        when(accountsReceivableService.dueDateFor(anyInt(), any())).thenReturn(LocalDate.now().plusDays(30));
+        ingestionService = new InvoiceIngestionService(invoiceRepository, ingestKeyRepository, inventoryService,
+                accountsReceivableService, domainEventPublisher, jdbc);
+        ReflectionTestUtils.setField(ingestionService, "maxBatchSize", 200);
+
+        soap = product("SOAP", "Soap");
+        rice = product("RICE", "Rice");
+        stock(soap, STORE_A);
+        stock(rice, STORE_A);
+        stock(soap, STORE_B);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        for (String table : List.of("domain_events", "stock_movements", "stock", "products", "invoice_ingest_keys",
+                "payments", "invoice_items", "invoices")) {
+            jdbc.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void replayingABatchReturnsTheStoredResultsAndChangesNothing() {
+        InvoiceBatchRequest batch = batch(
+                offline("k-1", "A-1", STORE_A, line(soap, 2), line(rice, 1)),
+                offline("k-2", "A-2", STORE_A, line(soap, 3)),
+                offline("k-3", "B-1", STORE_B, line(soap, 1)));
+
+        InvoiceBatchResponse first = ingest(batch);
+        InvoiceBatchResponse replay = ingest(batch);
+
+        assertThat(first.getCreated()).isEqualTo(3);
+        assertThat(replay.getCreated()).isZero();
+        assertThat(replay.getReplayed()).isEqualTo(3);
+        assertThat(replay.getResults()).extracting(InvoiceBatchResponse.Result::getStatus)
+                .containsOnly(IngestStatus.REPLAYED);
+        List<String> createdIds = first.getResults().stream().map(InvoiceBatchResponse.Result::getInvoiceId).toList();
+        assertThat(replay.getResults()).extracting(InvoiceBatchResponse.Result::getInvoiceId)
+                .containsExactlyElementsOf(createdIds);
+        assertThat(count("SELECT COUNT(*) FROM invoices")).isEqualTo(3);
+        assertThat(count("SELECT COUNT(*) FROM domain_events WHERE event_type = 'INVOICE_COMPLETED'")).isEqualTo(3);
+        assertThat(onHand(soap, STORE_A)).isEqualByComparingTo("95");
+        assertThat(onHand(rice, STORE_A)).isEqualByComparingTo("99");
+        assertThat(onHand(soap, STORE_B)).isEqualByComparingTo("99");
+    }
+
+    @Test
+    void mixedBatchesCreateOnlyTheNewValidInvoices() {
+        ingest(batch(offline("k-1", "A-1", STORE_A, line(soap, 1))));
+
+        OfflineInvoiceRequest negativePayment = offline("k-8", "A-8", STORE_A, line(soap, 1));
+        PaymentRequest refund = new PaymentRequest();
+        refund.setMode(PaymentMode.CASH);
+        refund.setAmount(new BigDecimal("-10"));
+        negativePayment.setPayments(List.of(refund));
+
+        InvoiceBatchResponse response = ingest(batch(
+                offline("k-1", "A-1", STORE_A, line(soap, 1)),
+                offline("k-4", "A-4", STORE_A, line(soap, 1)),
+                offline("k-4", "A-5", STORE_A, line(soap, 1)),
+                offline("k-5", "A-1", STORE_A, line(soap, 1)),
+                offline("k-6", "A-4", STORE_A, line(soap, 1)),
+                offline("k-7", "A-7", STORE_A),
+                negativePayment));
+
+        assertThat(response.getResults()).extracting(InvoiceBatchResponse.Result::getStatus).containsExactly(
+                IngestStatus.REPLAYED, IngestStatus.CREATED, IngestStatus.REJECTED, IngestStatus.REJECTED,
+                IngestStatus.REJECTED, IngestStatus.REJECTED, IngestStatus.REJECTED);
+        assertThat(response.getResults()).extracting(InvoiceBatchResponse.Result::getError).containsExactly(
+                null, null,
+                "Idempotency key repeated within the batch",
+                "Invoice number A-1 is already used",
+                "Invoice number A-4 is already used",
+                "Invoice has no items",
+                "Payment amounts must be positive");
+        assertThat(response.getCreated()).isEqualTo(1);
+        assertThat(response.getReplayed()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(5);
+        assertThat(jdbc.queryForList("SELECT invoice_number FROM invoices ORDER BY invoice_number", String.class))
+                .containsExactly("A-1", "A-4");
+        assertThat(onHand(soap, STORE_A)).isEqualByComparingTo("98");
+    }
+
+    @Test
+    void stockIsDeductedOncePerStoreAndProduct() throws Exception {
+        ingest(batch(
+                offline("k-1", "A-1", STORE_A, line(soap, 2), line(rice, 1)),
+                offline("k-2", "A-2", STORE_A, line(soap, 3), line(rice, 4)),
+                offline("k-3", "B-1", STORE_B, line(soap, 1)),
+                offline("k-4", "B-2", STORE_B, line(soap, 5))));
+
+        List<Map<String, Object>> movements = jdbc.queryForList("SELECT location_id, product_id, quantity "
+                + "FROM stock_movements ORDER BY location_id, product_id");
+        assertThat(movements).hasSize(3);
+        assertThat(movements).extracting(row -> row.get("location_id") + "/" + row.get("product_id") + "="
+                        + ((BigDecimal) row.get("quantity")).stripTrailingZeros().toPlainString())
+                .containsExactlyInAnyOrder(STORE_A + "/" + soap + "=5", STORE_A + "/" + rice + "=5",
+                        STORE_B + "/" + soap + "=6");
+
+        // The events say the stock is already posted, so the inventory consumer leaves it alone
+        InventoryEventConsumer consumer = new InventoryEventConsumer(inventoryService);
+        List<DomainEvent> completed = domainEventRepository.findAll().stream()
+                .filter(event -> event.getEventType() == DomainEventType.INVOICE_COMPLETED)
+                .toList();
+        assertThat(completed).hasSize(4);
+        for (DomainEvent event : completed) {
+            assertThat(objectMapper.readTree(event.getPayload()).path("stockPosted").asBoolean()).isTrue();
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    consumer.handle(event, objectMapper.readTree(event.getPayload()));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        assertThat(count("SELECT COUNT(*) FROM stock_movements")).isEqualTo(3);
+        assertThat(onHand(soap, STORE_A)).isEqualByComparingTo("95");
+        assertThat(onHand(rice, STORE_A)).isEqualByComparingTo("95");
+        assertThat(onHand(soap, STORE_B)).isEqualByComparingTo("94");
+    }
+
+    private InvoiceBatchResponse ingest(InvoiceBatchRequest batch) {
+        return transactionTemplate.execute(status -> ingestionService.ingest(TENANT, USER, batch));
+    }
+
+    private static InvoiceBatchRequest batch(OfflineInvoiceRequest... invoices) {
+        InvoiceBatchRequest batch = new InvoiceBatchRequest();
+        batch.setInvoices(List.of(invoices));
+        return batch;
+    }
+
+    private OfflineInvoiceRequest offline(String key, String number, String store, InvoiceItemRequest... items) {
+        InvoiceRequest invoice = new InvoiceRequest();
+        invoice.setStoreId(store);
+        invoice.setCounterId("counter-1");
+        invoice.setItems(new ArrayList<>(List.of(items)));
+        OfflineInvoiceRequest offline = new OfflineInvoiceRequest();
+        offline.setIdempotencyKey(key);
+        offline.setInvoiceNumber(number);
+        offline.setIssuedAt(issuedAt);
+        offline.setInvoice(invoice);
+        return offline;
+    }
+
+    private static InvoiceItemRequest line(String productId, int quantity) {
+        InvoiceItemRequest item = new InvoiceItemRequest();
+        item.setProductId(productId);
+        item.setProductName("Product " + productId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal("40.00"));
+        return item;
+    }
+
+    private String product(String sku, String name) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setBarcode("890" + sku);
+        product.setCostPrice(new BigDecimal("25.00"));
+        product.setSellingPrice(new BigDecimal("40.00"));
+        product.setMrp(new BigDecimal("45.00"));
+        product.setUnit("PC");
+        product.setTenantId(TENANT);
+        return productRepository.save(product).getId().toString();
+    }
+
+    private void stock(String productId, String store) {
+        Stock stock = new Stock();
+        stock.setProduct(productRepository.getReferenceById(Long.valueOf(productId)));
+        stock.setLocationId(store);
+        stock.setQuantity(new BigDecimal("100"));
+        stock.setAvailableQuantity(new BigDecimal("100"));
+        stock.setAverageCost(new BigDecimal("25.00"));
+        stock.setTenantId(TENANT);
+        stockRepository.save(stock);
+    }
+
+    private BigDecimal onHand(String productId, String store) {
+        return jdbc.queryForObject("SELECT quantity FROM stock WHERE product_id = ? AND location_id = ?",
+                BigDecimal.class, Long.valueOf(productId), store);
+    }
+
+    private long count(String sql) {
+        Long value = jdbc.queryForObject(sql, Long.class);
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,157 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Notification;
+import com.easybilling.enums.NotificationStatus;
+import com.easybilling.enums.NotificationType;
+import com.easybilling.notification.DeliveryResult;
+import com.easybilling.notification.NotificationProvider;
+import com.easybilling.repository.NotificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A provider that hangs holds up only the sender threads: the scheduler thread claims batches and
+ * returns at once, and stops claiming while every sender is busy.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationDispatchServiceTest {
+
+    private static final int SENDERS = 2;
+    private static final int BATCH_SIZE = 5;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final CountDownLatch providerDown = new CountDownLatch(1);
+    private final AtomicInteger sendCalls = new AtomicInteger();
+    private NotificationDispatchService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new NotificationDispatchService(notificationRepository, List.of(new HangingProvider()),
+                new TransactionTemplate(transactionManager), new MockEnvironment());
+        ReflectionTestUtils.setField(service, "maxRetries", 5);
+        ReflectionTestUtils.setField(service, "claimSeconds", 120L);
+        ReflectionTestUtils.setField(service, "maxBatchesPerChannel", 20);
+        ReflectionTestUtils.setField(service, "senderThreads", SENDERS);
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        providerDown.countDown();
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+        jdbc.execute("DELETE FROM notifications");
+    }
+
+    @Test
+    void slowProvidersDoNotHoldUpTheSchedulerThread() throws InterruptedException {
+        for (int i = 0; i < 4 * BATCH_SIZE; i++) {
+            notificationRepository.save(Notification.builder()
+                    .tenantId(1).type(NotificationType.SMS).recipient("+9190000000" + i)
+                    .subject("Reminder").message("Hi").build());
+        }
+
+        long start = System.nanoTime();
+        service.dispatch();
+        service.dispatch();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis).isLessThan(2_000);
+        awaitSendCalls(SENDERS);
+        // Only as many batches as there are senders were claimed; the rest stay queued
+        assertThat(count(NotificationStatus.SENDING)).isEqualTo(SENDERS * BATCH_SIZE);
+        assertThat(count(NotificationStatus.PENDING)).isEqualTo(2 * BATCH_SIZE);
+
+        providerDown.countDown();
+        awaitSent(SENDERS * BATCH_SIZE);
+        service.dispatch();
+        awaitSent(4 * BATCH_SIZE);
+        assertThat(sendCalls).hasValue(4);
+    }
+
+    private void awaitSendCalls(int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (sendCalls.get() < calls) {
+            assertThat(System.nanoTime()).as("%d batches reach the provider", calls).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitSent(long sent) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count(NotificationStatus.SENT) < sent) {
+            assertThat(System.nanoTime()).as("%d notifications sent", sent).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private long count(NotificationStatus status) {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM notifications WHERE status = ?", Long.class,
+                status.name());
+        return count != null ? count : 0;
+    }
+
+    private class HangingProvider implements NotificationProvider {
+
+        @Override
+        public String getName() {
+            return "hanging";
+        }
+
+        @Override
+        public boolean supports(NotificationType type) {
+            return type == NotificationType.SMS;
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return BATCH_SIZE;
+        }
+
+        @Override
+        public double permitsPerSecond() {
+            return 1_000;
+        }
+
+        @Override
+        public List<DeliveryResult> send(List<Notification> batch) {
+            sendCalls.incrementAndGet();
+            try {
+                providerDown.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Collections.nCopies(batch.size(), DeliveryResult.ok());
+        }
+    }
+}
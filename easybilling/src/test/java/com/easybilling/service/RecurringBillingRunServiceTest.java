@@ -0,0 +1,210 @@
+package com.easybilling.service;
+
+import com.easybilling.context.TenantContext;
+import com.easybilling.entity.RecurringInvoice;
+import com.easybilling.repository.CustomerRepository;
+import com.easybilling.repository.DomainEventRepository;
+import com.easybilling.repository.HeldInvoiceRepository;
+import com.easybilling.repository.InvoiceRepository;
+import com.easybilling.repository.InvoiceSequenceRepository;
+import com.easybilling.repository.RecurringInvoiceRepository;
+import com.easybilling.repository.RecurringInvoiceRunRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+/**
+ * A recurring billing run over 100,000 schedules with three workers invoices every due period
+ * exactly once, numbers each tenant's invoices without duplicates or gaps, and publishes one
+ * INVOICE_COMPLETED event per invoice. One run of this size takes a few minutes on H2.
+ * A failing chunk is retried schedule by schedule, still as the chunk's tenant.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RecurringBillingRunServiceTest {
+
+    private static final int SCHEDULES = 100_000;
+    private static final int TENANTS = 10;
+    private static final int WORKERS = 3;
+    // Every tenth schedule is a period behind, so it has two periods due
+    private static final int EXPECTED_INVOICES = SCHEDULES + SCHEDULES / 10;
+
+    @Autowired
+    private RecurringInvoiceRepository recurringInvoiceRepository;
+
+    @Autowired
+    private RecurringInvoiceRunRepository runRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private InvoiceSequenceRepository invoiceSequenceRepository;
+
+    @Autowired
+    private DomainEventRepository domainEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDate today = LocalDate.now();
+    private RecurringInvoiceService recurringInvoiceService;
+    private RecurringBillingRunService runService;
+
+    @BeforeEach
+    void setUp() {
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        for (int tenant = 1; tenant <= TENANTS; tenant++) {
+            TenantSettings settings = mock(TenantSettings.class);
+            when(settings.invoicePrefix()).thenReturn("T" + tenant);
+            when(configurationService.getSettings(tenant)).thenReturn(settings);
+        }
+        InvoiceNumberService invoiceNumberService = new InvoiceNumberService(configurationService, invoiceSequenceRepository);
+        DomainEventPublisher domainEventPublisher = new DomainEventPublisher(domainEventRepository, new ObjectMapper(), event -> { });
+        ReflectionTestUtils.setField(domainEventPublisher, "partitions", 16);
+        BillingService billingService = new BillingService(invoiceRepository, mock(HeldInvoiceRepository.class),
+                new ObjectMapper(), mock(InventoryService.class), mock(PerformanceMetricsService.class),
+                mock(AccountsReceivableService.class), mock(WebhookService.class), mock(WorkflowEngine.class),
+                domainEventPublisher, invoiceNumberService, mock(CustomFieldService.class));
+        recurringInvoiceService = new RecurringInvoiceService(recurringInvoiceRepository,
+                mock(CustomerRepository.class), billingService, runRepository);
+
+        runService = runService(recurringInvoiceService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("domain_events", "recurring_invoice_runs", "invoice_items", "invoices",
+                "invoice_sequences", "recurring_invoices")) {
+            jdbc.execute("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void everyDuePeriodIsInvoicedExactlyOnce() {
+        insertSchedules(SCHEDULES);
+
+        assertThat(runService.run(today)).isEqualTo(EXPECTED_INVOICES);
+
+        assertThat(count("SELECT COUNT(*) FROM invoices")).isEqualTo(EXPECTED_INVOICES);
+        assertThat(count("SELECT COUNT(*) FROM recurring_invoice_runs WHERE invoice_id IS NOT NULL"))
+                .isEqualTo(EXPECTED_INVOICES);
+        assertThat(count("SELECT COUNT(DISTINCT invoice_id) FROM recurring_invoice_runs")).isEqualTo(EXPECTED_INVOICES);
+        assertThat(count("SELECT COUNT(*) FROM recurring_invoices WHERE next_invoice_date <= ? OR lease_owner IS NOT NULL",
+                Date.valueOf(today))).isZero();
+        assertThat(count("SELECT COUNT(*) FROM recurring_invoices WHERE invoices_generated <> "
+                + "(SELECT COUNT(*) FROM recurring_invoice_runs r WHERE r.recurring_invoice_id = recurring_invoices.id)"))
+                .isZero();
+
+        // Each tenant's numbers run 1..n with no repeats, and the sequence row ends at n
+        List<Map<String, Object>> perTenant = jdbc.queryForList("SELECT i.tenant_id AS tenant, COUNT(*) AS invoices, "
+                + "COUNT(DISTINCT i.invoice_number) AS numbers, MAX(s.last_number) AS last_number "
+                + "FROM invoices i JOIN invoice_sequences s ON s.tenant_id = i.tenant_id GROUP BY i.tenant_id");
+        assertThat(perTenant).hasSize(TENANTS);
+        for (Map<String, Object> row : perTenant) {
+            long invoices = ((Number) row.get("invoices")).longValue();
+            assertThat(((Number) row.get("numbers")).longValue()).as("tenant %s", row.get("tenant")).isEqualTo(invoices);
+            assertThat(((Number) row.get("last_number")).longValue()).as("tenant %s", row.get("tenant")).isEqualTo(invoices);
+        }
+
+        assertThat(count("SELECT COUNT(*) FROM domain_events WHERE event_type = 'INVOICE_COMPLETED'"))
+                .isEqualTo(EXPECTED_INVOICES);
+        assertThat(count("SELECT COUNT(DISTINCT aggregate_id) FROM domain_events")).isEqualTo(EXPECTED_INVOICES);
+
+        // Nothing is left due, so running again issues nothing
+        assertThat(runService.run(today)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM invoices")).isEqualTo(EXPECTED_INVOICES);
+    }
+
+    @Test
+    void failedChunksAreRetriedAsTheirTenant() {
+        insertSchedules(TENANTS * 3);
+        String poisoned = jdbc.queryForObject("SELECT MIN(id) FROM recurring_invoices WHERE tenant_id = 4", String.class);
+        List<String> wrongTenant = new CopyOnWriteArrayList<>();
+        AtomicInteger poisonedAttempts = new AtomicInteger();
+        RecurringInvoiceService failing = spy(recurringInvoiceService);
+        doAnswer(call -> {
+            RecurringInvoice recurring = call.getArgument(0);
+            if (!recurring.getTenantId().equals(TenantContext.getTenantId())) {
+                wrongTenant.add(recurring.getId() + " ran as tenant " + TenantContext.getTenantId());
+            }
+            if (recurring.getId().equals(poisoned)) {
+                poisonedAttempts.incrementAndGet();
+                throw new IllegalStateException("poisoned schedule");
+            }
+            return call.callRealMethod();
+        }).when(failing).generateDuePeriods(any(), any(), any());
+
+        // Each tenant's three schedules are one chunk; tenant 1's are a period behind, and
+        // tenant 4's chunk fails and is retried schedule by schedule, losing only the poisoned one
+        assertThat(runService(failing).run(today)).isEqualTo(TENANTS * 3 + 3 - 1);
+
+        assertThat(wrongTenant).isEmpty();
+        assertThat(poisonedAttempts).hasValue(2);
+        assertThat(count("SELECT COUNT(*) FROM invoices WHERE tenant_id = 4")).isEqualTo(2);
+    }
+
+    private RecurringBillingRunService runService(RecurringInvoiceService recurringInvoiceService) {
+        RecurringBillingRunService service = new RecurringBillingRunService(recurringInvoiceRepository,
+                recurringInvoiceService, new TransactionTemplate(transactionManager), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "workers", WORKERS);
+        ReflectionTestUtils.setField(service, "chunkSize", 20);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 600L);
+        service.registerMetrics();
+        return service;
+    }
+
+    private void insertSchedules(int schedules) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(schedules);
+        for (int i = 0; i < schedules; i++) {
+            LocalDate next = i % 10 == 0 ? today.minusMonths(1) : today;
+            rows.add(new Object[] {UUID.randomUUID().toString(), i % TENANTS + 1, "C-" + i, "Customer " + i,
+                    "Subscription " + i, Date.valueOf(next), Date.valueOf(next), now});
+        }
+        jdbc.batchUpdate("INSERT INTO recurring_invoices (id, tenant_id, customer_id, customer_name, description, "
+                + "frequency, start_date, next_invoice_date, is_active, amount, tax_rate, total_amount, "
+                + "payment_term_days, late_grace_period_days, invoices_generated, auto_send_email, created_by, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, 'MONTHLY', ?, ?, TRUE, 1000.00, 18, 1180.00, 30, 0, 0, FALSE, 'system', ?)", rows);
+    }
+
+    private long count(String sql, Object... args) {
+        Long value = jdbc.queryForObject(sql, Long.class, args);
+        return value != null ? value : 0;
+    }
+}
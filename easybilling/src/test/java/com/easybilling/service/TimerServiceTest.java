@@ -0,0 +1,171 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.ScheduledTimer;
+import com.easybilling.enums.TimerType;
+import com.easybilling.repository.ScheduledTimerRepository;
+import com.easybilling.timer.TimerHandler;
+import com.easybilling.util.NodeIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A timer moved after this node loaded it into the wheel fires once, at its new time: the entry
+ * loaded for the old time no longer matches the row and is dropped when it comes due.
+ * <p>
+ * H2 has no IF(), so {@link ScheduledTimerRepository#upsert} is replaced by an equivalent
+ * insert-or-update with CASE.
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TimerServiceTest {
+
+    private static final int TENANT = 1;
+
+    @Autowired
+    private ScheduledTimerRepository timerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Fired> fired = new CopyOnWriteArrayList<>();
+    private ScheduledTimerRepository timers;
+    private TransactionTemplate transactionTemplate;
+    private TimerService timerService;
+
+    @BeforeEach
+    void setUp() {
+        timers = mock(ScheduledTimerRepository.class, delegatesTo(timerRepository));
+        doAnswer(call -> upsert(call.getArgument(0), call.getArgument(1), call.getArgument(2),
+                call.getArgument(3), call.getArgument(4), call.getArgument(5)))
+                .when(timers).upsert(anyInt(), anyString(), anyString(), any(), any(), any());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        StaticListableBeanFactory handlers = new StaticListableBeanFactory(Map.of("handler", new Recorder()));
+        timerService = new TimerService(handlers.getBeanProvider(TimerHandler.class), timers, transactionTemplate,
+                meterRegistry);
+        ReflectionTestUtils.setField(timerService, "enabled", true);
+        ReflectionTestUtils.setField(timerService, "threads", 2);
+        ReflectionTestUtils.setField(timerService, "tickMillis", 20L);
+        ReflectionTestUtils.setField(timerService, "horizonSeconds", 120L);
+        ReflectionTestUtils.setField(timerService, "loadBatchSize", 100);
+        ReflectionTestUtils.setField(timerService, "maxLoaded", 1_000);
+        ReflectionTestUtils.setField(timerService, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(timerService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(timerService, "retryBaseSeconds", 1L);
+        ReflectionTestUtils.setField(timerService, "retryMaxSeconds", 5L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(timerService, "stop");
+        jdbc.execute("DELETE FROM scheduled_timers");
+    }
+
+    @Test
+    void aTimerMovedAfterItWasClaimedFiresOnlyAtItsNewTime() throws InterruptedException {
+        LocalDateTime firstFireAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(400))
+                .truncatedTo(ChronoUnit.MILLIS);
+        schedule(firstFireAt);
+        timerService.start();
+        Long id = claimedTimerId();
+
+        LocalDateTime movedFireAt = firstFireAt.plusNanos(TimeUnit.MILLISECONDS.toNanos(600));
+        schedule(movedFireAt);
+        // The move drops this node's claim; loading claims the row again at its new time
+        timerService.load();
+        assertThat(claimedTimerId()).isEqualTo(id);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fired.isEmpty()) {
+            assertThat(System.nanoTime()).as("the moved timer fires").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+        Thread.sleep(200);
+
+        verify(timers).findClaimedForUpdate(eq(id), eq(NodeIdentity.NODE_ID), eq(firstFireAt));
+        assertThat(fired).hasSize(1);
+        assertThat(fired.get(0).fireAt()).isEqualTo(movedFireAt);
+        assertThat(fired.get(0).at()).isAfterOrEqualTo(movedFireAt);
+        assertThat(meterRegistry.get("timers.fired").tag("type", "QUOTE_EXPIRY").counter().count()).isEqualTo(1);
+        assertThat(timerRepository.count()).isZero();
+    }
+
+    private void schedule(LocalDateTime fireAt) {
+        transactionTemplate.executeWithoutResult(status ->
+                timerService.schedule(TENANT, TimerType.QUOTE_EXPIRY, "quote-1", fireAt, null));
+    }
+
+    /**
+     * Same effect as the MySQL statement: moving the timer drops its claim and retry count.
+     */
+    private int upsert(Integer tenantId, String timerType, String targetId, LocalDateTime fireAt, String payload,
+                       LocalDateTime now) {
+        int moved = jdbc.update("UPDATE scheduled_timers SET "
+                + "claimed_by = CASE WHEN fire_at = ? THEN claimed_by END, "
+                + "claimed_until = CASE WHEN fire_at = ? THEN claimed_until END, "
+                + "attempts = CASE WHEN fire_at = ? THEN attempts ELSE 0 END, "
+                + "tenant_id = ?, payload = ?, fire_at = ? WHERE timer_type = ? AND target_id = ?",
+                fireAt, fireAt, fireAt, tenantId, payload, fireAt, timerType, targetId);
+        if (moved > 0) {
+            return moved;
+        }
+        return jdbc.update("INSERT INTO scheduled_timers (tenant_id, timer_type, target_id, fire_at, payload, "
+                + "attempts, created_at) VALUES (?, ?, ?, ?, ?, 0, ?)", tenantId, timerType, targetId, fireAt, payload, now);
+    }
+
+    private Long claimedTimerId() {
+        return jdbc.queryForObject("SELECT id FROM scheduled_timers WHERE claimed_by = ?", Long.class,
+                NodeIdentity.NODE_ID);
+    }
+
+    private record Fired(LocalDateTime fireAt, LocalDateTime at) {
+    }
+
+    private class Recorder implements TimerHandler {
+
+        @Override
+        public TimerType getType() {
+            return TimerType.QUOTE_EXPIRY;
+        }
+
+        @Override
+        public void handle(ScheduledTimer timer) {
+            fired.add(new Fired(timer.getFireAt(), LocalDateTime.now()));
+        }
+    }
+}
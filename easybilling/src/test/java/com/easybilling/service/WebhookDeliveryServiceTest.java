@@ -0,0 +1,305 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.Webhook;
+import com.easybilling.enums.WebhookDeliveryStatus;
+import com.easybilling.repository.WebhookDeliveryRepository;
+import com.easybilling.repository.WebhookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Webhook delivery against local HTTP endpoints standing in for customer servers: one that
+ * answers at once, one that takes a while and one that always fails with a 500.
+ */
+@Slf4j
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WebhookDeliveryServiceTest {
+
+    private static final int TENANT = 1;
+    private static final String SECRET = "whsec-test";
+    private static final long DISPATCH_INTERVAL_MS = 20;
+    private static final int MAX_PER_TARGET = 32;
+    private static final long SLOW_RESPONSE_MS = 200;
+
+    @Autowired
+    private WebhookDeliveryRepository deliveryRepository;
+
+    @Autowired
+    private WebhookRepository webhookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger badSignatures = new AtomicInteger();
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private TransactionTemplate transactionTemplate;
+
+    private Endpoint fast;
+    private Endpoint slow;
+    private Endpoint failing;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        fast = start(0, 200);
+        slow = start(SLOW_RESPONSE_MS, 200);
+        failing = start(0, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+        executors.forEach(ExecutorService::shutdownNow);
+        jdbc.execute("DELETE FROM webhook_deliveries");
+        jdbc.execute("DELETE FROM webhooks");
+    }
+
+    @Test
+    void deliveriesAreSignedAndCounted() throws Exception {
+        WebhookDeliveryService service = service(5, 30);
+        Webhook webhook = webhook(fast, 3, 0);
+        enqueue(webhook, 5);
+
+        dispatchUntil(service, () -> unsettled(webhook) == 0);
+        service.flushCounters();
+
+        assertThat(fast.requests()).isEqualTo(5);
+        assertThat(badSignatures).hasValue(0);
+        assertThat(deliveryRepository.findAll()).allSatisfy(delivery -> {
+            assertThat(delivery.getStatus()).isEqualTo(WebhookDeliveryStatus.DELIVERED);
+            assertThat(delivery.getAttempts()).isEqualTo(1);
+            assertThat(delivery.getResponseStatus()).isEqualTo(200);
+            assertThat(delivery.getDeliveredAt()).isNotNull();
+        });
+        Webhook counted = webhookRepository.findById(webhook.getId()).orElseThrow();
+        assertThat(counted.getSuccessCount()).isEqualTo(5);
+        assertThat(counted.getFailureCount()).isZero();
+        assertThat(counted.getLastTriggeredAt()).isNotNull();
+    }
+
+    @Test
+    void failingTargetIsRetriedUntilRetriesRunOut() throws Exception {
+        WebhookDeliveryService service = service(1000, 30);
+        Webhook webhook = webhook(failing, 2, 0);
+        enqueue(webhook, 3);
+
+        dispatchUntil(service, () -> unsettled(webhook) == 0);
+        service.flushCounters();
+
+        // The first attempt and two retries for each delivery
+        assertThat(failing.requests()).isEqualTo(9);
+        assertThat(deliveryRepository.findAll()).allSatisfy(delivery -> {
+            assertThat(delivery.getStatus()).isEqualTo(WebhookDeliveryStatus.FAILED);
+            assertThat(delivery.getAttempts()).isEqualTo(3);
+            assertThat(delivery.getResponseStatus()).isEqualTo(500);
+            assertThat(delivery.getLastError()).isEqualTo("HTTP 500");
+        });
+        Webhook counted = webhookRepository.findById(webhook.getId()).orElseThrow();
+        assertThat(counted.getSuccessCount()).isZero();
+        assertThat(counted.getFailureCount()).isEqualTo(9);
+    }
+
+    @Test
+    void openBreakerDefersWithoutUsingRetries() throws Exception {
+        WebhookDeliveryService service = service(3, 3600);
+        Webhook webhook = webhook(failing, 5, 0);
+        enqueue(webhook, 20);
+
+        Instant breakerClosesAfter = Instant.now().plus(Duration.ofMinutes(30));
+        dispatchUntil(service, () -> deliveryRepository.findAll().stream().allMatch(delivery ->
+                delivery.getStatus() == WebhookDeliveryStatus.PENDING
+                        && delivery.getNextAttemptAt().isAfter(breakerClosesAfter)));
+
+        // Only the first wave, admitted before any failure came back, reached the target
+        assertThat(failing.requests()).isBetween(3, MAX_PER_TARGET);
+        assertThat(deliveryRepository.findAll()).allSatisfy(delivery ->
+                assertThat(delivery.getAttempts()).isLessThanOrEqualTo(1));
+        assertThat(meterRegistry.get("webhooks.breakers.open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void slowAndFailingTargetsDoNotHoldUpTheRest() throws Exception {
+        WebhookDeliveryService service = service(5, 1);
+        Webhook fastHook = webhook(fast, 3, 0);
+        Webhook slowHook = webhook(slow, 3, 0);
+        Webhook failingHook = webhook(failing, 1, 0);
+        enqueue(fastHook, 2000);
+        enqueue(slowHook, 100);
+        enqueue(failingHook, 200);
+
+        long start = System.nanoTime();
+        dispatchUntil(service, () -> unsettled(fastHook) == 0 && unsettled(slowHook) == 0);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long delivered = count("SELECT COUNT(*) FROM webhook_deliveries WHERE status = 'DELIVERED'");
+        double perSecond = delivered * 1000.0 / Math.max(1, elapsedMs);
+        log.info("Delivered {} webhooks in {} ms ({} per second); the failing target was called {} times",
+                delivered, elapsedMs, Math.round(perSecond), failing.requests());
+
+        assertThat(delivered).isEqualTo(2100);
+        assertThat(badSignatures).hasValue(0);
+        assertThat(count("SELECT COUNT(*) FROM webhook_deliveries WHERE webhook_id = ? AND status = 'DELIVERED'",
+                failingHook.getId())).isZero();
+        // The breaker keeps the failing target well short of one call per attempt
+        assertThat(failing.requests()).isLessThan(200);
+        assertThat(perSecond).isGreaterThan(50);
+    }
+
+    private WebhookDeliveryService service(int breakerFailureThreshold, long breakerOpenSeconds) {
+        WebhookDeliveryService service = new WebhookDeliveryService(deliveryRepository, webhookRepository,
+                transactionTemplate, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(service, "maxInFlight", 256);
+        ReflectionTestUtils.setField(service, "maxPerTarget", MAX_PER_TARGET);
+        ReflectionTestUtils.setField(service, "batchSize", 200);
+        ReflectionTestUtils.setField(service, "maxTimeoutSeconds", 5);
+        ReflectionTestUtils.setField(service, "connectTimeoutSeconds", 2);
+        ReflectionTestUtils.setField(service, "dispatchIntervalMs", DISPATCH_INTERVAL_MS);
+        ReflectionTestUtils.setField(service, "breakerFailureThreshold", breakerFailureThreshold);
+        ReflectionTestUtils.setField(service, "breakerOpenSeconds", breakerOpenSeconds);
+        ReflectionTestUtils.setField(service, "breakerMaxOpenSeconds", breakerOpenSeconds * 4);
+        service.init();
+        return service;
+    }
+
+    private void dispatchUntil(WebhookDeliveryService service, BooleanSupplier settled) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!settled.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("deliveries settle within a minute").isLessThan(deadline);
+            service.dispatch();
+            Thread.sleep(DISPATCH_INTERVAL_MS);
+        }
+    }
+
+    private Webhook webhook(Endpoint endpoint, int retryCount, int retryIntervalSeconds) {
+        return webhookRepository.save(Webhook.builder()
+                .tenantId(TENANT)
+                .webhookName("Hook " + endpoint.url())
+                .eventType("INVOICE_CREATED")
+                .targetUrl(endpoint.url())
+                .httpMethod("POST")
+                .secretKey(SECRET)
+                .retryCount(retryCount)
+                .retryInterval(retryIntervalSeconds)
+                .timeout(5)
+                .isActive(true)
+                .successCount(0L)
+                .failureCount(0L)
+                .build());
+    }
+
+    private void enqueue(Webhook webhook, int deliveries) {
+        Instant now = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < deliveries; i++) {
+                deliveryRepository.enqueue(TENANT, webhook.getId(), "INVOICE_CREATED", "INV-" + i,
+                        "{\"invoiceId\":\"INV-" + i + "\"}", now);
+            }
+        });
+    }
+
+    private long unsettled(Webhook webhook) {
+        return count("SELECT COUNT(*) FROM webhook_deliveries WHERE webhook_id = ? AND status IN ('PENDING', 'IN_FLIGHT')",
+                webhook.getId());
+    }
+
+    private long count(String sql, Object... args) {
+        Long value = jdbc.queryForObject(sql, Long.class, args);
+        return value != null ? value : 0;
+    }
+
+    /**
+     * A local endpoint that checks each request's signature, waits {@code delayMs} and answers
+     * with {@code status}.
+     */
+    private Endpoint start(long delayMs, int status) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_PER_TARGET);
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/hook", exchange -> {
+            try (exchange) {
+                requests.incrementAndGet();
+                if (!signatureMatches(exchange)) {
+                    badSignatures.incrementAndGet();
+                }
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+                exchange.sendResponseHeaders(status, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        servers.add(server);
+        executors.add(executor);
+        return new Endpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/hook", requests);
+    }
+
+    private static boolean signatureMatches(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String timestamp = exchange.getRequestHeaders().getFirst(WebhookDeliveryService.TIMESTAMP_HEADER);
+        String signature = exchange.getRequestHeaders().getFirst(WebhookDeliveryService.SIGNATURE_HEADER);
+        if (timestamp == null || signature == null
+                || exchange.getRequestHeaders().getFirst(WebhookDeliveryService.DELIVERY_HEADER) == null) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = mac.doFinal((timestamp + "." + body).getBytes(StandardCharsets.UTF_8));
+            return signature.equals("sha256=" + HexFormat.of().formatHex(expected));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private record Endpoint(String url, AtomicInteger counter) {
+
+        int requests() {
+            return counter.get();
+        }
+    }
+}
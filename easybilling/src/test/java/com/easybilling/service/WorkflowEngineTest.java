@@ -0,0 +1,206 @@
+package com.easybilling.service;
+
+import com.easybilling.entity.CustomWorkflow;
+import com.easybilling.repository.CustomWorkflowRepository;
+import com.easybilling.workflow.CompiledWorkflow;
+import com.easybilling.workflow.WorkflowAction;
+import com.easybilling.workflow.WorkflowCompiler;
+import com.easybilling.workflow.WorkflowEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A tenant with 100 workflows on one trigger: the set is compiled once and cached, every event is
+ * checked against all 100, and edits are picked up on the next version check.
+ */
+@Slf4j
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WorkflowEngineTest {
+
+    private static final int TENANT = 1;
+    private static final String TRIGGER = "INVOICE_CREATED";
+    private static final int WORKFLOWS = 100;
+
+    @Autowired
+    private CustomWorkflowRepository workflowRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final AtomicInteger actionRuns = new AtomicInteger();
+    private WorkflowEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        WorkflowAction record = new WorkflowAction() {
+            @Override
+            public Set<String> getTypes() {
+                return Set.of("RECORD");
+            }
+
+            @Override
+            public void execute(String type, Map<String, Object> config, WorkflowEvent event) {
+                actionRuns.incrementAndGet();
+            }
+        };
+        WorkflowCompiler compiler = new WorkflowCompiler(new ObjectMapper(), List.of(record));
+        ReflectionTestUtils.invokeMethod(compiler, "init");
+
+        engine = new WorkflowEngine(workflowRepository, compiler, new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "refreshMs", 60_000L);
+        ReflectionTestUtils.setField(engine, "actionThreads", 2);
+        ReflectionTestUtils.setField(engine, "actionQueueCapacity", 1000);
+        engine.init();
+
+        List<CustomWorkflow> workflows = new ArrayList<>();
+        for (int i = 0; i < WORKFLOWS; i++) {
+            workflows.add(workflow(TENANT, TRIGGER, i, condition(i, i * 100)));
+        }
+        // Same conditions under another trigger and another tenant, which must not be evaluated
+        workflows.add(workflow(TENANT, "INVOICE_PAID", 0, condition(0, 0)));
+        workflows.add(workflow(2, TRIGGER, 0, condition(0, 0)));
+        workflowRepository.saveAll(workflows);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.shutdown();
+        jdbc.execute("DELETE FROM custom_workflows");
+    }
+
+    @Test
+    void matchingWorkflowsRunOnceEach() throws InterruptedException {
+        // Thresholds are 0, 100, ..., 9900, so an amount of 5050 clears the first 51
+        assertThat(engine.fire(event(5050))).isEqualTo(51);
+        engine.shutdown();
+
+        assertThat(actionRuns).hasValue(51);
+        Long executions = jdbc.queryForObject("SELECT SUM(execution_count) FROM custom_workflows", Long.class);
+        assertThat(executions).isEqualTo(51);
+    }
+
+    @Test
+    void compiledSetIsCachedUntilWorkflowsChange() {
+        List<CompiledWorkflow> compiled = engine.compiled(TENANT, TRIGGER);
+        assertThat(compiled).hasSize(WORKFLOWS);
+        assertThat(compiled).extracting(CompiledWorkflow::executionOrder).isSorted();
+        assertThat(engine.compiled(TENANT, TRIGGER)).isSameAs(compiled);
+
+        // Unchanged rows keep the compiled set across a version check
+        ReflectionTestUtils.setField(engine, "refreshMs", 0L);
+        assertThat(engine.compiled(TENANT, TRIGGER)).isSameAs(compiled);
+
+        CustomWorkflow last = workflowRepository.findByTenantIdAndTriggerEventAndIsActiveTrue(TENANT, TRIGGER).stream()
+                .filter(w -> w.getExecutionOrder() == WORKFLOWS - 1)
+                .findFirst().orElseThrow();
+        last.setIsActive(false);
+        workflowRepository.save(last);
+
+        assertThat(engine.compiled(TENANT, TRIGGER)).hasSize(WORKFLOWS - 1);
+        assertThat(engine.fire(event(1_000_000))).isEqualTo(WORKFLOWS - 1);
+    }
+
+    @Test
+    void evaluatesHundredWorkflowsPerEvent() {
+        int events = 200_000;
+        // No workflow matches an amount of 0, so every event is checked against all 100
+        WorkflowEvent miss = event(0);
+        for (int i = 0; i < 20_000; i++) {
+            engine.fire(miss);
+        }
+
+        long start = System.nanoTime();
+        int matched = 0;
+        for (int i = 0; i < events; i++) {
+            matched += engine.fire(miss);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        double nanosPerEvent = (double) elapsed / events;
+        log.info("{} events against {} workflows in {} ms ({} ns per event, {} ns per workflow)",
+                events, WORKFLOWS, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                Math.round(nanosPerEvent), Math.round(nanosPerEvent / WORKFLOWS));
+        assertThat(matched).isZero();
+        assertThat(actionRuns).hasValue(0);
+        assertThat(nanosPerEvent).isLessThan(100_000);
+    }
+
+    /**
+     * Four shapes of condition that all come down to "amount above {@code threshold}" for the
+     * events used here: a COMPLETED invoice for customer C-1 with region=north.
+     */
+    private static String condition(int i, int threshold) {
+        switch (i % 4) {
+            case 0:
+                return "[{field: 'amount', operator: '>', value: " + threshold + "}]";
+            case 1:
+                return "{all: [{field: 'status', operator: 'in', value: ['COMPLETED', 'PAID']},"
+                        + " {field: 'total_amount', operator: 'gt', value: " + threshold + "}]}";
+            case 2:
+                return "{any: [{field: 'customerId', operator: 'starts_with', value: 'VIP-'},"
+                        + " {field: 'amount', operator: '>', value: '" + threshold + "'}]}";
+            default:
+                return "[{field: 'region', operator: '=', value: 'north'},"
+                        + " {not: {field: 'amount', operator: '<=', value: " + threshold + "}}]";
+        }
+    }
+
+    private static CustomWorkflow workflow(int tenantId, String trigger, int order, String conditions) {
+        return CustomWorkflow.builder()
+                .tenantId(tenantId)
+                .workflowName("Workflow " + order)
+                .triggerEvent(trigger)
+                .conditions(conditions)
+                .actions("[{type: 'RECORD'}]")
+                .executionOrder(order)
+                .isActive(true)
+                .executionCount(0L)
+                .failureCount(0L)
+                .build();
+    }
+
+    private static WorkflowEvent event(long amount) {
+        return WorkflowEvent.builder()
+                .tenantId(TENANT)
+                .triggerEvent(TRIGGER)
+                .entityId("INV-1")
+                .customerId("C-1")
+                .status("COMPLETED")
+                .amount(BigDecimal.valueOf(amount))
+                .quantity(1L)
+                .attributes(Map.of("region", "north"))
+                .build();
+    }
+}
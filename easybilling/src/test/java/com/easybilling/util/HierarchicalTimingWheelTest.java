@@ -0,0 +1,80 @@
+package com.easybilling.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A wheel of 8 ticks of 10 ms starting at t=1000, so the first level spans 80 ms, the second
+ * 640 ms and the third 5120 ms.
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final long START = 1_000;
+
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, START);
+
+    @Test
+    void itemsComeDueInDeadlineOrder() {
+        wheel.add(1_075, "d");
+        wheel.add(1_015, "a");
+        wheel.add(1_045, "c");
+        wheel.add(1_035, "b");
+
+        assertThat(wheel.advance(1_039)).containsExactly("a", "b");
+        assertThat(wheel.advance(1_100)).containsExactly("c", "d");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void farDeadlinesCascadeDownToTheirTick() {
+        wheel.add(1_245, "second level");
+        wheel.add(2_283, "third level");
+        wheel.add(1_012, "first level");
+
+        Map<String, Long> firedAt = new LinkedHashMap<>();
+        for (long now = START; now <= 2_400; now += TICK) {
+            for (String item : wheel.advance(now)) {
+                firedAt.put(item, now);
+            }
+            if (now == 1_200) {
+                // The second-level bucket came due and moved down a level instead of firing
+                assertThat(wheel.size()).isEqualTo(2);
+            }
+        }
+
+        assertThat(firedAt).containsExactly(
+                Map.entry("first level", 1_010L),
+                Map.entry("second level", 1_240L),
+                Map.entry("third level", 2_280L));
+    }
+
+    @Test
+    void deadlinesInOneTickFireTogether() {
+        wheel.add(1_051, "a");
+        wheel.add(1_059, "b");
+        wheel.add(1_055, "c");
+        wheel.add(1_060, "next tick");
+
+        assertThat(wheel.advance(1_050)).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(wheel.advance(1_059)).isEmpty();
+        assertThat(wheel.advance(1_060)).containsExactly("next tick");
+    }
+
+    @Test
+    void itemsDueWithinTheCurrentTickAreNotScheduled() {
+        assertThat(wheel.add(990, "past")).isFalse();
+        assertThat(wheel.add(1_009, "this tick")).isFalse();
+        assertThat(wheel.add(1_010, "next tick")).isTrue();
+
+        wheel.advance(1_500);
+
+        assertThat(wheel.add(1_505, "this tick")).isFalse();
+        assertThat(wheel.add(1_510, "next tick")).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+}